@@ -0,0 +1,36 @@
+package com.intrasoft.sdmx.converter.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmarks jar.
+ * <p>Runs the benchmarks selected by the usual JMH command line (all of them by default)
+ * with the GC profiler, so that next to the throughput the allocation rate per operation
+ * ({@code gc.alloc.rate.norm}) is reported. The results are also written as JSON
+ * to {@code jmh-result.json} so two runs can be compared.</p>
+ * <pre>
+ * java -jar target/benchmarks.jar                      all the benchmarks
+ * java -jar target/benchmarks.jar ReaderBenchmarks     only the readers
+ * java -jar target/benchmarks.jar -p seriesCount=10000 bigger datasets
+ * </pre>
+ */
+public final class BenchmarkRunner {
+
+	private BenchmarkRunner() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		Options options = new OptionsBuilder()
+				.parent(new CommandLineOptions(args))
+				.addProfiler(GCProfiler.class)
+				.resultFormat(ResultFormatType.JSON)
+				.result("jmh-result.json")
+				.build();
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,78 @@
+package com.intrasoft.sdmx.converter.benchmark;
+
+import org.sdmxsource.sdmx.api.factory.ReadableDataLocationFactory;
+import org.sdmxsource.sdmx.api.manager.retrieval.SdmxBeanRetrievalManager;
+import org.sdmxsource.sdmx.api.model.beans.SdmxBeans;
+import org.sdmxsource.sdmx.api.model.beans.datastructure.CrossSectionalDataStructureBean;
+import org.sdmxsource.sdmx.api.model.beans.datastructure.DataStructureBean;
+import org.sdmxsource.sdmx.api.model.header.HeaderBean;
+import org.sdmxsource.sdmx.api.util.ReadableDataLocation;
+import org.sdmxsource.sdmx.sdmxbeans.model.header.HeaderBeanImpl;
+import org.sdmxsource.sdmx.structureparser.manager.parsing.impl.StructureParsingManagerImpl;
+import org.sdmxsource.sdmx.structureretrieval.manager.InMemoryRetrievalManager;
+import org.sdmxsource.util.factory.SdmxSourceReadableDataLocationFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The structure all the benchmarks run on, parsed once per trial from the classpath,
+ * where it comes with the test jar of converter-api.
+ * <p>The structure is an SDMX 2.0 key family with cross sectional attachments,
+ * so it can be used both as a plain and as a cross sectional data structure.</p>
+ */
+public final class BenchmarkStructures {
+
+	private static final String STRUCTURE_RESOURCE = "/benchmark/BENCH_DSD_1.0.xml";
+
+	private final ReadableDataLocationFactory locationFactory = new SdmxSourceReadableDataLocationFactory();
+
+	private final DataStructureBean dataStructure;
+
+	private final SdmxBeanRetrievalManager retrievalManager;
+
+	private BenchmarkStructures(SdmxBeans structureBeans) {
+		this.dataStructure = structureBeans.getDataStructures().iterator().next();
+		this.retrievalManager = new InMemoryRetrievalManager(structureBeans);
+	}
+
+	public static BenchmarkStructures load() throws IOException {
+		try (InputStream structure = BenchmarkStructures.class.getResourceAsStream(STRUCTURE_RESOURCE)) {
+			if (structure == null) {
+				throw new IOException("Benchmark structure not found in the classpath: " + STRUCTURE_RESOURCE);
+			}
+			ReadableDataLocation location = new SdmxSourceReadableDataLocationFactory().getReadableDataLocation(structure);
+			SdmxBeans structureBeans = new StructureParsingManagerImpl().parseStructures(location).getStructureBeans(false);
+			location.close();
+			return new BenchmarkStructures(structureBeans);
+		}
+	}
+
+	public DataStructureBean getDataStructure() {
+		return dataStructure;
+	}
+
+	public CrossSectionalDataStructureBean getCrossSectionalDataStructure() {
+		if (!(dataStructure instanceof CrossSectionalDataStructureBean)) {
+			throw new IllegalStateException("The benchmark structure was not parsed as cross sectional");
+		}
+		return (CrossSectionalDataStructureBean) dataStructure;
+	}
+
+	public SdmxBeanRetrievalManager getRetrievalManager() {
+		return retrievalManager;
+	}
+
+	public HeaderBean newHeader() {
+		return new HeaderBeanImpl("BENCH", "BENCH");
+	}
+
+	/**
+	 * @param content the bytes of an input
+	 * @return a new location over the content, readers close their location so one is needed per read
+	 */
+	public ReadableDataLocation newLocation(byte[] content) {
+		return locationFactory.getReadableDataLocation(new ByteArrayInputStream(content));
+	}
+}
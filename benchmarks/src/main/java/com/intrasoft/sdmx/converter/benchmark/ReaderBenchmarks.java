@@ -0,0 +1,209 @@
+package com.intrasoft.sdmx.converter.benchmark;
+
+import com.intrasoft.sdmx.converter.io.data.csv.FLRDataReaderEngine;
+import com.intrasoft.sdmx.converter.io.data.csv.MultiLevelCsvDataReaderEngine;
+import com.intrasoft.sdmx.converter.io.data.csv.SingleLevelCsvDataReaderEngine;
+import com.intrasoft.sdmx.converter.io.data.excel.ExcelDataReaderEngine;
+import com.intrasoft.sdmx.converter.io.data.excel.ExcelInputConfigImpl;
+import org.estat.sdmxsource.engine.reader.CrossSectionalDataReaderEngine;
+import org.estat.sdmxsource.util.csv.CsvInColumnMapping;
+import org.estat.sdmxsource.util.csv.CsvInputColumnHeader;
+import org.estat.sdmxsource.util.csv.CsvInputConfig;
+import org.estat.sdmxsource.util.csv.FLRInputConfig;
+import org.estat.sdmxsource.util.csv.FixedWidth;
+import org.estat.sdmxsource.util.csv.FlrInColumnMapping;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sdmxsource.sdmx.api.engine.DataReaderEngine;
+import org.sdmxsource.sdmx.api.util.ReadableDataLocation;
+import org.sdmxsource.sdmx.dataparser.model.error.FirstFailureExceptionHandler;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads a whole synthetic dataset with each reader engine.
+ * <p>One operation is one complete read, the number of observations read is
+ * {@code seriesCount * observationsPerSeries}. The location over the in-memory input is created inside
+ * the operation, because the readers close it.</p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class ReaderBenchmarks {
+
+	@Param({"1000"})
+	public int seriesCount;
+
+	@Param({"50"})
+	public int observationsPerSeries;
+
+	@Param({"42"})
+	public long seed;
+
+	private BenchmarkStructures structures;
+
+	private byte[] singleLevelCsv;
+
+	private byte[] multiLevelCsv;
+
+	private byte[] flr;
+
+	private byte[] crossSectional;
+
+	private byte[] excel;
+
+	private CsvInputConfig singleLevelCsvConfig;
+
+	private CsvInputConfig multiLevelCsvConfig;
+
+	private FLRInputConfig flrConfig;
+
+	private ExcelInputConfigImpl excelConfig;
+
+	@Setup
+	public void prepare() throws Exception {
+		structures = BenchmarkStructures.load();
+		SyntheticDataset dataset = new SyntheticDataset(seriesCount, observationsPerSeries, seed);
+		singleLevelCsv = dataset.toSingleLevelCsv();
+		multiLevelCsv = dataset.toMultiLevelCsv();
+		flr = dataset.toFlr();
+		crossSectional = dataset.toCrossSectionalXml();
+		excel = dataset.toExcel();
+
+		singleLevelCsvConfig = new CsvInputConfig();
+		singleLevelCsvConfig.setHeader(structures.newHeader());
+		singleLevelCsvConfig.setLevelNumber("1");
+		singleLevelCsvConfig.setDelimiter(";");
+		singleLevelCsvConfig.setInputColumnHeader(CsvInputColumnHeader.USE_HEADER);
+		Map<String, CsvInColumnMapping> singleLevelMapping = new LinkedHashMap<>();
+		singleLevelMapping.put("FREQ", new CsvInColumnMapping(new Integer[]{0}, false, 1, ""));
+		singleLevelMapping.put("REF_AREA", new CsvInColumnMapping(new Integer[]{1}, false, 1, ""));
+		singleLevelMapping.put("INDICATOR", new CsvInColumnMapping(new Integer[]{2}, false, 1, ""));
+		singleLevelMapping.put("TIME_PERIOD", new CsvInColumnMapping(new Integer[]{3}, false, 1, ""));
+		singleLevelMapping.put("OBS_VALUE", new CsvInColumnMapping(new Integer[]{4}, false, 1, ""));
+		singleLevelMapping.put("OBS_STATUS", new CsvInColumnMapping(new Integer[]{5}, false, 1, ""));
+		singleLevelCsvConfig.setMapping(singleLevelMapping);
+
+		multiLevelCsvConfig = new CsvInputConfig();
+		multiLevelCsvConfig.setHeader(structures.newHeader());
+		multiLevelCsvConfig.setLevelNumber("2");
+		multiLevelCsvConfig.setDelimiter(";");
+		multiLevelCsvConfig.setInputColumnHeader(CsvInputColumnHeader.NO_HEADER);
+		Map<String, CsvInColumnMapping> multiLevelMapping = new LinkedHashMap<>();
+		multiLevelMapping.put("FREQ", new CsvInColumnMapping(new Integer[]{1}, false, 1, ""));
+		multiLevelMapping.put("REF_AREA", new CsvInColumnMapping(new Integer[]{2}, false, 1, ""));
+		multiLevelMapping.put("INDICATOR", new CsvInColumnMapping(new Integer[]{3}, false, 1, ""));
+		multiLevelMapping.put("TIME_PERIOD", new CsvInColumnMapping(new Integer[]{1}, false, 2, ""));
+		multiLevelMapping.put("OBS_VALUE", new CsvInColumnMapping(new Integer[]{2}, false, 2, ""));
+		multiLevelMapping.put("OBS_STATUS", new CsvInColumnMapping(new Integer[]{3}, false, 2, ""));
+		multiLevelCsvConfig.setMapping(multiLevelMapping);
+
+		flrConfig = new FLRInputConfig();
+		flrConfig.setHeader(structures.newHeader());
+		flrConfig.setInputColumnHeader(CsvInputColumnHeader.NO_HEADER);
+		LinkedHashMap<String, FlrInColumnMapping> flrMapping = new LinkedHashMap<>();
+		int start = 1;
+		start = addFlrColumn(flrMapping, "FREQ", start, SyntheticDataset.FREQ_WIDTH);
+		start = addFlrColumn(flrMapping, "REF_AREA", start, SyntheticDataset.AREA_WIDTH);
+		start = addFlrColumn(flrMapping, "INDICATOR", start, SyntheticDataset.INDICATOR_WIDTH);
+		start = addFlrColumn(flrMapping, "TIME_PERIOD", start, SyntheticDataset.TIME_WIDTH);
+		start = addFlrColumn(flrMapping, "OBS_VALUE", start, SyntheticDataset.VALUE_WIDTH);
+		addFlrColumn(flrMapping, "OBS_STATUS", start, SyntheticDataset.STATUS_WIDTH);
+		flrConfig.setMapping(flrMapping);
+
+		excelConfig = new ExcelInputConfigImpl();
+		excelConfig.setHeader(structures.newHeader());
+		excelConfig.setConfigInsideExcel(true);
+		excelConfig.setMappingInsideExcel(true);
+	}
+
+	@Benchmark
+	public int singleLevelCsvReader(Blackhole blackhole) {
+		ReadableDataLocation location = structures.newLocation(singleLevelCsv);
+		return drain(new SingleLevelCsvDataReaderEngine(location, structures.getDataStructure(), null,
+				structures.getRetrievalManager(), singleLevelCsvConfig, new FirstFailureExceptionHandler()), blackhole);
+	}
+
+	@Benchmark
+	public int multiLevelCsvReader(Blackhole blackhole) {
+		ReadableDataLocation location = structures.newLocation(multiLevelCsv);
+		return drain(new MultiLevelCsvDataReaderEngine(location, structures.getDataStructure(), null,
+				structures.getRetrievalManager(), multiLevelCsvConfig, new FirstFailureExceptionHandler()), blackhole);
+	}
+
+	@Benchmark
+	public int flrReader(Blackhole blackhole) {
+		ReadableDataLocation location = structures.newLocation(flr);
+		return drain(new FLRDataReaderEngine(location, structures.getDataStructure(), null,
+				structures.getRetrievalManager(), flrConfig, new FirstFailureExceptionHandler()), blackhole);
+	}
+
+	@Benchmark
+	public int excelReader(Blackhole blackhole) {
+		ReadableDataLocation location = structures.newLocation(excel);
+		return drain(new ExcelDataReaderEngine(location, structures.getRetrievalManager(), structures.getDataStructure(),
+				null, excelConfig, new FirstFailureExceptionHandler()), blackhole);
+	}
+
+	@Benchmark
+	public int crossSectionalReader(Blackhole blackhole) {
+		ReadableDataLocation location = structures.newLocation(crossSectional);
+		return drain(new CrossSectionalDataReaderEngine(location, structures.getRetrievalManager(),
+				structures.getCrossSectionalDataStructure(), null), blackhole);
+	}
+
+	/**
+	 * Moves through every dataset, key and observation of the reader and closes it.
+	 *
+	 * @return the number of observations read
+	 */
+	static int drain(DataReaderEngine reader, Blackhole blackhole) {
+		int observations = 0;
+		try {
+			while (reader.moveNextDataset()) {
+				while (reader.moveNextKeyable()) {
+					blackhole.consume(reader.getCurrentKey());
+					while (reader.moveNextObservation()) {
+						blackhole.consume(reader.getCurrentObservation());
+						observations++;
+					}
+				}
+			}
+		} finally {
+			reader.close();
+		}
+		return observations;
+	}
+
+	private static int addFlrColumn(LinkedHashMap<String, FlrInColumnMapping> mapping, String concept, int start, int width) {
+		FixedWidth position = new FixedWidth();
+		position.setConceptName(concept);
+		position.setStart(start);
+		position.setEnd(start + width - 1);
+		List<FixedWidth> positions = new ArrayList<>();
+		positions.add(position);
+		FlrInColumnMapping column = new FlrInColumnMapping();
+		column.setFixed(false);
+		column.setLevel(1);
+		column.setPositions(positions);
+		mapping.put(concept, column);
+		return start + width;
+	}
+}
@@ -0,0 +1,79 @@
+package com.intrasoft.sdmx.converter.benchmark;
+
+import com.intrasoft.sdmx.converter.io.data.TranscodingEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.LinkedHashMap;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups in the transcoding rules the flat readers and writers apply to every value.
+ * <p>One operation is one lookup, a quarter of them miss the rules.</p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TranscodingBenchmark {
+
+	private static final int LOOKUPS = 1024;
+
+	private static final String[] COMPONENTS = {"REF_AREA", "INDICATOR", "OBS_STATUS"};
+
+	@Param({"10", "1000"})
+	public int rulesPerComponent;
+
+	@Param({"42"})
+	public long seed;
+
+	private TranscodingEngine transcodingEngine;
+
+	private final String[] lookupComponents = new String[LOOKUPS];
+
+	private final String[] lookupValues = new String[LOOKUPS];
+
+	@Setup
+	public void prepare() {
+		LinkedHashMap<String, LinkedHashMap<String, String>> transcoding = new LinkedHashMap<>();
+		for (String component : COMPONENTS) {
+			LinkedHashMap<String, String> rules = new LinkedHashMap<>();
+			for (int i = 0; i < rulesPerComponent; i++) {
+				rules.put(component + "_" + i, "T_" + component + "_" + i);
+			}
+			transcoding.put(component, rules);
+		}
+		transcodingEngine = new TranscodingEngine(transcoding);
+		SplittableRandom random = new SplittableRandom(seed);
+		for (int i = 0; i < LOOKUPS; i++) {
+			String component = COMPONENTS[random.nextInt(COMPONENTS.length)];
+			lookupComponents[i] = component;
+			// values past the number of rules are not transcoded
+			lookupValues[i] = component + "_" + random.nextInt(rulesPerComponent + rulesPerComponent / 3 + 1);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(LOOKUPS)
+	public void getValueFromTranscoding(Blackhole blackhole) {
+		for (int i = 0; i < LOOKUPS; i++) {
+			if (transcodingEngine.hasTranscodingRules(lookupComponents[i])) {
+				blackhole.consume(transcodingEngine.getValueFromTranscoding(lookupComponents[i], lookupValues[i]));
+			}
+		}
+	}
+}
@@ -0,0 +1,143 @@
+package com.intrasoft.sdmx.converter.benchmark;
+
+import com.intrasoft.sdmx.converter.config.FlrOutputConfig;
+import com.intrasoft.sdmx.converter.io.data.csv.FlrDataWriterEngine;
+import com.intrasoft.sdmx.converter.io.data.csv.SingleLevelCsvDataWriterEngine;
+import com.intrasoft.sdmx.converter.io.data.excel.ExcelDataWriterEngine;
+import com.intrasoft.sdmx.converter.io.data.excel.ExcelOutputConfig;
+import com.intrasoft.sdmx.converter.services.ExcelUtils;
+import org.estat.sdmxsource.util.csv.MultiLevelCsvOutputConfig;
+import org.estat.sdmxsource.util.csv.SingleLevelCsvOutColMapping;
+import org.estat.sdmxsource.util.excel.ExcelConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sdmxsource.sdmx.api.constants.BASE_DATA_FORMAT;
+import org.sdmxsource.sdmx.api.constants.DATASET_ACTION;
+import org.sdmxsource.sdmx.api.constants.SDMX_SCHEMA;
+import org.sdmxsource.sdmx.api.model.header.DatasetHeaderBean;
+import org.sdmxsource.sdmx.dataparser.model.error.FirstFailureExceptionHandler;
+import org.sdmxsource.sdmx.sdmxbeans.model.header.DatasetHeaderBeanImpl;
+import org.sdmxsource.sdmx.sdmxbeans.model.header.DatasetStructureReferenceBeanImpl;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes a whole synthetic dataset with each writer engine into a discarding stream.
+ * <p>One operation is one complete dataset, the calls reaching the writer are the ones
+ * a reader of the same dataset would produce.</p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class WriterBenchmarks {
+
+	@Param({"1000"})
+	public int seriesCount;
+
+	@Param({"50"})
+	public int observationsPerSeries;
+
+	@Param({"42"})
+	public long seed;
+
+	private BenchmarkStructures structures;
+
+	private SyntheticDataset dataset;
+
+	private DatasetHeaderBean datasetHeader;
+
+	private byte[] excelTemplate;
+
+	private ExcelConfiguration excelConfiguration;
+
+	@Setup
+	public void prepare() throws Exception {
+		structures = BenchmarkStructures.load();
+		dataset = new SyntheticDataset(seriesCount, observationsPerSeries, seed);
+		datasetHeader = new DatasetHeaderBeanImpl("benchmark", DATASET_ACTION.INFORMATION,
+				new DatasetStructureReferenceBeanImpl(structures.getDataStructure().asReference()));
+		excelTemplate = SyntheticDataset.excelTemplate();
+		excelConfiguration = ExcelUtils.readExcelConfig(new ByteArrayInputStream(excelTemplate), false,
+				new FirstFailureExceptionHandler()).get(0);
+	}
+
+	@Benchmark
+	public DiscardingOutputStream singleLevelCsvWriter() {
+		DiscardingOutputStream out = new DiscardingOutputStream();
+		SingleLevelCsvOutColMapping columns = new SingleLevelCsvOutColMapping();
+		String[] concepts = {"FREQ", "REF_AREA", "INDICATOR", "TIME_PERIOD", "OBS_VALUE", "OBS_STATUS"};
+		for (int i = 0; i < concepts.length; i++) {
+			columns.addMapping(i, concepts[i]);
+		}
+		MultiLevelCsvOutputConfig config = new MultiLevelCsvOutputConfig();
+		config.setDelimiter(";");
+		config.setColumnMapping(columns);
+		dataset.writeTo(new SingleLevelCsvDataWriterEngine(out, config), structures.getDataStructure(), datasetHeader);
+		return out;
+	}
+
+	@Benchmark
+	public DiscardingOutputStream flrWriter() {
+		DiscardingOutputStream out = new DiscardingOutputStream();
+		FlrOutputConfig config = new FlrOutputConfig();
+		config.setPadding(" ");
+		Map<String, Integer> lengths = new HashMap<>();
+		lengths.put("FREQ", SyntheticDataset.FREQ_WIDTH);
+		lengths.put("REF_AREA", SyntheticDataset.AREA_WIDTH);
+		lengths.put("INDICATOR", SyntheticDataset.INDICATOR_WIDTH);
+		lengths.put("TIME_PERIOD", SyntheticDataset.TIME_WIDTH);
+		lengths.put("OBS_VALUE", SyntheticDataset.VALUE_WIDTH);
+		lengths.put("OBS_STATUS", SyntheticDataset.STATUS_WIDTH);
+		config.setLengthsCounting(lengths);
+		FlrDataWriterEngine writer = new FlrDataWriterEngine(SDMX_SCHEMA.VERSION_TWO_POINT_ONE, BASE_DATA_FORMAT.CSV, out, config);
+		writer.setConfigurations(config);
+		dataset.writeTo(writer, structures.getDataStructure(), datasetHeader);
+		return out;
+	}
+
+	@Benchmark
+	public DiscardingOutputStream excelWriter() {
+		DiscardingOutputStream out = new DiscardingOutputStream();
+		ExcelOutputConfig config = new ExcelOutputConfig(new ByteArrayInputStream(excelTemplate), excelConfiguration);
+		dataset.writeTo(new ExcelDataWriterEngine(out, config), structures.getDataStructure(), datasetHeader);
+		return out;
+	}
+
+	/**
+	 * Counts and drops the bytes, so that the benchmarks measure the writers and not the disk.
+	 */
+	public static final class DiscardingOutputStream extends OutputStream {
+
+		private long byteCount;
+
+		@Override
+		public void write(int b) {
+			byteCount++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			byteCount += len;
+		}
+
+		public long getByteCount() {
+			return byteCount;
+		}
+	}
+}
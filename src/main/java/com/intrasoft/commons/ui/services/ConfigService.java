@@ -260,6 +260,26 @@ public class ConfigService {
     private String allowAdditionalColumnsAsString;
     private Boolean allowAdditionalColumns;
 
+    /** the folder of the snapshots of the parsed structures, empty when they are not kept on disk */
+    @Value("${structure.snapshot.path:}")
+    private String structureSnapshotPath;
+
+    /** the folder of the responses of the registries, empty when they are kept only in memory */
+    @Value("${registry.cache.path:}")
+    private String registryCachePath;
+
+    /** the seconds the responses of the registries are used before they are revalidated */
+    @Value("${registry.cache.ttl:300}")
+    private long registryCacheTtl;
+
+    /** whether the FLR outputs without a mapping take their widths from the structure instead of the data */
+    @Value("${default.flr.output.widthsFromStructure:false}")
+    private boolean flrWidthsFromStructure;
+
+    /** whether the output of a conversion is written on its own thread while the input is read */
+    @Value("${default.conversion.pipelined:true}")
+    private boolean conversionPipelined;
+
     @PostConstruct
     private void initAndValdateValues(){
         logger.info("initialization and validation of the configured values ...");
@@ -634,4 +654,24 @@ public class ConfigService {
 	public String getLocalFileStorageStruval() {
 		return localFileStorageStruval;
 	}
+
+	public String getStructureSnapshotPath() {
+		return structureSnapshotPath;
+	}
+
+	public String getRegistryCachePath() {
+		return registryCachePath;
+	}
+
+	public long getRegistryCacheTtl() {
+		return registryCacheTtl;
+	}
+
+	public boolean isFlrWidthsFromStructure() {
+		return flrWidthsFromStructure;
+	}
+
+	public boolean isConversionPipelined() {
+		return conversionPipelined;
+	}
 }
@@ -1,18 +1,44 @@
 package com.intrasoft.sdmx.converter;
 
+import com.intrasoft.sdmx.converter.structures.ComponentSchema;
+
 import java.util.*;
 
 /**
  * A buffer for all dsd components and their current values
+ * <p>The values are held in a flat array, in the order the components were added. When the buffer is created
+ * with the {@link ComponentSchema} of the data structure the components are addressed by their ordinal.</p>
  *
  * Created by dragos balan
  */
 public class ComponentValuesBuffer {
 
     /**
-     * map holding the name of the dimension and the value of that dimension
+     * the values of the components, one slot per component in the order the components were added
+     */
+    private String[] values;
+
+    /**
+     * the name of the component of each slot
+     */
+    private String[] names;
+
+    private int size;
+
+    /**
+     * the ordinals of the data structure, null when the buffer was created without them
+     */
+    private final ComponentSchema schema;
+
+    /**
+     * the slot of each ordinal of the schema, -1 while the component has no slot
      */
-    private LinkedHashMap<String, String> componentValues;
+    private final int[] slotOfOrdinal;
+
+    /**
+     * the slots of the components that are not part of the schema (e.g. the explicit measures, SDMXCONV-801)
+     */
+    private final Map<String, Integer> otherSlots;
 
     /**
      * the name of the primary measure
@@ -26,71 +52,160 @@ public class ComponentValuesBuffer {
      */
     public ComponentValuesBuffer(String primaryMeasureName,
                                 List<String> dimensionNames) {
+        this(primaryMeasureName, dimensionNames, null);
+    }
+
+    /**
+     * a buffer addressing the components of the schema by their ordinal
+     *
+     * @param primaryMeasureName
+     * @param dimensionNames the components the buffer starts with
+     * @param schema the component schema of the data structure, may be null
+     */
+    public ComponentValuesBuffer(String primaryMeasureName,
+                                List<String> dimensionNames,
+                                ComponentSchema schema) {
         this.primaryMeasureName = primaryMeasureName;
-        this.componentValues = new LinkedHashMap<>(dimensionNames.size());
+        this.schema = schema;
+        int capacity = Math.max(dimensionNames.size(), schema != null ? schema.size() : 0);
+        this.values = new String[Math.max(capacity, 1)];
+        this.names = new String[values.length];
+        this.slotOfOrdinal = new int[schema != null ? schema.size() : 0];
+        Arrays.fill(slotOfOrdinal, -1);
+        this.otherSlots = new HashMap<>();
         for (String dimension : dimensionNames) {
-            componentValues.put(dimension, "");
+            put(dimension, "");
         }
     }
 
     public ComponentValuesBuffer(ComponentValuesBuffer other){
         this.primaryMeasureName = other.primaryMeasureName;
-        this.componentValues = new LinkedHashMap<>(other.getComponents().size());
-        for (String component: other.getComponents()) {
-            this.componentValues.put(component, other.getValueFor(component));
+        this.schema = other.schema;
+        this.values = other.values.clone();
+        this.names = other.names.clone();
+        this.size = other.size;
+        this.slotOfOrdinal = other.slotOfOrdinal.clone();
+        this.otherSlots = new HashMap<>(other.otherSlots);
+    }
+
+    private int slotOf(String component) {
+        if (schema != null) {
+            int ordinal = schema.ordinalOf(component);
+            if (ordinal >= 0) {
+                return slotOfOrdinal[ordinal];
+            }
         }
+        Integer slot = otherSlots.get(component);
+        return slot != null ? slot : -1;
+    }
+
+    private int newSlot(String component, int ordinal) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+            names = Arrays.copyOf(names, size * 2);
+        }
+        names[size] = component;
+        if (ordinal >= 0) {
+            slotOfOrdinal[ordinal] = size;
+        } else {
+            otherSlots.put(component, size);
+        }
+        return size++;
+    }
+
+    private void put(String component, String value) {
+        int slot = slotOf(component);
+        if (slot < 0) {
+            slot = newSlot(component, schema != null ? schema.ordinalOf(component) : -1);
+        }
+        values[slot] = value;
     }
 
     public void addValueFor(String value, String dimOrAttrName){
-        if(componentValues.keySet().contains(dimOrAttrName)){
-            componentValues.put(dimOrAttrName, value);
+        int slot = slotOf(dimOrAttrName);
+        if(slot >= 0){
+            values[slot] = value;
         }else if(dimOrAttrName.equalsIgnoreCase("allDimensions")) {
         	
         }else{
         	//SDMXCONV-801
         	//need to map the explisit measures
-        	componentValues.put(dimOrAttrName, value);
+        	put(dimOrAttrName, value);
             //throw new IllegalArgumentException("Cannot add a value for a non-declared dimension "+dimOrAttrName);
         }
     }
 
     public void emptyValueList(){
-        for(String dim: componentValues.keySet()){
-            componentValues.put(dim, "");
-        }
+        Arrays.fill(values, 0, size, "");
     }
     
     public void emptyValues(List<String> attributeNames){
     	for(String attr: attributeNames){
-    	    componentValues.put(attr, "");
+    	    put(attr, "");
+        }
+    }
+
+    /**
+     * empties the values of the components given by their ordinals, adding the components that are not buffered yet
+     *
+     * @param componentSchema the schema of the ordinals
+     * @param ordinals one of the level arrays of the schema
+     */
+    public void emptyValues(ComponentSchema componentSchema, int[] ordinals){
+        if (componentSchema != schema) {
+            for (int ordinal : ordinals) {
+                put(componentSchema.nameOf(ordinal), "");
+            }
+            return;
+        }
+        for (int ordinal : ordinals) {
+            int slot = slotOfOrdinal[ordinal];
+            if (slot < 0) {
+                slot = newSlot(schema.nameOf(ordinal), ordinal);
+            }
+            values[slot] = "";
         }
     }
     
     public String getValueFor(String dimOrAttrName){
-        return componentValues.get(dimOrAttrName);
+        int slot = slotOf(dimOrAttrName);
+        return slot >= 0 ? values[slot] : null;
+    }
+
+    /**
+     * @param componentSchema the schema of the ordinal
+     * @param ordinal the ordinal of the component in the schema
+     * @return the value of the component, null when it is not buffered
+     */
+    public String getValueFor(ComponentSchema componentSchema, int ordinal){
+        if (componentSchema != schema) {
+            return getValueFor(componentSchema.nameOf(ordinal));
+        }
+        int slot = slotOfOrdinal[ordinal];
+        return slot >= 0 ? values[slot] : null;
     }
 
     public String getObsValue(){
-        return componentValues.get(primaryMeasureName);
+        return getValueFor(primaryMeasureName);
     }
 
     public List<String> getComponents(){
-        List<String> componentList = new ArrayList<>();
-        for(Map.Entry<String, String> entry: componentValues.entrySet()) {
-            componentList.add(entry.getKey());
-        }
-        return componentList;
+        return new ArrayList<>(Arrays.asList(names).subList(0, size));
     }
 
     public LinkedHashMap<String, String> toMap(){
-        return new LinkedHashMap<>(componentValues);
+        LinkedHashMap<String, String> result = new LinkedHashMap<>(size * 2);
+        for (int slot = 0; slot < size; slot++) {
+            result.put(names[slot], values[slot]);
+        }
+        return result;
     }
 
     public String toString(){
         StringBuilder result = new StringBuilder("ComponentValuesBuffer[");
-        for(String dimension: componentValues.keySet()){
-            result.append("[dim=").append(dimension)
-                    .append(", val=").append(componentValues.get(dimension))
+        for(int slot = 0; slot < size; slot++){
+            result.append("[dim=").append(names[slot])
+                    .append(", val=").append(values[slot])
                     .append("]");
         }
         result.append("]");
@@ -0,0 +1,96 @@
+package com.intrasoft.sdmx.converter;
+
+import org.estat.sdmxsource.util.csv.FlrInColumnMapping;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Holds the state of a single conversion.
+ * <p>A new instance is used for every call of the converter, so that conversions running in parallel
+ * inside the same JVM do not share metrics, FLR mappings or output reporter settings.</p>
+ */
+public class ConversionContext {
+
+	/**
+	 * Whether the annotations (e.g. of iSDMX_CSV) should be written in the output.
+	 * Applied to the {@link org.sdmxsource.sdmx.dataparser.engine.reader.ThreadLocalOutputReporter}
+	 * of the threads taking part in the conversion, only for its duration.
+	 */
+	private boolean writeAnnotations;
+
+	private ConverterMetrics metrics;
+
+	private long conversionDuration;
+
+	private LinkedHashMap<String, FlrInColumnMapping> finalFlrMappings;
+
+	private final List<ConversionMetricsListener> metricsListeners = new ArrayList<>();
+
+	/**
+	 * Default public constructor
+	 */
+	public ConversionContext() {
+	}
+
+	/**
+	 * @param writeAnnotations true if annotations should be written in the output
+	 */
+	public ConversionContext(boolean writeAnnotations) {
+		this.writeAnnotations = writeAnnotations;
+	}
+
+	public boolean isWriteAnnotations() {
+		return writeAnnotations;
+	}
+
+	public void setWriteAnnotations(boolean writeAnnotations) {
+		this.writeAnnotations = writeAnnotations;
+	}
+
+	/**
+	 * @return the metrics of the conversion, null until the conversion has finished
+	 */
+	public ConverterMetrics getMetrics() {
+		return metrics;
+	}
+
+	public void setMetrics(ConverterMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * @return the duration of the conversion in milliseconds
+	 */
+	public long getConversionDuration() {
+		return conversionDuration;
+	}
+
+	public void setConversionDuration(long conversionDuration) {
+		this.conversionDuration = conversionDuration;
+	}
+
+	/**
+	 * @return the FLR mapping used to write the output, when the output is FLR
+	 * @see <a href="https://citnet.tech.ec.europa.eu/CITnet/jira/browse/SDMXCONV-1047">SDMXCONV-1047</a>
+	 */
+	public LinkedHashMap<String, FlrInColumnMapping> getFinalFlrMappings() {
+		return finalFlrMappings;
+	}
+
+	public void setFinalFlrMappings(LinkedHashMap<String, FlrInColumnMapping> finalFlrMappings) {
+		this.finalFlrMappings = finalFlrMappings;
+	}
+
+	/**
+	 * @return the listeners notified with the stage timings of the conversion
+	 */
+	public List<ConversionMetricsListener> getMetricsListeners() {
+		return metricsListeners;
+	}
+
+	public void addMetricsListener(ConversionMetricsListener metricsListener) {
+		this.metricsListeners.add(metricsListener);
+	}
+}
@@ -0,0 +1,28 @@
+package com.intrasoft.sdmx.converter;
+
+/**
+ * Listener notified with the timings of a conversion or a validation.
+ * <p>Implementations may be registered in the {@link ConversionContext} of a conversion, or declared as Spring beans
+ * to be picked up by {@link com.intrasoft.sdmx.converter.services.ConverterDelegatorService} and
+ * {@link com.intrasoft.sdmx.converter.services.ValidationService}.</p>
+ * <p>Listeners are called from the thread of the conversion and should return quickly.</p>
+ */
+public interface ConversionMetricsListener {
+
+	/**
+	 * Called every time a stage of the conversion has finished.
+	 *
+	 * @param stage         the stage
+	 * @param durationNanos the duration of the stage in nanoseconds
+	 */
+	default void stageCompleted(ConversionStage stage, long durationNanos) {
+	}
+
+	/**
+	 * Called once at the end of a successful conversion or validation.
+	 *
+	 * @param metrics the metrics of the whole conversion
+	 */
+	default void completed(ConverterMetrics metrics) {
+	}
+}
@@ -0,0 +1,114 @@
+package com.intrasoft.sdmx.converter;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+
+/**
+ * Collects the stage timings of one conversion and publishes them to the {@link ConversionMetricsListener}s.
+ * <p>Not thread safe, an instance is used by the thread running the conversion.</p>
+ */
+public class ConversionMetricsRecorder {
+
+	private static Logger logger = LogManager.getLogger(ConversionMetricsRecorder.class);
+
+	private final List<ConversionMetricsListener> listeners;
+
+	private final EnumMap<ConversionStage, Long> stageDurations = new EnumMap<>(ConversionStage.class);
+
+	private final long startNanos;
+
+	private final long startAllocatedBytes;
+
+	private long otherThreadsAllocatedBytes;
+
+	public ConversionMetricsRecorder(List<ConversionMetricsListener> listeners) {
+		this.listeners = listeners != null ? listeners : Collections.emptyList();
+		this.startNanos = System.nanoTime();
+		this.startAllocatedBytes = currentThreadAllocatedBytes();
+	}
+
+	/**
+	 * Records a stage that started at the given {@link System#nanoTime()} and finishes now.
+	 *
+	 * @param stage      the stage
+	 * @param startNanos the value of {@link System#nanoTime()} when the stage started
+	 */
+	public void stageCompleted(ConversionStage stage, long startNanos) {
+		record(stage, System.nanoTime() - startNanos);
+	}
+
+	/**
+	 * Records the duration of a stage, durations of the same stage are summed up.
+	 *
+	 * @param stage         the stage
+	 * @param durationNanos the duration in nanoseconds
+	 */
+	public void record(ConversionStage stage, long durationNanos) {
+		if (durationNanos < 0) {
+			return;
+		}
+		stageDurations.merge(stage, durationNanos, Long::sum);
+		for (ConversionMetricsListener listener : listeners) {
+			try {
+				listener.stageCompleted(stage, durationNanos);
+			} catch (RuntimeException ex) {
+				logger.warn("Metrics listener {} failed for stage {}", listener, stage, ex);
+			}
+		}
+	}
+
+	/**
+	 * Adds the bytes allocated by another thread working for this conversion, like the writer thread of a pipeline.
+	 *
+	 * @param allocatedBytes the bytes allocated by the other thread, ignored when negative
+	 */
+	public void addAllocatedBytes(long allocatedBytes) {
+		if (allocatedBytes > 0) {
+			otherThreadsAllocatedBytes += allocatedBytes;
+		}
+	}
+
+	/**
+	 * Completes the given metrics with the stage durations, the total duration
+	 * and the bytes allocated by the current thread and the ones added from other threads, then notifies the listeners.
+	 *
+	 * @param metrics the metrics of the conversion
+	 * @return the same metrics
+	 */
+	public ConverterMetrics complete(ConverterMetrics metrics) {
+		metrics.setDurationNanos(System.nanoTime() - startNanos);
+		metrics.setStageDurations(new EnumMap<>(stageDurations));
+		long allocatedBytes = currentThreadAllocatedBytes();
+		if (allocatedBytes >= 0 && startAllocatedBytes >= 0) {
+			metrics.setAllocatedBytes(allocatedBytes - startAllocatedBytes + otherThreadsAllocatedBytes);
+		}
+		for (ConversionMetricsListener listener : listeners) {
+			try {
+				listener.completed(metrics);
+			} catch (RuntimeException ex) {
+				logger.warn("Metrics listener {} failed", listener, ex);
+			}
+		}
+		return metrics;
+	}
+
+	/**
+	 * @return the bytes allocated so far by the current thread or -1 if the JVM does not support it
+	 */
+	public static long currentThreadAllocatedBytes() {
+		ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+		if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean sunThreadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+			if (sunThreadMXBean.isThreadAllocatedMemorySupported() && sunThreadMXBean.isThreadAllocatedMemoryEnabled()) {
+				return sunThreadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+			}
+		}
+		return -1;
+	}
+}
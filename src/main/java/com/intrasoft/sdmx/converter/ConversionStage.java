@@ -0,0 +1,41 @@
+package com.intrasoft.sdmx.converter;
+
+/**
+ * The phases of a conversion or a validation that are timed separately.
+ *
+ * @see ConversionMetricsListener
+ */
+public enum ConversionStage {
+
+	/**
+	 * Parsing of the structure file (DSD, dataflow) of a validation.
+	 * A conversion receives its structures already parsed, so this stage is not part of it.
+	 */
+	STRUCTURE_LOAD,
+
+	/** Detection of the input format/version and creation of the reader */
+	FORMAT_DETECTION,
+
+	/**
+	 * Time the reading thread of a pipelined conversion spends parsing the input and handing it to the writer
+	 * thread, the time it waits for the writer thread is left out.
+	 * The transcoding of the values read is part of it.
+	 */
+	READER_PARSE,
+
+	/**
+	 * Time spent inside the writers, including the final flush of the output.
+	 * In a pipelined conversion this is measured on the writer thread and overlaps with {@link #READER_PARSE}.
+	 * The transcoding of the values written is part of it.
+	 */
+	WRITER,
+
+	/** Reading and writing of a conversion that is not pipelined, the two run on the same thread and are timed together */
+	READ_WRITE,
+
+	/** Caching of cross sectional input to regroup it into time series */
+	CROSS_SECTIONAL_CACHING,
+
+	/** Reading of the data and time spent inside the validators of a validation */
+	VALIDATION
+}
@@ -21,6 +21,9 @@
 package com.intrasoft.sdmx.converter;
 
 import com.intrasoft.sdmx.converter.config.FlrOutputConfig;
+import com.intrasoft.sdmx.converter.config.SdmxInputConfig;
+import com.intrasoft.sdmx.converter.io.data.ByteCountingDataLocation;
+import com.intrasoft.sdmx.converter.io.data.ByteCountingOutputStream;
 import com.intrasoft.sdmx.converter.io.data.ComponentBufferWriterEngine;
 import com.intrasoft.sdmx.converter.io.data.Formats;
 import com.intrasoft.sdmx.converter.io.data.csv.FlrDataWriterEngine;
@@ -28,6 +31,7 @@ import com.intrasoft.sdmx.converter.services.ConverterDataReaderEngineProvider;
 import com.intrasoft.sdmx.converter.services.ConverterDataWriterEngineProvider;
 import com.intrasoft.sdmx.converter.services.StructureService;
 import com.intrasoft.sdmx.converter.tranformation.DataReaderToWriter;
+import com.intrasoft.sdmx.converter.tranformation.PipelinedDataWriterEngine;
 import com.intrasoft.sdmx.converter.util.FormatFamily;
 import it.unimi.dsi.fastutil.objects.Object2ObjectLinkedOpenHashMap;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
@@ -36,7 +40,6 @@ import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.Marker;
 import org.apache.logging.log4j.MarkerManager;
 import org.estat.sdmxsource.engine.decorators.ObservationCounterDecorator;
-import org.estat.sdmxsource.engine.reader.DataCountingLengthReaderEngine;
 import org.estat.sdmxsource.engine.reader.WrapperCrossSectionalDataCachingReaderEngine;
 import org.estat.sdmxsource.util.csv.CsvInColumnMapping;
 import org.estat.sdmxsource.util.csv.CsvInputConfig;
@@ -48,8 +51,10 @@ import org.sdmxsource.sdmx.api.exception.ExceptionHandler;
 import org.sdmxsource.sdmx.api.model.beans.datastructure.CrossSectionalDataStructureBean;
 import org.sdmxsource.sdmx.api.model.beans.datastructure.CrossSectionalMeasureBean;
 import org.sdmxsource.sdmx.api.model.beans.datastructure.DataStructureBean;
+import org.sdmxsource.sdmx.api.util.ReadableDataLocation;
 import org.sdmxsource.sdmx.dataparser.engine.reader.ErrorPosition;
 import org.sdmxsource.sdmx.dataparser.engine.reader.RecordReaderCounter;
+import org.sdmxsource.sdmx.dataparser.engine.reader.ThreadLocalOutputReporter;
 import org.sdmxsource.sdmx.dataparser.engine.reader.deduplication.ValidationEngineType;
 import org.sdmxsource.sdmx.dataparser.engine.writer.SdmxDataWriterEngine;
 import org.sdmxsource.sdmx.dataparser.engine.writer.WritingDataEngineDecorator;
@@ -58,6 +63,7 @@ import org.sdmxsource.sdmx.validation.exceptions.DataValidationError;
 import org.sdmxsource.util.ObjectUtil;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -70,37 +76,93 @@ import java.util.Map;
 public class Converter {
 	private static Logger logger = LogManager.getLogger(Converter.class);
 
+	/**
+	 * Context of the last completed conversion, only kept for the callers of the deprecated static getters.
+	 */
+	private static volatile ConversionContext lastConversionContext;
+
+	/**
+	 * @return the final FLR mappings of the last completed conversion, whichever thread made it
+	 * @deprecated use {@link ConversionContext#getFinalFlrMappings()} of the context of the conversion
+	 */
+	@Deprecated
 	public static LinkedHashMap<String, FlrInColumnMapping> getFinalFlrMappings() {
-		return finalFlrMappings;
+		ConversionContext conversionContext = lastConversionContext;
+		return conversionContext != null ? conversionContext.getFinalFlrMappings() : null;
 	}
 
-	private static long conversionDuration; // Static variable to store the conversion duration
-
-	private static LinkedHashMap<String, FlrInColumnMapping> finalFlrMappings;
-
-	public static ConverterMetrics getMetrics() { return metrics; }
-
-	private static ConverterMetrics metrics;
+	/**
+	 * @return the metrics of the last completed conversion, whichever thread made it
+	 * @deprecated use {@link ConversionContext#getMetrics()} of the context of the conversion
+	 */
+	@Deprecated
+	public static ConverterMetrics getMetrics() {
+		ConversionContext conversionContext = lastConversionContext;
+		return conversionContext != null ? conversionContext.getMetrics() : null;
+	}
 
-	public static long getConversionDuration() { // Getter for conversion duration
-		return conversionDuration;
+	/**
+	 * @return the duration in milliseconds of the last completed conversion, whichever thread made it
+	 * @deprecated use {@link ConversionContext#getConversionDuration()} of the context of the conversion
+	 */
+	@Deprecated
+	public static long getConversionDuration() {
+		ConversionContext conversionContext = lastConversionContext;
+		return conversionContext != null ? conversionContext.getConversionDuration() : 0;
 	}
+
     /**
-     * Performs a conversion from one format to another
+     * Performs a conversion from one format to another.
+     * The annotations are written according to the output reporter of the calling thread.
      *
      * @param converterInput ConverterInput  the parameters for input:  source format, input data location, input configuration
      * @param converterOutput ConverterOutput the parameters for output: destination format, output stream, output configuration
      * @param converterStructure ConverterStructure: dataStructura and dataflow
+     * @return the context of the conversion holding its metrics and the final FLR mappings
      * @throws Exception
      */
-    public static void convertWithCurrentImpl( ConverterInput converterInput,
+    public static ConversionContext convertWithCurrentImpl( ConverterInput converterInput,
                                 ConverterOutput converterOutput,
                                 ConverterStructure converterStructure) throws ConverterException {
+		ConversionContext conversionContext = new ConversionContext(Boolean.TRUE.equals(ThreadLocalOutputReporter.getWriteAnnotations().get()));
+		convertWithCurrentImpl(converterInput, converterOutput, converterStructure, conversionContext);
+		return conversionContext;
+	}
+
+    /**
+     * Performs a conversion from one format to another.
+     * Everything the conversion produces besides the output is stored in the given context,
+     * so concurrent conversions do not interfere with each other.
+     *
+     * @param converterInput ConverterInput  the parameters for input:  source format, input data location, input configuration
+     * @param converterOutput ConverterOutput the parameters for output: destination format, output stream, output configuration
+     * @param converterStructure ConverterStructure: dataStructura and dataflow
+     * @param conversionContext the context of this conversion
+     * @throws ConverterException
+     */
+    public static void convertWithCurrentImpl( ConverterInput converterInput,
+                                ConverterOutput converterOutput,
+                                ConverterStructure converterStructure,
+                                ConversionContext conversionContext) throws ConverterException {
         logger.info("Starting conversion for input {} and output {} using structure {}", converterInput, converterOutput, converterStructure);
+		//Readers consult the reporter of the current thread, it is set only for the duration of this conversion
+		Boolean previousWriteAnnotations = ThreadLocalOutputReporter.getWriteAnnotations().get();
+		ThreadLocalOutputReporter.getWriteAnnotations().set(conversionContext.isWriteAnnotations());
 
 		DataReaderEngine dataReaderEngine = null;
 		DataWriterEngine dataWriterEngine = null;
 		ExceptionHandler exceptionHandler = new FirstFailureExceptionHandler();
+		ConversionMetricsRecorder metricsRecorder = new ConversionMetricsRecorder(conversionContext.getMetricsListeners());
+		//The output is counted for the metrics, the stream of the caller is given back at the end
+		OutputStream originalOutputStream = converterOutput.getOutputStream();
+		ByteCountingOutputStream countingOutputStream = null;
+		//The input is counted the same way, every stream the readers open on it
+		ReadableDataLocation originalDataLocation = converterInput.getInputDataLocation();
+		ByteCountingDataLocation countingDataLocation = null;
+		if (originalDataLocation != null) {
+			countingDataLocation = new ByteCountingDataLocation(originalDataLocation);
+			converterInput.setInputDataLocation(countingDataLocation);
+		}
         try {
         	DataStructureBean dataStructure = null;
         	if(converterStructure.getDataStructure()!=null) dataStructure = converterStructure.getDataStructure();
@@ -154,11 +216,17 @@ public class Converter {
 			//SDMXCONV-1441 After removing ThreadLocal for positions we need to pass a map for positions from readers to Validation Engines.
 			Object2ObjectLinkedOpenHashMap<String, ErrorPosition> errorPositions = new Object2ObjectLinkedOpenHashMap<>();
             int order = 0;
+			long stageStart = System.nanoTime();
 			DataReaderEngine originReaderEngine = ConverterDataReaderEngineProvider.getDataReaderEngine(converterInput, converterStructure, errorsByEngine, order, 1, exceptionHandler, errorPositions);
             dataReaderEngine = new ObservationCounterDecorator(originReaderEngine,
 																converterInput.getInputConfig(),
 																converterInput.getInputFormat(),
 																converterStructure.getDataflow());
+			metricsRecorder.stageCompleted(ConversionStage.FORMAT_DETECTION, stageStart);
+			if (originalOutputStream != null) {
+				countingOutputStream = new ByteCountingOutputStream(originalOutputStream);
+				converterOutput.setOutputStream(countingOutputStream);
+			}
             dataWriterEngine = ConverterDataWriterEngineProvider.getDataWriterEngine(converterOutput, converterStructure.getRetrievalManager());
 
             //For Csv output
@@ -170,33 +238,53 @@ public class Converter {
             }
             //If the output Format is Flr and the mapping is null we need to count the max length of each value
 			//to determine the columns fixed length values.
+			//The writer counts them while spooling the rows, so that the input is read once.
 			//see also https://webgate.ec.europa.eu/CITnet/jira/browse/SDMXCONV-775
             if(Formats.FLR.equals(converterOutput.getOutputFormat())
 					&& converterOutput.getOutputConfig()!=null) {
 				FlrOutputConfig config = (FlrOutputConfig) converterOutput.getOutputConfig();
 				LinkedHashMap<String, FlrInColumnMapping> flrMapping = config.getMapping();
             	if(flrMapping==null || config.checkIfAutoExists(flrMapping)) {
-					DataCountingLengthReaderEngine countLengthsEngine = new DataCountingLengthReaderEngine(ConverterDataReaderEngineProvider.getDataReaderEngine(converterInput, converterStructure, errorsByEngine, order, 1, exceptionHandler, errorPositions));
-					Map<String, Integer> flrLengths = countLengthsEngine.countLengths();
-					config.setLengthsCounting(flrLengths);
+					//forget the lengths of a previous conversion with the same configuration
+					config.setLengthsCounting(null);
 				}
 			}
             
             if (Formats.CROSS_SDMX.equals(converterInput.getInputFormat()) && !FormatFamily.CSV.equals(converterOutput.getOutputFormat().getFamily())
 					&& dataStructure!=null && dataStructure.getTimeDimension()!=null) {
-					WrapperCrossSectionalDataCachingReaderEngine cachingEngine = new WrapperCrossSectionalDataCachingReaderEngine();
+					long memoryBudget = converterInput.getInputConfig() instanceof SdmxInputConfig
+							? ((SdmxInputConfig) converterInput.getInputConfig()).getCrossSectionalMemoryBudget()
+							: WrapperCrossSectionalDataCachingReaderEngine.DEFAULT_MEMORY_BUDGET;
+					WrapperCrossSectionalDataCachingReaderEngine cachingEngine = new WrapperCrossSectionalDataCachingReaderEngine(memoryBudget);
+					stageStart = System.nanoTime();
 					cachingEngine.prepareCrossSectionalDataInCacheFromReader(dataReaderEngine);
+					metricsRecorder.stageCompleted(ConversionStage.CROSS_SECTIONAL_CACHING, stageStart);
+					stageStart = System.nanoTime();
 					cachingEngine.writeCrossSectionalData(dataWriterEngine);
+					metricsRecorder.stageCompleted(ConversionStage.WRITER, stageStart);
 	            } else {
+				//Parsing and serialization run on different threads, the writer is reached through a bounded queue
+				PipelinedDataWriterEngine pipelinedWriterEngine = converterOutput.isPipelined() ? new PipelinedDataWriterEngine(dataWriterEngine) : null;
+				stageStart = System.nanoTime();
 				//SDMXCONV-1087, output file's format added in parameter list of copyToWriter method's signature
-				DataReaderToWriter.copyToWriter(dataReaderEngine, dataWriterEngine, converterStructure.getDataStructure(), converterInput.getInputConfig(), converterOutput.getOutputFormat());
+				DataReaderToWriter.copyToWriter(dataReaderEngine, pipelinedWriterEngine != null ? pipelinedWriterEngine : dataWriterEngine,
+						converterStructure.getDataStructure(), converterInput.getInputConfig(), converterOutput.getOutputFormat());
+				long copyNanos = System.nanoTime() - stageStart;
+				if (pipelinedWriterEngine != null) {
+					//The stages are timed per batch, the reading thread is busy parsing unless it waits for the writer thread
+					metricsRecorder.record(ConversionStage.READER_PARSE, copyNanos - pipelinedWriterEngine.getWaitingNanos());
+					metricsRecorder.record(ConversionStage.WRITER, pipelinedWriterEngine.getWritingNanos());
+					metricsRecorder.addAllocatedBytes(pipelinedWriterEngine.getAllocatedBytes());
+				} else {
+					metricsRecorder.record(ConversionStage.READ_WRITE, copyNanos);
+				}
 			 }
 
 			if(dataWriterEngine instanceof WritingDataEngineDecorator) {
 				SdmxDataWriterEngine flrWriterEngine = ((WritingDataEngineDecorator) dataWriterEngine).getWriterEngine();
 				if((flrWriterEngine instanceof FlrDataWriterEngine)) {
 					FlrOutputConfig flrConfig = ((FlrDataWriterEngine) flrWriterEngine).getConfigurations();
-					finalFlrMappings = flrConfig.getFinalMapping();
+					conversionContext.setFinalFlrMappings(flrConfig.getFinalMapping());
 				}
 			}
 			int ignoredObsCount = 0;
@@ -206,17 +294,26 @@ public class Converter {
 				ignoredObsCount = ((ObservationCounterDecorator)dataReaderEngine).getIgnoredObservationCounter();
 			}
             long after = System.currentTimeMillis();
-			conversionDuration = after - before; // Set the conversion duration
+			conversionContext.setConversionDuration(after - before);
 			// then
 			ErrorPosition maxRow = errorPositions.values()
 					.stream()
 					.max(Comparator.comparing(ErrorPosition::getCurrentRow, Comparator.nullsFirst(Comparator.naturalOrder())))
 					.orElse(null);
+			ConverterMetrics metrics;
 			if(maxRow!=null && ObjectUtil.validObject(maxRow.getCurrentRow())) {
 				metrics = new ConverterMetrics(before, after, ignoredObsCount, obsCount, (maxRow.getCurrentRow()).longValue());
 			} else {
 				metrics = new ConverterMetrics(before, after, ignoredObsCount, obsCount);
 			}
+			if (countingDataLocation != null) {
+				metrics.setBytesRead(countingDataLocation.getByteCount());
+			}
+			if (countingOutputStream != null) {
+				metrics.setBytesWritten(countingOutputStream.getByteCount());
+			}
+			conversionContext.setMetrics(metricsRecorder.complete(metrics));
+			lastConversionContext = conversionContext;
             logger.info("Conversion time: {} msecs", (after - before));
         } catch(IOException ioExc){
         	logger.error("IO exception: ", ioExc);
@@ -225,6 +322,9 @@ public class Converter {
         finally {
         	//SDMXCONV-1082
             if(dataReaderEngine!=null) dataReaderEngine.close();
+			converterOutput.setOutputStream(originalOutputStream);
+			converterInput.setInputDataLocation(originalDataLocation);
+			ThreadLocalOutputReporter.getWriteAnnotations().set(previousWriteAnnotations);
 			//if(dataWriterEngine!=null) dataWriterEngine.close(); // If we close the dataWriterEngine we get error in the conversion, and the result is an empty file
 		}
 
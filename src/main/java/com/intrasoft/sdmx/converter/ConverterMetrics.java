@@ -1,5 +1,9 @@
 package com.intrasoft.sdmx.converter;
 
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
 /*
  Class that stores metrics of conversion
  */
@@ -15,6 +19,16 @@ public class ConverterMetrics {
 
 	long numberOfRows;
 
+	long durationNanos;
+
+	long bytesRead = -1;
+
+	long bytesWritten = -1;
+
+	long allocatedBytes = -1;
+
+	Map<ConversionStage, Long> stageDurations = new EnumMap<>(ConversionStage.class);
+
 	/**
 	 * Constructor to set the time metrics
 	 * @param startTime
@@ -103,4 +117,79 @@ public class ConverterMetrics {
 	public void setNumberOfRows(long numberOfRows) {
 		this.numberOfRows = numberOfRows;
 	}
+
+	/**
+	 * @return the duration of the conversion in nanoseconds
+	 */
+	public long getDurationNanos() {
+		return durationNanos;
+	}
+
+	public void setDurationNanos(long durationNanos) {
+		this.durationNanos = durationNanos;
+	}
+
+	/**
+	 * @return the bytes read from the input, summed over all the passes of the reader, or -1 if they were not counted
+	 */
+	public long getBytesRead() {
+		return bytesRead;
+	}
+
+	public void setBytesRead(long bytesRead) {
+		this.bytesRead = bytesRead;
+	}
+
+	/**
+	 * @return the bytes written to the output or -1 if unknown
+	 */
+	public long getBytesWritten() {
+		return bytesWritten;
+	}
+
+	public void setBytesWritten(long bytesWritten) {
+		this.bytesWritten = bytesWritten;
+	}
+
+	/**
+	 * @return the bytes allocated by the converting thread, plus the writer thread of a pipelined conversion,
+	 * or -1 if the JVM does not report them
+	 */
+	public long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+
+	public void setAllocatedBytes(long allocatedBytes) {
+		this.allocatedBytes = allocatedBytes;
+	}
+
+	/**
+	 * @return the duration of every measured stage in nanoseconds
+	 */
+	public Map<ConversionStage, Long> getStageDurations() {
+		return Collections.unmodifiableMap(stageDurations);
+	}
+
+	public void setStageDurations(Map<ConversionStage, Long> stageDurations) {
+		this.stageDurations = stageDurations;
+	}
+
+	/**
+	 * @param stage the stage
+	 * @return the duration of the stage in nanoseconds or 0 if it did not take place
+	 */
+	public long getStageDuration(ConversionStage stage) {
+		Long duration = stageDurations.get(stage);
+		return duration != null ? duration : 0L;
+	}
+
+	/**
+	 * @return the processed observations per second of the whole conversion
+	 */
+	public double getObservationsPerSecond() {
+		if (durationNanos <= 0) {
+			return 0d;
+		}
+		return observationsProcessed * 1_000_000_000d / durationNanos;
+	}
 }
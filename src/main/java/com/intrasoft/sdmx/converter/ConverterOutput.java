@@ -40,6 +40,12 @@ public class ConverterOutput {
 	private OutputStream outputStream; 
 	
 	private OutputConfig outputConfig;
+
+	/**
+	 * When true the reading and the writing of the conversion run on different threads, enabled by default
+	 * @see com.intrasoft.sdmx.converter.tranformation.PipelinedDataWriterEngine
+	 */
+	private boolean pipelined = true;
 	
 	/** 
 	 * Default public constructor 
@@ -103,11 +109,26 @@ public class ConverterOutput {
 		this.outputConfig = outputConfig;
 	}
 
+	/**
+	 * @return true if the writer runs on its own thread
+	 */
+	public boolean isPipelined() {
+		return pipelined;
+	}
+
+	/**
+	 * @param pipelined true to serialize the output on a separate thread while the input is parsed
+	 */
+	public void setPipelined(boolean pipelined) {
+		this.pipelined = pipelined;
+	}
+
 	@Override
 	public String toString() {
 		return "ConverterOutput{" +
 				"outputFormat=" + outputFormat +
 				", outputConfig=" + outputConfig +
+				", pipelined=" + pipelined +
                 ", outputStream=" + outputStream +
                 '}';
 	}
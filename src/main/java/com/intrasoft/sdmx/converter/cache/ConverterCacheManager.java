@@ -21,58 +21,156 @@
  */
 package com.intrasoft.sdmx.converter.cache;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.ehcache.config.CacheConfiguration;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.impl.config.persistence.DefaultPersistenceConfiguration;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+
 import javax.cache.Cache;
 import javax.cache.CacheManager;
 import javax.cache.Caching;
-import javax.cache.configuration.MutableConfiguration;
-import javax.cache.expiry.AccessedExpiryPolicy;
-import javax.cache.expiry.Duration;
-import javax.cache.spi.CachingProvider;
+import javax.cache.management.CacheStatisticsMXBean;
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.nio.file.Files;
 import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Singleton class for managing Cache. 
  * ehcache is used with the JSR107(jcache) api 
  * 
- * Currently the cache has a basic configuration configured programmatically. 
- * Depending on the needs configuration files can be added. 
- * The expiration time can be changed. 
- * Always have in mind the expiration of elements. 
- * An element can expire:
- * 	- when the configured time passed since it was saved in cache
- *  - when the element is accessed
+ * The caches are configured programmatically with three tiers sized in bytes:
+ * the heap, then the off-heap memory, then a disk store in a temporary directory.
+ * Entries that do not fit in a tier move to the next one, only the entries that do
+ * not fit on disk are evicted. The entries do not expire.
+ * 
+ * A conversion should open its own {@link ConverterCacheScope}: the caches of a scope have
+ * names nobody else gets, and are destroyed, with their off-heap memory and disk store,
+ * when the scope is closed.
+ * 
+ * The statistics (hits, misses, evictions) of every cache are enabled and can be read
+ * with {@link #getStatistics(Cache)}.
  *  
  * @author Mihaela Munteanu
  * @since  7th of June 2017
- *
+ * @deprecated the converter does not use these caches anymore, the cross sectional observations are regrouped
+ * by the external sort of {@link org.estat.sdmxsource.engine.reader.WrapperCrossSectionalDataCachingReaderEngine}
  */
+@Deprecated
 public class ConverterCacheManager {
-	CachingProvider cachingProvider;
-	CacheManager cacheManager;
+	
+	private static Logger logger = LogManager.getLogger(ConverterCacheManager.class);
 	
 	public static final String CROSS_SECTIONAL_CACHE="xsCache";
 	public static final String CSV_XS_CACHE="CsvXsCache";
 	
+	/** the default size of the heap tier of a cache, in bytes */
+	public static final long DEFAULT_HEAP_BYTES = 32L * 1024 * 1024;
+	/** the default size of the off-heap tier of a cache, in bytes */
+	public static final long DEFAULT_OFF_HEAP_BYTES = 128L * 1024 * 1024;
+	/** the default size of the disk tier of a cache, in bytes */
+	public static final long DEFAULT_DISK_BYTES = 1024L * 1024 * 1024;
+	
+	private static final URI CACHE_MANAGER_URI = URI.create("urn:sdmx-converter:cache");
+	
 	public static final ConverterCacheManager INSTANCE =  new ConverterCacheManager();
 	
+	EhcacheCachingProvider cachingProvider;
+	CacheManager cacheManager;
+	
+	private final AtomicLong namespaces = new AtomicLong();
+	
 	private ConverterCacheManager() {
-        //resolve a cache manager
-        cachingProvider = Caching.getCachingProvider();
-        cacheManager = cachingProvider.getCacheManager();
+        //resolve a cache manager with a disk store for the last tier
+        cachingProvider = (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        DefaultConfiguration configuration = new DefaultConfiguration(cachingProvider.getDefaultClassLoader(),
+        		new DefaultPersistenceConfiguration(createDiskStoreDirectory()));
+        cacheManager = cachingProvider.getCacheManager(CACHE_MANAGER_URI, configuration);
+	}
+	
+	private static File createDiskStoreDirectory() {
+		try {
+			File directory = Files.createTempDirectory("converterCache").toFile();
+			directory.deleteOnExit();
+			return directory;
+		} catch (IOException e) {
+			throw new UncheckedIOException("could not create the directory of the cache disk store", e);
+		}
+	}
+	
+	/**
+	 * Opens the scope of the caches of one conversion, with the default sizes of the tiers.
+	 */
+	public ConverterCacheScope openScope() {
+		return openScope(DEFAULT_HEAP_BYTES, DEFAULT_OFF_HEAP_BYTES, DEFAULT_DISK_BYTES);
 	}
 	
+	/**
+	 * Opens the scope of the caches of one conversion.
+	 * 
+	 * @param heapBytes the size of the heap tier of each cache of the scope
+	 * @param offHeapBytes the size of the off-heap tier, larger than the heap tier
+	 * @param diskBytes the size of the disk tier, larger than the off-heap tier
+	 */
+	public ConverterCacheScope openScope(long heapBytes, long offHeapBytes, long diskBytes) {
+		checkTierSizes(heapBytes, offHeapBytes, diskBytes);
+		return new ConverterCacheScope(this, "conversion" + namespaces.incrementAndGet(), heapBytes, offHeapBytes, diskBytes);
+	}
+	
+	/**
+	 * Creates the cache with the default sizes of the tiers, when there is none with this name.
+	 * The cache is shared by everyone using the name, prefer {@link #openScope()} for the caches of a conversion.
+	 */
 	public void createConverterCache(String cacheName){
-		
 		if (cacheManager.getCache(cacheName) == null) {
-	        //configure the cache
-	        MutableConfiguration<LinkedHashMap<String, String>, LinkedHashMap<String, String>> config =
-	           new MutableConfiguration<LinkedHashMap<String, String>, LinkedHashMap<String, String>>()
-	//           .setTypes(HashMap.class, HashMap.class)
-	           .setExpiryPolicyFactory(AccessedExpiryPolicy.factoryOf(Duration.THIRTY_MINUTES))
-	           .setStatisticsEnabled(true);
+			createConverterCache(cacheName, DEFAULT_HEAP_BYTES, DEFAULT_OFF_HEAP_BYTES, DEFAULT_DISK_BYTES);
+		}
+	}
 	
-	        //create the cache
-	        cacheManager.createCache(cacheName, config);
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	synchronized Cache<LinkedHashMap<String, String>, LinkedHashMap<String, String>> createConverterCache(String cacheName,
+			long heapBytes, long offHeapBytes, long diskBytes) {
+		Cache<LinkedHashMap<String, String>, LinkedHashMap<String, String>> cache = cacheManager.getCache(cacheName);
+		if (cache == null) {
+			checkTierSizes(heapBytes, offHeapBytes, diskBytes);
+			//configure the cache, the disk store is not kept once the cache is destroyed
+			CacheConfiguration<LinkedHashMap, LinkedHashMap> config = CacheConfigurationBuilder
+					.newCacheConfigurationBuilder(LinkedHashMap.class, LinkedHashMap.class,
+							ResourcePoolsBuilder.newResourcePoolsBuilder()
+									.heap(heapBytes, MemoryUnit.B)
+									.offheap(offHeapBytes, MemoryUnit.B)
+									.disk(diskBytes, MemoryUnit.B, false))
+					.withExpiry(ExpiryPolicyBuilder.noExpiration())
+					.build();
+			//create the cache
+			cache = (Cache) cacheManager.createCache(cacheName, Eh107Configuration.fromEhcacheCacheConfiguration(config));
+			cacheManager.enableStatistics(cacheName, true);
+			logger.debug("created the cache {} with {} heap bytes, {} off-heap bytes and {} disk bytes",
+					cacheName, heapBytes, offHeapBytes, diskBytes);
+		}
+		return cache;
+	}
+	
+	private static void checkTierSizes(long heapBytes, long offHeapBytes, long diskBytes) {
+		if (heapBytes <= 0 || offHeapBytes <= heapBytes || diskBytes <= offHeapBytes) {
+			throw new IllegalArgumentException("the cache tiers should grow from the heap to the disk, found heap="
+					+ heapBytes + " off-heap=" + offHeapBytes + " disk=" + diskBytes);
 		}
 	}
 	
@@ -88,10 +186,29 @@ public class ConverterCacheManager {
     	return cache.get(key);
     }
     
+    /**
+     * Destroys the cache, releasing its off-heap memory and its disk store. 
+     */
     public void closeCache(Cache<LinkedHashMap<String, String>, LinkedHashMap<String, String>> cache) {
-    	if (cache != null) {
-    		cache.clear();
-    		cache.close();
+    	if (cache != null && !cache.isClosed()) {
+    		cacheManager.destroyCache(cache.getName());
+    	}
+    }
+    
+    /**
+     * The statistics of the cache, as published by the JSR107 management beans. 
+     * The values are live, they change with the use of the cache.
+     * 
+     * @return the statistics, null when the cache does not exist anymore
+     */
+    public CacheStatisticsMXBean getStatistics(Cache<?, ?> cache) {
+    	MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    	try {
+    		Set<ObjectName> names = server.queryNames(
+    				new ObjectName("javax.cache:type=CacheStatistics,Cache=" + cache.getName() + ",*"), null);
+    		return names.isEmpty() ? null : JMX.newMXBeanProxy(server, names.iterator().next(), CacheStatisticsMXBean.class);
+    	} catch (MalformedObjectNameException e) {
+    		throw new IllegalArgumentException("the cache name " + cache.getName() + " cannot be looked up", e);
     	}
     }
 }
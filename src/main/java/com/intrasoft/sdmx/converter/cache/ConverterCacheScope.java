@@ -0,0 +1,67 @@
+package com.intrasoft.sdmx.converter.cache;
+
+import javax.cache.Cache;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * The caches of one conversion.
+ * <p>The caches of a scope are named after the scope, so two conversions asking for the same cache, for instance
+ * {@link ConverterCacheManager#CROSS_SECTIONAL_CACHE}, never share it. Closing the scope destroys all its caches,
+ * the conversion should close it when it is closed itself.</p>
+ *
+ * @see ConverterCacheManager#openScope()
+ * @deprecated like the {@link ConverterCacheManager}
+ */
+@Deprecated
+public final class ConverterCacheScope implements AutoCloseable {
+
+	private final ConverterCacheManager manager;
+	private final String namespace;
+	private final long heapBytes;
+	private final long offHeapBytes;
+	private final long diskBytes;
+
+	private final List<Cache<LinkedHashMap<String, String>, LinkedHashMap<String, String>>> caches = new ArrayList<>();
+
+	ConverterCacheScope(ConverterCacheManager manager, String namespace, long heapBytes, long offHeapBytes, long diskBytes) {
+		this.manager = manager;
+		this.namespace = namespace;
+		this.heapBytes = heapBytes;
+		this.offHeapBytes = offHeapBytes;
+		this.diskBytes = diskBytes;
+	}
+
+	public String getNamespace() {
+		return namespace;
+	}
+
+	/**
+	 * @param cacheName the name of the cache within the scope
+	 * @return the cache of this scope with the name, created the first time it is asked for
+	 */
+	public synchronized Cache<LinkedHashMap<String, String>, LinkedHashMap<String, String>> getCache(String cacheName) {
+		String qualifiedName = namespace + "." + cacheName;
+		for (Cache<LinkedHashMap<String, String>, LinkedHashMap<String, String>> cache : caches) {
+			if (cache.getName().equals(qualifiedName)) {
+				return cache;
+			}
+		}
+		Cache<LinkedHashMap<String, String>, LinkedHashMap<String, String>> cache =
+				manager.createConverterCache(qualifiedName, heapBytes, offHeapBytes, diskBytes);
+		caches.add(cache);
+		return cache;
+	}
+
+	/**
+	 * Destroys the caches of the scope.
+	 */
+	@Override
+	public synchronized void close() {
+		for (Cache<LinkedHashMap<String, String>, LinkedHashMap<String, String>> cache : caches) {
+			manager.closeCache(cache);
+		}
+		caches.clear();
+	}
+}
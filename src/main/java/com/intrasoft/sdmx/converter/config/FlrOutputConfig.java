@@ -33,6 +33,13 @@ public class FlrOutputConfig  implements OutputConfig {
 
     private Map<String, Integer> lengthsCounting = null;
 
+    /**
+     * When the widths are not mapped, take them from the structure instead of measuring the data,
+     * the components without a width in the structure are still measured.
+     * The default of the conversions comes from <code>default.flr.output.widthsFromStructure</code>
+     */
+    private boolean widthsFromStructure = false;
+
     /**
      * This is used for SDMX 3.0 to separate names and multiple values inside a field
      */
@@ -118,6 +125,14 @@ public class FlrOutputConfig  implements OutputConfig {
         this.lengthsCounting = lengthsCounting;
     }
 
+    public boolean isWidthsFromStructure() {
+        return widthsFromStructure;
+    }
+
+    public void setWidthsFromStructure(boolean widthsFromStructure) {
+        this.widthsFromStructure = widthsFromStructure;
+    }
+
     public void setPadding(String padding) {
         this.padding = padding;
     }
@@ -1,6 +1,7 @@
 package com.intrasoft.sdmx.converter.config;
 
 import org.estat.sdmxsource.config.InputConfig;
+import org.estat.sdmxsource.engine.reader.WrapperCrossSectionalDataCachingReaderEngine;
 import org.sdmxsource.sdmx.api.constants.SDMX_SCHEMA;
 
 public class SdmxInputConfig implements InputConfig {
@@ -13,6 +14,12 @@ public class SdmxInputConfig implements InputConfig {
 
     private SDMX_SCHEMA sdmxSchema;
 
+    /**
+     * bytes of cross sectional observations kept in memory while they are regrouped into time series,
+     * above it they are spilled to temporary files
+     */
+    private long crossSectionalMemoryBudget = WrapperCrossSectionalDataCachingReaderEngine.DEFAULT_MEMORY_BUDGET;
+
     @Override
     public SDMX_SCHEMA getStructureSchemaVersion() {
         return this.sdmxSchema;
@@ -43,6 +50,14 @@ public class SdmxInputConfig implements InputConfig {
         this.inlineReportFormat=inlineReportFormat;
     }
 
+    public long getCrossSectionalMemoryBudget() {
+        return crossSectionalMemoryBudget;
+    }
+
+    public void setCrossSectionalMemoryBudget(long crossSectionalMemoryBudget) {
+        this.crossSectionalMemoryBudget = crossSectionalMemoryBudget;
+    }
+
     @Override
     public boolean isErrorIfEmpty() {
         return errorIfEmpty;
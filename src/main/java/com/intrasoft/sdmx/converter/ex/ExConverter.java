@@ -60,9 +60,15 @@ public class ExConverter {
 
 	private static Logger logger = LogManager.getLogger(ExConverter.class);
 
-	public static ConverterMetrics getMetrics() { return metrics; }
+	/**
+	 * @return the metrics of the last completed conversion, whichever thread made it
+	 * @deprecated use the metrics returned by {@link #convertWithMetrics(Formats, Formats, InputStream, OutputStream, InputParams)}
+	 */
+	@Deprecated
+	public static ConverterMetrics getMetrics() { return lastMetrics; }
 
-	private static ConverterMetrics metrics;
+	/** Metrics of the last completed conversion, only kept for the callers of {@link #getMetrics()} */
+	private static volatile ConverterMetrics lastMetrics;
 
 	/**
 	 * This is a field to contain potential exceptions that may make the thread crash. It is used to pass the exception
@@ -114,7 +120,22 @@ public class ExConverter {
 	 * @throws Exception
 	 */
 	public static void convert(Formats from, Formats to, InputStream is, OutputStream os, InputParams params) throws Exception {
+		convertWithMetrics(from, to, is, os, params);
+	}
+
+	/**
+	 * Same as {@link #convert(Formats, Formats, InputStream, OutputStream, InputParams)}.
+	 * @param from the input format
+	 * @param to the output format
+	 * @param is the input dataset
+	 * @param os the output dataset
+	 * @param params the conversion parameters
+	 * @return the metrics of the conversion
+	 * @throws Exception
+	 */
+	public static ConverterMetrics convertWithMetrics(Formats from, Formats to, InputStream is, OutputStream os, InputParams params) throws Exception {
 
+		ConverterMetrics metrics = null;
 		Object[] sliceFileNames =null;
 		boolean fromEqualsDSXML = false;
 		try {
@@ -226,6 +247,7 @@ public class ExConverter {
 			}
 			long after = System.currentTimeMillis();
 			metrics = new ConverterMetrics(before, after, ingoredObsCount, obsCount);
+			lastMetrics = metrics;
 			logger.info("Conversion time: " + (after - before) + " msecs");
 		} catch (ReaderValidationException rve) {
 			crashThrowable = rve;
@@ -259,6 +281,7 @@ public class ExConverter {
 				}
 			}		
 		}
+		return metrics;
 	}
 	
 	private static Reader getReader(Formats from) throws Exception {
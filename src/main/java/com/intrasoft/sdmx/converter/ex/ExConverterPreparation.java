@@ -32,21 +32,34 @@ public class ExConverterPreparation {
 
 	private static Logger logger = LogManager.getLogger(ExConverterPreparation.class);
 
-	public static ConverterMetrics getMetrics() { return metrics; }
-
-	private static ConverterMetrics metrics;
+	/**
+	 * @return the metrics of the last completed conversion, whichever thread made it
+	 * @deprecated use the metrics returned by {@link #convertWithMetrics(ConverterInput, ConverterOutput, ConverterStructure)}
+	 */
+	@Deprecated
+	public static ConverterMetrics getMetrics() { return ExConverter.getMetrics(); }
 	
     public static void convertWithPreviousImpl( ConverterInput converterInput,
             ConverterOutput converterOutput,
             ConverterStructure converterStructure) throws Exception {
+        convertWithMetrics(converterInput, converterOutput, converterStructure);
+    }
+
+    /**
+     * Performs the conversion with the old (non sdmxsource) readers and writers.
+     *
+     * @return the metrics of the conversion
+     */
+    public static ConverterMetrics convertWithMetrics( ConverterInput converterInput,
+            ConverterOutput converterOutput,
+            ConverterStructure converterStructure) throws Exception {
         ReadableDataLocation dt = converterInput.getInputDataLocation();
         InputParams params = buildParams(converterInput, converterOutput, converterStructure, dt);
         try(InputStream inStream = dt.getInputStream()){
-            ExConverter.convert(converterInput.getInputFormat(), 
+            return ExConverter.convertWithMetrics(converterInput.getInputFormat(), 
                     converterOutput.getOutputFormat(), 
                     inStream, 
                     converterOutput.getOutputStream(), params);
-            metrics = ExConverter.getMetrics();
         }finally {
             if(dt!=null) dt.close();
         }
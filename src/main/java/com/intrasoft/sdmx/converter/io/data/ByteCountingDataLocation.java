@@ -0,0 +1,72 @@
+package com.intrasoft.sdmx.converter.io.data;
+
+import org.sdmxsource.sdmx.api.util.ReadableDataLocation;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decorator of a {@link ReadableDataLocation} that counts the bytes read from the streams it opens.
+ * <p>Readers that go over the input more than once open a stream per pass, the bytes of every pass are counted.</p>
+ */
+public class ByteCountingDataLocation implements ReadableDataLocation {
+
+	private static final long serialVersionUID = 1L;
+
+	private final ReadableDataLocation dataLocation;
+
+	private final transient List<ByteCountingInputStream> openedStreams = new ArrayList<>();
+
+	public ByteCountingDataLocation(ReadableDataLocation dataLocation) {
+		this.dataLocation = dataLocation;
+	}
+
+	/**
+	 * @return the decorated location
+	 */
+	public ReadableDataLocation getDataLocation() {
+		return dataLocation;
+	}
+
+	@Override
+	public InputStream getInputStream() {
+		InputStream inputStream = dataLocation.getInputStream();
+		if (inputStream == null) {
+			return null;
+		}
+		ByteCountingInputStream countingStream = new ByteCountingInputStream(inputStream);
+		synchronized (openedStreams) {
+			openedStreams.add(countingStream);
+		}
+		return countingStream;
+	}
+
+	@Override
+	public String getName() {
+		return dataLocation.getName();
+	}
+
+	@Override
+	public void close() {
+		dataLocation.close();
+	}
+
+	/**
+	 * @return the bytes read so far from all the streams opened by this location
+	 */
+	public long getByteCount() {
+		long byteCount = 0;
+		synchronized (openedStreams) {
+			for (ByteCountingInputStream stream : openedStreams) {
+				byteCount += stream.getByteCount();
+			}
+		}
+		return byteCount;
+	}
+
+	@Override
+	public String toString() {
+		return dataLocation.toString();
+	}
+}
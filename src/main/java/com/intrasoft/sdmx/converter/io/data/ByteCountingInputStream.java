@@ -0,0 +1,61 @@
+package com.intrasoft.sdmx.converter.io.data;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream that counts the bytes read through it.
+ * <p>Like the {@link ByteCountingOutputStream} it is not synchronized,
+ * it is meant to be used by the single thread that reads the input.</p>
+ */
+public class ByteCountingInputStream extends FilterInputStream {
+
+	private long byteCount;
+
+	public ByteCountingInputStream(InputStream in) {
+		super(in);
+	}
+
+	@Override
+	public int read() throws IOException {
+		int b = in.read();
+		if (b != -1) {
+			byteCount++;
+		}
+		return b;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		int read = in.read(b, off, len);
+		if (read > 0) {
+			byteCount += read;
+		}
+		return read;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		long skipped = in.skip(n);
+		if (skipped > 0) {
+			byteCount += skipped;
+		}
+		return skipped;
+	}
+
+	/**
+	 * Marking is not supported, so that bytes read again after a reset are not counted twice.
+	 */
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+
+	/**
+	 * @return the number of bytes read so far
+	 */
+	public long getByteCount() {
+		return byteCount;
+	}
+}
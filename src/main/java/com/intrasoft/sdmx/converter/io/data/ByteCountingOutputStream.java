@@ -0,0 +1,38 @@
+package com.intrasoft.sdmx.converter.io.data;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output stream that counts the bytes written through it.
+ * <p>Unlike the commons-io CountingOutputStream it is not synchronized,
+ * it is meant to be used by the single thread that writes the output.</p>
+ */
+public class ByteCountingOutputStream extends FilterOutputStream {
+
+	private long byteCount;
+
+	public ByteCountingOutputStream(OutputStream out) {
+		super(out);
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		out.write(b);
+		byteCount++;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		out.write(b, off, len);
+		byteCount += len;
+	}
+
+	/**
+	 * @return the number of bytes written so far
+	 */
+	public long getByteCount() {
+		return byteCount;
+	}
+}
@@ -18,6 +18,7 @@ import com.intrasoft.sdmx.converter.ComponentValuesBuffer;
 import com.intrasoft.sdmx.converter.model.ndata.Attrs;
 import com.intrasoft.sdmx.converter.model.ndata.Keys;
 import com.intrasoft.sdmx.converter.model.ndata.ObservationData;
+import com.intrasoft.sdmx.converter.structures.ComponentSchema;
 import com.intrasoft.sdmx.converter.util.GroupsCache;
 
 /**
@@ -46,6 +47,11 @@ public abstract class ComponentBufferWriterEngine extends BufferedDataWriterEngi
      */
     private ComponentValuesBuffer componentValuesBuffer = null;
 
+    /**
+     * the component ordinals of the data structure, set when the dataset is opened
+     */
+    private ComponentSchema componentSchema = null;
+
     //v.3.0
     private List<ComponentValuesBuffer> componentValuesBuffers = new ArrayList<ComponentValuesBuffer>();
 
@@ -107,6 +113,7 @@ public abstract class ComponentBufferWriterEngine extends BufferedDataWriterEngi
      */
     public void openDataset(DatasetHeaderBean header,
                             AnnotationBean...annotations){
+        componentSchema = getStructureScanner().getComponentSchema();
         List<String> dsdComponentsForCrossXMeasures = getStructureScanner().getComponents(isMapCrossXMeasures());
         List<String> dsdComponents = getCrossXMeasuresComponents(dsdComponentsForCrossXMeasures);
         if(!getDataStructure().hasComplexComponents()
@@ -114,7 +121,7 @@ public abstract class ComponentBufferWriterEngine extends BufferedDataWriterEngi
 					&& ObjectUtil.validString(getDataStructure().getPrimaryMeasure().getId())) {
 			primaryMeasureName = getDataStructure().getPrimaryMeasure().getId();
 			logger.debug("opening dataset for primary measure {}", primaryMeasureName);
-			componentValuesBuffer = new ComponentValuesBuffer(primaryMeasureName, dsdComponents);
+			componentValuesBuffer = new ComponentValuesBuffer(primaryMeasureName, dsdComponents, componentSchema);
 		} else {
 			// this hack is when dsd is SDMX 3.0
 			// primaryMeasureName = PrimaryMeasureBean.FIXED_ID;
@@ -132,7 +139,7 @@ public abstract class ComponentBufferWriterEngine extends BufferedDataWriterEngi
 			
 			for(MeasureBean measureBean : getDataStructure().getMeasures()) {
 				if(dsdComponentsForCrossXMeasures.contains(measureBean.getId())) {
-					componentValuesBuffer = new ComponentValuesBuffer(measureBean.getId(), dsdComponentsForCrossXMeasures);
+					componentValuesBuffer = new ComponentValuesBuffer(measureBean.getId(), dsdComponentsForCrossXMeasures, componentSchema);
 					componentValuesBuffers.add(componentValuesBuffer);
 					primaryMeasureNames.add(measureBean.getId());
 					break;
@@ -140,7 +147,7 @@ public abstract class ComponentBufferWriterEngine extends BufferedDataWriterEngi
 			}
 			
 			if(componentValuesBuffers.isEmpty()) {
-				componentValuesBuffer = new ComponentValuesBuffer("ONLY_COMPLEX_MEASURES", dsdComponentsForCrossXMeasures);
+				componentValuesBuffer = new ComponentValuesBuffer("ONLY_COMPLEX_MEASURES", dsdComponentsForCrossXMeasures, componentSchema);
 				componentValuesBuffers.add(componentValuesBuffer);
 				primaryMeasureNames.add("ONLY_COMPLEX_MEASURES");
 			}
@@ -163,11 +170,11 @@ public abstract class ComponentBufferWriterEngine extends BufferedDataWriterEngi
 
     public void closeDataset(){
         if(ObjectUtil.validObject(getStructureScanner(), componentValuesBuffer)){
-            componentValuesBuffer.emptyValues(getStructureScanner().getDatasetLevelAttributes());
+            componentValuesBuffer.emptyValues(componentSchema, componentSchema.getDatasetLevelAttributes());
 
         } else if(ObjectUtil.validObject(getStructureScanner()) && ObjectUtil.validCollection(componentValuesBuffers)) {
         	for(ComponentValuesBuffer coValuesBuffer : componentValuesBuffers)
-        		coValuesBuffer.emptyValues(getStructureScanner().getDatasetLevelAttributes());
+        		coValuesBuffer.emptyValues(componentSchema, componentSchema.getDatasetLevelAttributes());
         }
         //Empty attributes of dataset when/if start new read them again
         if(ObjectUtil.validMap(complexAttributesMap)) {
@@ -194,14 +201,14 @@ public abstract class ComponentBufferWriterEngine extends BufferedDataWriterEngi
 
     public void closeSeries(){
     	if(ObjectUtil.validObject(componentValuesBuffer)) {
-	        componentValuesBuffer.emptyValues(getStructureScanner().getSeriesLevelAttributes());
-	        componentValuesBuffer.emptyValues(getStructureScanner().getDimensions(false));
+	        componentValuesBuffer.emptyValues(componentSchema, componentSchema.getSeriesLevelAttributes());
+	        componentValuesBuffer.emptyValues(componentSchema, componentSchema.getDimensionsAndPrimaryMeasure());
     	}
     	if(ObjectUtil.validCollection(componentValuesBuffers)) {
     		for(ComponentValuesBuffer coValuesBuffer : componentValuesBuffers) {
-    			coValuesBuffer.emptyValues(getStructureScanner().getSeriesLevelAttributes());
-    			coValuesBuffer.emptyValues(getStructureScanner().getGroupLevelAttributes());
-    			coValuesBuffer.emptyValues(getStructureScanner().getDimensions(false));
+    			coValuesBuffer.emptyValues(componentSchema, componentSchema.getSeriesLevelAttributes());
+    			coValuesBuffer.emptyValues(componentSchema, componentSchema.getGroupLevelAttributes());
+    			coValuesBuffer.emptyValues(componentSchema, componentSchema.getDimensionsAndPrimaryMeasure());
     		}
     	}
 		//Empty attributes of series/group when/if start new read them again
@@ -253,12 +260,12 @@ public abstract class ComponentBufferWriterEngine extends BufferedDataWriterEngi
     public void closeObservation(){
     	if(ObjectUtil.validObject(componentValuesBuffer)) {
 	        doWriteComponentsValues(componentValuesBuffer);
-	        componentValuesBuffer.emptyValues(getStructureScanner().getObservationLevelAttributes());
+	        componentValuesBuffer.emptyValues(componentSchema, componentSchema.getObservationLevelAttributes());
     	}
     	if(ObjectUtil.validCollection(componentValuesBuffers)) {
     		for(ComponentValuesBuffer coValuesBuffer : componentValuesBuffers) {
     			doWriteComponentsValues(coValuesBuffer);
-    			coValuesBuffer.emptyValues(getStructureScanner().getObservationLevelAttributes());
+    			coValuesBuffer.emptyValues(componentSchema, componentSchema.getObservationLevelAttributes());
     		}
     	}
 		//Empty attributes of series/group when/if start new read them again
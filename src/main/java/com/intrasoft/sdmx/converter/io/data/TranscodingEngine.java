@@ -1,21 +1,26 @@
 package com.intrasoft.sdmx.converter.io.data;
 
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
 import org.sdmxsource.util.ObjectUtil;
 
 import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * This class implements the transcoding processes used in flat readers/writers.
+ * <p>The rules are compiled once into a {@link TranscodingTable}, a lookup does not scan the rules.</p>
  */
 public class TranscodingEngine implements TranscodingEngineInterface{
 
-	private static Logger logger = LogManager.getLogger(TranscodingEngine.class);
-
-	private LinkedHashMap<String, LinkedHashMap<String, String>> transcoding;
+	private final TranscodingTable<String> transcoding;
 
 	public TranscodingEngine(LinkedHashMap<String, LinkedHashMap<String, String>> transcoding) {
+		this(TranscodingTable.fromCodeMaps(transcoding));
+	}
+
+	/**
+	 * @param transcoding rules already compiled, to share them between readers and writers
+	 */
+	public TranscodingEngine(TranscodingTable<String> transcoding) {
 		this.transcoding = transcoding;
 	}
 
@@ -24,16 +29,7 @@ public class TranscodingEngine implements TranscodingEngineInterface{
 	 */
 	@Override
 	public boolean hasTranscodingRules(final String key) {
-		boolean hasrule = false;
-		if (transcoding == null || transcoding.isEmpty()) {
-			// there are no transcoding rules
-			return hasrule;
-		} else {
-			if (transcoding.containsKey(key)) {
-				hasrule = true;
-			}
-			return hasrule;
-		}
+		return transcoding.hasRules(key);
 	}
 
 	/**
@@ -41,29 +37,25 @@ public class TranscodingEngine implements TranscodingEngineInterface{
 	 */
 	@Override
 	public String getValueFromTranscoding(final String key, final String value) {
-		String returnedValue = value;
-		final LinkedHashMap<String, LinkedHashMap<String, String>> structureSetMap = transcoding;
-		LinkedHashMap<String, String> rule = null;
-		if(ObjectUtil.validMap(structureSetMap))
-			rule = structureSetMap.get(key);
+		final Map<String, String> rule = transcoding.rulesOf(key);
+		if (rule == null) {
+			return value;
+		}
 		// check if the value belongs in any rule
-		if(ObjectUtil.validMap(rule) && rule.containsKey(value)) {
-			final Object[] setKeys = rule.keySet().toArray();
-			for (int i = 0; i < setKeys.length; i++) {
-				if (setKeys[i].equals(value)) {
-					returnedValue = rule.get(setKeys[i]);
-				}
-			}
-		} else if(!ObjectUtil.validString(value) && rule!=null && rule.containsKey("")) { //default value
-			final Object[] setKeys = rule.keySet().toArray();
-			for (int i = 0; i < setKeys.length; i++) {
-				if (setKeys[i].equals("")) {
-					returnedValue = rule.get(setKeys[i]);
-				}
-			}
-		} else {
-			returnedValue = value;
+		final String transcodedValue = rule.get(value);
+		if (transcodedValue != null || rule.containsKey(value)) {
+			return transcodedValue;
+		}
+		if (!ObjectUtil.validString(value) && rule.containsKey("")) { //default value
+			return rule.get("");
 		}
-		return returnedValue;
+		return value;
+	}
+
+	/**
+	 * @return the compiled rules
+	 */
+	public TranscodingTable<String> getTranscodingTable() {
+		return transcoding;
 	}
 }
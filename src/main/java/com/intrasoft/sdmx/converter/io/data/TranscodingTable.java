@@ -0,0 +1,101 @@
+package com.intrasoft.sdmx.converter.io.data;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Transcoding rules compiled into hash tables: component &rarr; code &rarr; rule.
+ * <p>Built once from the rules of a configuration and immutable afterwards, so that a lookup is a couple of
+ * hash lookups without allocation and the same table can be used by several readers or writers.
+ * The flat readers and writers hold the transcoded code ({@link TranscodingEngine}), the excel reader
+ * the rule read from the transcoding sheet.</p>
+ *
+ * @param <V> the rule found for a code
+ */
+public final class TranscodingTable<V> {
+
+	private static final TranscodingTable<?> EMPTY = new TranscodingTable<>(Collections.emptyMap());
+
+	private final Map<String, Map<String, V>> rules;
+
+	private TranscodingTable(Map<String, Map<String, V>> rules) {
+		this.rules = rules;
+	}
+
+	/**
+	 * Compiles the rules of the flat formats, code to transcoded code per component.
+	 *
+	 * @param transcoding the rules per component, may be null
+	 * @return the table, empty when there are no rules
+	 */
+	public static TranscodingTable<String> fromCodeMaps(Map<String, ? extends Map<String, String>> transcoding) {
+		if (transcoding == null || transcoding.isEmpty()) {
+			return empty();
+		}
+		Map<String, Map<String, String>> rules = new HashMap<>(transcoding.size() * 2);
+		for (Map.Entry<String, ? extends Map<String, String>> component : transcoding.entrySet()) {
+			Map<String, String> codes = component.getValue() != null ? new HashMap<>(component.getValue()) : new HashMap<>();
+			rules.put(component.getKey(), Collections.unmodifiableMap(codes));
+		}
+		return new TranscodingTable<>(Collections.unmodifiableMap(rules));
+	}
+
+	/**
+	 * Compiles rules held as a list per component. When several rules have the same code the last one wins,
+	 * the same as scanning the whole list.
+	 *
+	 * @param transcoding the rules per component, may be null
+	 * @param codeOf      the code a rule applies to
+	 * @return the table, empty when there are no rules
+	 */
+	public static <V> TranscodingTable<V> fromRuleLists(Map<String, ? extends List<V>> transcoding, Function<V, String> codeOf) {
+		if (transcoding == null || transcoding.isEmpty()) {
+			return empty();
+		}
+		Map<String, Map<String, V>> rules = new HashMap<>(transcoding.size() * 2);
+		for (Map.Entry<String, ? extends List<V>> component : transcoding.entrySet()) {
+			Map<String, V> codes = new HashMap<>();
+			if (component.getValue() != null) {
+				for (V rule : component.getValue()) {
+					codes.put(codeOf.apply(rule), rule);
+				}
+			}
+			rules.put(component.getKey(), Collections.unmodifiableMap(codes));
+		}
+		return new TranscodingTable<>(Collections.unmodifiableMap(rules));
+	}
+
+	@SuppressWarnings("unchecked")
+	public static <V> TranscodingTable<V> empty() {
+		return (TranscodingTable<V>) EMPTY;
+	}
+
+	/**
+	 * @return true when the component has rules, even an empty list of them
+	 */
+	public boolean hasRules(String component) {
+		return rules.containsKey(component);
+	}
+
+	/**
+	 * @return the rules of the component, null when it has none
+	 */
+	public Map<String, V> rulesOf(String component) {
+		return rules.get(component);
+	}
+
+	/**
+	 * @return the rule of the code for the component, null when there is none
+	 */
+	public V find(String component, String code) {
+		Map<String, V> codes = rules.get(component);
+		return codes != null ? codes.get(code) : null;
+	}
+
+	public boolean isEmpty() {
+		return rules.isEmpty();
+	}
+}
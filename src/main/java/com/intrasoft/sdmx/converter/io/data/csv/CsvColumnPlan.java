@@ -0,0 +1,283 @@
+package com.intrasoft.sdmx.converter.io.data.csv;
+
+import com.intrasoft.sdmx.converter.io.data.TranscodingEngine;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.sdmxsource.sdmx.api.model.beans.base.ComponentBean;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The csv mapping of a dataset compiled against the data structure.
+ * <p>Built once, when the mapping of the dataset is final, so that decoding a row only reads the row by index:
+ * the component of every mapped column, its role in the keyable, the groups, the observation and the dataset,
+ * the 0-based column indexes, the fixed values and the transcoding concept are resolved here.
+ * The columns of each role keep the order of the mapping.</p>
+ */
+final class CsvColumnPlan {
+
+	private static Logger logger = LogManager.getLogger(CsvColumnPlan.class);
+
+	/**
+	 * What a column holds for the keyable of the row
+	 */
+	enum KeyRole {
+		NONE,
+		TIME_DIMENSION,
+		DIMENSION,
+		/** a measure dimension while the cross sectional measures are mapped, which is an error */
+		MEASURE_DIMENSION_WITH_XS_MEASURES,
+		SERIES_ATTRIBUTE
+	}
+
+	/**
+	 * What a column holds for the observation of the row
+	 */
+	enum ObsRole {
+		NONE,
+		TIME_DIMENSION,
+		PRIMARY_MEASURE,
+		OBS_ATTRIBUTE,
+		XS_MEASURE,
+		OBS_DIMENSION,
+		MEASURE
+	}
+
+	/**
+	 * How the value of an attribute or measure column is collected, see SDMXCONV-1351
+	 */
+	enum ComplexKind {
+		/** not collected */
+		NONE,
+		/** the column is the single value of a simple component */
+		SIMPLE,
+		/** the column holds all the values of a complex component, separated by the sub field separator */
+		SPLIT,
+		/** the column (COMP1, COMP2...) holds one of the values of a complex component */
+		PART
+	}
+
+	static final class Column {
+
+		final String concept;
+		final String componentId;
+		final boolean fixed;
+		final String fixedValue;
+		/** 0-based indexes of the columns concatenated for the value */
+		final int[] indexes;
+		/** the concept of the transcoding rules, null when the column has none */
+		final String transcodingConcept;
+		final KeyRole keyRole;
+		final ObsRole obsRole;
+		final boolean datasetAttribute;
+		final ComplexKind complexKind;
+		/** the component the value is collected for, the concept without its trailing digit for PART */
+		final String complexTarget;
+		/** whether errors on the component of the column are displayable, by component id */
+		final boolean componentErrorDisplayable;
+		/** whether errors on the collected component are displayable, by complex target */
+		final boolean complexErrorDisplayable;
+
+		Column(String concept, ComponentBean component, boolean fixed, String fixedValue, int[] indexes,
+			   String transcodingConcept, KeyRole keyRole, ObsRole obsRole, boolean datasetAttribute,
+			   ComplexKind complexKind, String complexTarget,
+			   boolean componentErrorDisplayable, boolean complexErrorDisplayable) {
+			this.concept = concept;
+			this.componentId = component != null ? component.getId() : null;
+			this.fixed = fixed;
+			this.fixedValue = fixedValue;
+			this.indexes = indexes;
+			this.transcodingConcept = transcodingConcept;
+			this.keyRole = keyRole;
+			this.obsRole = obsRole;
+			this.datasetAttribute = datasetAttribute;
+			this.complexKind = complexKind;
+			this.complexTarget = complexTarget;
+			this.componentErrorDisplayable = componentErrorDisplayable;
+			this.complexErrorDisplayable = complexErrorDisplayable;
+		}
+
+		/**
+		 * The value of a simple concept: the fixed value, the transcoded value of a single column
+		 * or the concatenation of several columns.
+		 */
+		String value(String[] row, TranscodingEngine transcoding) {
+			if (fixed) {
+				return fixedValue;
+			}
+			if (indexes.length == 1 && indexes[0] < row.length) {
+				String conceptValue = row[indexes[0]];
+				if (transcodingConcept != null) {
+					return transcoding.getValueFromTranscoding(transcodingConcept, conceptValue);
+				}
+				return conceptValue != null ? conceptValue : "";
+			}
+			StringBuilder valueBuilder = new StringBuilder();
+			for (int index : indexes) {
+				if (index < row.length) {
+					String conceptValue = row[index];
+					if (conceptValue != null) {
+						valueBuilder.append(conceptValue);
+					}
+				} else {
+					logger.warn("a csv column found in mapping {} has a higher index than the number of columns in the csv {}", index + 1, row.length);
+				}
+			}
+			return valueBuilder.toString();
+		}
+	}
+
+	/**
+	 * The columns of one group of the data structure
+	 */
+	static final class GroupColumns {
+
+		final String groupId;
+		final Column[] dimensions;
+		final Column[] attributes;
+
+		GroupColumns(String groupId, Column[] dimensions, Column[] attributes) {
+			this.groupId = groupId;
+			this.dimensions = dimensions;
+			this.attributes = attributes;
+		}
+	}
+
+	private final Column[] seriesKeyColumns;
+	private final Column[] seriesAttributeColumns;
+	private final Column[] obsValueColumns;
+	private final Column[] obsAttributeColumns;
+	private final Column[] measureColumns;
+	private final Column[] datasetAttributeColumns;
+	private final GroupColumns[] groups;
+	private final int[] obsDimensionIndexes;
+	private final boolean complexComponents;
+
+	/**
+	 * @param columns             the compiled columns in the order of the mapping
+	 * @param groups              the columns of the groups that have attributes mapped
+	 * @param obsDimensionIndexes 0-based indexes of the columns mapped to the dimension at observation, empty when unmapped
+	 * @param complexComponents   whether the data structure has complex components
+	 */
+	CsvColumnPlan(List<Column> columns, List<GroupColumns> groups, int[] obsDimensionIndexes, boolean complexComponents) {
+		List<Column> seriesKeys = new ArrayList<>();
+		List<Column> seriesAttributes = new ArrayList<>();
+		List<Column> obsValues = new ArrayList<>();
+		List<Column> obsAttributes = new ArrayList<>();
+		List<Column> measures = new ArrayList<>();
+		List<Column> datasetAttributes = new ArrayList<>();
+		for (Column column : columns) {
+			if (column.keyRole == KeyRole.SERIES_ATTRIBUTE) {
+				seriesAttributes.add(column);
+			} else if (column.keyRole != KeyRole.NONE) {
+				seriesKeys.add(column);
+			}
+			if (column.obsRole == ObsRole.OBS_ATTRIBUTE) {
+				obsAttributes.add(column);
+			} else if (column.obsRole == ObsRole.MEASURE) {
+				measures.add(column);
+			} else if (column.obsRole != ObsRole.NONE) {
+				obsValues.add(column);
+			}
+			if (column.datasetAttribute) {
+				datasetAttributes.add(column);
+			}
+		}
+		this.seriesKeyColumns = seriesKeys.toArray(new Column[0]);
+		this.seriesAttributeColumns = seriesAttributes.toArray(new Column[0]);
+		this.obsValueColumns = obsValues.toArray(new Column[0]);
+		this.obsAttributeColumns = obsAttributes.toArray(new Column[0]);
+		this.measureColumns = measures.toArray(new Column[0]);
+		this.datasetAttributeColumns = datasetAttributes.toArray(new Column[0]);
+		this.groups = groups.toArray(new GroupColumns[0]);
+		this.obsDimensionIndexes = obsDimensionIndexes;
+		this.complexComponents = complexComponents;
+	}
+
+	/**
+	 * @return the time and the dimensions of the series key
+	 */
+	Column[] getSeriesKeyColumns() {
+		return seriesKeyColumns;
+	}
+
+	Column[] getSeriesAttributeColumns() {
+		return seriesAttributeColumns;
+	}
+
+	/**
+	 * @return the time, the primary measure, the cross sectional measures and the dimension at observation
+	 */
+	Column[] getObsValueColumns() {
+		return obsValueColumns;
+	}
+
+	Column[] getObsAttributeColumns() {
+		return obsAttributeColumns;
+	}
+
+	Column[] getMeasureColumns() {
+		return measureColumns;
+	}
+
+	Column[] getDatasetAttributeColumns() {
+		return datasetAttributeColumns;
+	}
+
+	GroupColumns[] getGroups() {
+		return groups;
+	}
+
+	int[] getObsDimensionIndexes() {
+		return obsDimensionIndexes;
+	}
+
+	/**
+	 * @param timeSeries whether the time is at observation level, then it is not part of the series key
+	 * @return the 0-based indexes of the row values the keyable of the row is built from, see {@link SeriesKeyTracker}
+	 */
+	int[] getSeriesKeyIndexes(boolean timeSeries) {
+		List<Integer> indexes = new ArrayList<>();
+		for (Column[] columns : new Column[][]{seriesKeyColumns, seriesAttributeColumns}) {
+			for (Column column : columns) {
+				if (!column.fixed && !(timeSeries && column.keyRole == KeyRole.TIME_DIMENSION)) {
+					for (int index : column.indexes) {
+						indexes.add(index);
+					}
+				}
+			}
+		}
+		return indexes.stream().mapToInt(Integer::intValue).toArray();
+	}
+
+	/**
+	 * @return the column of the time dimension, null when it is not mapped
+	 */
+	Column getTimeColumn() {
+		for (Column column : seriesKeyColumns) {
+			if (column.keyRole == KeyRole.TIME_DIMENSION) {
+				return column;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return false when every attribute has a single value, so no values have to be collected per component
+	 */
+	boolean hasComplexComponents() {
+		return complexComponents;
+	}
+
+	/**
+	 * The concept without its trailing digit, e.g. COMP for COMP1, same as {@code replaceAll("\\d$", "")}.
+	 */
+	static String withoutTrailingDigit(String concept) {
+		int last = concept.length() - 1;
+		if (last >= 0 && concept.charAt(last) >= '0' && concept.charAt(last) <= '9') {
+			return concept.substring(0, last);
+		}
+		return concept;
+	}
+}
@@ -0,0 +1,124 @@
+package com.intrasoft.sdmx.converter.io.data.csv;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The output columns of the single level csv writer compiled against the data structure.
+ * <p>Built once per dataset, so that writing a row only reads the buffered values by ordinal and fills an array:
+ * the component of every column, the value used when nothing is buffered, whether the column is transcoded
+ * and, for SDMX 3.0 structures with complex components, the columns (COMP, COMP1, COMP2...) each component
+ * is written to.</p>
+ */
+final class CsvOutputColumnPlan {
+
+	static final class Column {
+
+		final String name;
+		/** the index of the column in the row, the first column with this name */
+		final int index;
+		/** the ordinal of the component in the schema, -1 when the column is not part of the structure */
+		final int ordinal;
+		/** the value when the buffer has none, the code of a cross sectional measure (SDMXCONV-950) */
+		final String fallback;
+		final boolean transcoded;
+		final boolean groupAttribute;
+
+		Column(String name, int index, int ordinal, String fallback, boolean transcoded, boolean groupAttribute) {
+			this.name = name;
+			this.index = index;
+			this.ordinal = ordinal;
+			this.fallback = fallback;
+			this.transcoded = transcoded;
+			this.groupAttribute = groupAttribute;
+		}
+	}
+
+	/**
+	 * The columns a component is written to, in the order of the columns
+	 */
+	static final class ComponentColumns {
+
+		final String componentId;
+		final boolean complex;
+		final Column[] columns;
+		/** true for the column named after the component, false for a numbered column of a complex value */
+		final boolean[] exact;
+
+		ComponentColumns(String componentId, boolean complex, Column[] columns, boolean[] exact) {
+			this.componentId = componentId;
+			this.complex = complex;
+			this.columns = columns;
+			this.exact = exact;
+		}
+	}
+
+	private final Column[] columns;
+	private final ComponentColumns[] components;
+	private final boolean complexLayout;
+
+	/**
+	 * @param columns           the compiled columns in the order of the output
+	 * @param components        the components of the data structure, used only for the complex layout
+	 * @param complexComponents the attributes and measures that can have several values
+	 * @param complexLayout     whether the structure is SDMX 3.0 with complex components
+	 */
+	CsvOutputColumnPlan(List<Column> columns, List<String> components, Set<String> complexComponents, boolean complexLayout) {
+		this.columns = columns.toArray(new Column[0]);
+		this.complexLayout = complexLayout;
+		List<ComponentColumns> result = new ArrayList<>();
+		if (complexLayout) {
+			for (String component : components) {
+				List<Column> matching = new ArrayList<>();
+				List<Boolean> exact = new ArrayList<>();
+				for (Column column : columns) {
+					if (column.name.equals(component)) {
+						matching.add(column);
+						exact.add(Boolean.TRUE);
+					} else if (isNumberedColumnOf(column.name, component)) {
+						matching.add(column);
+						exact.add(Boolean.FALSE);
+					}
+				}
+				if (!matching.isEmpty()) {
+					boolean[] exactArray = new boolean[exact.size()];
+					for (int i = 0; i < exactArray.length; i++) {
+						exactArray[i] = exact.get(i);
+					}
+					result.add(new ComponentColumns(component, complexComponents.contains(component),
+							matching.toArray(new Column[0]), exactArray));
+				}
+			}
+		}
+		this.components = result.toArray(new ComponentColumns[0]);
+	}
+
+	/**
+	 * @return true for COMP1, COMP2... of the component COMP
+	 */
+	static boolean isNumberedColumnOf(String column, String component) {
+		return column.startsWith(component) && StringUtils.isNumeric(column.substring(component.length()));
+	}
+
+	Column[] getColumns() {
+		return columns;
+	}
+
+	/**
+	 * @return the components that have columns, in the order of the data structure
+	 */
+	ComponentColumns[] getComponents() {
+		return components;
+	}
+
+	boolean isComplexLayout() {
+		return complexLayout;
+	}
+
+	int size() {
+		return columns.length;
+	}
+}
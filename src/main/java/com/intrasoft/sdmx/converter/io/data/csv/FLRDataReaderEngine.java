@@ -140,6 +140,12 @@ public class FLRDataReaderEngine implements DataValidationErrorHolder, DataReade
      * count the series that are processed
      */
     private volatile int seriesCount;
+    /**
+     * the key columns of the previous row, to reuse its keyable for the rows of the same series
+     */
+    private final SeriesKeyTracker seriesKeyTracker;
+    private String timeComponentId;
+    private FlrInColumnMapping timeColumnMapping;
     /**
      * count the dataset that are processed
      */
@@ -236,6 +242,7 @@ public class FLRDataReaderEngine implements DataValidationErrorHolder, DataReade
         this.exceptionHandler = exceptionHandler;
         this.dataflow = dataflowBean;
         this.listOFConceptsToPositionMapping = returnPositionOfConceptsFromMapping(flrInputConfig.getMapping());
+        this.seriesKeyTracker = new SeriesKeyTracker(returnSeriesKeyIndexes());
         FixedWidthFields fields = getFixedWidthFields(flrInputConfig);
         this.settings = new FixedWidthParserSettings(fields);
         settings.getFormat().setPadding(flrInputConfig.getPadding().charAt(0));
@@ -423,8 +430,8 @@ public class FLRDataReaderEngine implements DataValidationErrorHolder, DataReade
             checkDatasetValues(newRow);
             //reach the end of file
             if (newRow != null) {
-                Keyable newKeyable = getKeyableFromLineOfFlr(newRow);
-                if (newKeyable != null && newKeyable.equals(currentKeyable)) {
+                Keyable newKeyable = keyableOfRow(newRow);
+                if (newKeyable != null && (newKeyable == currentKeyable || newKeyable.equals(currentKeyable))) {
                     result = setNewCurrentObservation(newRow, newKeyable);
                 } else {
                     setNewCurrentKeyable(newRow, newKeyable);
@@ -484,9 +491,9 @@ public class FLRDataReaderEngine implements DataValidationErrorHolder, DataReade
             String[] newRow = readNextLineOfFlrFile();
             checkDatasetValues(newRow);
             Keyable newKeyable = null;
-            while (newRow != null && (newKeyable == null || currentKeyable.equals(newKeyable))) {
+            while (newRow != null && (newKeyable == null || newKeyable == currentKeyable || currentKeyable.equals(newKeyable))) {
                 getGroupFromLineOfFlr(newRow);
-                newKeyable = getKeyableFromLineOfFlr(newRow);
+                newKeyable = keyableOfRow(newRow);
                 listOfObservation.addAll(getObservationFromLineOfFlr(newRow, newKeyable));
                 newRow = readNextLineOfFlrFile();
                 checkDatasetValues(newRow);
@@ -541,7 +548,7 @@ public class FLRDataReaderEngine implements DataValidationErrorHolder, DataReade
                 previousReadDataSetAttributes = getDatasetAttributes();
                 getGroupFromLineOfFlr(firstRowOfData);
                 // store the keyable
-                Keyable currentRowKeyable = getKeyableFromLineOfFlr(firstRowOfData);
+                Keyable currentRowKeyable = keyableOfRow(firstRowOfData);
                 if (firstRowOfData != null && !ObjectUtil.isAllNulls(firstRowOfData) ) {
                     listOfKeyable.add(currentRowKeyable);
                 }
@@ -672,6 +679,66 @@ public class FLRDataReaderEngine implements DataValidationErrorHolder, DataReade
     }
 
 
+    /**
+     * The keyable of the row, the one of the previous row when the row belongs to the same series.
+     * <p>Only the raw values of the key columns are compared, the keyable is built only when they change,
+     * or for time series when the time format changes.</p>
+     */
+    private Keyable keyableOfRow(String[] row) {
+        Keyable keyable = seriesKeyTracker.sameSeriesAs(row);
+        if (keyable == null || !sameTimeFormat(keyable, row)) {
+            keyable = getKeyableFromLineOfFlr(row);
+            seriesKeyTracker.remember(row, keyable);
+        }
+        return keyable;
+    }
+
+    private boolean sameTimeFormat(Keyable keyable, String[] row) {
+        if (!isTimeSeries || timeColumnMapping == null) {
+            return true;
+        }
+        List<String> obsTimes = valueFromFlrInColumnMapping(timeComponentId, timeColumnMapping, row);
+        return !obsTimes.isEmpty() && timeFormatBuilder.build(obsTimes.get(0)) == keyable.getTimeFormat();
+    }
+
+    /**
+     * <p>The indexes of the row values the keyable is built from: the dimensions, the time when it is not at observation
+     * level and the series attributes. Fixed values are the same for every row.
+     * The mapping of the time is kept to compare the time formats.</p>
+     */
+    private int[] returnSeriesKeyIndexes() {
+        List<Integer> result = new ArrayList<>();
+        for (Map.Entry<String, FlrInColumnMapping> entryConcept : flrInputConfig.getMapping().entrySet()) {
+            if (entryConcept.getValue().isFixed()) {
+                continue;
+            }
+            ComponentBean componentBean = this.mapOfComponentBeans.get(entryConcept.getKey());
+            if(!ObjectUtil.validObject(componentBean)) {
+                componentBean = this.mapOfConcepts.get(entryConcept.getKey());
+            }
+            if (!ObjectUtil.validObject(componentBean)) {
+                continue;
+            }
+            boolean keyColumn;
+            if (componentBean instanceof DimensionBean) {
+                if (componentBean.getStructureType() == SDMX_STRUCTURE_TYPE.TIME_DIMENSION) {
+                    this.timeComponentId = getComponentId(componentBean);
+                    this.timeColumnMapping = entryConcept.getValue();
+                    keyColumn = !isTimeSeries;
+                } else {
+                    keyColumn = !componentBean.getId().equalsIgnoreCase(dimensionAtObservation);
+                }
+            } else {
+                keyColumn = componentBean instanceof AttributeBean
+                        && ((AttributeBean) componentBean).getAttachmentLevel() == ATTRIBUTE_ATTACHMENT_LEVEL.DIMENSION_GROUP;
+            }
+            if (keyColumn) {
+                result.addAll(returnListOfIndexesForConcept(getComponentId(componentBean)));
+            }
+        }
+        return result.stream().mapToInt(Integer::intValue).toArray();
+    }
+
     /*
      * method that returns the Keyable from the current line of the FLR
      */
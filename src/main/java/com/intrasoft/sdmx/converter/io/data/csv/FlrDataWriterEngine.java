@@ -8,6 +8,8 @@ import com.univocity.parsers.fixed.FixedWidthWriterSettings;
 import org.apache.commons.lang3.StringUtils;
 import org.estat.sdmxsource.util.csv.FixedWidth;
 import org.estat.sdmxsource.util.csv.FlrInColumnMapping;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.sdmxsource.sdmx.api.constants.BASE_DATA_FORMAT;
 import org.sdmxsource.sdmx.api.constants.SDMX_SCHEMA;
 import org.sdmxsource.sdmx.api.model.beans.base.AnnotationBean;
@@ -19,10 +21,13 @@ import org.sdmxsource.sdmx.api.model.header.DatasetHeaderBean;
 import org.sdmxsource.sdmx.dataparser.engine.writer.SdmxCsvDataWriterEngine;
 import org.sdmxsource.util.ObjectUtil;
 
+import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -35,16 +40,32 @@ import java.util.stream.Collectors;
  * and a padding character is needed to fill in the extra chars in a value
  * that is smaller than the width.
  * </p>
+ * <p>When the widths of the columns are counted rather than mapped, the rows are written to a local
+ * {@link FlrRowSpool} while the longest value of every column is tracked, and the fixed width output
+ * is produced from the spool when the writer is closed. The input is thus read once.
+ * When the configuration asks for it the widths are taken from the structure, see {@link FlrStructureWidths}.
+ * If it gives the width of every component the rows are written as they come, otherwise the components without a
+ * width, such as the time periods, are measured through the spool and the others keep at least their derived width.</p>
  *
  * @see <a href="https://webgate.ec.europa.eu/CITnet/jira/browse/SDMXCONV-775">SDMXCONV-775</a>
  * @since 2020-01-28
  */
 public class FlrDataWriterEngine extends SdmxCsvDataWriterEngine {
+
+	private static Logger logger = LogManager.getLogger(FlrDataWriterEngine.class);
+
 	private FlrOutputConfig configurations;
 	private FixedWidthWriter writer;
 	private DataStructureBean dsd;
 	private LinkedHashMap<String, FlrInColumnMapping> sortedMapping;
 	private TranscodingEngine transcoding = null;
+	/** the rows written so far, when the widths are counted from the values written */
+	private FlrRowSpool spool;
+	/** the columns and their widths when they are derived from the structure, a longer value is truncated */
+	private String[] structureColumns;
+	private int[] structureWidths;
+	/** the widths derived from the structure for the spooled rows, the measured widths are not narrower */
+	private Map<String, Integer> spooledStructureWidths;
 
 	public FlrDataWriterEngine(SDMX_SCHEMA schemaVersion, BASE_DATA_FORMAT dataFormat, OutputStream out) {
 		this(schemaVersion, dataFormat, out, new FlrOutputConfig());
@@ -82,28 +103,183 @@ public class FlrDataWriterEngine extends SdmxCsvDataWriterEngine {
 		getPositionsConsceptMap().clear();
 		getValuesConsceptMap().clear();
 
-		FixedWidthWriterSettings settings = null;
+		this.structureColumns = null;
+		this.structureWidths = null;
 		//Set the widths for every row
-		FixedWidthFields fixedWidthFields;
 		if (this.configurations.getMapping() != null && !this.configurations.getMapping().isEmpty() && !this.configurations.checkIfAutoExists(this.configurations.getMapping())) {
 			setPositionsConsceptMap(populateCompomentToPosition(this.configurations.getMapping()));
-			fixedWidthFields = setFieldLengths(this.configurations.getMapping());
+			startWriter(setFieldLengths(this.configurations.getMapping()));
 		} else {
 			populateDimensionPositionsMap(this.dsd, getPositionsConsceptMap());
-			fixedWidthFields = setFieldLengthsFromCounting(this.configurations.getLengthsCounting(), getPositionsConsceptMap());
+			if (this.configurations.getLengthsCounting() != null) {
+				startWriter(setFieldLengthsFromCounting(this.configurations.getLengthsCounting(), getPositionsConsceptMap()));
+			} else if (this.configurations.isWidthsFromStructure()) {
+				FlrStructureWidths derived = FlrStructureWidths.of(this.dsd, this.configurations.getBeanRetrieval());
+				Map<String, Integer> widthsFromStructure = getWidthsFromStructure(derived);
+				if (isEveryColumnDerived(derived)) {
+					FixedWidthFields fixedWidthFields = setFieldLengthsFromCounting(widthsFromStructure, getPositionsConsceptMap());
+					this.structureColumns = new String[fixedWidthFields.getFieldNames().length];
+					for (int i = 0; i < this.structureColumns.length; i++) {
+						this.structureColumns[i] = fixedWidthFields.getFieldNames()[i].toString();
+					}
+					this.structureWidths = fixedWidthFields.getFieldLengths().clone();
+					startWriter(fixedWidthFields);
+				} else {
+					//The columns without a derived width are measured, the spool gives them their widths
+					if (this.spooledStructureWidths == null) {
+						this.spooledStructureWidths = new HashMap<>();
+					}
+					widthsFromStructure.forEach((component, width) -> this.spooledStructureWidths.merge(component, width, Math::max));
+					spoolDataset();
+				}
+			} else {
+				//The widths are known once all the rows are written
+				spoolDataset();
+			}
 		}
-		settings = new FixedWidthWriterSettings(fixedWidthFields);
+		populateGroupsList(this.dsd, getGroupsDimensionList());
+		//Initialize row arrays
+		arrayRow = new String[getPositionsConsceptMap().size()];
+	}
+
+	/**
+	 * Creates the Univocity writer for the fields of the dataset and stores the final mapping.
+	 *
+	 * @param fixedWidthFields the columns written and their widths
+	 */
+	private void startWriter(FixedWidthFields fixedWidthFields) {
+		FixedWidthWriterSettings settings = new FixedWidthWriterSettings(fixedWidthFields);
 		settings.getFormat().setLineSeparator("\n");
 		settings.getFormat().setPadding(this.configurations.getPadding().charAt(0));
-		settings.getMaxCharsPerColumn();
 		//SDMXCONV-1080, do not trim spaces
 		settings.setIgnoreLeadingWhitespaces(false);
 		settings.setIgnoreTrailingWhitespaces(false);
-        this.writer = new FixedWidthWriter(new OutputStreamWriter(getOut(), StandardCharsets.UTF_8), settings);
-        getMappingFromFixedWidthFields(fixedWidthFields);
-		populateGroupsList(this.dsd, getGroupsDimensionList());
-		//Initialize row arrays
-		arrayRow = new String[getPositionsConsceptMap().size()];
+		this.writer = new FixedWidthWriter(new OutputStreamWriter(getOut(), StandardCharsets.UTF_8), settings);
+		getMappingFromFixedWidthFields(fixedWidthFields);
+	}
+
+	/**
+	 * @return true when every component without a fixed value has a width derived from the structure
+	 */
+	private boolean isEveryColumnDerived(FlrStructureWidths structureWidths) {
+		for (String component : structureWidths.getUnderivedComponents()) {
+			if (getFixedValuesIfExist(this.sortedMapping, component) == null) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * The widths derived from the structure, widened for the transcoded values.
+	 *
+	 * @return the widths of the components that have one
+	 */
+	private Map<String, Integer> getWidthsFromStructure(FlrStructureWidths structureWidths) {
+		Map<String, Integer> widths = new HashMap<>(structureWidths.getWidths());
+		if (ObjectUtil.validMap(this.configurations.getTranscoding())) {
+			for (Map.Entry<String, LinkedHashMap<String, String>> rules : this.configurations.getTranscoding().entrySet()) {
+				if (widths.containsKey(rules.getKey()) && rules.getValue() != null) {
+					for (String value : rules.getValue().values()) {
+						if (value != null) {
+							widths.merge(rules.getKey(), value.length(), Math::max);
+						}
+					}
+				}
+			}
+		}
+		return widths;
+	}
+
+	/**
+	 * A value longer than the width derived from the structure does not comply with the structure, a code missing
+	 * from the codelist or a text longer than its maximum length. It is truncated by the writer and reported once
+	 * per column, the conversion goes on.
+	 */
+	private void checkStructureWidths(String[] row) {
+		if (this.structureWidths != null) {
+			for (int i = 0; i < this.structureWidths.length && i < row.length; i++) {
+				if (row[i] != null && row[i].length() > this.structureWidths[i]) {
+					logger.warn("The value {} of {} is longer than the width {} derived from the structure, it is truncated.",
+							row[i], this.structureColumns[i], this.structureWidths[i]);
+					// report the column once
+					this.structureWidths[i] = Integer.MAX_VALUE;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Starts the dataset in the spool with all the columns of the structure.
+	 * Only the values of the components count for the widths, the columns without values are dropped when the spool is written.
+	 */
+	private void spoolDataset() {
+		if (this.spool == null) {
+			try {
+				this.spool = new FlrRowSpool();
+			} catch (IOException e) {
+				throw new UncheckedIOException("Could not create the spool of the FLR output", e);
+			}
+		}
+		String[] columns = new String[getPositionsConsceptMap().size()];
+		for (Map.Entry<String, Integer> position : getPositionsConsceptMap().entrySet()) {
+			columns[position.getValue()] = position.getKey();
+		}
+		boolean[] measured = new boolean[columns.length];
+		for (int i = 0; i < columns.length; i++) {
+			measured[i] = this.dsd.getComponent(columns[i]) != null;
+		}
+		this.spool.startDataset(columns, measured);
+	}
+
+	/**
+	 * Writes the spooled rows with the widths counted from their values, the same as if the widths were counted before writing.
+	 * The widths counted are stored in the FlrOutputConfig.
+	 */
+	private void writeSpooledRows() {
+		Map<String, Integer> lengthsCounting = this.spool.getMaxLengths();
+		if (this.spooledStructureWidths != null) {
+			this.spooledStructureWidths.forEach((component, width) -> lengthsCounting.merge(component, width, Math::max));
+			this.spooledStructureWidths = null;
+		}
+		this.configurations.setLengthsCounting(lengthsCounting);
+		try {
+			this.spool.replay(new FlrRowSpool.Sink() {
+				/** the position in the spooled row of each column written */
+				private int[] sources;
+
+				@Override
+				public void startDataset(String[] columns) {
+					LinkedHashMap<String, Integer> spooledPositions = new LinkedHashMap<>();
+					for (int i = 0; i < columns.length; i++) {
+						spooledPositions.put(columns[i], i);
+					}
+					FixedWidthFields fixedWidthFields = setFieldLengthsFromCounting(lengthsCounting, spooledPositions);
+					sources = new int[getPositionsConsceptMap().size()];
+					for (Map.Entry<String, Integer> position : getPositionsConsceptMap().entrySet()) {
+						sources[position.getValue()] = spooledPositions.get(position.getKey());
+					}
+					if (writer != null) {
+						writer.flush();
+					}
+					startWriter(fixedWidthFields);
+				}
+
+				@Override
+				public void writeRow(String[] row) {
+					String[] columnsRow = new String[sources.length];
+					for (int i = 0; i < sources.length; i++) {
+						columnsRow[i] = row[sources[i]];
+					}
+					writer.writeRow(columnsRow);
+				}
+			});
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not read the spool of the FLR output", e);
+		} finally {
+			this.spool.close();
+			this.spool = null;
+		}
 	}
 
 	/**
@@ -321,7 +497,12 @@ public class FlrDataWriterEngine extends SdmxCsvDataWriterEngine {
 	protected void writeRow() {
 		if (ObjectUtil.validArray(arrayFinalRow)) {
 			arrayFinalRow = addFixedValuesToRow(arrayFinalRow);
-			writer.writeRow(arrayFinalRow);
+			if (spool != null) {
+				spool.writeRow(arrayFinalRow);
+			} else {
+				checkStructureWidths(arrayFinalRow);
+				writer.writeRow(arrayFinalRow);
+			}
 			arrayFinalRow = null;
 		}
 	}
@@ -552,15 +733,20 @@ public class FlrDataWriterEngine extends SdmxCsvDataWriterEngine {
 
 	@Override
 	public void close(FooterMessage... footer) {
-		setMapping();
 		if (ObjectUtil.validArray(arrayFinalRow)) {
 			arrayFinalRow = addFixedValuesToRow(arrayFinalRow);
-			if (arrayFinalRow.length >= 0) {
-				if (writer != null)
-					writer.writeRow(arrayFinalRow);
+			if (spool != null) {
+				spool.writeRow(arrayFinalRow);
+			} else if (writer != null) {
+				checkStructureWidths(arrayFinalRow);
+				writer.writeRow(arrayFinalRow);
 			}
 			arrayFinalRow = null;
 		}
+		if (spool != null) {
+			writeSpooledRows();
+		}
+		setMapping();
 		if (writer != null)
 			writer.close();
 	}
@@ -0,0 +1,179 @@
+package com.intrasoft.sdmx.converter.io.data.csv;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Local spool of the rows of an FLR output whose column widths are not known before the whole input is read.
+ * <p>The rows are written to a temporary file as binary records while the longest value of every column is
+ * tracked, so that the input is read once. When all the rows are written the fixed width output is produced by
+ * replaying the spool with the widths found.</p>
+ * <p>Every dataset starts with its columns, the rows that follow have one value per column.
+ * The temporary file is deleted by {@link #close()}.</p>
+ */
+final class FlrRowSpool implements Closeable {
+
+	private static Logger logger = LogManager.getLogger(FlrRowSpool.class);
+
+	/**
+	 * Receives the content of the spool when it is replayed
+	 */
+	interface Sink {
+
+		void startDataset(String[] columns);
+
+		void writeRow(String[] row);
+	}
+
+	private static final int IO_BUFFER_SIZE = 1 << 16;
+
+	private static final byte END = 0;
+	private static final byte DATASET = 1;
+	private static final byte ROW = 2;
+
+	private final File file;
+	private DataOutputStream out;
+
+	/** the longest value of each column over all the datasets */
+	private final Map<String, Integer> maxLengths = new HashMap<>();
+
+	private String[] columns;
+	/** whether the values of the column of the current dataset are measured */
+	private boolean[] measured;
+	private int[] columnLengths;
+
+	private long rows;
+
+	FlrRowSpool() throws IOException {
+		this.file = File.createTempFile("flrSpool", ".bin");
+		this.file.deleteOnExit();
+		this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), IO_BUFFER_SIZE));
+	}
+
+	/**
+	 * @param columns  the columns of the rows of the dataset
+	 * @param measured whether the length of the values of each column counts for its width
+	 */
+	void startDataset(String[] columns, boolean[] measured) {
+		mergeLengths();
+		this.columns = columns;
+		this.measured = measured;
+		this.columnLengths = new int[columns.length];
+		try {
+			out.writeByte(DATASET);
+			writeStrings(columns);
+		} catch (IOException e) {
+			throw new UncheckedIOException("could not write to the FLR spool " + file, e);
+		}
+	}
+
+	void writeRow(String[] row) {
+		for (int i = 0; i < columnLengths.length; i++) {
+			String value = row[i];
+			if (measured[i] && value != null && value.length() > columnLengths[i]) {
+				columnLengths[i] = value.length();
+			}
+		}
+		try {
+			out.writeByte(ROW);
+			writeStrings(row);
+		} catch (IOException e) {
+			throw new UncheckedIOException("could not write to the FLR spool " + file, e);
+		}
+		rows++;
+	}
+
+	/**
+	 * @return the longest value of each measured column, the columns without values are missing
+	 */
+	Map<String, Integer> getMaxLengths() {
+		mergeLengths();
+		return maxLengths;
+	}
+
+	private void mergeLengths() {
+		if (columns != null) {
+			for (int i = 0; i < columns.length; i++) {
+				if (columnLengths[i] > 0) {
+					maxLengths.merge(columns[i], columnLengths[i], Math::max);
+				}
+			}
+			columnLengths = new int[columns.length];
+		}
+	}
+
+	/**
+	 * Ends the writing of rows and sends the spooled datasets and rows to the sink, in the order they were written.
+	 */
+	void replay(Sink sink) throws IOException {
+		getMaxLengths();
+		out.writeByte(END);
+		out.close();
+		out = null;
+		logger.debug("replaying {} rows from the FLR spool {}", rows, file);
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), IO_BUFFER_SIZE))) {
+			for (byte record = in.readByte(); record != END; record = in.readByte()) {
+				if (record == DATASET) {
+					sink.startDataset(readStrings(in));
+				} else {
+					sink.writeRow(readStrings(in));
+				}
+			}
+		}
+	}
+
+	@Override
+	public void close() {
+		if (out != null) {
+			try {
+				out.close();
+			} catch (IOException e) {
+				logger.warn("could not close the FLR spool", e);
+			}
+			out = null;
+		}
+		if (!file.delete()) {
+			logger.warn("could not delete the FLR spool {}", file);
+		}
+	}
+
+	private void writeStrings(String[] values) throws IOException {
+		out.writeInt(values.length);
+		for (String value : values) {
+			if (value == null) {
+				out.writeInt(-1);
+			} else {
+				byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+				out.writeInt(bytes.length);
+				out.write(bytes);
+			}
+		}
+	}
+
+	private static String[] readStrings(DataInputStream in) throws IOException {
+		String[] values = new String[in.readInt()];
+		for (int i = 0; i < values.length; i++) {
+			int length = in.readInt();
+			if (length >= 0) {
+				byte[] bytes = new byte[length];
+				in.readFully(bytes);
+				values[i] = new String(bytes, StandardCharsets.UTF_8);
+			}
+		}
+		return values;
+	}
+}
@@ -0,0 +1,196 @@
+package com.intrasoft.sdmx.converter.io.data.csv;
+
+import com.intrasoft.sdmx.converter.io.data.ComponentBeanUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.sdmxsource.sdmx.api.constants.TEXT_TYPE;
+import org.sdmxsource.sdmx.api.manager.retrieval.SdmxBeanRetrievalManager;
+import org.sdmxsource.sdmx.api.model.beans.base.ComponentBean;
+import org.sdmxsource.sdmx.api.model.beans.base.RepresentationBean;
+import org.sdmxsource.sdmx.api.model.beans.base.TextFormatBean;
+import org.sdmxsource.sdmx.api.model.beans.codelist.CodeBean;
+import org.sdmxsource.sdmx.api.model.beans.codelist.CodelistBean;
+import org.sdmxsource.sdmx.api.model.beans.datastructure.DataStructureBean;
+import org.sdmxsource.sdmx.api.model.beans.reference.MaintainableRefBean;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <h3>Column widths of an FLR output derived from the data structure.</h3>
+ * The width of a component is, in this order:
+ * <ul>
+ *     <li>the length of the longest code of its codelist, when it is coded</li>
+ *     <li>the maximum length of its text format</li>
+ *     <li>the longest value of its text type, for the integers and the booleans</li>
+ * </ul>
+ * <p>The components that may have several values, or whose values have no bound, have no width. The time periods
+ * have none either, a time zone or a time range makes them longer than their format, so they are measured
+ * from the data. When all the components have a width the FLR output needs not measure the data before writing it.</p>
+ * <p>The widths are cached by the URN of the data structure, which holds its version. The widths of a structure whose
+ * codelists could not all be resolved are not cached, the next call with a retrieval manager derives them again.</p>
+ *
+ * @see FlrDataWriterEngine
+ */
+public final class FlrStructureWidths {
+
+	private static Logger logger = LogManager.getLogger(FlrStructureWidths.class);
+
+	private static final int CACHE_SIZE = 64;
+
+	private static final Map<String, FlrStructureWidths> CACHE = new LinkedHashMap<String, FlrStructureWidths>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, FlrStructureWidths> eldest) {
+			return size() > CACHE_SIZE;
+		}
+	};
+
+	/** the longest value of the bounded text types, by name of the type */
+	private static final Map<String, Integer> TEXT_TYPE_WIDTHS = new HashMap<>();
+
+	static {
+		TEXT_TYPE_WIDTHS.put("BOOLEAN", 5);
+		TEXT_TYPE_WIDTHS.put("SHORT", 6);
+		TEXT_TYPE_WIDTHS.put("INTEGER", 11);
+		TEXT_TYPE_WIDTHS.put("LONG", 20);
+	}
+
+	private final Map<String, Integer> widths;
+	private final Set<String> underivedComponents;
+
+	private FlrStructureWidths(Map<String, Integer> widths, Set<String> underivedComponents) {
+		this.widths = Collections.unmodifiableMap(widths);
+		this.underivedComponents = Collections.unmodifiableSet(underivedComponents);
+	}
+
+	/**
+	 * @param dsd              the data structure of the output
+	 * @param retrievalManager resolves the codelists of the coded components, without it they have no width
+	 * @return the widths of the components of the structure
+	 */
+	public static FlrStructureWidths of(DataStructureBean dsd, SdmxBeanRetrievalManager retrievalManager) {
+		String urn = dsd.getUrn();
+		FlrStructureWidths result;
+		synchronized (CACHE) {
+			result = CACHE.get(urn);
+		}
+		if (result == null) {
+			Set<String> unresolved = new LinkedHashSet<>();
+			result = derive(dsd, retrievalManager, unresolved);
+			if (unresolved.isEmpty()) {
+				synchronized (CACHE) {
+					CACHE.put(urn, result);
+				}
+			} else {
+				logger.debug("FLR widths of {} not cached, the codelists of {} were not resolved", urn, unresolved);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return the width of every component that has one, by component id
+	 */
+	public Map<String, Integer> getWidths() {
+		return widths;
+	}
+
+	/**
+	 * @return the ids of the components without a width
+	 */
+	public Set<String> getUnderivedComponents() {
+		return underivedComponents;
+	}
+
+	/**
+	 * @param unresolved receives the ids of the coded components whose codelist was not resolved
+	 */
+	private static FlrStructureWidths derive(DataStructureBean dsd, SdmxBeanRetrievalManager retrievalManager, Set<String> unresolved) {
+		List<ComponentBean> components = new ArrayList<>(dsd.getDimensions());
+		if (dsd.getPrimaryMeasure() != null) {
+			components.add(dsd.getPrimaryMeasure());
+		}
+		if (dsd.getMeasures() != null) {
+			components.addAll(dsd.getMeasures());
+		}
+		components.addAll(dsd.getAttributes());
+		Map<String, Integer> widths = new HashMap<>();
+		Set<String> underived = new LinkedHashSet<>();
+		for (ComponentBean component : components) {
+			if (component == null || component.getId() == null || widths.containsKey(component.getId())) {
+				continue;
+			}
+			Integer width = widthOf(component, retrievalManager, unresolved);
+			if (width != null && width > 0) {
+				widths.put(component.getId(), width);
+			} else {
+				underived.add(component.getId());
+			}
+		}
+		logger.debug("FLR widths of {}: {}, without width: {}", dsd.getUrn(), widths, underived);
+		return new FlrStructureWidths(widths, underived);
+	}
+
+	private static Integer widthOf(ComponentBean component, SdmxBeanRetrievalManager retrievalManager, Set<String> unresolved) {
+		// the values of a component that may have several are written in one field
+		if (component.getRepresentationMaxOccurs() != null
+				&& (component.getRepresentationMaxOccurs().isUnbounded() || component.getRepresentationMaxOccurs().getOccurrences() > 1)) {
+			return null;
+		}
+		Integer width = null;
+		if (component.hasCodedRepresentation()) {
+			width = longestCode(component, retrievalManager);
+			if (width == null) {
+				unresolved.add(component.getId());
+			}
+		}
+		RepresentationBean representation = component.getRepresentation();
+		TextFormatBean textFormat = representation != null ? representation.getTextFormat() : null;
+		if (width == null && textFormat != null) {
+			if (textFormat.getMaxLength() != null) {
+				width = textFormat.getMaxLength().intValue();
+			} else if (textFormat.getTextType() != null) {
+				width = widthOfTextType(textFormat.getTextType());
+			}
+		}
+		return width;
+	}
+
+	/**
+	 * @return the longest value of the text type, null when its values have no bound
+	 */
+	static Integer widthOfTextType(TEXT_TYPE textType) {
+		return TEXT_TYPE_WIDTHS.get(textType.name());
+	}
+
+	private static Integer longestCode(ComponentBean component, SdmxBeanRetrievalManager retrievalManager) {
+		if (retrievalManager == null) {
+			return null;
+		}
+		MaintainableRefBean codelistRef = ComponentBeanUtils.getCodelistRepresentation(component);
+		if (codelistRef == null) {
+			return null;
+		}
+		CodelistBean codelist;
+		try {
+			codelist = retrievalManager.getMaintainableBean(CodelistBean.class, codelistRef);
+		} catch (RuntimeException e) {
+			logger.debug("could not resolve the codelist {} of {}", codelistRef, component.getId(), e);
+			return null;
+		}
+		if (codelist == null || codelist.getItems().isEmpty()) {
+			return null;
+		}
+		int longest = 0;
+		for (CodeBean code : codelist.getItems()) {
+			longest = Math.max(longest, code.getId().length());
+		}
+		return longest;
+	}
+}
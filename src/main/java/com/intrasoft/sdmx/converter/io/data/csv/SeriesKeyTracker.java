@@ -0,0 +1,47 @@
+package com.intrasoft.sdmx.converter.io.data.csv;
+
+import org.sdmxsource.sdmx.api.model.data.Keyable;
+
+import java.util.Objects;
+
+/**
+ * Remembers the raw values of the columns that make the keyable of a flat row (the dimensions and the series attributes)
+ * together with the keyable built for them.
+ * <p>In ordered inputs consecutive rows mostly belong to the same series, comparing the raw values with
+ * the previous row tells when the keyable of the previous row can be reused instead of building a new one.</p>
+ */
+final class SeriesKeyTracker {
+
+	/** 0-based indexes of the row values the keyable depends on */
+	private final int[] indexes;
+	private final String[] previousValues;
+	private Keyable previousKeyable;
+
+	SeriesKeyTracker(int[] indexes) {
+		this.indexes = indexes;
+		this.previousValues = new String[indexes.length];
+	}
+
+	/**
+	 * @return the keyable of the previous row when the row holds the same values in the key columns, otherwise null.
+	 * A row shorter than the key columns is never the same series, so that it goes through the checks of the reader.
+	 */
+	Keyable sameSeriesAs(String[] row) {
+		if (previousKeyable == null || row == null) {
+			return null;
+		}
+		for (int i = 0; i < indexes.length; i++) {
+			if (indexes[i] >= row.length || !Objects.equals(row[indexes[i]], previousValues[i])) {
+				return null;
+			}
+		}
+		return previousKeyable;
+	}
+
+	void remember(String[] row, Keyable keyable) {
+		for (int i = 0; i < indexes.length; i++) {
+			previousValues[i] = indexes[i] < row.length ? row[indexes[i]] : null;
+		}
+		this.previousKeyable = keyable;
+	}
+}
@@ -91,6 +91,9 @@ public class SingleLevelCsvDataReaderEngine implements DataValidationErrorHolder
 	private final List<KeyValue> missingDimensions = new ArrayList<>();
 	private final List<KeyValue> missingAttributes = new ArrayList<>();
 	private final List<KeyValue> missingObsAttributes = new ArrayList<>();
+	/** the mapping compiled against the data structure, once per dataset */
+	private CsvColumnPlan columnPlan;
+	private SeriesKeyTracker seriesKeyTracker;
 	// SDMXCONV-1194
 	private final boolean errorIfDataValuesEmpty;
 	/**
@@ -403,8 +406,8 @@ public class SingleLevelCsvDataReaderEngine implements DataValidationErrorHolder
 							.build();
 					addError(ValidationEngineType.READER, dataValidationError);
 				}
-				Keyable newKeyable = getKeyableFromLineOfCsv(newRow);
-				if (newKeyable != null && newKeyable.equals(currentKeyable)) {
+				Keyable newKeyable = keyableOfRow(newRow);
+				if (newKeyable != null && (newKeyable == currentKeyable || newKeyable.equals(currentKeyable))) {
 					result = setNewCurrentObservation(newRow, newKeyable);
 				} else {
 					setNewCurrentKeyable(newRow, newKeyable);
@@ -477,9 +480,9 @@ public class SingleLevelCsvDataReaderEngine implements DataValidationErrorHolder
 				addError(ValidationEngineType.READER, dataValidationError);
 			}
 			Keyable newKeyable = null;
-			while (newRow != null && (newKeyable == null || currentKeyable.equals(newKeyable))) {
+			while (newRow != null && (newKeyable == null || newKeyable == currentKeyable || currentKeyable.equals(newKeyable))) {
 				getGroupFromLineOfCsv(newRow);
-				newKeyable = getKeyableFromLineOfCsv(newRow);
+				newKeyable = keyableOfRow(newRow);
 				listOfObservation.addAll(getObservationFromLineOfCsv(newRow, newKeyable));
 				newRow = readNextLineOfCsvFile();
 				checkDatasetValues(newRow);
@@ -633,13 +636,15 @@ public class SingleLevelCsvDataReaderEngine implements DataValidationErrorHolder
 
 				this.attributesSeriesLevelWithPositions = getAttachmentAttributes(CodeDataInfo.Type.ATTRIBUTE);
 				this.attributesObservationLevelWithPositions = getAttachmentAttributes(CodeDataInfo.Type.OBS_ATTRIBUTE);
+				this.columnPlan = compileColumnPlan();
+				this.seriesKeyTracker = new SeriesKeyTracker(columnPlan.getSeriesKeyIndexes(isTimeSeries));
 				// gets the attributes for this data set from the complete list of CsvValues
 				// mapped to Concepts
 				getDataSetAttributeFromLineOfCsv(firstRowOfData);
 				previousReadDataSetAttributes = getDatasetAttributes();
 				getGroupFromLineOfCsv(firstRowOfData);
 				// store the keyable
-				Keyable currentRowKeyable = getKeyableFromLineOfCsv(firstRowOfData);
+				Keyable currentRowKeyable = keyableOfRow(firstRowOfData);
 				listOfKeyable.add(currentRowKeyable);
 				// store the observation
 				List<Observation> currentRowObervation = getObservationFromLineOfCsv(firstRowOfData, currentRowKeyable);
@@ -1019,6 +1024,163 @@ public class SingleLevelCsvDataReaderEngine implements DataValidationErrorHolder
 		return result;
 	}
 
+	/**
+	 * Compiles the mapping of the dataset against the data structure, see {@link CsvColumnPlan}.
+	 * <p>To be called once the mapping, the missing columns and the attributes per attachment level are known,
+	 * the rows are then decoded by index.</p>
+	 */
+	private CsvColumnPlan compileColumnPlan() {
+		boolean complexComponents = dsd.hasComplexComponents();
+		List<CsvColumnPlan.Column> columns = new ArrayList<>();
+		List<ComponentBean> columnComponents = new ArrayList<>();
+		for (Map.Entry<String, CsvInColumnMapping> entryConcept : csvInputConfig.getMapping().entrySet()) {
+			String concept = entryConcept.getKey();
+			CsvInColumnMapping columnMapping = entryConcept.getValue();
+			ComponentBean componentBean = this.mapOfComponentBeans.get(concept);
+			if (!ObjectUtil.validObject(componentBean)) {
+				/* In case we have a complex component this could be COMP1, COMP2 in the mapping or the header row */
+				componentBean = this.mapOfComponentBeans.get(CsvColumnPlan.withoutTrailingDigit(concept));
+			}
+			String transcodingConcept = transcoding.hasTranscodingRules(getConcept(concept)) ? getConcept(concept) : null;
+			String fixedValue = null;
+			int[] indexes = new int[0];
+			if (columnMapping.isFixed()) {
+				fixedValue = transcodingConcept != null
+						? transcoding.getValueFromTranscoding(transcodingConcept, columnMapping.getFixedValue())
+						: columnMapping.getFixedValue();
+			} else {
+				indexes = toIndexes(columnMapping.getColumns());
+			}
+			// SDMXCONV-1351 how the values of an attribute or measure are collected
+			CsvColumnPlan.ComplexKind complexKind = CsvColumnPlan.ComplexKind.NONE;
+			String complexTarget = concept;
+			if (this.mapOfComponentBeans.containsKey(concept) && !dsd.isComponentComplex(concept)) {
+				complexKind = CsvColumnPlan.ComplexKind.SIMPLE;
+			} else if (complexComponents && dsd.isComponentComplex(concept) && this.mapOfComponentBeans.containsKey(concept)) {
+				complexKind = CsvColumnPlan.ComplexKind.SPLIT;
+			} else {
+				String componentWithoutDigit = CsvColumnPlan.withoutTrailingDigit(concept);
+				if (complexComponents && dsd.isComponentComplex(componentWithoutDigit) && this.mapOfComponentBeans.containsKey(componentWithoutDigit)) {
+					complexKind = CsvColumnPlan.ComplexKind.PART;
+					complexTarget = componentWithoutDigit;
+				}
+			}
+			columns.add(new CsvColumnPlan.Column(concept, componentBean, columnMapping.isFixed(), fixedValue, indexes, transcodingConcept,
+					keyRoleOf(componentBean), obsRoleOf(componentBean),
+					componentBean instanceof AttributeBean && ((AttributeBean) componentBean).getAttachmentLevel() == ATTRIBUTE_ATTACHMENT_LEVEL.DATA_SET,
+					complexKind, complexTarget,
+					isErrorDisplayable(componentBean != null ? componentBean.getId() : null), isErrorDisplayable(complexTarget)));
+			columnComponents.add(componentBean);
+		}
+		List<CsvColumnPlan.GroupColumns> groups = new ArrayList<>();
+		for (GroupBean bean : dsd.getGroups()) {
+			List<CsvColumnPlan.Column> dimensions = new ArrayList<>();
+			List<CsvColumnPlan.Column> attributes = new ArrayList<>();
+			for (int i = 0; i < columns.size(); i++) {
+				ComponentBean componentBean = columnComponents.get(i);
+				if (componentBean instanceof DimensionBean && bean.getDimensionRefs().contains(columns.get(i).concept)) {
+					dimensions.add(columns.get(i));
+				} else if (componentBean instanceof AttributeBean
+						&& ((AttributeBean) componentBean).getAttachmentLevel() == ATTRIBUTE_ATTACHMENT_LEVEL.GROUP
+						&& bean.getId().equals(((AttributeBean) componentBean).getAttachmentGroup())) {
+					attributes.add(columns.get(i));
+				}
+			}
+			// a group keyable is only reported with attributes
+			if (!attributes.isEmpty()) {
+				groups.add(new CsvColumnPlan.GroupColumns(bean.getId(), dimensions.toArray(new CsvColumnPlan.Column[0]),
+						attributes.toArray(new CsvColumnPlan.Column[0])));
+			}
+		}
+		CsvInColumnMapping obsDimensionMapping = csvInputConfig.getMapping().get(dimensionAtObservation);
+		int[] obsDimensionIndexes = obsDimensionMapping != null && obsDimensionMapping.getColumns() != null
+				? toIndexes(obsDimensionMapping.getColumns()) : new int[0];
+		return new CsvColumnPlan(columns, groups, obsDimensionIndexes, complexComponents);
+	}
+
+	private CsvColumnPlan.KeyRole keyRoleOf(ComponentBean componentBean) {
+		if (componentBean instanceof DimensionBean) {
+			if (componentBean.getStructureType() == SDMX_STRUCTURE_TYPE.TIME_DIMENSION) {
+				return CsvColumnPlan.KeyRole.TIME_DIMENSION;
+			}
+			if (!componentBean.getId().equalsIgnoreCase(dimensionAtObservation)) {
+				return ((DimensionBean) componentBean).isMeasureDimension() && useXSMeasures
+						? CsvColumnPlan.KeyRole.MEASURE_DIMENSION_WITH_XS_MEASURES : CsvColumnPlan.KeyRole.DIMENSION;
+			}
+		} else if (ObjectUtil.validObject(componentBean)
+				&& ObjectUtil.validObject(this.attributesSeriesLevelWithPositions.get(componentBean.getId()))) {
+			return CsvColumnPlan.KeyRole.SERIES_ATTRIBUTE;
+		}
+		return CsvColumnPlan.KeyRole.NONE;
+	}
+
+	private CsvColumnPlan.ObsRole obsRoleOf(ComponentBean componentBean) {
+		if (componentBean == null) {
+			return CsvColumnPlan.ObsRole.NONE;
+		}
+		switch (componentBean.getStructureType()) {
+			case TIME_DIMENSION:
+				return CsvColumnPlan.ObsRole.TIME_DIMENSION;
+			case PRIMARY_MEASURE:
+				// TODO throw an error with XS measures
+				return useXSMeasures ? CsvColumnPlan.ObsRole.NONE : CsvColumnPlan.ObsRole.PRIMARY_MEASURE;
+			case DATA_ATTRIBUTE:
+				return ObjectUtil.validObject(this.attributesObservationLevelWithPositions.get(componentBean.getId()))
+						? CsvColumnPlan.ObsRole.OBS_ATTRIBUTE : CsvColumnPlan.ObsRole.NONE;
+			case CROSS_SECTIONAL_MEASURE:
+				return useXSMeasures ? CsvColumnPlan.ObsRole.XS_MEASURE : CsvColumnPlan.ObsRole.NONE;
+			case DIMENSION:
+			case MEASURE_DIMENSION:
+				return !isTimeSeries && dimensionAtObservation.equalsIgnoreCase(componentBean.getId())
+						? CsvColumnPlan.ObsRole.OBS_DIMENSION : CsvColumnPlan.ObsRole.NONE;
+			case MEASURE:
+				return CsvColumnPlan.ObsRole.MEASURE;
+			default:
+				return CsvColumnPlan.ObsRole.NONE;
+		}
+	}
+
+	/**
+	 * @return the 0-based indexes of the 1-based csv columns
+	 */
+	private static int[] toIndexes(List<CsvColumn> csvColumns) {
+		int[] indexes = new int[csvColumns.size()];
+		for (int i = 0; i < indexes.length; i++) {
+			indexes[i] = csvColumns.get(i).getIndex() - 1;
+		}
+		return indexes;
+	}
+
+	/**
+	 * @return false only when the component is missing from the header and its errors are not to be displayed, see SDMXCONV-1185
+	 */
+	private boolean isErrorDisplayable(String componentId) {
+		CodeDataInfo codeDataInfo = columnsPresenceMapping.get(componentId);
+		return codeDataInfo == null || codeDataInfo.isErrorDisplayable();
+	}
+
+	/**
+	 * The keyable of the row, the one of the previous row when the row belongs to the same series.
+	 * <p>Only the raw values of the key columns are compared, the keyable is built only when they change,
+	 * or for time series when the time format changes.</p>
+	 */
+	private Keyable keyableOfRow(String[] row) {
+		Keyable keyable = seriesKeyTracker.sameSeriesAs(row);
+		if (keyable == null || !sameTimeFormat(keyable, row)) {
+			keyable = getKeyableFromLineOfCsv(row);
+			seriesKeyTracker.remember(row, keyable);
+		}
+		return keyable;
+	}
+
+	private boolean sameTimeFormat(Keyable keyable, String[] row) {
+		CsvColumnPlan.Column timeColumn = columnPlan.getTimeColumn();
+		if (!isTimeSeries || timeColumn == null) {
+			return true;
+		}
+		return timeFormatBuilder.build(timeColumn.value(row, transcoding)) == keyable.getTimeFormat();
+	}
+
 	/*
 	 * method that returns the Keyable from the current line of the CSV
 	 */
@@ -1026,48 +1188,20 @@ public class SingleLevelCsvDataReaderEngine implements DataValidationErrorHolder
 		List<KeyValue> dimensions = new ArrayList<>();
 		List<KeyValue> attributes;
 		String obsTime = null;
-		LinkedHashMap<String, List<String>> complexComponentsValues = new LinkedHashMap<>();
-		for (Map.Entry<String, CsvInColumnMapping> entryConcept : csvInputConfig.getMapping().entrySet()) {
-			ComponentBean componentBean = this.mapOfComponentBeans.get(entryConcept.getKey());
-			if(!ObjectUtil.validObject(componentBean)) {
-				/* In case we have a complex component this could be COMP1, COMP2 in the mapping or the header row */
-				String componentWithoutDigit = entryConcept.getKey().replaceAll("\\d$", "");
-				componentBean = this.mapOfComponentBeans.get(componentWithoutDigit);
-			}
-			if (componentBean instanceof DimensionBean) {
-				if (componentBean.getStructureType() == SDMX_STRUCTURE_TYPE.TIME_DIMENSION) {
-					obsTime = valueFromCsvInColumnMapping(entryConcept.getKey(), entryConcept.getValue(), row);
-				} else {
-					if (!componentBean.getId().equalsIgnoreCase(dimensionAtObservation)) {
-						if (((DimensionBean) componentBean).isMeasureDimension()) {
-							if (useXSMeasures) {
-								throw new IllegalArgumentException(
-										"A Measure Dimension was found in the input file, please uncheck 'Map CrossX Measures' or set 'mapCrossXMeasure' to false!");
-							} else {
-								String value = valueFromCsvInColumnMapping(entryConcept.getKey(), entryConcept.getValue(), row);
-								CodeDataInfo codeDataInfo = createCodeDataInfo(value, columnsPresenceMapping.get(componentBean.getId()), CodeDataInfo.Type.DIMENSION);
-								dimensions.add(new KeyValueErrorDataImpl(componentBean.getId(), codeDataInfo));
-							}
-						} else {
-							String value = valueFromCsvInColumnMapping(entryConcept.getKey(), entryConcept.getValue(), row);
-							CodeDataInfo codeDataInfo = createCodeDataInfo(value,
-									columnsPresenceMapping.get(componentBean.getId()), CodeDataInfo.Type.DIMENSION);
-							dimensions.add(new KeyValueErrorDataImpl(componentBean.getId(), codeDataInfo));
-						}
-
-					}
-				}
-			} else {
-				AttributeBean attributeBean;
-				if(ObjectUtil.validObject(componentBean)) {
-					attributeBean = this.attributesSeriesLevelWithPositions.get(componentBean.getId());
-					if(ObjectUtil.validObject(attributeBean)) {
-						complexComponentsValues = valueFromColumnMapping(entryConcept.getKey(), entryConcept.getValue(), complexComponentsValues, row);
-					}
-				}
+		for (CsvColumnPlan.Column column : columnPlan.getSeriesKeyColumns()) {
+			switch (column.keyRole) {
+				case TIME_DIMENSION:
+					obsTime = column.value(row, transcoding);
+					break;
+				case MEASURE_DIMENSION_WITH_XS_MEASURES:
+					throw new IllegalArgumentException(
+							"A Measure Dimension was found in the input file, please uncheck 'Map CrossX Measures' or set 'mapCrossXMeasure' to false!");
+				default:
+					dimensions.add(new KeyValueErrorDataImpl(column.componentId,
+							new CodeDataInfo(column.value(row, transcoding), column.componentErrorDisplayable, CodeDataInfo.Type.DIMENSION)));
 			}
 		}
-		attributes = createAttributesCodeInfo(complexComponentsValues);
+		attributes = attributesFromColumns(columnPlan.getSeriesAttributeColumns(), row);
 		Keyable keyable;
 		// SDMXCONV-1185
 		dimensions.addAll(missingDimensions);
@@ -1100,43 +1234,50 @@ public class SingleLevelCsvDataReaderEngine implements DataValidationErrorHolder
 
 	private void getGroupFromLineOfCsv(String[] row) {
 		// TODO for each group have a current key
-		List<GroupBean> listOfGroupBeans = dsd.getGroups();
-		for (GroupBean bean : listOfGroupBeans) {
+		for (CsvColumnPlan.GroupColumns group : columnPlan.getGroups()) {
 			List<KeyValue> dimensions = new ArrayList<>();
 			List<KeyValue> attributes;
-			LinkedHashMap<String, List<String>> complexComponentsValues = new LinkedHashMap<>();
-			for (Map.Entry<String, CsvInColumnMapping> entryConcept : csvInputConfig.getMapping().entrySet()) {
-				ComponentBean componentBean = this.mapOfComponentBeans.get(entryConcept.getKey());
-				if(!ObjectUtil.validObject(componentBean)) {
-					/* In case we have a complex component this could be COMP1, COMP2 in the mapping or the header row */
-					String componentWithoutDigit = entryConcept.getKey().replaceAll("\\d$", "");
-					componentBean = this.mapOfComponentBeans.get(componentWithoutDigit);
-				}
-				if (componentBean instanceof DimensionBean && bean.getDimensionRefs().contains(entryConcept.getKey())) {
-					String value = valueFromCsvInColumnMapping(entryConcept.getKey(), entryConcept.getValue(), row);
-					final CodeDataInfo codeDataInfo = createCodeDataInfo(value,
-																		 columnsPresenceMapping.get(componentBean.getId()),
-																		 CodeDataInfo.Type.DIMENSION);
-					dimensions.add(new KeyValueErrorDataImpl(entryConcept.getKey(), codeDataInfo));
-				} else {
-					if (componentBean instanceof AttributeBean
-							&& ((AttributeBean) componentBean).getAttachmentLevel() == ATTRIBUTE_ATTACHMENT_LEVEL.GROUP
-								&& bean.getId().equals(((AttributeBean) componentBean).getAttachmentGroup())) {
-						complexComponentsValues = valueFromColumnMapping(entryConcept.getKey(), entryConcept.getValue(), complexComponentsValues, row);
-					}
-				}
+			for (CsvColumnPlan.Column column : group.dimensions) {
+				dimensions.add(new KeyValueErrorDataImpl(column.concept,
+						new CodeDataInfo(column.value(row, transcoding), column.componentErrorDisplayable, CodeDataInfo.Type.DIMENSION)));
 			}
-			attributes = createAttributesCodeInfo(complexComponentsValues);
+			attributes = attributesFromColumns(group.attributes, row);
 			// SDMXCONV-1185
 			dimensions.addAll(missingDimensions);
 			if (ObjectUtil.validObject(attributes) && !attributes.isEmpty()) {
 				attributes.addAll(missingAttributes);
-				Keyable keyable = new KeyableImpl(dataflow, dsd, dimensions, attributes, bean.getId());
+				Keyable keyable = new KeyableImpl(dataflow, dsd, dimensions, attributes, group.groupId);
 				listOfKeyable.add(keyable);
 			}
 		}
 	}
 
+	/**
+	 * The attributes of the row held by the columns.
+	 * <p>Without complex components every attribute has a single value and is created directly,
+	 * otherwise the values are first collected per component.</p>
+	 */
+	private List<KeyValue> attributesFromColumns(CsvColumnPlan.Column[] columns, String[] row) {
+		if (columnPlan.hasComplexComponents()) {
+			LinkedHashMap<String, List<String>> complexComponentsValues = new LinkedHashMap<>();
+			for (CsvColumnPlan.Column column : columns) {
+				complexComponentsValues = valueFromColumnMapping(column, complexComponentsValues, row);
+			}
+			return createAttributesCodeInfo(complexComponentsValues);
+		}
+		List<KeyValue> attributes = new ArrayList<>();
+		for (CsvColumnPlan.Column column : columns) {
+			if (column.complexKind == CsvColumnPlan.ComplexKind.SIMPLE) {
+				String value = column.value(row, transcoding);
+				if (ObjectUtil.validString(value)) {
+					attributes.add(new KeyValueErrorDataImpl(column.concept,
+							new CodeDataInfo(value, column.complexErrorDisplayable, CodeDataInfo.Type.ATTRIBUTE)));
+				}
+			}
+		}
+		return attributes;
+	}
+
 	/**
 	 * <strong>Retrieves attributes and position integer.</strong>
 	 * <p>We check from datastructure the list of attributes for the relative attachment Level.</p>
@@ -1200,22 +1341,7 @@ public class SingleLevelCsvDataReaderEngine implements DataValidationErrorHolder
 	 * Method that returns the Data Set Attributes
 	 */
 	private void getDataSetAttributeFromLineOfCsv(String[] row) {
-		List<KeyValue> attributes;
-		LinkedHashMap<String, List<String>> complexComponentsValues = new LinkedHashMap<>();
-		for (Map.Entry<String, CsvInColumnMapping> entryConcept : csvInputConfig.getMapping().entrySet()) {
-			ComponentBean componentBean = this.mapOfComponentBeans.get(entryConcept.getKey());
-			if(!ObjectUtil.validObject(componentBean)) {
-				/* In case we have a complex component this could be COMP1, COMP2 in the mapping or the header row */
-				String componentWithoutDigit = entryConcept.getKey().replaceAll("\\d$", "");
-				componentBean = this.mapOfComponentBeans.get(componentWithoutDigit);
-			}
-			if (componentBean instanceof AttributeBean
-					&& ((AttributeBean) componentBean).getAttachmentLevel() == ATTRIBUTE_ATTACHMENT_LEVEL.DATA_SET) {
-				complexComponentsValues = valueFromColumnMapping(entryConcept.getKey(), entryConcept.getValue(), complexComponentsValues, row);
-			}
-		}
-		attributes = createAttributesCodeInfo(complexComponentsValues);
-		this.datasetAttributes = attributes;
+		this.datasetAttributes = attributesFromColumns(columnPlan.getDatasetAttributeColumns(), row);
 	}
 
 	/*
@@ -1225,60 +1351,42 @@ public class SingleLevelCsvDataReaderEngine implements DataValidationErrorHolder
 		String obsValue = null;
 		String obsTime = null;
 		KeyValue crossSectionalValue = null;
-		List<KeyValue> xsMeasures = new ArrayList<>();
+		List<KeyValue> xsMeasures = useXSMeasures ? new ArrayList<>() : Collections.emptyList();
 		List<KeyValue> measures;
 		List<KeyValue> attributes;
-		LinkedHashMap<String, List<String>> complexComponentsValues = new LinkedHashMap<>();
-		LinkedHashMap<String, List<String>> complexMeasuresValues = new LinkedHashMap<>();
-		for (Map.Entry<String, CsvInColumnMapping> entryConcept : csvInputConfig.getMapping().entrySet()) {
-			ComponentBean componentBean = this.mapOfComponentBeans.get(entryConcept.getKey());
-			if(!ObjectUtil.validObject(componentBean)) {
-				/* In case we have a complex component this could be COMP1, COMP2 in the mapping or the header row */
-				String componentWithoutDigit = entryConcept.getKey().replaceAll("\\d$", "");
-				componentBean = this.mapOfComponentBeans.get(componentWithoutDigit);
+		for (CsvColumnPlan.Column column : columnPlan.getObsValueColumns()) {
+			switch (column.obsRole) {
+				case TIME_DIMENSION:
+					obsTime = column.value(row, transcoding);
+					break;
+				case PRIMARY_MEASURE:
+					obsValue = column.value(row, transcoding);
+					// SDMXCONV-822
+					if ("".equals(obsValue))
+						obsValue = null;
+					break;
+				case XS_MEASURE:
+					xsMeasures.add(new KeyValueErrorDataImpl(column.componentId,
+							new CodeDataInfo(column.value(row, transcoding), column.componentErrorDisplayable, CodeDataInfo.Type.DIMENSION)));
+					break;
+				case OBS_DIMENSION:
+					crossSectionalValue = new KeyValueErrorDataImpl(column.componentId,
+							new CodeDataInfo(column.value(row, transcoding), column.componentErrorDisplayable, CodeDataInfo.Type.DIMENSION));
+					break;
+				default:
+					break;
 			}
-			if (componentBean != null) {
-				switch (componentBean.getStructureType()) {
-					case TIME_DIMENSION:
-						obsTime = valueFromCsvInColumnMapping(entryConcept.getKey(), entryConcept.getValue(), row);
-						break;
-					case PRIMARY_MEASURE:
-						if (!useXSMeasures) {
-							obsValue = valueFromCsvInColumnMapping(entryConcept.getKey(), entryConcept.getValue(), row);
-							// SDMXCONV-822
-							if ("".equals(obsValue))
-								obsValue = null;
-						} // TODO throw an error
-						break;
-					case DATA_ATTRIBUTE:
-						AttributeBean attributeBean = this.attributesObservationLevelWithPositions.get(componentBean.getId());
-						if(ObjectUtil.validObject(attributeBean)) {
-							complexComponentsValues = valueFromColumnMapping(entryConcept.getKey(), entryConcept.getValue(), complexComponentsValues, row);
-						}
-						break;
-					case CROSS_SECTIONAL_MEASURE:
-						if (useXSMeasures) {
-							String value = valueFromCsvInColumnMapping(entryConcept.getKey(), entryConcept.getValue(), row);
-							final CodeDataInfo codeDataInfo = createCodeDataInfo(value, columnsPresenceMapping.get(componentBean.getId()), CodeDataInfo.Type.DIMENSION);
-							xsMeasures.add(new KeyValueErrorDataImpl(componentBean.getId(), codeDataInfo));
-						}
-						break;
-					case DIMENSION:
-					case MEASURE_DIMENSION:
-						if (!isTimeSeries && dimensionAtObservation.equalsIgnoreCase(componentBean.getId())) {
-							String value = valueFromCsvInColumnMapping(entryConcept.getKey(), entryConcept.getValue(), row);
-							final CodeDataInfo codeDataInfo = createCodeDataInfo(value, columnsPresenceMapping.get(componentBean.getId()), CodeDataInfo.Type.DIMENSION);
-							crossSectionalValue = new KeyValueErrorDataImpl(componentBean.getId(), codeDataInfo);
-						}
-						break;
-					case MEASURE:
-							complexMeasuresValues = valueFromColumnMapping(entryConcept.getKey(), entryConcept.getValue(), complexMeasuresValues, row);
-						break;
-				}
+		}
+		attributes = attributesFromColumns(columnPlan.getObsAttributeColumns(), row);
+		if (columnPlan.getMeasureColumns().length > 0) {
+			LinkedHashMap<String, List<String>> complexMeasuresValues = new LinkedHashMap<>();
+			for (CsvColumnPlan.Column column : columnPlan.getMeasureColumns()) {
+				complexMeasuresValues = valueFromColumnMapping(column, complexMeasuresValues, row);
 			}
+			measures = createMeasures(complexMeasuresValues);
+		} else {
+			measures = new ArrayList<>();
 		}
-		attributes = createAttributesCodeInfo(complexComponentsValues);
-		measures = createMeasures(complexMeasuresValues);
 		final String normalizedObsTime;
 		if (obsTime != null) {
 			normalizedObsTime = obsTime;
@@ -1410,10 +1518,8 @@ public class SingleLevelCsvDataReaderEngine implements DataValidationErrorHolder
 			} else {
 				if (crossSectionalValue == null) {
 					StringBuilder value = new StringBuilder();
-					if (csvInputConfig.getMapping().get(dimensionAtObservation) != null) {
-						for (CsvColumn column : csvInputConfig.getMapping().get(dimensionAtObservation).getColumns()) {
-							value.append(row[column.getIndex()-1]);
-						}
+					for (int index : columnPlan.getObsDimensionIndexes()) {
+						value.append(row[index]);
 					}
 					CodeDataInfo codeDataInfo = createCodeDataInfo(value.toString(), columnsPresenceMapping.get(dimensionAtObservation), CodeDataInfo.Type.DIMENSION);
 					crossSectionalValue = new KeyValueErrorDataImpl(dimensionAtObservation, codeDataInfo);
@@ -1447,106 +1553,58 @@ public class SingleLevelCsvDataReaderEngine implements DataValidationErrorHolder
 	 * <strong>Find the values or value for a complex component.</strong>
 	 * <p>Returns a map with a key the name of the concept and for value the list of values for this concept. When many this concept is complex.</p>
 	 *
-	 * @param concept                 The name of the column currently read. This is from the mapping it could be complex with number at the end.
-	 * @param csvInColumnMapping      It shows us where to find the value for the given concept
+	 * @param column                  The compiled column currently read. Its concept is from the mapping, it could be complex with number at the end.
 	 * @param complexComponentsValues The Map we store all the values
 	 * @param row                     The String array of all the row currently being read.
 	 * @return LinkedHashMap
 	 */
-	private LinkedHashMap<String, List<String>> valueFromColumnMapping(String concept, CsvInColumnMapping csvInColumnMapping, LinkedHashMap<String, List<String>> complexComponentsValues, String[] row) {
-		if(this.mapOfComponentBeans.containsKey(concept) && !getDataStructure().isComponentComplex(concept)) {
-			String value = valueFromCsvInColumnMapping(concept, csvInColumnMapping, row);
-			complexComponentsValues.put(concept, Collections.singletonList(value));
-		//it is a complex attribute but in the map it appears with the id only without digit
-		} else if(getDataStructure().hasComplexComponents() && getDataStructure().isComponentComplex(concept) && this.mapOfComponentBeans.containsKey(concept)) {
-				String conceptValue = row[csvInColumnMapping.getColumns().get(0).getIndex()-1];
+	private LinkedHashMap<String, List<String>> valueFromColumnMapping(CsvColumnPlan.Column column, LinkedHashMap<String, List<String>> complexComponentsValues, String[] row) {
+		switch (column.complexKind) {
+			case SIMPLE:
+				complexComponentsValues.put(column.concept, Collections.singletonList(column.value(row, transcoding)));
+				break;
+			case SPLIT:
+				//it is a complex attribute but in the map it appears with the id only without digit
+				String conceptValue = row[column.indexes[0]];
 				List<String> values = new ArrayList<>();
 				if (ObjectUtil.validString(conceptValue, csvInputConfig.getSubFieldSeparationChar())
 						&& conceptValue.contains(csvInputConfig.getSubFieldSeparationChar())) {
 					for (String val : conceptValue.split(csvInputConfig.getSubFieldSeparationChar())) {
-						if (transcoding.hasTranscodingRules(getConcept(concept))) {
-							values.add(transcoding.getValueFromTranscoding(getConcept(concept), val));
+						if (column.transcodingConcept != null) {
+							values.add(transcoding.getValueFromTranscoding(column.transcodingConcept, val));
 						} else {
 							if (ObjectUtil.validString(val))
 								values.add(val);
 						}
 					}
 				} else {
-					if (transcoding.hasTranscodingRules(getConcept(concept))) {
-						values.add(transcoding.getValueFromTranscoding(getConcept(concept), conceptValue));
+					if (column.transcodingConcept != null) {
+						values.add(transcoding.getValueFromTranscoding(column.transcodingConcept, conceptValue));
 					} else {
 						if (ObjectUtil.validString(conceptValue))
 							values.add(conceptValue);
 					}
 				}
-				complexComponentsValues.put(concept, values);
-		} else {
-			/* In case we have a complex component this could be COMP1, COMP2 in the mapping or the header row */
-			String componentWithoutDigit = concept.replaceAll("\\d$", "");
-			/* Strip the column from the trailing digit and search to find it inside datastructure and in the list of components */
-			if(getDataStructure().hasComplexComponents()
-					&& getDataStructure().isComponentComplex(componentWithoutDigit)
-						&& this.mapOfComponentBeans.containsKey(componentWithoutDigit)) {
-				List complexValues = complexComponentsValues.get(componentWithoutDigit);
+				complexComponentsValues.put(column.concept, values);
+				break;
+			case PART:
+				/* In case we have a complex component this could be COMP1, COMP2 in the mapping or the header row */
+				List<String> complexValues = complexComponentsValues.get(column.complexTarget);
 				if(!ObjectUtil.validCollection(complexValues)) {
-					complexValues = new ArrayList();
+					complexValues = new ArrayList<>();
 				}
-				String value = valueFromCsvInColumnMapping(concept, csvInColumnMapping, row);
+				String value = column.value(row, transcoding);
 				if(ObjectUtil.validString(value)) {
 					complexValues.add(value);
 				}
-				complexComponentsValues.put(componentWithoutDigit, complexValues);
-			}
+				complexComponentsValues.put(column.complexTarget, complexValues);
+				break;
+			default:
+				break;
 		}
 		return complexComponentsValues;
 	}
 
-	/**
-	 * Find value for simple (not complex) concepts.
-	 * @param concept
-	 * @param csvInColumnMapping
-	 * @param row
-	 * @return
-	 */
-	private String valueFromCsvInColumnMapping(String concept, CsvInColumnMapping csvInColumnMapping, String[] row) {
-		String value;
-		if (csvInColumnMapping.isFixed()) {
-			String conceptValue = csvInColumnMapping.getFixedValue();
-			if (transcoding.hasTranscodingRules(getConcept(concept))) {
-				value = transcoding.getValueFromTranscoding(getConcept(concept), conceptValue);
-			} else {
-				value = csvInColumnMapping.getFixedValue();
-			}
-		} else {
-			value = "";
-			if (csvInColumnMapping.getColumns().size() == 1
-					&& csvInColumnMapping.getColumns().get(0).getIndex() <= row.length) {
-				String conceptValue = row[csvInColumnMapping.getColumns().get(0).getIndex()-1];
-				if (transcoding.hasTranscodingRules(getConcept(concept))) {
-					value = transcoding.getValueFromTranscoding(getConcept(concept), conceptValue);
-				} else {
-					if (ObjectUtil.validObject(conceptValue))
-						value = conceptValue;
-				}
-			} else {
-				StringBuilder valueBuilder = new StringBuilder(value);
-				for (CsvColumn csvColumn : csvInColumnMapping.getColumns()) {
-					if (csvColumn.getIndex() <= row.length) {
-						String conceptValue = row[csvColumn.getIndex()-1];
-						if (conceptValue != null) {
-							valueBuilder.append(conceptValue);
-						}
-					} else {
-						logger.warn("a csv column found in mapping {} has a higher index than the number of columns in the csv {}", csvColumn, row.length);
-					}
-				}
-				value = valueBuilder.toString();
-			}
-		}
-		// SDMXCONV-1045, now this is being handled implicitly from univocity parser
-		return value;
-	}
-
 	private String getConcept(String concept) {
 		if(this.getDataStructure().hasComplexComponents() && ObjectUtil.validMap(csvInputConfig.getComplexComponentMapping())) {
 			String complexConceptWithoutDigit = csvInputConfig.getComplexComponentMapping().get(concept);
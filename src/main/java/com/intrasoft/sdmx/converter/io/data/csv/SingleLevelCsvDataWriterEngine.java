@@ -2,9 +2,9 @@ package com.intrasoft.sdmx.converter.io.data.csv;
 
 import com.intrasoft.sdmx.converter.ComponentValuesBuffer;
 import com.intrasoft.sdmx.converter.io.data.ComponentBufferWriterEngine;
+import com.intrasoft.sdmx.converter.structures.ComponentSchema;
 import com.univocity.parsers.csv.CsvWriter;
 import com.univocity.parsers.csv.CsvWriterSettings;
-import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.estat.sdmxsource.sdmx.api.constants.DATASET_LEVEL;
@@ -26,6 +26,7 @@ import org.sdmxsource.sdmx.api.model.beans.datastructure.MeasureBean;
 import org.sdmxsource.sdmx.api.model.beans.reference.CrossReferenceBean;
 import org.sdmxsource.sdmx.api.model.data.ComplexNodeValue;
 import org.sdmxsource.sdmx.api.model.data.KeyValue;
+import org.sdmxsource.sdmx.api.model.header.DatasetHeaderBean;
 import org.sdmxsource.sdmx.api.model.header.HeaderBean;
 import org.sdmxsource.sdmx.api.model.superbeans.conceptscheme.ConceptSchemeSuperBean;
 import org.sdmxsource.sdmx.dataparser.engine.writer.utils.EscapeCsvValues;
@@ -58,6 +59,14 @@ public class SingleLevelCsvDataWriterEngine extends ComponentBufferWriterEngine
 
 	private List<String> dimensions = new ArrayList<String>();
 
+	/** the output columns compiled when the first row of a dataset is written */
+	private CsvOutputColumnPlan columnPlan;
+
+	private ComponentSchema componentSchema;
+
+	/** the values of the row being written, reused for every row */
+	private String[] row;
+
 	/**
 	 * @param outputStream
 	 * @param csvOutputConfig
@@ -119,6 +128,7 @@ public class SingleLevelCsvDataWriterEngine extends ComponentBufferWriterEngine
 	 */
 	@Override
 	public void openHeader() {
+		columnPlan = null;
 		//Find the list of dimensions that must be present on header or mapping
 		if (ObjectUtil.validObject(csvOutputConfig.getColumnMapping()) && !csvOutputConfig.getColumnMapping().isEmpty()) {
 			dimensions = csvOutputConfig.getColumnMapping().getMappedComponentsForLevel(SINGLE_LEVEL);
@@ -149,103 +159,128 @@ public class SingleLevelCsvDataWriterEngine extends ComponentBufferWriterEngine
 	public void closeHeader() {
 	}
 
+	@Override
+	public void openDataset(DatasetHeaderBean header, AnnotationBean... annotations) {
+		super.openDataset(header, annotations);
+		columnPlan = null;
+	}
+
 	@Override
 	protected void doWriteComponentsValues(ComponentValuesBuffer componentValues) {
-		List<String> finalRow = new ArrayList<>();
-		DataStructureBean dataStructureBean = getStructureScanner().getDataStructure() != null ? getStructureScanner().getDataStructure() : this.dsd;
-		if(dataStructureBean !=null
-				&& dataStructureBean.hasComplexComponents()
-					&& dataStructureBean.isCompatible(SDMX_SCHEMA.VERSION_THREE)) {
-			finalRow = new ArrayList<>(Arrays.asList(new String[dimensions.size()]));
-			for(String originalDim: getStructureScanner().getComponents(this.csvOutputConfig.isMapCrossXMeasure())) {
-				ComponentBean componentBean = getDataStructure().getComponent(originalDim);
-				OccurrenceBean occurrenceBean = null;
+		if (columnPlan == null) {
+			columnPlan = compileColumnPlan();
+			row = new String[columnPlan.size()];
+		}
+		if (columnPlan.isComplexLayout()) {
+			fillComplexRow(componentValues);
+		} else {
+			CsvOutputColumnPlan.Column[] columns = columnPlan.getColumns();
+			for (int i = 0; i < columns.length; i++) {
+				row[i] = transcode(columns[i], valueOf(componentValues, columns[i]));
+			}
+		}
+		if (writer != null)
+			writer.writeRow(row);
+	}
 
-				if(componentBean instanceof AttributeBean || componentBean instanceof MeasureBean)
-					occurrenceBean = componentBean.getRepresentationMaxOccurs();
-				
-				boolean isComplex = false;
-				if(occurrenceBean!=null)
-					if(occurrenceBean.isUnbounded() || occurrenceBean.getOccurrences()>1)
-						isComplex = true;
-				
-				int count=0;
-				for (String dimension : dimensions) {
-					if(!isGroupSeries())
-						if(getStructureScanner().getGroupLevelAttributes().contains(dimension))
-							continue;
-										
-					if(dimension.equals(originalDim)) {
-                        String appendedValue = null;
-                        if (!isComplex)
-                            appendedValue = componentValues.getValueFor(dimension);
-                        else
-                            appendedValue = complexAttributesMap.get(originalDim);
-
-                        if (appendedValue == null) {
-                            appendedValue = findComponentFromId(dimension);
-                        }
-                        if (appendedValue == null) {
-                            appendedValue = "";
-                        }
-                        String transcodedValue = getTranscoding().getValueFromTranscoding(dimension, appendedValue);
-                        finalRow.add(dimensions.indexOf(dimension), transcodedValue);
-                        finalRow.remove(dimensions.indexOf(dimension) + 1);
-                        break;
-                    } else if(dimension.startsWith(originalDim) && (StringUtils.isNumeric(dimension.substring(originalDim.length())))) {
-						// only complex
-						String appendedValue = complexAttributesMap.get(originalDim);
-						if(appendedValue == null){
-							final String message = String.format("Attribute '%s' has occurences outside the limit of occurences defined by Data Structure", originalDim);
-							throw new SdmxDataValidationException(new DataValidationError(ExceptionCode.MIN_OCCURENCES_NOT_REACHED, message, null, DATASET_LEVEL.NONE, originalDim));
-						} else {
-							try {
-								appendedValue = (appendedValue.split(csvOutputConfig.getSubFieldSeparationChar()))[count];
-							} catch (Exception e) { 
-								// in case we have more header columns than values set "" and continue
-								appendedValue = "";
-								finalRow.add(dimensions.indexOf(dimension), appendedValue);
-								finalRow.remove(dimensions.indexOf(dimension)+1);
-								count++;
-								continue;
-							}
-						}
-						if(appendedValue == null){
-							appendedValue = findComponentFromId(dimension);
-						}
-						if (appendedValue == null) {
-							appendedValue = "";
-						}
-						String transcodedValue = getTranscoding().getValueFromTranscoding(dimension, appendedValue);
-						finalRow.add(dimensions.indexOf(dimension), transcodedValue);
-						finalRow.remove(dimensions.indexOf(dimension)+1);
-						count++;
+	/**
+	 * Fills the row of an SDMX 3.0 structure with complex components. A complex value is written either to the
+	 * column of the component, as it is, or split over the numbered columns of the component (COMP1, COMP2...).
+	 * The group attributes are left empty when the series does not belong to a group.
+	 */
+	private void fillComplexRow(ComponentValuesBuffer componentValues) {
+		Arrays.fill(row, null);
+		boolean groupSeries = isGroupSeries();
+		for (CsvOutputColumnPlan.ComponentColumns component : columnPlan.getComponents()) {
+			String[] complexValues = null;
+			int count = 0;
+			for (int i = 0; i < component.columns.length; i++) {
+				CsvOutputColumnPlan.Column column = component.columns[i];
+				if (!groupSeries && column.groupAttribute)
+					continue;
+
+				if (component.exact[i]) {
+					String appendedValue = component.complex ? complexAttributesMap.get(component.componentId) : componentValues.getValueFor(column.name);
+					if (appendedValue == null) {
+						appendedValue = column.fallback;
 					}
+					if (appendedValue == null) {
+						appendedValue = "";
+					}
+					row[column.index] = transcode(column, appendedValue);
+					break;
 				}
-			}
-		} else {
-			for (String dimension : dimensions) {
-				String appendedValue = componentValues.getValueFor(dimension);
-				if(appendedValue == null){
-					appendedValue = findComponentFromId(dimension);
-				}
-				if (appendedValue == null) {
-					appendedValue = "";
+				// only complex
+				if (complexValues == null) {
+					String appendedValue = complexAttributesMap.get(component.componentId);
+					if (appendedValue == null) {
+						final String message = String.format("Attribute '%s' has occurences outside the limit of occurences defined by Data Structure", component.componentId);
+						throw new SdmxDataValidationException(new DataValidationError(ExceptionCode.MIN_OCCURENCES_NOT_REACHED, message, null, DATASET_LEVEL.NONE, component.componentId));
+					}
+					complexValues = splitComplexValue(appendedValue);
 				}
-				String transcodedValue = getTranscoding().getValueFromTranscoding(dimension, appendedValue);
-				finalRow.add(transcodedValue);
+				// in case we have more header columns than values set "" and continue
+				row[column.index] = count < complexValues.length ? transcode(column, complexValues[count]) : "";
+				count++;
 			}
 		}
+	}
+
+	private String[] splitComplexValue(String complexValue) {
+		try {
+			return complexValue.split(csvOutputConfig.getSubFieldSeparationChar());
+		} catch (Exception e) {
+			return new String[0];
+		}
+	}
 
-		if (finalRow != null) {
-			String[] rowArr = new String[finalRow.size()];
-			rowArr = finalRow.toArray(rowArr);
-			if (rowArr.length >= 0) {
-				if (writer != null)
-					writer.writeRow(rowArr);
+	/**
+	 * @return the buffered value of the column, the fallback of the column or ""
+	 */
+	private String valueOf(ComponentValuesBuffer componentValues, CsvOutputColumnPlan.Column column) {
+		String appendedValue = column.ordinal >= 0
+				? componentValues.getValueFor(componentSchema, column.ordinal)
+				: componentValues.getValueFor(column.name);
+		if (appendedValue == null) {
+			appendedValue = column.fallback;
+		}
+		return appendedValue != null ? appendedValue : "";
+	}
+
+	private String transcode(CsvOutputColumnPlan.Column column, String value) {
+		return column.transcoded ? getTranscoding().getValueFromTranscoding(column.name, value) : value;
+	}
+
+	/**
+	 * Compiles the output columns of the dataset once, see {@link CsvOutputColumnPlan}.
+	 */
+	private CsvOutputColumnPlan compileColumnPlan() {
+		componentSchema = getStructureScanner().getComponentSchema();
+		DataStructureBean dataStructureBean = getStructureScanner().getDataStructure() != null ? getStructureScanner().getDataStructure() : this.dsd;
+		boolean complexLayout = dataStructureBean != null
+				&& dataStructureBean.hasComplexComponents()
+					&& dataStructureBean.isCompatible(SDMX_SCHEMA.VERSION_THREE);
+		List<String> groupLevelAttributes = getStructureScanner().getGroupLevelAttributes();
+		List<CsvOutputColumnPlan.Column> columns = new ArrayList<>(dimensions.size());
+		for (String dimension : dimensions) {
+			columns.add(new CsvOutputColumnPlan.Column(dimension, dimensions.indexOf(dimension),
+					componentSchema.ordinalOf(dimension), findComponentFromId(dimension),
+					getTranscoding().hasTranscodingRules(dimension), groupLevelAttributes.contains(dimension)));
+		}
+		List<String> components = Collections.emptyList();
+		Set<String> complexComponents = new HashSet<>();
+		if (complexLayout) {
+			components = getStructureScanner().getComponents(this.csvOutputConfig.isMapCrossXMeasure());
+			for (String component : components) {
+				ComponentBean componentBean = getDataStructure().getComponent(component);
+				OccurrenceBean occurrenceBean = null;
+				if (componentBean instanceof AttributeBean || componentBean instanceof MeasureBean)
+					occurrenceBean = componentBean.getRepresentationMaxOccurs();
+				if (occurrenceBean != null && (occurrenceBean.isUnbounded() || occurrenceBean.getOccurrences() > 1))
+					complexComponents.add(component);
 			}
-			finalRow.clear();
 		}
+		return new CsvOutputColumnPlan(columns, components, complexComponents, complexLayout);
 	}
 
 	/**
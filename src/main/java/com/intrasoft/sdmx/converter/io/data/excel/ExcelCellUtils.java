@@ -96,7 +96,7 @@ public final class ExcelCellUtils {
 	 */
 	public static Cell getCell(List<Row> rows, int row, int col) {
 		Cell result = null;
-		if (row < rows.size()) {
+		if (ExcelSheetUtils.hasRow(rows, row)) {
 			if (ExcelSheetUtils.isNotEmptyRow(rows.get(row))) {
 				result = rows.get(row).getCell(col);
 			}
@@ -114,7 +114,7 @@ public final class ExcelCellUtils {
 	}
 
 	public static String getCellValue(List<Row> rows, CellReference cellRef, DecimalFormat decimalFormat, FormatValues formatValue, boolean displayCellErrors) {
-		if (cellRef != null && cellRef.getRow() < rows.size()) {
+		if (cellRef != null && ExcelSheetUtils.hasRow(rows, cellRef.getRow())) {
 			return getCellValue(rows, cellRef.getRow(), cellRef.getCol(), decimalFormat, formatValue, displayCellErrors);
 		} else {
 			return null;
@@ -1,5 +1,6 @@
 package com.intrasoft.sdmx.converter.io.data.excel;
 
+import com.intrasoft.sdmx.converter.io.data.TranscodingTable;
 import com.intrasoft.sdmx.converter.services.ExcelUtils;
 import com.monitorjbl.xlsx.StreamingReader;
 import com.monitorjbl.xlsx.exceptions.MissingSheetException;
@@ -40,6 +41,9 @@ public class ExcelConfigurer {
 
 	private volatile Workbook workbook;
 
+	/** the input file opened once, its sheets are parsed once */
+	private volatile ExcelWorkbookSession session;
+
 	private volatile ExceptionHandler exceptionHandler;
 
 	private volatile ExcelInputConfigImpl excelInputConfig;
@@ -47,6 +51,13 @@ public class ExcelConfigurer {
 	/** Transcoding rules read from trans sheet */
 	private volatile LinkedHashMap<String, List<ExcelTranscodingValue>> transcoding;
 
+	/** The rules of {@link #transcoding} compiled for the lookups */
+	private volatile TranscodingTable<ExcelTranscodingValue> transcodingTable = TranscodingTable.empty();
+
+	/** The compiled rules per transcoding sheet, each sheet is compiled once although it is set for every parameter sheet */
+	private final Map<LinkedHashMap<String, List<ExcelTranscodingValue>>, TranscodingTable<ExcelTranscodingValue>> compiledTranscodings =
+			Collections.synchronizedMap(new IdentityHashMap<>());
+
 	private volatile  LinkedHashMap<String, ArrayList<String>> excelParameterMultipleMap;
 
 	private volatile Map<String, Integer> allDataSheetNames;
@@ -75,6 +86,15 @@ public class ExcelConfigurer {
 
 	public void setTranscoding(LinkedHashMap<String, List<ExcelTranscodingValue>> trans) {
 		this.transcoding = trans;
+		this.transcodingTable = trans == null ? TranscodingTable.empty()
+				: compiledTranscodings.computeIfAbsent(trans, rules -> TranscodingTable.fromRuleLists(rules, ExcelTranscodingValue::getText));
+	}
+
+	/**
+	 * @return the current transcoding rules compiled, empty when there is no transcoding sheet
+	 */
+	public TranscodingTable<ExcelTranscodingValue> getTranscodingTable() {
+		return this.transcodingTable;
 	}
 
 	public void setExceptionHandler(ExceptionHandler exceptionHandler) {
@@ -95,6 +115,15 @@ public class ExcelConfigurer {
 		this.excelInputConfig = excelInputConfig;
 	}
 
+	/**
+	 * The mapping, parameters, codes and transcoding sheets are read from the workbook of the session,
+	 * without opening the input file again.
+	 */
+	public ExcelConfigurer(ExcelWorkbookSession session, ExceptionHandler exceptionHandler, ExcelInputConfigImpl excelInputConfig) {
+		this(session.getWorkbook(), exceptionHandler, excelInputConfig);
+		this.session = session;
+	}
+
 	public ExcelConfigurer(InputStream is, ExcelInputConfigImpl excelInputConfig, ExceptionHandler exceptionHandler) {
 		this.is = is;
 		this.excelInputConfig = excelInputConfig;
@@ -125,9 +154,9 @@ public class ExcelConfigurer {
 						//.sstCacheSize(4096) //experimental - size of SST cache
 						.open(bis); // InputStream or File for XLSX file(required)
 			} else {
-				logger.info("FileMagic Type of file " + FileMagic.valueOf(bis) + " old reader will be used.");
+				logger.info("FileMagic Type of file " + FileMagic.valueOf(bis) + " streaming xls reader will be used.");
 				// Xls
-				workbook = WorkbookFactory.create(bis);
+				workbook = XlsStreamingWorkbook.open(bis);
 			}
 		} catch (IOException | EncryptedDocumentException e) {
 			throw new SdmxException(e, SDMX_ERROR_CODE.SEMANTIC_ERROR, ExceptionCode.WORKBOOK_READER_ERROR, "ExcelDataReaderEngine could not open/read workbook.");
@@ -144,11 +173,17 @@ public class ExcelConfigurer {
 	 */
 	public void run(ReadableDataLocation excelDataLocation) throws IOException {
 		this.allDataSheetNames = findAllDataSheetNames();
-		try(InputStream is = excelDataLocation.getInputStream()) {
-			setMapping(is);
-		}
-		try(InputStream is = excelDataLocation.getInputStream()) {
-			this.excelParameterMultipleMap = setMapBetweenMapParam(is);
+		if (session != null) {
+			// the sheets are read from the workbook already open
+			setMapping(null);
+			this.excelParameterMultipleMap = setMapBetweenMapParam(null);
+		} else {
+			try (InputStream is = excelDataLocation.getInputStream()) {
+				setMapping(is);
+			}
+			try (InputStream is = excelDataLocation.getInputStream()) {
+				this.excelParameterMultipleMap = setMapBetweenMapParam(is);
+			}
 		}
 		//If parameter sheet never found throw an error
 		if (excelInputConfig.getConfigurations() == null) {
@@ -178,7 +213,10 @@ public class ExcelConfigurer {
 		//if mapping is inside excel then read it and set the mapping object
 		if (excelInputConfig!=null && excelInputConfig.hasMappingInsideExcel()) {
 			try {
-				excelInputConfig.setDataSheetWithParamSheetsMapping(readMappingSheets(inputStream, this.exceptionHandler));
+				excelInputConfig.setDataSheetWithParamSheetsMapping(session != null
+						? session.getSheet(ExcelWorkbookSession.PARAMETERS_MAPPING, ExcelUtils.PARAMETER_MAP_SHEET_NAME,
+								(wb, name, handler) -> getParametersMapSheet(wb, handler), this.exceptionHandler)
+						: readMappingSheets(inputStream, this.exceptionHandler));
 			} catch (IOException e) {
 				exceptionHandler.handleException(new SdmxInternalServerException("I/O Error while trying to read the mapping sheet inside input file."));
 			} catch (InvalidExcelParamsException ex) {
@@ -203,13 +241,15 @@ public class ExcelConfigurer {
 		if (excelInputConfig.hasConfigInsideExcel()) {
 			List<String> paramSheetNames = ExcelUtils.allParamSheetNamesFromMapping(excelParameterMultipleMap);
 			try {
-				excelInputConfig.setConfiguration(readExcelParameters(is, paramSheetNames, this.exceptionHandler));
+				excelInputConfig.setConfiguration(session != null
+						? readExcelParametersXlsx(workbook, paramSheetNames, this.exceptionHandler)
+						: readExcelParameters(is, paramSheetNames, this.exceptionHandler));
 				if(this.excelInputConfig.hasConfigInsideExcel()) {
 					if(ObjectUtil.validCollection(excelInputConfig.getConfigurations())) {
 						LinkedHashMap<String, ExcelSheetUtils> codeSheetUtils = new LinkedHashMap<String, ExcelSheetUtils>();
 						for (int i = 0; i < excelInputConfig.getConfigurations().size(); i++) {
 							if (ObjectUtil.validString(excelInputConfig.getConfigurations().get(i).getCodesFromFile()))
-								codeSheetUtils.put(excelInputConfig.getConfigurations().get(i).getCodesFromFile(), ExcelUtils.getCodesFromSheet(workbook, excelInputConfig.getConfigurations().get(i).getCodesFromFile(), this.exceptionHandler));
+								codeSheetUtils.put(excelInputConfig.getConfigurations().get(i).getCodesFromFile(), readCodesSheet(workbook, excelInputConfig.getConfigurations().get(i).getCodesFromFile(), this.exceptionHandler));
 						}
 						//SDMXCONV-1286, after the configurations are set we set the codes sheet values
 						excelInputConfig.setCodesSheetUtils(codeSheetUtils);
@@ -247,7 +287,7 @@ public class ExcelConfigurer {
 						.open(bis); // InputStream or File for XLSX file (required)
 			} else {
 				// Xls
-				workbook = WorkbookFactory.create(bis);
+				workbook = XlsStreamingWorkbook.open(bis);
 				this.workbook = workbook;
 			}
 			result = readExcelParametersXlsx(workbook, paramSheetNames, exceptionHandler);
@@ -296,8 +336,7 @@ public class ExcelConfigurer {
 		if (paramSheetNames != null && !paramSheetNames.isEmpty() && paramSheetNames.size() != 0) {
 			for(String sheetName : paramSheetNames){
 				try {
-					Sheet sheet = workbook.getSheet(sheetName);
-					result.add(ExcelUtils.readExcelParametersXlsx(sheet, exceptionHandler));
+					result.add(readParametersSheet(workbook, sheetName, exceptionHandler));
 					count = count + 1; // We count the parameter sheets we found if none was there then return null
 				} catch (MissingSheetException ex) {
 					String message = "Error while fetching the parameter Sheet " + sheetName+ ", could not be found. ";
@@ -306,11 +345,10 @@ public class ExcelConfigurer {
 			}
 		} else {
 			for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
-				// Get first/desired sheet from the workbook
-				Sheet sheet = workbook.getSheetAt(i);
-				if(sheet.getSheetName().startsWith(ExcelUtils.PARAMETER_SHEET_NAME)) {
+				// Get first/desired sheet from the workbook, it is only loaded when it is read
+				if(workbook.getSheetName(i).startsWith(ExcelUtils.PARAMETER_SHEET_NAME)) {
 					//SDMXCONV-1065
-					result.add(ExcelUtils.readExcelParametersXlsx(sheet, exceptionHandler));
+					result.add(readParametersSheet(workbook, workbook.getSheetName(i), exceptionHandler));
 					count = count + 1; // We count the parameter sheets we found if none was there then return null
 				}
 			}
@@ -338,7 +376,7 @@ public class ExcelConfigurer {
 		try {
 			LinkedHashMap<String, List<ExcelTranscodingValue>> transcoding;
 			if (allDataSheetNames.containsKey(transcodingSheetName)) {
-				transcoding = ExcelUtils.getTranscodingForDataSheet(workbook, transcodingSheetName, this.exceptionHandler);
+				transcoding = readTranscodingSheet(workbook, transcodingSheetName, this.exceptionHandler);
 				if (transcoding != null && !transcoding.isEmpty())
 					addTranscodingMapSheets(transcodingSheetName, transcoding);
 			}
@@ -370,7 +408,7 @@ public class ExcelConfigurer {
 				// read the transcoding sheet from workbook
 				LinkedHashMap<String, List<ExcelTranscodingValue>> trans = null;
 				try {
-					trans = ExcelUtils.getTranscodingForDataSheet(workbook, transcodingSheetName, exceptionHandler);
+					trans = readTranscodingSheet(workbook, transcodingSheetName, exceptionHandler);
 				} catch (InvalidExcelParamsException e) {
 					String message = "Error while fetching the transcoding Sheet:" + transcodingSheetName+ ". "+ e.getMessage();
 					ExcelUtils.handeExceptions(message, exceptionHandler, new ErrorPosition(transcodingSheetName));
@@ -383,6 +421,44 @@ public class ExcelConfigurer {
 		}
 	}
 
+	/**
+	 * Reads a parameters sheet, once for the workbook of the session.
+	 */
+	private ExcelConfiguration readParametersSheet(Workbook workbook, String sheetName, ExceptionHandler exceptionHandler)
+			throws InvalidExcelParamsException {
+		if (isSessionWorkbook(workbook)) {
+			return session.getSheet(ExcelWorkbookSession.PARAMETERS, sheetName,
+					(wb, name, handler) -> ExcelUtils.readExcelParametersXlsx(wb.getSheet(name), handler), exceptionHandler);
+		}
+		return ExcelUtils.readExcelParametersXlsx(workbook.getSheet(sheetName), exceptionHandler);
+	}
+
+	/**
+	 * Reads a transcoding sheet, once for the workbook of the session.
+	 */
+	private LinkedHashMap<String, List<ExcelTranscodingValue>> readTranscodingSheet(Workbook workbook, String sheetName,
+			ExceptionHandler exceptionHandler) throws InvalidExcelParamsException {
+		if (isSessionWorkbook(workbook)) {
+			return session.getSheet(ExcelWorkbookSession.TRANSCODING, sheetName, ExcelUtils::getTranscodingForDataSheet, exceptionHandler);
+		}
+		return ExcelUtils.getTranscodingForDataSheet(workbook, sheetName, exceptionHandler);
+	}
+
+	/**
+	 * Reads a codes sheet, once for the workbook of the session.
+	 */
+	private ExcelSheetUtils readCodesSheet(Workbook workbook, String sheetName, ExceptionHandler exceptionHandler)
+			throws InvalidExcelParamsException {
+		if (isSessionWorkbook(workbook)) {
+			return session.getSheet(ExcelWorkbookSession.CODES, sheetName, ExcelUtils::getCodesFromSheet, exceptionHandler);
+		}
+		return ExcelUtils.getCodesFromSheet(workbook, sheetName, exceptionHandler);
+	}
+
+	private boolean isSessionWorkbook(Workbook workbook) {
+		return session != null && workbook == session.getWorkbook();
+	}
+
 	private void addTranscodingMapSheets(String sheetName, LinkedHashMap<String, List<ExcelTranscodingValue>> transcoding) {
 		if (this.excelInputConfig.getTranscodingMapSheets() != null) {
 			// SDMXCONV-963
@@ -440,7 +516,7 @@ public class ExcelConfigurer {
 				result = getParametersMapSheet(workbook, exceptionHandler);
 			} else {
 				// Xls
-				workbook = WorkbookFactory.create(bis);
+				workbook = XlsStreamingWorkbook.open(bis);
 				result = getParametersMapSheet(workbook, exceptionHandler);
 			}
 		} catch (OpenException oe) {
@@ -468,11 +544,9 @@ public class ExcelConfigurer {
 			throws InvalidExcelParamsException {
 		LinkedHashMap<String, ArrayList<String>> result = new LinkedHashMap<>();
 		for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
-			// Get desired sheet from the workbook
-			Sheet sheet = workbook.getSheetAt(i);
-
-			if (sheet.getSheetName().startsWith(ExcelUtils.PARAMETER_MAP_SHEET_NAME)) {
-				result = getParametersMap(sheet, exceptionHandler);
+			// Get desired sheet from the workbook, it is only loaded when it is read
+			if (workbook.getSheetName(i).startsWith(ExcelUtils.PARAMETER_MAP_SHEET_NAME)) {
+				result = getParametersMap(workbook.getSheetAt(i), exceptionHandler);
 			}
 		}
 		return result;
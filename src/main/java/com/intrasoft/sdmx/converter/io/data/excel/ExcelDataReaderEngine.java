@@ -1,19 +1,15 @@
 package com.intrasoft.sdmx.converter.io.data.excel;
 
+import com.intrasoft.sdmx.converter.io.data.TranscodingTable;
 import com.intrasoft.sdmx.converter.services.ExcelUtils;
 import com.intrasoft.sdmx.converter.services.ExcelUtils.READING_DIRECTION;
 import com.intrasoft.sdmx.converter.structures.DataStructureScanner;
-import com.monitorjbl.xlsx.StreamingReader;
-import com.monitorjbl.xlsx.exceptions.OpenException;
 import it.unimi.dsi.fastutil.objects.Object2ObjectLinkedOpenHashMap;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import org.apache.commons.io.input.CountingInputStream;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.apache.poi.EncryptedDocumentException;
-import org.apache.poi.openxml4j.util.ZipSecureFile;
-import org.apache.poi.poifs.filesystem.FileMagic;
 import org.apache.poi.ss.format.CellFormat;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.ss.util.CellReference;
@@ -107,10 +103,10 @@ public class ExcelDataReaderEngine implements DataValidationErrorHolder, DataRea
 	 */
 	LinkedHashMap<String, HashSet<String>> cellWithNullComponentsPerSheet = new LinkedHashMap<>();
 	/**
-	 * List in which we store the columns we found empty.
+	 * The columns we found empty in the whole sheet, not only in the rows read so far.
 	 * We clear this for every sheet.
 	 */
-	List<Integer> emptyColumnsLs = new ArrayList<>();
+	BitSet emptyColumns = new BitSet();
 	int consecutiveEmptyRows;
 	private String primaryMeasure;
 	/**
@@ -127,6 +123,10 @@ public class ExcelDataReaderEngine implements DataValidationErrorHolder, DataRea
 	 * the Excel workbook
 	 */
 	private volatile Workbook workbook;
+	/**
+	 * the input file opened once, shared with the {@link ExcelConfigurer}
+	 */
+	private volatile ExcelWorkbookSession session;
 	/**
 	 * the name of the current sheet being processed
 	 */
@@ -200,8 +200,13 @@ public class ExcelDataReaderEngine implements DataValidationErrorHolder, DataRea
 	/**
 	 * From the current sheet we create the list of all rows that it contains
 	 * this approach is necessary to achieve both streaming (xlsx,xlsm) and non-streaming (xls) reading of the Excel files
+	 * The rows are read forward through a window, keeping the rows of the headers the parameters point at.
 	 */
 	private volatile List<Row> rows = null;
+	/**
+	 * Number of rows of the data sheet kept while reading it, besides the header rows
+	 */
+	private int rowWindowSize = ExcelRowWindow.DEFAULT_SIZE;
 	private Map<String, Integer> allDataSheetNames = null;
 	private AnnotationBeanImpl inputFormatAnn = null;
 	/**
@@ -338,6 +343,17 @@ public class ExcelDataReaderEngine implements DataValidationErrorHolder, DataRea
 		this.errorPositions = errorPositions;
 	}
 
+	public int getRowWindowSize() {
+		return rowWindowSize;
+	}
+
+	/**
+	 * @param rowWindowSize the number of rows of the data sheet kept while reading it, besides the header rows
+	 */
+	public void setRowWindowSize(int rowWindowSize) {
+		this.rowWindowSize = rowWindowSize;
+	}
+
 	public int getDataStartLine() {
 		return dataStartLine;
 	}
@@ -539,7 +555,7 @@ public class ExcelDataReaderEngine implements DataValidationErrorHolder, DataRea
 		HashSet<Integer> emptyRowsFound = new HashSet<>();
 		while (!returnCell(cellAttributes, skipRows, skipColumns)) {
 			//Check if we reached far away from the rows we have in the sheet
-			if (cellAttributes.getRow() < rows.size()) {
+			if (ExcelSheetUtils.hasRow(rows, cellAttributes.getRow())) {
 				// SkipRows Parameter implement here
 				cellAttributes = processCellToSkipRows(cellAttributes, skipRows);
 				// if after skip rows we reached the end then exit the loop to continue
@@ -580,8 +596,8 @@ public class ExcelDataReaderEngine implements DataValidationErrorHolder, DataRea
 			// SDMXCONV-975
 			// If the current column is an empty column then we skip it internally
 			// without returning a value and without giving a chance to moveNextObservation to go to next cell.
-			// List emptyColumnsLs is populated during returnCell
-			if (emptyColumnsLs.contains(cellAttributes.getCol())) {
+			// emptyColumns is populated during returnCell
+			if (emptyColumns.get(cellAttributes.getCol())) {
 				numConsecutiveEmptyCols = numConsecutiveEmptyCols + 1;
 				//move to next column
 				cellAttributes.setCol(cellAttributes.getCol() + (attributesAtObsLevelCount + 1));
@@ -727,7 +743,7 @@ public class ExcelDataReaderEngine implements DataValidationErrorHolder, DataRea
 			isCellValid = false;
 			return isCellValid;
 		}
-		if (cellAttributes.getRow() >= rows.size()) {
+		if (!ExcelSheetUtils.hasRow(rows, cellAttributes.getRow())) {
 			isCellValid = true;
 			return isCellValid;
 		}
@@ -757,9 +773,8 @@ public class ExcelDataReaderEngine implements DataValidationErrorHolder, DataRea
 		// don't return empty column unless there is default observation value
 		// that means that the user want to create observations for every empty cell.
 		if (excelSheetUtils.isEmptyColumn(
-				emptyColumnsLs, rows, configParser,
-				cellAttributes.getCol(),
-				excelInputConfig.isFormulaErrorsReported())) {
+				emptyColumns, rows, configParser,
+				cellAttributes.getCol())) {
 			// If there was no dataEnd and there was number of columns even if the column is empty we want to continue processing.
 			//SDMXCONV-1432
 			if (this.dataEndColumn <= 0 && configParser.getNumberOfColumns() > 0) {
@@ -769,7 +784,8 @@ public class ExcelDataReaderEngine implements DataValidationErrorHolder, DataRea
 					return true;
 				}
 			}
-			emptyColumnsLs.add(cellAttributes.getCol());
+			// the column is empty in the whole sheet, the rows still to read have nothing in it either
+			emptyColumns.set(cellAttributes.getCol());
 			isCellValid = false;
 		}
 
@@ -791,7 +807,7 @@ public class ExcelDataReaderEngine implements DataValidationErrorHolder, DataRea
 		if (dataEndLine > 0) {
 			return dataRow > dataEndLine;
 		}
-		if (dataRow >= rows.size()) {
+		if (!ExcelSheetUtils.hasRow(rows, dataRow)) {
 			return true;
 		}
 		if (maxNumberOfEmptyRows > 0) {
@@ -1065,7 +1081,7 @@ public class ExcelDataReaderEngine implements DataValidationErrorHolder, DataRea
 				sheetIx = entry.getValue();
 			}
 		}
-		emptyColumnsLs.clear();
+		emptyColumns.clear();
 		//SDMXCONV-890
 		if (sheetIx < 0 && this.exceptionHandler != null) {
 			String errorMsg = "The sheet '" + sheetName + "' doesn't exist inside the workbook of the excel file. "
@@ -1082,14 +1098,18 @@ public class ExcelDataReaderEngine implements DataValidationErrorHolder, DataRea
 			return;
 		}
 		/* the Excel sheet that is being processed */
-		Sheet currentSheet = workbook.getSheetAt(sheetIx);
+		// the cells of a large xls sheet are not loaded, its rows are streamed from the file
+		Sheet currentSheet = workbook instanceof XlsStreamingWorkbook
+				? ((XlsStreamingWorkbook) workbook).getStreamedSheetAt(sheetIx) : workbook.getSheetAt(sheetIx);
 		currentSheetName = currentSheet.getSheetName();
 		cellWithNullComponentsPerSheet.put(currentSheetName, new HashSet<>());
-		// Fetch rows for this sheet, we read it one time at the beginning
+		// Fetch rows for this sheet, they are read forward while the sheet is processed
 		// The alternative implementation for streaming xlsx and xls
-		// relies on this list of rows which are stored in a List Object and then processed
+		// relies on this list of rows which keeps a window of the last rows read and the header rows
+		// the empty columns are those of the whole sheet, read by the session in a separate pass when needed
 		excelSheetUtils = new ExcelSheetUtils(currentSheet);
-		rows = excelSheetUtils.getRows(currentSheet);
+		ExcelWorkbookSession sheetSession = session;
+		rows = excelSheetUtils.getRowWindow(currentSheet, rowWindowSize, () -> sheetSession.getOccupiedColumns(currentSheet));
 		try {
 			Integer indexConfig = numberOfConfigs.get(sheetName);
 			if (indexConfig != null) {
@@ -1102,6 +1122,7 @@ public class ExcelDataReaderEngine implements DataValidationErrorHolder, DataRea
 				if (previousParameterSheetName.equals(configParser.getParameterName())) {
 					// Set the starting point for parsing the series
 					nextPotentialObsPointer = dataStartCell;
+					pinLayoutRows();
 					return;
 				}
 			} else {
@@ -1132,6 +1153,7 @@ public class ExcelDataReaderEngine implements DataValidationErrorHolder, DataRea
 		}
 		if (configParser != null) {
 			validateParametersStartEnd();
+			pinLayoutRows();
 			// Set the starting point for parsing the series
 			nextPotentialObsPointer = dataStartCell;
 			// SDMXCONV-900
@@ -1150,6 +1172,55 @@ public class ExcelDataReaderEngine implements DataValidationErrorHolder, DataRea
 		}
 	}
 
+	/**
+	 * Keeps, while the sheet is read, the rows above the data and the rows the parameters read values from,
+	 * such as the header row of a dimension in ROW position or a dimension in a fixed CELL.
+	 */
+	private void pinLayoutRows() {
+		Set<Integer> layoutRows = new HashSet<>();
+		for (Map.Entry<String, ExcelDimAttrConfig> entry : configParser.getDimensionsConfig().entries()) {
+			ExcelDimAttrConfig dimAttrConfig = entry.getValue();
+			if (dimAttrConfig.getPositionType() == null) {
+				continue;
+			}
+			try {
+				switch (dimAttrConfig.getPositionType()) {
+					case CELL:
+					case CELL_EXT:
+						layoutRows.add(new CellReference(dimAttrConfig.getPosition()).getRow());
+						break;
+					case ROW:
+					case ROW_EXT:
+						layoutRows.add(Integer.parseInt(dimAttrConfig.getPosition()) - 1);
+						break;
+					case MIXED:
+						if (dimAttrConfig.getSubpositions() == null) {
+							break;
+						}
+						Map<String, Integer> cells = dimAttrConfig.getSubpositions().get(ExcelPositionType.CELL);
+						if (cells != null) {
+							for (String cellPosition : cells.keySet()) {
+								layoutRows.add(new CellReference(cellPosition).getRow());
+							}
+						}
+						Map<String, Integer> rowPositions = dimAttrConfig.getSubpositions().get(ExcelPositionType.ROW);
+						if (rowPositions != null) {
+							for (String rowPosition : rowPositions.keySet()) {
+								layoutRows.add(Integer.parseInt(rowPosition) - 1);
+							}
+						}
+						break;
+					default:
+						break;
+				}
+			} catch (IllegalArgumentException e) {
+				// an invalid position is reported when its value is read
+				logger.debug("Position {} of {} is not a row of the sheet", dimAttrConfig.getPosition(), entry.getKey());
+			}
+		}
+		ExcelSheetUtils.pinRows(rows, dataStartLine, layoutRows);
+	}
+
 	/**
 	 * Method that checks if DataStart/DataEnd exists or have valid values.
 	 * <p>
@@ -1265,7 +1336,10 @@ public class ExcelDataReaderEngine implements DataValidationErrorHolder, DataRea
 		this.datasetConsumed = false;
 		this.currentTransSheet = null;
 		this.transRows = null;
-		this.workbook = setWorkbook();
+		closeSession();
+		this.session = openSession();
+		this.workbook = session.getWorkbook();
+		this.isXlsx = session.isXlsx();
 		//SDMXCONV-816, SDMXCONV-867
 		if (ThreadLocalOutputReporter.getWriteAnnotations() != null && ThreadLocalOutputReporter.getWriteAnnotations().get()) {
 			AnnotationMutableBeanImpl annotation = new AnnotationMutableBeanImpl();
@@ -1273,7 +1347,7 @@ public class ExcelDataReaderEngine implements DataValidationErrorHolder, DataRea
 			annotation.setType(AnnotationType.ANN_INPUT_FORMAT.name());
 			this.inputFormatAnn = new AnnotationBeanImpl(annotation, null);
 		}
-		this.excelConfigurer = new ExcelConfigurer(this.workbook, this.exceptionHandler, this.excelInputConfig);
+		this.excelConfigurer = new ExcelConfigurer(this.session, this.exceptionHandler, this.excelInputConfig);
 		try {
 			this.excelConfigurer.run(excelDataLocation);
 		} catch (IOException e) {
@@ -1302,11 +1376,18 @@ public class ExcelDataReaderEngine implements DataValidationErrorHolder, DataRea
 		//Count the Ignored Cells last
 		this.ignoredObsCount = countIgnoredCells(cellWithNullComponentsPerSheet);
 		if (excelDataLocation != null) excelDataLocation.close();
+		closeSession();
+	}
+
+	private void closeSession() {
 		try {
-			if (workbook != null) workbook.close();
+			if (session != null) session.close();
 			if (this.countingStream != null) this.countingStream.close();
 		} catch (IOException e) {
 			exceptionHandler.handleException(new SdmxInternalServerException("I/O Error while trying to close excel input file."));
+		} finally {
+			session = null;
+			workbook = null;
 		}
 	}
 
@@ -1891,10 +1972,11 @@ public class ExcelDataReaderEngine implements DataValidationErrorHolder, DataRea
 		if (elementValue != null) {
 			elementValue = elementValue.trim();
 		}
-		if (ExcelUtils.hasRules(conceptRef, this.excelConfigurer.getTranscoding())) {
-			Entry<String, Boolean> transcoded = ExcelUtils.getValue_fromTranscoding(conceptRef, elementValue, this.excelConfigurer.getTranscoding());
+		TranscodingTable<ExcelTranscodingValue> transcoding = this.excelConfigurer.getTranscodingTable();
+		if (transcoding.hasRules(conceptRef)) {
+			ExcelTranscodingValue transcoded = ExcelUtils.getRule_fromTranscoding(conceptRef, elementValue, transcoding);
 			//SDMXCONV-963
-			return getValueFromTranscodingFormula(transcoded, decimalFormat);
+			return getValueFromTranscodingFormula(transcoded, elementValue, decimalFormat);
 		} else {
 			return elementValue;
 		}
@@ -2002,8 +2084,11 @@ public class ExcelDataReaderEngine implements DataValidationErrorHolder, DataRea
 			}
 		}
 		//SDMXCONV-901
-		if (ExcelUtils.hasRules(primaryMeasure, this.excelConfigurer.getTranscoding())) {
-			obsValue = ExcelUtils.getValue_fromTranscoding(primaryMeasure, obsValue, this.excelConfigurer.getTranscoding()).getKey();
+		if (this.excelConfigurer.getTranscodingTable().hasRules(primaryMeasure)) {
+			ExcelTranscodingValue transcoded = ExcelUtils.getRule_fromTranscoding(primaryMeasure, obsValue, this.excelConfigurer.getTranscodingTable());
+			if (transcoded != null) {
+				obsValue = transcoded.getValue();
+			}
 		}
 		//SDMXCONV-1095 && SDMXCONV-1066
 		if (detectIfTextTypeIsNumber(primaryMeasure)) {
@@ -2287,16 +2372,20 @@ public class ExcelDataReaderEngine implements DataValidationErrorHolder, DataRea
 	 * <p>We try to find the referenced cell from the formula text.
 	 * </p>
 	 *
-	 * @param transcoded
+	 * @param transcoded the rule found for the value, null when the value is not transcoded
+	 * @param elementValue the value read
 	 * @param decimalFormat
 	 * @return
 	 * @see <a href="https://webgate.ec.europa.eu/CITnet/jira/browse/SDMXCONV-963">SDMXCONV-963</a>
 	 */
-	private String getValueFromTranscodingFormula(Entry<String, Boolean> transcoded, DecimalFormat decimalFormat) {
-		//if transcoded.getValue() is true means we have a formula
-		if (transcoded.getValue()) {
+	private String getValueFromTranscodingFormula(ExcelTranscodingValue transcoded, String elementValue, DecimalFormat decimalFormat) {
+		if (transcoded == null) {
+			return elementValue;
+		}
+		//if transcoded.isFormula() is true means we have a formula
+		if (transcoded.isFormula()) {
 			String value;
-			CellReference cellRef = new CellReference(transcoded.getKey());
+			CellReference cellRef = new CellReference(transcoded.getValue());
             if (currentTransSheet == null || !currentTransSheet.equalsIgnoreCase(cellRef.getSheetName())) {
                 currentTransSheet = cellRef.getSheetName();
                 ExcelSheetUtils excelSheetUtils = new ExcelSheetUtils();
@@ -2306,48 +2395,26 @@ public class ExcelDataReaderEngine implements DataValidationErrorHolder, DataRea
                     excelInputConfig.isFormulaErrorsReported());
             return value;
 		} else {
-			return transcoded.getKey();
+			return transcoded.getValue();
 		}
 	}
 
 	/**
 	 * Method necessary to open the workbook from an Excel file we detect what
-	 * excel type the file is and either stream it or use the old apache poi to
-	 * read it. Workbook and streams needs closing.
+	 * excel type the file is and either stream it or use the streaming xls reader
+	 * to read it. The session and streams needs closing.
 	 *
-	 * @return Workbook
-	 */
-	private Workbook setWorkbook() {
-		BufferedInputStream bis;
-		Workbook workbook;
-		//SDMXCONV-874
-		if (excelInputConfig.getInflateRatio() != null)
-			ZipSecureFile.setMinInflateRatio(excelInputConfig.getInflateRatio());
+	 * @return ExcelWorkbookSession holding the workbook
+	 */
+	private ExcelWorkbookSession openSession() {
+		ExcelWorkbookSession session;
 		try {
 			this.countingStream = new CountingInputStream(new BufferedInputStream(excelDataLocation.getInputStream()));
-			// Create Workbook instance
-			if (FileMagic.valueOf(this.countingStream).equals(FileMagic.OOXML)) {
-				logger.info("FileMagic Type of file " + FileMagic.OOXML + " streaming reader will be used.");
-				isXlsx = true;
-				// Xlsx and xlsm
-				workbook = StreamingReader.builder()
-						.rowCacheSize(5000)
-						.bufferSize(4096) //buffer size to use when reading InputStream to file(defaults to 1024)
-						//.sstCacheSize(4096) //experimental - size of SST cache
-						.open(this.countingStream); // InputStream or File for XLSX file(required)
-			} else {
-				logger.info("FileMagic Type of file " + FileMagic.valueOf(this.countingStream) + " old reader will be used.");
-				isXlsx = false;
-				// Xls
-				workbook = WorkbookFactory.create(this.countingStream);
-			}
-		} catch (IOException | EncryptedDocumentException e) {
+			session = ExcelWorkbookSession.open(this.countingStream, excelInputConfig.getInflateRatio());
+		} catch (IOException e) {
 			throw new SdmxException(e, SDMX_ERROR_CODE.SEMANTIC_ERROR, ExceptionCode.WORKBOOK_READER_ERROR, "ExcelDataReaderEngine could not open/read workbook.");
-		} catch (OpenException ex) {
-			//SDMXCONV-874
-			throw new SdmxInternalServerException("ExcelDataReaderEngine could not open/read workbook." + ex.getCause());
 		}
-		return workbook;
+		return session;
 	}
 
 	/**
@@ -18,12 +18,12 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.poi.EncryptedDocumentException;
 import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.usermodel.WorkbookFactory;
 import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.estat.sdmxsource.util.excel.ExcelConfiguration;
 import org.estat.sdmxsource.util.excel.ExcelDimAttrConfig;
 import org.estat.sdmxsource.util.excel.InvalidExcelParamsException;
@@ -46,6 +46,11 @@ public class ExcelDataWriterEngine extends ComponentBufferWriterEngine {
 	
 	private Workbook workbook; 
 	private Sheet currentSheet; 
+	
+	/**
+	 * the cells of the current sheet, written to it when the series closes
+	 */
+	private ExcelPivotSheet pivotSheet = new ExcelPivotSheet();
 	private int currentSheetNbr = 0; 
 	private int dataStartColumn = -1;
 	private int dataStartRow = -1;
@@ -85,9 +90,15 @@ public class ExcelDataWriterEngine extends ComponentBufferWriterEngine {
 
 	public void openWriter(){
 		    try {
-				workbook = WorkbookFactory.create(outputConfig.getExcelOutputTemplate());
-				 List<ExcelConfiguration> excelTemplate = ExcelUtils.readExcelConfigFromWorkbook(workbook, new FirstFailureExceptionHandler());
+				Workbook template = WorkbookFactory.create(outputConfig.getExcelOutputTemplate());
+				 List<ExcelConfiguration> excelTemplate = ExcelUtils.readExcelConfigFromWorkbook(template, new FirstFailureExceptionHandler());
 				 this.excelConfigParser = new ExcelOutputConfigParser(excelTemplate.get(0));
+				 // the data sheets of an xlsx output are streamed, keeping only the last rows written in memory
+				 if (template instanceof XSSFWorkbook) {
+					 workbook = new SXSSFWorkbook((XSSFWorkbook) template, outputConfig.getRowWindowSize());
+				 } else {
+					 workbook = template;
+				 }
 				 setDataStart();
 			} catch (EncryptedDocumentException | IOException | InvalidExcelParamsException e) {
 				throw new RuntimeException(e);
@@ -116,6 +127,11 @@ public class ExcelDataWriterEngine extends ComponentBufferWriterEngine {
 			workbook.write(outputStream);
 		} catch (IOException e) {
 			throw new RuntimeException(e);
+		} finally {
+			if (workbook instanceof SXSSFWorkbook) {
+				// deletes the temporary files of the streamed sheets
+				((SXSSFWorkbook) workbook).dispose();
+			}
 		}
 	}
 
@@ -143,6 +159,7 @@ public class ExcelDataWriterEngine extends ComponentBufferWriterEngine {
 		writeColumnHeadersToExcel();
         writeRowHeadersToExcel();
 		writeIndependentCellsToExcel();
+		pivotSheet.writeTo(currentSheet);
 	}
 	
 	private void newSheet(String sheetName){
@@ -154,16 +171,10 @@ public class ExcelDataWriterEngine extends ComponentBufferWriterEngine {
 	@Override
 	protected void doWriteComponentsValues(ComponentValuesBuffer componentValues) {
 		List<String> valuesForRows = getComponentValuesForRows(componentValues);
-		if(!columnHeaderValues.containsValues(valuesForRows)){
-			columnHeaderValues.addValues(valuesForRows);
-		}
-		int indexInColHeader = columnHeaderValues.getIndexForValues(valuesForRows);
+		int indexInColHeader = columnHeaderValues.getOrAddValues(valuesForRows);
 
 		List<String> valuesForCols = getComponentValuesForCols(componentValues);
-		if(!rowHeaderValues.containsValues(valuesForCols)){
-			rowHeaderValues.addValues(valuesForCols);
-		}
-		int indexInRowHeader = rowHeaderValues.getIndexForValues(valuesForCols);
+		int indexInRowHeader = rowHeaderValues.getOrAddValues(valuesForCols);
 
 		
 		
@@ -262,22 +273,15 @@ public class ExcelDataWriterEngine extends ComponentBufferWriterEngine {
 	}
 	
 	/**
-	 * writes the given value on the particular row-column cell
+	 * writes the given value on the particular row-column cell.
+	 * The cells are collected and written to the sheet in the order of the rows when the series closes.
 	 * 
 	 * @param value
 	 * @param row
 	 * @param col
 	 */
 	private void writeValueInCell(String value, int row, int col){
-		Row r = currentSheet.getRow(row); 
-		if (r == null) {
-		   r = currentSheet.createRow(row);
-		}
-		Cell c = r.getCell(col); 
-		if (c == null) {
-		    c = r.createCell(col);
-		}
-		c.setCellValue(value);
+		pivotSheet.setValue(value, row, col);
 	}
 
     private List<String> getComponentValuesForRows(ComponentValuesBuffer dataRow){
@@ -1,5 +1,6 @@
 package com.intrasoft.sdmx.converter.io.data.excel;
 
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.estat.sdmxsource.util.excel.ExcelConfiguration;
 import org.sdmxsource.sdmx.dataparser.engine.writer.utils.OutputConfig;
 
@@ -14,6 +15,11 @@ public class ExcelOutputConfig implements OutputConfig {
 
     private ExcelConfiguration excelConfig;
 
+    /**
+     * number of rows of a data sheet kept in memory while it is written to an xlsx output
+     */
+    private int rowWindowSize = SXSSFWorkbook.DEFAULT_WINDOW_SIZE;
+
     public ExcelOutputConfig(InputStream outputTemplate, ExcelConfiguration excelConfig){
         this.excelOutputTemplate = outputTemplate;
         this.excelConfig = excelConfig;
@@ -27,4 +33,12 @@ public class ExcelOutputConfig implements OutputConfig {
         return excelConfig;
     }
 
+    public int getRowWindowSize() {
+        return rowWindowSize;
+    }
+
+    public void setRowWindowSize(int rowWindowSize) {
+        this.rowWindowSize = rowWindowSize;
+    }
+
 }
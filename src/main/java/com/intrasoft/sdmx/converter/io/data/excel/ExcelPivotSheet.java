@@ -0,0 +1,49 @@
+package com.intrasoft.sdmx.converter.io.data.excel;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The cells of a data sheet of the excel output, collected as the observations arrive in any order
+ * and written to the sheet row by row.
+ * <p>Writing the rows in order lets a streaming workbook keep only its last rows in memory,
+ * the values are held here as strings until then.</p>
+ *
+ * @see ExcelDataWriterEngine
+ */
+final class ExcelPivotSheet {
+
+	/**
+	 * map (rowIndex, map (colIndex, value)) sorted by row and column
+	 */
+	private final TreeMap<Integer, TreeMap<Integer, String>> cells = new TreeMap<>();
+
+	/**
+	 * sets the value of the cell, replacing the one set before
+	 *
+	 * @param value
+	 * @param row
+	 * @param col
+	 */
+	void setValue(String value, int row, int col) {
+		cells.computeIfAbsent(row, r -> new TreeMap<>()).put(col, value);
+	}
+
+	/**
+	 * writes the cells to the sheet in the order of the rows, then forgets them
+	 *
+	 * @param sheet	an empty sheet
+	 */
+	void writeTo(Sheet sheet) {
+		for (Map.Entry<Integer, TreeMap<Integer, String>> rowCells : cells.entrySet()) {
+			Row row = sheet.createRow(rowCells.getKey());
+			for (Map.Entry<Integer, String> cell : rowCells.getValue().entrySet()) {
+				row.createCell(cell.getKey()).setCellValue(cell.getValue());
+			}
+		}
+		cells.clear();
+	}
+}
@@ -1,9 +1,9 @@
 package com.intrasoft.sdmx.converter.io.data.excel;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
 
 
 /**
@@ -14,12 +14,15 @@ import java.util.TreeMap;
  */
 public class ExcelRowColumnHeader {
 	
-	private int currentIndex = -1;
+	/**
+	 * the header values by index
+	 */
+	private List<List<String>> headerValues = new ArrayList<List<String>>();
 	
 	/**
-	 * map (colIndex, headerValues) sorted by column index
+	 * map (headerValues, index) to look up the index of the values without scanning the header
 	 */
-	private Map<Integer, List<String>> headerValues = new TreeMap<Integer, List<String>>();
+	private Map<List<String>, Integer> indexOfValues = new HashMap<List<String>, Integer>();
 	
 	/**
 	 * the list of dimensions which will be managed by this header. 
@@ -43,7 +46,7 @@ public class ExcelRowColumnHeader {
 	 * @return	true if the values are already in the header values
 	 */
 	public boolean containsValues(List<String> values){
-		return headerValues.containsValue(values); 
+		return indexOfValues.containsKey(values); 
 	}
 	
 	/**
@@ -57,9 +60,24 @@ public class ExcelRowColumnHeader {
 			throw new IllegalArgumentException("Number of values added in header ("+
 						values.size()+") different than expected "+dimensions.size()+" components in dsd");
 		}
-		currentIndex++;
-		headerValues.put(Integer.valueOf(currentIndex), values);
-		return currentIndex; 
+		int index = headerValues.size();
+		headerValues.add(values);
+		indexOfValues.putIfAbsent(values, Integer.valueOf(index));
+		return index; 
+	}
+	
+	/**
+	 * retrieves the index of the values, adding them to the header when they are not in it yet
+	 * 
+	 * @param values	the list of values to be looked up
+	 * @return			the index of the values in the header
+	 */
+	public int getOrAddValues(List<String> values){
+		Integer index = indexOfValues.get(values);
+		if(index == null){
+			return addValues(values);
+		}
+		return index;
 	}
 	
 	/**
@@ -69,13 +87,7 @@ public class ExcelRowColumnHeader {
 	 * @return			the index of the values in the header
 	 */
 	public int getIndexForValues(List<String> values){
-		Integer result = null; 
-		for(Integer idx: headerValues.keySet()){
-			if(headerValues.get(idx).equals(values)){
-				result = idx; 
-				break; 
-			}
-		}
+		Integer result = indexOfValues.get(values); 
 		return result; 
 	}
 	
@@ -89,8 +101,8 @@ public class ExcelRowColumnHeader {
 		List<String> result = new ArrayList<String>(); 
 		int index = dimensions.indexOf(dimension);
 		if(index >=0){
-			for(Integer key: headerValues.keySet()){
-				result.add(headerValues.get(key).get(index)); 
+			for(List<String> values: headerValues){
+				result.add(values.get(index)); 
 			}			
 		}
 		return result; 
@@ -0,0 +1,187 @@
+package com.intrasoft.sdmx.converter.io.data.excel;
+
+import org.apache.poi.ss.usermodel.Row;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * Rows of a sheet read forward only, through a sliding window.
+ * <p>The rows are indexed by their number, the missing rows are null, the same as the list of
+ * {@link ExcelSheetUtils#getRows}. Only the last rows read are kept, plus the rows pinned by the layout
+ * of the parameters: the header rows above the data and the rows the components are read from. The memory taken
+ * depends on the layout and on the size of the window, not on the length of the sheet.</p>
+ * <p>A row is read when it is asked for. Asking for a row that left the window and is not pinned is an error.</p>
+ * <p>{@link #size()} is the number of rows read so far, {@link #hasRow(int)} tells if the sheet has a row.</p>
+ * <p>The occupancy of the columns is the one of the whole sheet. Once the sheet is read to its end it is built from
+ * the rows read, before that it is taken once from the supplier given, which reads the sheet in a separate pass.</p>
+ */
+final class ExcelRowWindow extends AbstractList<Row> {
+
+	/** the default number of rows kept, half of them before the last row asked for and half after */
+	static final int DEFAULT_SIZE = 4096;
+
+	private final Iterator<Row> iterator;
+	private final Row[] window;
+
+	private int pinnedPrefix;
+	private final Set<Integer> pinnedRows = new HashSet<>();
+	private final TreeMap<Integer, Row> pinned = new TreeMap<>();
+
+	/** the columns filled in the rows read */
+	private final BitSet occupiedColumns = new BitSet();
+	/** the columns filled in the whole sheet, read in a separate pass */
+	private final Supplier<BitSet> sheetColumns;
+	private BitSet allColumns;
+
+	/** the rows [0, read) were read */
+	private int read;
+	private boolean exhausted;
+	/** the last row asked for */
+	private int cursor;
+
+	/**
+	 * @param iterator     the rows of the sheet
+	 * @param size         the number of rows kept besides the pinned ones
+	 * @param sheetColumns the columns filled in the whole sheet, asked for only when the sheet is not read to its end
+	 */
+	ExcelRowWindow(Iterator<Row> iterator, int size, Supplier<BitSet> sheetColumns) {
+		if (size < 2) {
+			throw new IllegalArgumentException("The row window should hold at least 2 rows, found " + size);
+		}
+		this.iterator = iterator;
+		this.window = new Row[size];
+		this.sheetColumns = sheetColumns;
+	}
+
+	/**
+	 * Keeps rows for as long as the sheet is read, the rows already read and still in the window are kept too.
+	 *
+	 * @param prefix     the rows before this one are kept, such as the headers above the data
+	 * @param rowIndexes other rows to keep
+	 */
+	void pin(int prefix, Collection<Integer> rowIndexes) {
+		pinnedPrefix = Math.max(pinnedPrefix, prefix);
+		pinnedRows.addAll(rowIndexes);
+		for (int i = firstInWindow(); i < read; i++) {
+			Row row = window[i % window.length];
+			if (row != null && isPinned(i)) {
+				pinned.put(i, row);
+			}
+		}
+	}
+
+	/**
+	 * @return true when the sheet has the row, reading it if needed
+	 */
+	boolean hasRow(int index) {
+		moveTo(index);
+		return index < read;
+	}
+
+	@Override
+	public Row get(int index) {
+		if (index < 0) {
+			throw new IndexOutOfBoundsException("Row index: " + index);
+		}
+		moveTo(index);
+		if (index >= read) {
+			throw new IndexOutOfBoundsException("Row index: " + index + ", rows: " + read);
+		}
+		if (isPinned(index)) {
+			return pinned.get(index);
+		}
+		if (index < firstInWindow()) {
+			throw new IllegalStateException("Row " + (index + 1) + " is no longer available, only the last "
+					+ window.length + " rows read are kept with the header rows. The row is " + (read - index)
+					+ " rows before the last row read.");
+		}
+		return window[index % window.length];
+	}
+
+	/**
+	 * @return the number of rows read so far
+	 */
+	@Override
+	public int size() {
+		return read;
+	}
+
+	/**
+	 * Reads ahead of the last row asked for, half of the window. When this reaches the end of the sheet the columns
+	 * are the ones of the rows read, otherwise they are read from the whole sheet once.
+	 *
+	 * @return the columns of the whole sheet with a cell which is not blank, by column index
+	 */
+	BitSet getOccupiedColumns() {
+		load(cursor + window.length / 2);
+		if (exhausted) {
+			return occupiedColumns;
+		}
+		if (allColumns == null) {
+			allColumns = sheetColumns.get();
+		}
+		return allColumns;
+	}
+
+	private boolean isPinned(int index) {
+		return index < pinnedPrefix || pinnedRows.contains(index);
+	}
+
+	private int firstInWindow() {
+		return Math.max(0, read - window.length);
+	}
+
+	private void moveTo(int index) {
+		cursor = Math.max(cursor, index);
+		load(index);
+	}
+
+	private void load(int index) {
+		while (read <= index && !exhausted) {
+			if (!iterator.hasNext()) {
+				exhausted = true;
+				break;
+			}
+			Row row = iterator.next();
+			int rowNum = row.getRowNum();
+			if (rowNum < read) {
+				// a row out of order replaces the one read at its place
+				store(rowNum, row);
+				continue;
+			}
+			// the rows the iterator skips are empty
+			if (rowNum - read >= window.length) {
+				Arrays.fill(window, null);
+				read = rowNum;
+			}
+			while (read < rowNum) {
+				store(read++, null);
+			}
+			store(rowNum, row);
+			read = rowNum + 1;
+		}
+	}
+
+	/**
+	 * A row read out of order before the window is only kept when it is pinned,
+	 * its place in the window holds a later row.
+	 */
+	private void store(int index, Row row) {
+		if (index >= firstInWindow()) {
+			window[index % window.length] = row;
+		}
+		ExcelSheetUtils.markOccupiedColumns(row, occupiedColumns);
+		if (row != null && isPinned(index)) {
+			pinned.put(index, row);
+		}
+	}
+
+}
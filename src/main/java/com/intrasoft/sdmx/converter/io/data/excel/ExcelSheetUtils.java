@@ -30,7 +30,11 @@ import org.estat.sdmxsource.util.excel.FormatValues;
 
 import java.text.DecimalFormat;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * Utils that Stores current sheet and holds the list of rows of the sheet.
@@ -42,6 +46,10 @@ public class ExcelSheetUtils {
 
 	private List<Row> rows;
 
+	/** the rows the occupancy of the columns was computed for */
+	private List<Row> occupancyRows;
+	private BitSet occupiedColumns;
+
 	public ExcelSheetUtils(Sheet currentSheet) {
 		this.currentSheet = currentSheet;
 	}
@@ -118,7 +126,7 @@ public class ExcelSheetUtils {
 	public static Row getRow(List<Row> rows, int indx) {
 		Row row = null;
 		// If index out of bounds then return empty row
-		if (rows.size() > indx) {
+		if (hasRow(rows, indx)) {
 			if (isNotEmptyRow(rows.get(indx))) {
 				row = rows.get(indx);
 			}
@@ -126,6 +134,20 @@ public class ExcelSheetUtils {
 		return row;
 	}
 
+	/**
+	 * Tells if the sheet has the row, for a window of rows the row is read if needed.
+	 *
+	 * @param rows List<Row> rows of the sheet, as returned by {@link #getRows(Sheet)} or {@link #getRowWindow(Sheet, int)}
+	 * @param indx int       position of the row inside the list
+	 * @return true if the row is inside the list
+	 */
+	public static boolean hasRow(List<Row> rows, int indx) {
+		if (rows instanceof ExcelRowWindow) {
+			return ((ExcelRowWindow) rows).hasRow(indx);
+		}
+		return indx < rows.size();
+	}
+
 	public Sheet getCurrentSheet() {
 		return currentSheet;
 	}
@@ -152,7 +174,8 @@ public class ExcelSheetUtils {
 	public List<Row> getRows(Sheet sheet) {
 		List<Row> rows = new ArrayList<>();
 		int prevRow = 0;
-		for (Row r : sheet) {
+		for (Iterator<Row> rowIterator = rowIterator(sheet); rowIterator.hasNext(); ) {
+			Row r = rowIterator.next();
 			// SDMXCONV-703
 			// Because iterator ignores empty rows and just skip it
 			// and can't even recognize that are empty
@@ -168,18 +191,71 @@ public class ExcelSheetUtils {
 		return rows;
 	}
 
+	/**
+	 * Rows of the sheet read forward only, keeping the last <code>windowSize</code> rows read and the rows pinned with
+	 * {@link #pinRows(List, int, Collection)}. Unlike {@link #getRows(Sheet)} the sheet is not read up front,
+	 * which keeps the streaming reading of an xlsx from holding the whole sheet.
+	 * <p>The occupancy of the columns of a sheet longer than the window is read by iterating the sheet again, which
+	 * the sheets of the streaming xlsx reader cannot do, for these use {@link #getRowWindow(Sheet, int, Supplier)}.</p>
+	 *
+	 * @param sheet      Sheet
+	 * @param windowSize the number of rows kept besides the pinned ones
+	 * @return List<Row> indexed as the one of {@link #getRows(Sheet)}
+	 */
+	public List<Row> getRowWindow(Sheet sheet, int windowSize) {
+		return getRowWindow(sheet, windowSize, () -> getOccupiedColumns(rowIterator(sheet)));
+	}
+
+	/**
+	 * Rows of the sheet read forward only, as {@link #getRowWindow(Sheet, int)}.
+	 *
+	 * @param sheet         Sheet
+	 * @param windowSize    the number of rows kept besides the pinned ones
+	 * @param sheetColumns  the filled columns of the whole sheet, read in a separate pass, see
+	 *                      {@link ExcelWorkbookSession#getOccupiedColumns(Sheet)}
+	 * @return List<Row> indexed as the one of {@link #getRows(Sheet)}
+	 */
+	public List<Row> getRowWindow(Sheet sheet, int windowSize, Supplier<BitSet> sheetColumns) {
+		return new ExcelRowWindow(rowIterator(sheet), windowSize, sheetColumns);
+	}
 
 	/**
-	 * Determines if the given column is empty.
-	 * For efficiency we check 10 cells above and 10 cells bellow only.
-	 * If we found them empty we assume the column as empty.
+	 * The rows of the sheet, streamed from the file for the large sheets of an xls read by {@link XlsStreamingWorkbook}.
+	 *
+	 * @param sheet Sheet
+	 * @return Iterator<Row> over the rows with cells
+	 */
+	public static Iterator<Row> rowIterator(Sheet sheet) {
+		if (sheet.getWorkbook() instanceof XlsStreamingWorkbook) {
+			return ((XlsStreamingWorkbook) sheet.getWorkbook()).rowIterator(sheet);
+		}
+		return sheet.iterator();
+	}
+
+	/**
+	 * Keeps rows of a window of rows while the sheet is read, does nothing for a list of all the rows.
+	 *
+	 * @param rows       List<Row> rows of the sheet
+	 * @param prefix     the rows before this one are kept
+	 * @param rowIndexes other rows to keep
+	 */
+	public static void pinRows(List<Row> rows, int prefix, Collection<Integer> rowIndexes) {
+		if (rows instanceof ExcelRowWindow) {
+			((ExcelRowWindow) rows).pin(prefix, rowIndexes);
+		}
+	}
+
+	/**
+	 * Determines if the given column is empty, that is none of its cells is filled.
+	 * The filled columns are looked up in the occupancy of the columns of the whole sheet, also for a window of
+	 * rows, so a column found empty may be kept as such while the rest of the sheet is read.
 	 * @see 'SDMXCONV-975'
 	 *
+	 * @param emptyColumns the columns already found empty in the whole sheet
 	 * @param rows
 	 * @return true if the column does not contain info.
 	 */
-	public boolean isEmptyColumn(List<Integer> emptyColumnsLs, List<Row> rows, ExcelInputConfigParser configParser, int column, boolean displayCellErrors) {
-		boolean emptyColumn = true;
+	public boolean isEmptyColumn(BitSet emptyColumns, List<Row> rows, ExcelInputConfigParser configParser, int column) {
 
 		if(configParser.getDataStartCell()!=null && configParser.getDataEnd()!=null && configParser.getDefaultObsValue()!=null) {
 			CellReference startCell = new CellReference(configParser.getDataStartCell());
@@ -190,27 +266,59 @@ public class ExcelSheetUtils {
 				return false;
 			}
 		}
-		if (emptyColumnsLs.contains(column)) {
+		if (emptyColumns.get(column)) {
 			return true;
 		}
+		return !getOccupiedColumns(rows).get(column);
+	}
 
-		int rIndex = 0;
-		for (int i = rIndex; i < rows.size(); i++) {
-			Row r = rows.get(i);
-			if (r != null) {
-				Cell c = r.getCell(column);
-				if (!ExcelCellUtils.isBlankCell(c)) {
-					String obsValue = ExcelCellUtils.getCellValue(c, configParser.getDecimalFormat(), configParser.getFormatValues(), displayCellErrors);
-					if (obsValue != null && !"".equals(obsValue)) {
-						return false;
-					}
-					if (CellType.BLANK != c.getCellType()) {
-						return false;
-					}
-				}
+	/**
+	 * The columns of the sheet that have at least one cell which is not blank.
+	 * For a window of rows these are the columns of the whole sheet, not only of the rows read so far.
+	 * For a list of all the rows the occupancy is computed once per list.
+	 *
+	 * @param rows List<Row> rows of the sheet
+	 * @return the filled columns, by column index
+	 */
+	public BitSet getOccupiedColumns(List<Row> rows) {
+		if (rows instanceof ExcelRowWindow) {
+			return ((ExcelRowWindow) rows).getOccupiedColumns();
+		}
+		if (occupancyRows != rows) {
+			BitSet columns = new BitSet();
+			for (Row r : rows) {
+				markOccupiedColumns(r, columns);
+			}
+			occupiedColumns = columns;
+			occupancyRows = rows;
+		}
+		return occupiedColumns;
+	}
+
+	/**
+	 * @param rows the rows of a sheet, read to the end
+	 * @return the columns with a cell which is not blank, by column index
+	 */
+	static BitSet getOccupiedColumns(Iterator<Row> rows) {
+		BitSet columns = new BitSet();
+		while (rows.hasNext()) {
+			markOccupiedColumns(rows.next(), columns);
+		}
+		return columns;
+	}
+
+	/**
+	 * Sets the columns of the row that have a cell which is not blank.
+	 */
+	static void markOccupiedColumns(Row row, BitSet columns) {
+		if (row == null) {
+			return;
+		}
+		for (Cell c : row) {
+			if (!ExcelCellUtils.isBlankCell(c)) {
+				columns.set(c.getColumnIndex());
 			}
 		}
-		return emptyColumn;
 	}
 
 	/**
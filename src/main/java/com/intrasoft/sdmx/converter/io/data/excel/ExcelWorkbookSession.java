@@ -0,0 +1,360 @@
+package com.intrasoft.sdmx.converter.io.data.excel;
+
+import com.monitorjbl.xlsx.StreamingReader;
+import com.monitorjbl.xlsx.exceptions.OpenException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.poi.EncryptedDocumentException;
+import org.apache.poi.openxml4j.util.ZipSecureFile;
+import org.apache.poi.poifs.filesystem.FileMagic;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.estat.sdmxsource.util.excel.InvalidExcelParamsException;
+import org.sdmxsource.sdmx.api.constants.ExceptionCode;
+import org.sdmxsource.sdmx.api.constants.SDMX_ERROR_CODE;
+import org.sdmxsource.sdmx.api.exception.ExceptionHandler;
+import org.sdmxsource.sdmx.api.exception.SdmxException;
+import org.sdmxsource.sdmx.api.exception.SdmxInternalServerException;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <h2>An Excel file opened once for all the readings of its sheets</h2>
+ * <p>The parameters, mapping, codes and transcoding sheets of a file used to be read by opening the file again for
+ * each of them, then the data reader opened it once more. A session opens the workbook once, hands it to the data
+ * reader and parses each of these sheets once, the parsed sheet is returned to the next caller.</p>
+ * <p>The file is spooled to a temporary file while its SHA-256 is computed. For a template, the external parameters
+ * or codes file opened with {@link #openTemplate(InputStream, Double)}, this hash is the identity of the template:
+ * its parameters, mapping and transcoding sheets parsed without errors are kept by it, so that the same template
+ * submitted again gets them without parsing and without opening the workbook. Only these plain values are kept,
+ * never the rows of a sheet, which would keep the workbook in memory. The data files are not kept, their hash
+ * changes with every file. The parsed sheets are shared by these sessions and must be treated as read only.</p>
+ *
+ * @see ExcelConfigurer
+ */
+public class ExcelWorkbookSession implements Closeable {
+
+	private static Logger logger = LogManager.getLogger(ExcelWorkbookSession.class);
+
+	private static final int CACHE_SIZE = 32;
+
+	/** the rows kept in memory by the reader of a separate pass over a sheet */
+	private static final int PASS_ROW_CACHE_SIZE = 100;
+
+	/** the kinds of sheets parsed by the readers of the Excel files */
+	public static final String PARAMETERS = "parameters";
+	public static final String PARAMETERS_MAPPING = "parametersMapping";
+	public static final String CODES = "codes";
+	public static final String TRANSCODING = "transcoding";
+	private static final String SHEET_NAMES = "sheetNames";
+
+	/** the kinds of sheets parsed into plain values, which are kept for the next sessions of a template */
+	private static final Set<String> TEMPLATE_KINDS = new HashSet<>(Arrays.asList(PARAMETERS, PARAMETERS_MAPPING, TRANSCODING, SHEET_NAMES));
+
+	/**
+	 * map (content hash, map (kind and sheet name, parsed sheet)) of the templates read last
+	 */
+	private static final Map<String, Map<String, Object>> TEMPLATES = new LinkedHashMap<String, Map<String, Object>>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Map<String, Object>> eldest) {
+			return size() > CACHE_SIZE;
+		}
+	};
+
+	/**
+	 * Parses a sheet of a workbook.
+	 *
+	 * @param <T> the parsed sheet
+	 */
+	@FunctionalInterface
+	public interface SheetParser<T> {
+		/**
+		 * @return the parsed sheet, null when the workbook has no such sheet
+		 */
+		T parse(Workbook workbook, String sheetName, ExceptionHandler exceptionHandler) throws InvalidExcelParamsException;
+	}
+
+	private final File file;
+	private final String contentHash;
+	private final boolean xlsx;
+	private final Double inflateRatio;
+	/** the sheets parsed by this session, with or without errors */
+	private final Map<String, Object> parsedSheets = new HashMap<>();
+	/** the sheets parsed without errors by the sessions of the same template, null for a data file */
+	private final Map<String, Object> templateSheets;
+	/** map (sheet name, filled columns of the sheet) */
+	private final Map<String, BitSet> occupiedColumns = new HashMap<>();
+	private Workbook workbook;
+
+	private ExcelWorkbookSession(File file, String contentHash, boolean xlsx, Double inflateRatio, boolean template) {
+		this.file = file;
+		this.contentHash = contentHash;
+		this.xlsx = xlsx;
+		this.inflateRatio = inflateRatio;
+		if (template) {
+			synchronized (TEMPLATES) {
+				this.templateSheets = TEMPLATES.computeIfAbsent(contentHash, hash -> Collections.synchronizedMap(new HashMap<>()));
+			}
+		} else {
+			this.templateSheets = null;
+		}
+	}
+
+	/**
+	 * Reads the file to the end, the workbook is opened when it is first needed.
+	 * The sheets are parsed once for this session.
+	 *
+	 * @param inputStream  the xlsx, xlsm or xls file, it is not closed
+	 * @param inflateRatio the minimum inflate ratio of the xlsx files, null for the default
+	 * @return the session, to close when the file is read
+	 */
+	public static ExcelWorkbookSession open(InputStream inputStream, Double inflateRatio) throws IOException {
+		return open(inputStream, inflateRatio, false);
+	}
+
+	/**
+	 * Reads a template to the end, such as an external parameters file, the workbook is opened when it is first needed.
+	 * The parameters, mapping and transcoding sheets are parsed once for all the sessions of the same template.
+	 *
+	 * @param inputStream  the xlsx, xlsm or xls file, it is not closed
+	 * @param inflateRatio the minimum inflate ratio of the xlsx files, null for the default
+	 * @return the session, to close when the file is read
+	 */
+	public static ExcelWorkbookSession openTemplate(InputStream inputStream, Double inflateRatio) throws IOException {
+		return open(inputStream, inflateRatio, true);
+	}
+
+	private static ExcelWorkbookSession open(InputStream inputStream, Double inflateRatio, boolean template) throws IOException {
+		File file = File.createTempFile("excelInput", ".tmp");
+		file.deleteOnExit();
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			boolean xlsx;
+			try (BufferedInputStream bis = new BufferedInputStream(new DigestInputStream(inputStream, digest));
+				 OutputStream out = Files.newOutputStream(file.toPath())) {
+				xlsx = FileMagic.valueOf(bis).equals(FileMagic.OOXML);
+				byte[] buffer = new byte[8192];
+				int read;
+				while ((read = bis.read(buffer)) >= 0) {
+					out.write(buffer, 0, read);
+				}
+			}
+			return new ExcelWorkbookSession(file, toHex(digest.digest()), xlsx, inflateRatio, template);
+		} catch (NoSuchAlgorithmException e) {
+			deleteFile(file);
+			throw new IllegalStateException("SHA-256 is not available", e);
+		} catch (IOException | RuntimeException e) {
+			deleteFile(file);
+			throw e;
+		}
+	}
+
+	/**
+	 * @return the SHA-256 of the content of the file
+	 */
+	public String getContentHash() {
+		return contentHash;
+	}
+
+	public boolean isXlsx() {
+		return xlsx;
+	}
+
+	/**
+	 * Opens the workbook the first time, the xlsx files with the streaming reader.
+	 *
+	 * @return the workbook of the file, closed with the session
+	 */
+	public synchronized Workbook getWorkbook() {
+		if (workbook == null) {
+			workbook = openWorkbook();
+		}
+		return workbook;
+	}
+
+	/**
+	 * @return the names of the sheets, in the order of the workbook
+	 */
+	public List<String> getSheetNames() {
+		try {
+			return getSheet(SHEET_NAMES, "", (wb, name, handler) -> {
+				List<String> names = new ArrayList<>();
+				for (int i = 0; i < wb.getNumberOfSheets(); i++) {
+					names.add(wb.getSheetName(i));
+				}
+				return Collections.unmodifiableList(names);
+			}, null);
+		} catch (InvalidExcelParamsException e) {
+			// the names are read without errors
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Returns the sheet parsed before by this session, or by a session of the same template when it had no errors,
+	 * otherwise parses it.
+	 *
+	 * @param kind             the kind of sheet, the same sheet may be parsed as different kinds
+	 * @param sheetName        the name of the sheet
+	 * @param parser           parses the sheet from the workbook
+	 * @param exceptionHandler handler of the errors of the sheet
+	 * @return the parsed sheet
+	 * @throws InvalidExcelParamsException thrown by the parser, the sheet is not kept then
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized <T> T getSheet(String kind, String sheetName, SheetParser<T> parser, ExceptionHandler exceptionHandler)
+			throws InvalidExcelParamsException {
+		String key = kind + ':' + sheetName;
+		if (parsedSheets.containsKey(key)) {
+			return (T) parsedSheets.get(key);
+		}
+		boolean shared = templateSheets != null && TEMPLATE_KINDS.contains(kind);
+		if (shared) {
+			synchronized (templateSheets) {
+				if (templateSheets.containsKey(key)) {
+					logger.debug("{} sheet {} of {} taken from the cache", kind, sheetName, contentHash);
+					T parsed = (T) templateSheets.get(key);
+					parsedSheets.put(key, parsed);
+					return parsed;
+				}
+			}
+		}
+		ErrorCountingExceptionHandler countingHandler = new ErrorCountingExceptionHandler(exceptionHandler);
+		T parsed = parser.parse(getWorkbook(), sheetName, exceptionHandler == null ? null : countingHandler);
+		parsedSheets.put(key, parsed);
+		if (shared && countingHandler.getErrors() == 0) {
+			templateSheets.put(key, parsed);
+		}
+		return parsed;
+	}
+
+	/**
+	 * The columns of a sheet that have a cell which is not blank, read in a pass over the whole sheet besides the
+	 * reading of the data. The streaming reader of the workbook reads the rows of an xlsx once, so the sheet is read
+	 * from a second reader of the file.
+	 *
+	 * @param sheet a sheet of the workbook of this session
+	 * @return the filled columns, by column index, to be treated as read only
+	 */
+	public synchronized BitSet getOccupiedColumns(Sheet sheet) {
+		String sheetName = sheet.getSheetName();
+		BitSet columns = occupiedColumns.get(sheetName);
+		if (columns == null) {
+			if (xlsx) {
+				try (Workbook pass = openXlsx(PASS_ROW_CACHE_SIZE)) {
+					columns = ExcelSheetUtils.getOccupiedColumns(pass.getSheet(sheetName).iterator());
+				} catch (IOException e) {
+					throw new SdmxException(e, SDMX_ERROR_CODE.SEMANTIC_ERROR, ExceptionCode.WORKBOOK_READER_ERROR, "ExcelDataReaderEngine could not open/read workbook.");
+				}
+			} else {
+				// the rows of an xls are streamed from the file again, or are already loaded
+				columns = ExcelSheetUtils.getOccupiedColumns(ExcelSheetUtils.rowIterator(sheet));
+			}
+			logger.debug("occupied columns of sheet {} read: {}", sheetName, columns);
+			occupiedColumns.put(sheetName, columns);
+		}
+		return columns;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		try {
+			if (workbook != null) {
+				workbook.close();
+			}
+		} finally {
+			workbook = null;
+			deleteFile(file);
+		}
+	}
+
+	private Workbook openWorkbook() {
+		//SDMXCONV-874
+		if (inflateRatio != null) ZipSecureFile.setMinInflateRatio(inflateRatio);
+		if (xlsx) {
+			logger.info("FileMagic Type of file " + FileMagic.OOXML + " streaming reader will be used.");
+			// Xlsx and xlsm
+			return openXlsx(5000);
+		}
+		try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+			logger.info("FileMagic Type of file " + FileMagic.valueOf(in) + " streaming xls reader will be used.");
+			// Xls
+			return XlsStreamingWorkbook.open(in);
+		} catch (IOException | EncryptedDocumentException e) {
+			throw new SdmxException(e, SDMX_ERROR_CODE.SEMANTIC_ERROR, ExceptionCode.WORKBOOK_READER_ERROR, "ExcelDataReaderEngine could not open/read workbook.");
+		}
+	}
+
+	/**
+	 * @param rowCacheSize number of rows to keep in memory
+	 * @return the xlsx file opened with the streaming reader
+	 */
+	private Workbook openXlsx(int rowCacheSize) {
+		try {
+			return StreamingReader.builder()
+					.rowCacheSize(rowCacheSize) // number of rows to keep in memory (defaults to 10)
+					.bufferSize(4096) //buffer size to use when reading InputStream to file(defaults to 1024)
+					.open(file); // InputStream or File for XLSX file(required)
+		} catch (OpenException ex) {
+			//SDMXCONV-874
+			throw new SdmxInternalServerException("ExcelDataReaderEngine could not open/read workbook." + ex.getCause());
+		}
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder hex = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			hex.append(Character.forDigit(b >> 4 & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return hex.toString();
+	}
+
+	private static void deleteFile(File file) {
+		if (!file.delete() && file.exists()) {
+			logger.warn("could not delete the temporary excel file {}", file);
+		}
+	}
+
+	/**
+	 * Passes the errors on and counts them, to know if a parsed sheet may be kept for the next files.
+	 */
+	private static final class ErrorCountingExceptionHandler implements ExceptionHandler {
+
+		private final ExceptionHandler delegate;
+		private int errors;
+
+		ErrorCountingExceptionHandler(ExceptionHandler delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void handleException(Exception exception) {
+			errors++;
+			delegate.handleException(exception);
+		}
+
+		int getErrors() {
+			return errors;
+		}
+	}
+}
@@ -0,0 +1,213 @@
+package com.intrasoft.sdmx.converter.io.data.excel;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.poi.hssf.eventusermodel.HSSFListener;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BlankRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.MulBlankRecord;
+import org.apache.poi.hssf.record.MulRKRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.RKRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.RecordFactoryInputStream;
+import org.apache.poi.hssf.record.StringRecord;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Rows of a sheet of an xls file read from its records with the HSSF event model.
+ * <p>The records of the sheet are pulled one at a time and passed to the listener, which builds the rows as their
+ * cells arrive. Only the row being built is held, the rows are handed over in the order of the file.
+ * The rows without cells are left out, like the ones of the iterator of a streamed xlsx sheet.</p>
+ *
+ * @see XlsStreamingWorkbook
+ */
+final class XlsEventRowIterator implements Iterator<Row>, HSSFListener, Closeable {
+
+	private static Logger logger = LogManager.getLogger(XlsEventRowIterator.class);
+
+	private final XlsStreamingWorkbook workbook;
+	private final Sheet sheet;
+	private final InputStream stream;
+	private final RecordFactoryInputStream records;
+
+	private final ArrayDeque<Row> readyRows = new ArrayDeque<>();
+	private XlsStreamingRow currentRow;
+	/** the formula cell waiting for its string result */
+	private XlsStreamingCell stringFormulaCell;
+	private int depth;
+	private boolean ended;
+
+	/**
+	 * @param stream the workbook stream, positioned at the beginning of the sheet
+	 */
+	XlsEventRowIterator(XlsStreamingWorkbook workbook, Sheet sheet, InputStream stream) {
+		this.workbook = workbook;
+		this.sheet = sheet;
+		this.stream = stream;
+		this.records = new RecordFactoryInputStream(stream, false);
+	}
+
+	@Override
+	public boolean hasNext() {
+		while (readyRows.isEmpty() && !ended) {
+			Record record = records.nextRecord();
+			if (record == null) {
+				end();
+			} else {
+				processRecord(record);
+			}
+		}
+		return !readyRows.isEmpty();
+	}
+
+	@Override
+	public Row next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return readyRows.poll();
+	}
+
+	@Override
+	public void processRecord(Record record) {
+		switch (record.getSid()) {
+			case BOFRecord.sid:
+				depth++;
+				return;
+			case EOFRecord.sid:
+				depth--;
+				if (depth == 0) {
+					end();
+				}
+				return;
+			default:
+				break;
+		}
+		// the records of the charts embedded in the sheet are skipped
+		if (depth != 1) {
+			return;
+		}
+		switch (record.getSid()) {
+			case NumberRecord.sid:
+				NumberRecord number = (NumberRecord) record;
+				addCell(number.getRow(), number.getColumn(), number.getXFIndex()).setNumber(number.getValue());
+				break;
+			case RKRecord.sid:
+				RKRecord rk = (RKRecord) record;
+				addCell(rk.getRow(), rk.getColumn(), rk.getXFIndex()).setNumber(rk.getRKNumber());
+				break;
+			case MulRKRecord.sid:
+				MulRKRecord mulRk = (MulRKRecord) record;
+				for (int i = 0; i < mulRk.getNumColumns(); i++) {
+					addCell(mulRk.getRow(), mulRk.getFirstColumn() + i, mulRk.getXFAt(i)).setNumber(mulRk.getRKNumberAt(i));
+				}
+				break;
+			case LabelSSTRecord.sid:
+				LabelSSTRecord labelSst = (LabelSSTRecord) record;
+				addCell(labelSst.getRow(), labelSst.getColumn(), labelSst.getXFIndex())
+						.setString(workbook.getSharedString(labelSst.getSSTIndex()));
+				break;
+			case LabelRecord.sid:
+				LabelRecord label = (LabelRecord) record;
+				addCell(label.getRow(), label.getColumn(), label.getXFIndex()).setString(label.getValue());
+				break;
+			case BoolErrRecord.sid:
+				BoolErrRecord boolErr = (BoolErrRecord) record;
+				XlsStreamingCell boolErrCell = addCell(boolErr.getRow(), boolErr.getColumn(), boolErr.getXFIndex());
+				if (boolErr.isBoolean()) {
+					boolErrCell.setBoolean(boolErr.getBooleanValue());
+				} else {
+					boolErrCell.setError(boolErr.getErrorValue());
+				}
+				break;
+			case BlankRecord.sid:
+				BlankRecord blank = (BlankRecord) record;
+				addCell(blank.getRow(), blank.getColumn(), blank.getXFIndex());
+				break;
+			case MulBlankRecord.sid:
+				MulBlankRecord mulBlank = (MulBlankRecord) record;
+				for (int i = 0; i < mulBlank.getNumColumns(); i++) {
+					addCell(mulBlank.getRow(), mulBlank.getFirstColumn() + i, mulBlank.getXFAt(i));
+				}
+				break;
+			case FormulaRecord.sid:
+				addFormula((FormulaRecord) record);
+				break;
+			case StringRecord.sid:
+				if (stringFormulaCell != null) {
+					stringFormulaCell.setString(((StringRecord) record).getString());
+					stringFormulaCell = null;
+				}
+				break;
+			default:
+				break;
+		}
+	}
+
+	private void addFormula(FormulaRecord formula) {
+		CellType cachedType = CellType.forInt(formula.getCachedResultType());
+		XlsStreamingCell cell = addCell(formula.getRow(), formula.getColumn(), formula.getXFIndex());
+		cell.setFormula(formula.getParsedExpression(), cachedType);
+		switch (cachedType) {
+			case NUMERIC:
+				cell.setNumber(formula.getValue());
+				break;
+			case BOOLEAN:
+				cell.setBoolean(formula.getCachedBooleanValue());
+				break;
+			case ERROR:
+				cell.setError((byte) formula.getCachedErrorValue());
+				break;
+			case STRING:
+				// the result follows in a string record
+				cell.setString("");
+				stringFormulaCell = cell;
+				break;
+			default:
+				break;
+		}
+	}
+
+	private XlsStreamingCell addCell(int row, int column, short xfIndex) {
+		if (currentRow == null || currentRow.getRowNum() != row) {
+			if (currentRow != null) {
+				readyRows.add(currentRow);
+			}
+			currentRow = new XlsStreamingRow(workbook, sheet, row);
+		}
+		return currentRow.addCell(column, xfIndex);
+	}
+
+	private void end() {
+		if (currentRow != null) {
+			readyRows.add(currentRow);
+			currentRow = null;
+		}
+		ended = true;
+		close();
+	}
+
+	@Override
+	public void close() {
+		try {
+			stream.close();
+		} catch (IOException e) {
+			logger.warn("could not close the stream of the xls sheet {}", sheet.getSheetName(), e);
+		}
+	}
+}
@@ -0,0 +1,340 @@
+package com.intrasoft.sdmx.converter.io.data.excel;
+
+import org.apache.poi.hssf.model.HSSFFormulaParser;
+import org.apache.poi.hssf.usermodel.HSSFRichTextString;
+import org.apache.poi.ss.formula.ptg.Ptg;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Comment;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Hyperlink;
+import org.apache.poi.ss.usermodel.RichTextString;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellAddress;
+import org.apache.poi.ss.util.CellRangeAddress;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * Read only cell of a sheet of an xls file streamed by {@link XlsEventRowIterator}.
+ * <p>The value is the one of the cell record, for a formula the cached result. The style is the one of the workbook.
+ * The methods without {@link Override} are not in every version of the interface.</p>
+ */
+final class XlsStreamingCell implements Cell {
+
+	private final XlsStreamingRow row;
+	private final int column;
+	private final short xfIndex;
+
+	private CellType type = CellType.BLANK;
+	/** the type of the result of a formula */
+	private CellType cachedType;
+	private Ptg[] formula;
+
+	private double number;
+	private String string;
+	private boolean bool;
+	private byte error;
+
+	XlsStreamingCell(XlsStreamingRow row, int column, short xfIndex) {
+		this.row = row;
+		this.column = column;
+		this.xfIndex = xfIndex;
+	}
+
+	void setNumber(double number) {
+		setValueType(CellType.NUMERIC);
+		this.number = number;
+	}
+
+	void setString(String string) {
+		setValueType(CellType.STRING);
+		this.string = string;
+	}
+
+	void setBoolean(boolean bool) {
+		setValueType(CellType.BOOLEAN);
+		this.bool = bool;
+	}
+
+	void setError(byte error) {
+		setValueType(CellType.ERROR);
+		this.error = error;
+	}
+
+	/**
+	 * makes the cell a formula, its cached result is set after
+	 */
+	void setFormula(Ptg[] formula, CellType cachedType) {
+		this.type = CellType.FORMULA;
+		this.formula = formula;
+		this.cachedType = cachedType;
+	}
+
+	private void setValueType(CellType valueType) {
+		if (type == CellType.FORMULA) {
+			cachedType = valueType;
+		} else {
+			type = valueType;
+		}
+	}
+
+	/**
+	 * @return the type of the value, the cached result type for a formula
+	 */
+	private CellType getValueType() {
+		return type == CellType.FORMULA ? cachedType : type;
+	}
+
+	@Override
+	public int getColumnIndex() {
+		return column;
+	}
+
+	@Override
+	public int getRowIndex() {
+		return row.getRowNum();
+	}
+
+	@Override
+	public Sheet getSheet() {
+		return row.getSheet();
+	}
+
+	@Override
+	public Row getRow() {
+		return row;
+	}
+
+	@Override
+	public CellType getCellType() {
+		return type;
+	}
+
+	public CellType getCellTypeEnum() {
+		return getCellType();
+	}
+
+	@Override
+	public CellType getCachedFormulaResultType() {
+		if (type != CellType.FORMULA) {
+			throw new IllegalStateException("Only formula cells have cached results");
+		}
+		return cachedType;
+	}
+
+	public CellType getCachedFormulaResultTypeEnum() {
+		return getCachedFormulaResultType();
+	}
+
+	@Override
+	public String getCellFormula() {
+		if (type != CellType.FORMULA) {
+			throw typeMismatch(CellType.FORMULA);
+		}
+		return HSSFFormulaParser.toFormulaString(row.getWorkbook(), formula);
+	}
+
+	@Override
+	public double getNumericCellValue() {
+		switch (getValueType()) {
+			case BLANK:
+				return 0.0;
+			case NUMERIC:
+				return number;
+			default:
+				throw typeMismatch(CellType.NUMERIC);
+		}
+	}
+
+	@Override
+	public Date getDateCellValue() {
+		if (type == CellType.BLANK) {
+			return null;
+		}
+		return DateUtil.getJavaDate(getNumericCellValue(), row.getWorkbook().isDate1904());
+	}
+
+	public LocalDateTime getLocalDateTimeCellValue() {
+		Date date = getDateCellValue();
+		return date == null ? null : LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
+	}
+
+	@Override
+	public RichTextString getRichStringCellValue() {
+		return new HSSFRichTextString(getStringCellValue());
+	}
+
+	@Override
+	public String getStringCellValue() {
+		switch (getValueType()) {
+			case BLANK:
+				return "";
+			case STRING:
+				return string;
+			default:
+				throw typeMismatch(CellType.STRING);
+		}
+	}
+
+	@Override
+	public boolean getBooleanCellValue() {
+		switch (getValueType()) {
+			case BLANK:
+				return false;
+			case BOOLEAN:
+				return bool;
+			default:
+				throw typeMismatch(CellType.BOOLEAN);
+		}
+	}
+
+	@Override
+	public byte getErrorCellValue() {
+		if (getValueType() != CellType.ERROR) {
+			throw typeMismatch(CellType.ERROR);
+		}
+		return error;
+	}
+
+	@Override
+	public CellStyle getCellStyle() {
+		return row.getWorkbook().getCellStyleAt(xfIndex);
+	}
+
+	@Override
+	public CellAddress getAddress() {
+		return new CellAddress(this);
+	}
+
+	@Override
+	public Comment getCellComment() {
+		return null;
+	}
+
+	@Override
+	public Hyperlink getHyperlink() {
+		return null;
+	}
+
+	@Override
+	public CellRangeAddress getArrayFormulaRange() {
+		throw new IllegalStateException("Cell " + getAddress() + " is not part of an array formula.");
+	}
+
+	@Override
+	public boolean isPartOfArrayFormulaGroup() {
+		return false;
+	}
+
+	@Override
+	public void setCellType(CellType cellType) {
+		throw readOnly();
+	}
+
+	public void setBlank() {
+		throw readOnly();
+	}
+
+	@Override
+	public void setCellValue(double value) {
+		throw readOnly();
+	}
+
+	@Override
+	public void setCellValue(Date value) {
+		throw readOnly();
+	}
+
+	public void setCellValue(LocalDateTime value) {
+		throw readOnly();
+	}
+
+	public void setCellValue(LocalDate value) {
+		throw readOnly();
+	}
+
+	@Override
+	public void setCellValue(Calendar value) {
+		throw readOnly();
+	}
+
+	@Override
+	public void setCellValue(RichTextString value) {
+		throw readOnly();
+	}
+
+	@Override
+	public void setCellValue(String value) {
+		throw readOnly();
+	}
+
+	@Override
+	public void setCellValue(boolean value) {
+		throw readOnly();
+	}
+
+	@Override
+	public void setCellFormula(String formula) {
+		throw readOnly();
+	}
+
+	public void removeFormula() {
+		throw readOnly();
+	}
+
+	@Override
+	public void setCellErrorValue(byte value) {
+		throw readOnly();
+	}
+
+	@Override
+	public void setCellStyle(CellStyle style) {
+		throw readOnly();
+	}
+
+	@Override
+	public void setAsActiveCell() {
+		throw readOnly();
+	}
+
+	@Override
+	public void setCellComment(Comment comment) {
+		throw readOnly();
+	}
+
+	@Override
+	public void removeCellComment() {
+		throw readOnly();
+	}
+
+	@Override
+	public void setHyperlink(Hyperlink link) {
+		throw readOnly();
+	}
+
+	@Override
+	public void removeHyperlink() {
+		throw readOnly();
+	}
+
+	private IllegalStateException typeMismatch(CellType expected) {
+		String actual = type == CellType.FORMULA ? cachedType + " formula" : String.valueOf(type);
+		return new IllegalStateException("Cannot get a " + expected + " value from a " + actual + " cell");
+	}
+
+	private static UnsupportedOperationException readOnly() {
+		return new UnsupportedOperationException("The cells of a streamed xls sheet are read only");
+	}
+
+	@Override
+	public String toString() {
+		return getAddress() + ":" + type;
+	}
+}
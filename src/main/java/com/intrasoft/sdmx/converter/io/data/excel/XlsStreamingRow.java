@@ -0,0 +1,178 @@
+package com.intrasoft.sdmx.converter.io.data.excel;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.TreeMap;
+
+/**
+ * Read only row of a sheet of an xls file streamed by {@link XlsEventRowIterator}.
+ * <p>The methods without {@link Override} are not in every version of the interface.</p>
+ */
+final class XlsStreamingRow implements Row {
+
+	private final XlsStreamingWorkbook workbook;
+	private final Sheet sheet;
+	private final int rowNum;
+
+	/**
+	 * map (colIndex, cell) sorted by column index
+	 */
+	private final TreeMap<Integer, Cell> cells = new TreeMap<>();
+
+	XlsStreamingRow(XlsStreamingWorkbook workbook, Sheet sheet, int rowNum) {
+		this.workbook = workbook;
+		this.sheet = sheet;
+		this.rowNum = rowNum;
+	}
+
+	XlsStreamingWorkbook getWorkbook() {
+		return workbook;
+	}
+
+	XlsStreamingCell addCell(int column, short xfIndex) {
+		XlsStreamingCell cell = new XlsStreamingCell(this, column, xfIndex);
+		cells.put(column, cell);
+		return cell;
+	}
+
+	@Override
+	public int getRowNum() {
+		return rowNum;
+	}
+
+	@Override
+	public Sheet getSheet() {
+		return sheet;
+	}
+
+	@Override
+	public Cell getCell(int cellnum) {
+		return cells.get(cellnum);
+	}
+
+	@Override
+	public Cell getCell(int cellnum, MissingCellPolicy policy) {
+		Cell cell = cells.get(cellnum);
+		switch (policy) {
+			case RETURN_BLANK_AS_NULL:
+				return cell == null || cell.getCellType() == CellType.BLANK ? null : cell;
+			case CREATE_NULL_AS_BLANK:
+				return cell == null ? new XlsStreamingCell(this, cellnum, (short) 0x0F) : cell;
+			default:
+				return cell;
+		}
+	}
+
+	@Override
+	public short getFirstCellNum() {
+		return cells.isEmpty() ? -1 : cells.firstKey().shortValue();
+	}
+
+	@Override
+	public short getLastCellNum() {
+		return cells.isEmpty() ? -1 : (short) (cells.lastKey() + 1);
+	}
+
+	@Override
+	public int getPhysicalNumberOfCells() {
+		return cells.size();
+	}
+
+	@Override
+	public Iterator<Cell> cellIterator() {
+		return Collections.unmodifiableCollection(cells.values()).iterator();
+	}
+
+	@Override
+	public Iterator<Cell> iterator() {
+		return cellIterator();
+	}
+
+	@Override
+	public short getHeight() {
+		return sheet.getDefaultRowHeight();
+	}
+
+	@Override
+	public float getHeightInPoints() {
+		return sheet.getDefaultRowHeightInPoints();
+	}
+
+	@Override
+	public boolean getZeroHeight() {
+		return false;
+	}
+
+	@Override
+	public boolean isFormatted() {
+		return false;
+	}
+
+	@Override
+	public CellStyle getRowStyle() {
+		return null;
+	}
+
+	@Override
+	public int getOutlineLevel() {
+		return 0;
+	}
+
+	@Override
+	public Cell createCell(int column) {
+		throw readOnly();
+	}
+
+	@Override
+	public Cell createCell(int column, CellType type) {
+		throw readOnly();
+	}
+
+	@Override
+	public void removeCell(Cell cell) {
+		throw readOnly();
+	}
+
+	@Override
+	public void setRowNum(int rowNum) {
+		throw readOnly();
+	}
+
+	@Override
+	public void setHeight(short height) {
+		throw readOnly();
+	}
+
+	@Override
+	public void setZeroHeight(boolean zHeight) {
+		throw readOnly();
+	}
+
+	@Override
+	public void setHeightInPoints(float height) {
+		throw readOnly();
+	}
+
+	@Override
+	public void setRowStyle(CellStyle style) {
+		throw readOnly();
+	}
+
+	public void shiftCellsRight(int firstShiftColumnIndex, int lastShiftColumnIndex, int step) {
+		throw readOnly();
+	}
+
+	public void shiftCellsLeft(int firstShiftColumnIndex, int lastShiftColumnIndex, int step) {
+		throw readOnly();
+	}
+
+	private static UnsupportedOperationException readOnly() {
+		return new UnsupportedOperationException("The rows of a streamed xls sheet are read only");
+	}
+}
@@ -0,0 +1,463 @@
+package com.intrasoft.sdmx.converter.io.data.excel;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.poi.hssf.usermodel.HSSFCell;
+import org.apache.poi.hssf.usermodel.HSSFRow;
+import org.apache.poi.hssf.usermodel.HSSFSheet;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * <h2>Workbook of an xls file whose large sheets are streamed</h2>
+ * <p>Reading an xls file with {@link WorkbookFactory} builds every cell of every sheet in memory, which takes many
+ * times the size of the file. This workbook holds the records of the workbook and of the small sheets only,
+ * the cell records of the sheets with more than a number of cells are left out and read again from the file when
+ * needed:</p>
+ * <ul>
+ *     <li>{@link #rowIterator(Sheet)} streams the rows of such a sheet with the HSSF event model,
+ *     holding one row at a time. This is how the data sheets are read.</li>
+ *     <li>{@link #getSheetAt(int)} and {@link #getSheet(String)} load the cells of such a sheet the first time they
+ *     return it, so that the sheet is the same as the one of an {@link HSSFWorkbook}.
+ *     The formulas keep only their cached values.</li>
+ * </ul>
+ * <p>The file is spooled to a temporary file, deleted by {@link #close()}.</p>
+ */
+public class XlsStreamingWorkbook extends HSSFWorkbook {
+
+	private static Logger logger = LogManager.getLogger(XlsStreamingWorkbook.class);
+
+	/**
+	 * the sheets with more cells than this are streamed
+	 */
+	public static final int DEFAULT_STREAMED_CELLS = 10000;
+
+	private static final String[] WORKBOOK_ENTRY_NAMES = {"Workbook", "WORKBOOK", "BOOK", "Book"};
+
+	private static final int BOF = 0x0809;
+	private static final int EOF = 0x000A;
+	private static final int FILEPASS = 0x002F;
+	private static final int CONTINUE = 0x003C;
+
+	/** the records of the cells, counted to decide if a sheet is streamed */
+	private static final int[] CELL_RECORDS = {
+			0x0006, // FORMULA
+			0x00BD, // MULRK
+			0x00BE, // MULBLANK
+			0x00D6, // RSTRING
+			0x00FD, // LABELSST
+			0x0201, // BLANK
+			0x0203, // NUMBER
+			0x0204, // LABEL
+			0x0205, // BOOLERR
+			0x027E, // RK
+	};
+
+	/** the other records of the rows, left out of a streamed sheet with the cells */
+	private static final int[] ROW_RECORDS = {
+			0x00D7, // DBCELL
+			0x0207, // STRING
+			0x0208, // ROW
+			0x0221, // ARRAY
+			0x0236, // TABLE
+			0x04BC, // SHRFMLA
+	};
+
+	private final File file;
+	private final POIFSFileSystem source;
+	private final String entryName;
+	/** the offset of the beginning of each sheet in the workbook stream, by sheet index */
+	private final long[] sheetOffsets;
+	/** the sheets whose cells are not loaded, by sheet index */
+	private final BitSet streamedSheets;
+	private Boolean date1904;
+
+	private XlsStreamingWorkbook(POIFSFileSystem skeleton, File file, POIFSFileSystem source, String entryName,
+								 long[] sheetOffsets, BitSet streamedSheets) throws IOException {
+		super(skeleton);
+		this.file = file;
+		this.source = source;
+		this.entryName = entryName;
+		this.sheetOffsets = sheetOffsets;
+		this.streamedSheets = streamedSheets;
+	}
+
+	/**
+	 * Opens an xls file, streaming the sheets with more than {@link #DEFAULT_STREAMED_CELLS} cells.
+	 *
+	 * @param inputStream the xls file, it is read to the end but not closed
+	 * @return the workbook, a full {@link HSSFWorkbook} for an encrypted file
+	 */
+	public static Workbook open(InputStream inputStream) throws IOException {
+		return open(inputStream, DEFAULT_STREAMED_CELLS);
+	}
+
+	/**
+	 * @param inputStream   the xls file, it is read to the end but not closed
+	 * @param streamedCells the sheets with more cells than this are streamed
+	 * @return the workbook, a full {@link HSSFWorkbook} for an encrypted file
+	 */
+	public static Workbook open(InputStream inputStream, int streamedCells) throws IOException {
+		File file = File.createTempFile("xlsInput", ".xls");
+		file.deleteOnExit();
+		POIFSFileSystem source = null;
+		try {
+			Files.copy(inputStream, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			source = new POIFSFileSystem(file, true);
+			String entryName = findWorkbookEntry(source);
+			SheetScan scan = entryName != null ? scan(source, entryName) : null;
+			if (scan == null || scan.encrypted) {
+				// the records of an encrypted file cannot be filtered
+				source.close();
+				source = null;
+				try (InputStream in = new FileInputStream(file)) {
+					return WorkbookFactory.create(in);
+				} finally {
+					deleteFile(file);
+				}
+			}
+			BitSet streamedSheets = new BitSet();
+			for (int i = 0; i < scan.cellCounts.size(); i++) {
+				if (scan.cellCounts.get(i) > streamedCells) {
+					streamedSheets.set(i);
+				}
+			}
+			POIFSFileSystem skeleton = new POIFSFileSystem();
+			skeleton.createDocument(new ByteArrayInputStream(filter(source, entryName, streamedSheets)), entryName);
+			logger.info("xls workbook with {} sheets, the sheets {} are streamed", scan.cellCounts.size(), streamedSheets);
+			return new XlsStreamingWorkbook(skeleton, file, source, entryName, scan.sheetOffsets(), streamedSheets);
+		} catch (IOException | RuntimeException e) {
+			if (source != null) {
+				source.close();
+			}
+			deleteFile(file);
+			throw e;
+		}
+	}
+
+	/**
+	 * @return the sheet, without loading its cells when it is streamed
+	 */
+	public HSSFSheet getStreamedSheetAt(int index) {
+		return super.getSheetAt(index);
+	}
+
+	/**
+	 * @return true when the cells of the sheet are not loaded, its rows are read by {@link #rowIterator(Sheet)}
+	 */
+	public boolean isStreamed(Sheet sheet) {
+		int index = getSheetIndex(sheet);
+		return index >= 0 && streamedSheets.get(index);
+	}
+
+	/**
+	 * @return the rows of the sheet, read from the file when the sheet is streamed
+	 */
+	public Iterator<Row> rowIterator(Sheet sheet) {
+		int index = getSheetIndex(sheet);
+		if (index < 0 || !streamedSheets.get(index)) {
+			return sheet.iterator();
+		}
+		try {
+			return new XlsEventRowIterator(this, sheet, openSheet(index));
+		} catch (IOException e) {
+			throw new IllegalStateException("could not read the xls sheet " + sheet.getSheetName(), e);
+		}
+	}
+
+	@Override
+	public HSSFSheet getSheetAt(int index) {
+		HSSFSheet sheet = super.getSheetAt(index);
+		// the super constructor may look up the sheets before the fields are set
+		if (streamedSheets != null && streamedSheets.get(index)) {
+			load(sheet);
+			streamedSheets.clear(index);
+		}
+		return sheet;
+	}
+
+	@Override
+	public HSSFSheet getSheet(String name) {
+		int index = getSheetIndex(name);
+		return index < 0 ? null : getSheetAt(index);
+	}
+
+	@Override
+	public Iterator<Sheet> sheetIterator() {
+		return new Iterator<Sheet>() {
+			private int next = 0;
+
+			@Override
+			public boolean hasNext() {
+				return next < getNumberOfSheets();
+			}
+
+			@Override
+			public Sheet next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return getSheetAt(next++);
+			}
+		};
+	}
+
+	@Override
+	public void write(OutputStream stream) throws IOException {
+		for (int i = 0; i < getNumberOfSheets(); i++) {
+			getSheetAt(i);
+		}
+		super.write(stream);
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			super.close();
+		} finally {
+			try {
+				source.close();
+			} finally {
+				deleteFile(file);
+			}
+		}
+	}
+
+	boolean isDate1904() {
+		if (date1904 == null) {
+			date1904 = getInternalWorkbook().isUsing1904DateWindowing();
+		}
+		return date1904;
+	}
+
+	String getSharedString(int index) {
+		return getInternalWorkbook().getSSTString(index).getString();
+	}
+
+	/**
+	 * loads the cells of a streamed sheet in the sheet, the formulas as their cached value
+	 */
+	private void load(HSSFSheet sheet) {
+		logger.debug("loading the cells of the xls sheet {}", sheet.getSheetName());
+		XlsEventRowIterator rows;
+		try {
+			rows = new XlsEventRowIterator(this, sheet, openSheet(getSheetIndex(sheet)));
+		} catch (IOException e) {
+			throw new IllegalStateException("could not read the xls sheet " + sheet.getSheetName(), e);
+		}
+		try {
+			while (rows.hasNext()) {
+				Row streamedRow = rows.next();
+				HSSFRow row = sheet.createRow(streamedRow.getRowNum());
+				for (Cell streamedCell : streamedRow) {
+					HSSFCell cell = row.createCell(streamedCell.getColumnIndex());
+					cell.setCellStyle(streamedCell.getCellStyle());
+					CellType type = streamedCell.getCellType() == CellType.FORMULA
+							? streamedCell.getCachedFormulaResultType() : streamedCell.getCellType();
+					switch (type) {
+						case NUMERIC:
+							cell.setCellValue(streamedCell.getNumericCellValue());
+							break;
+						case STRING:
+							cell.setCellValue(streamedCell.getStringCellValue());
+							break;
+						case BOOLEAN:
+							cell.setCellValue(streamedCell.getBooleanCellValue());
+							break;
+						case ERROR:
+							cell.setCellErrorValue(streamedCell.getErrorCellValue());
+							break;
+						default:
+							break;
+					}
+				}
+			}
+		} finally {
+			rows.close();
+		}
+	}
+
+	private InputStream openSheet(int index) throws IOException {
+		InputStream in = source.createDocumentInputStream(entryName);
+		long remaining = sheetOffsets[index];
+		while (remaining > 0) {
+			long skipped = in.skip(remaining);
+			if (skipped <= 0) {
+				in.close();
+				throw new EOFException("the xls sheet " + index + " starts after the end of the workbook stream");
+			}
+			remaining -= skipped;
+		}
+		return in;
+	}
+
+	private static String findWorkbookEntry(POIFSFileSystem fs) {
+		for (String name : WORKBOOK_ENTRY_NAMES) {
+			if (fs.getRoot().hasEntry(name)) {
+				return name;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * the sheets of the workbook stream and their number of cells
+	 */
+	private static final class SheetScan {
+		private final List<Long> offsets = new ArrayList<>();
+		private final List<Integer> cellCounts = new ArrayList<>();
+		private boolean encrypted;
+
+		long[] sheetOffsets() {
+			long[] result = new long[offsets.size()];
+			for (int i = 0; i < result.length; i++) {
+				result[i] = offsets.get(i);
+			}
+			return result;
+		}
+	}
+
+	private static SheetScan scan(POIFSFileSystem source, String entryName) throws IOException {
+		SheetScan scan = new SheetScan();
+		try (RawRecords records = new RawRecords(source.createDocumentInputStream(entryName))) {
+			int depth = 0;
+			boolean globals = true;
+			while (records.next()) {
+				if (records.sid == BOF) {
+					if (depth == 0 && !globals) {
+						scan.offsets.add(records.offset);
+						scan.cellCounts.add(0);
+					}
+					depth++;
+				} else if (records.sid == EOF) {
+					depth--;
+					if (depth == 0) {
+						globals = false;
+					}
+				} else if (globals && records.sid == FILEPASS) {
+					scan.encrypted = true;
+					return scan;
+				} else if (depth == 1 && !globals && isOneOf(records.sid, CELL_RECORDS)) {
+					int last = scan.cellCounts.size() - 1;
+					scan.cellCounts.set(last, scan.cellCounts.get(last) + 1);
+				}
+			}
+		}
+		return scan;
+	}
+
+	/**
+	 * @return the workbook stream without the records of the cells of the streamed sheets
+	 */
+	private static byte[] filter(POIFSFileSystem source, String entryName, BitSet streamedSheets) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (RawRecords records = new RawRecords(source.createDocumentInputStream(entryName))) {
+			int depth = 0;
+			int sheet = -1;
+			boolean leftOut = false;
+			while (records.next()) {
+				if (records.sid == BOF && depth++ == 0) {
+					sheet++;
+				} else if (records.sid == EOF) {
+					depth--;
+				}
+				// the sheet 0 is the workbook globals
+				boolean streamed = depth == 1 && sheet > 0 && streamedSheets.get(sheet - 1);
+				if (streamed && (isOneOf(records.sid, CELL_RECORDS) || isOneOf(records.sid, ROW_RECORDS)
+						|| (records.sid == CONTINUE && leftOut))) {
+					leftOut = true;
+					continue;
+				}
+				leftOut = false;
+				records.copyTo(out);
+			}
+		}
+		return out.toByteArray();
+	}
+
+	private static boolean isOneOf(int sid, int[] sids) {
+		for (int candidate : sids) {
+			if (candidate == sid) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static void deleteFile(File file) {
+		if (!file.delete()) {
+			logger.warn("could not delete the temporary xls file {}", file);
+		}
+	}
+
+	/**
+	 * The records of a workbook stream, without decoding them: a little endian id and size, then the data
+	 */
+	private static final class RawRecords implements AutoCloseable {
+		private final DataInputStream in;
+		/** the offset of the current record */
+		private long offset;
+		private long nextOffset;
+		private int sid;
+		private byte[] data;
+
+		RawRecords(InputStream in) {
+			this.in = new DataInputStream(new BufferedInputStream(in));
+		}
+
+		boolean next() throws IOException {
+			int low = in.read();
+			if (low < 0) {
+				return false;
+			}
+			int high = in.read();
+			if (high < 0) {
+				return false;
+			}
+			sid = low | high << 8;
+			int size = in.readUnsignedByte() | in.readUnsignedByte() << 8;
+			data = new byte[size];
+			in.readFully(data);
+			offset = nextOffset;
+			nextOffset += 4 + size;
+			return true;
+		}
+
+		void copyTo(OutputStream out) throws IOException {
+			out.write(sid & 0xFF);
+			out.write(sid >> 8 & 0xFF);
+			out.write(data.length & 0xFF);
+			out.write(data.length >> 8 & 0xFF);
+			out.write(data);
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+	}
+}
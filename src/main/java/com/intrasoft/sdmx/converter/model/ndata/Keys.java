@@ -22,6 +22,13 @@ public class Keys {
 		return keyList;
 	}
 	
+	/**
+	 * @return a read only view of the key names and values
+	 */
+	public Map<String, String> getKeysWithValues(){
+		return Collections.unmodifiableMap(keysWithValues);
+	}
+
 	public String getKeyValue(String attrName){
 		return keysWithValues.get(attrName); 
 	}
@@ -0,0 +1,241 @@
+package com.intrasoft.sdmx.converter.sdmxsource;
+
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.client.CredentialsProvider;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.routing.HttpRoutePlanner;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.LayeredConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.DefaultProxyRoutePlanner;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.sdmxsource.sdmx.api.constants.SDMX_ERROR_CODE;
+import org.sdmxsource.sdmx.api.exception.SdmxException;
+import org.sdmxsource.sdmx.api.factory.ProxySettings;
+import org.sdmxsource.util.factory.CertificatesHandler;
+
+import javax.xml.soap.SOAPException;
+import javax.xml.soap.SOAPMessage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h2>The http clients of the registries</h2>
+ * <p>The soap and rest retrievals used to build a new http client for each request, so every request opened a new
+ * connection and, for https, did a new handshake. The clients are built here once for each proxy and certificates
+ * settings and shared by all the requests. Each client has a pool of connections kept alive between the requests and
+ * asks for gzip responses, which it inflates while they are read.</p>
+ * <p>The clients are shared and must not be closed, the responses must be closed or fully read so that their
+ * connection goes back to the pool.</p>
+ *
+ * @see SoapSdmxBeanRetrievalManager
+ * @see RestSdmxBeanRetrievalManager
+ */
+public final class HttpTransport {
+
+	private static Logger logger = LogManager.getLogger(HttpTransport.class);
+
+	private static final int TIMEOUT_MILLIS = 100 * 1200; // 120s
+	private static final int MAX_CONNECTIONS = 40;
+	private static final int MAX_CONNECTIONS_PER_ROUTE = 10;
+	private static final long IDLE_SECONDS = 30;
+
+	/** map (settings of the client, client) */
+	private static final Map<String, CloseableHttpClient> CLIENTS = new ConcurrentHashMap<>();
+
+	private HttpTransport() {
+	}
+
+	/**
+	 * @param url         the url to connect to, the certificates are loaded only for https
+	 * @param proxySet    the proxy, null to connect directly
+	 * @param jksPath     the certificates, null for the default ones
+	 * @param jksPassword the password of the certificates
+	 * @return the client shared by the requests with the same settings, not to be closed
+	 */
+	public static CloseableHttpClient getClient(URL url, ProxySettings proxySet, String jksPath, String jksPassword) {
+		boolean secure = "https".equalsIgnoreCase(url.getProtocol());
+		StringBuilder key = new StringBuilder().append(secure);
+		if (secure) {
+			key.append('|').append(jksPath).append('|').append(jksPassword);
+		}
+		if (proxySet != null) {
+			key.append('|').append(proxySet.getHost()).append(':').append(proxySet.getPort())
+					.append('|').append(proxySet.getUsername()).append('|').append(proxySet.getPassword())
+					.append('|').append(proxySet.getExclusions());
+		}
+		return CLIENTS.computeIfAbsent(key.toString(), k -> createClient(secure, proxySet, jksPath, jksPassword));
+	}
+
+	/**
+	 * Throws the errors of the registries like the soap retrievals always did.
+	 *
+	 * @throws SdmxException for the error status codes
+	 */
+	public static void checkStatus(HttpResponse response, String url) {
+		int errorCode = response.getStatusLine().getStatusCode();
+		if (errorCode == 401 || errorCode == 407) {
+			logger.error("Please provide valid authentication credentials for the target resource." + " Response status: " + errorCode);
+			throw new SdmxException("Please provide valid authentication credentials for the target resource."
+					+ " Response status: " + errorCode, SDMX_ERROR_CODE.UNAUTHORISED);
+		} else if (errorCode >= 400) {
+			logger.error("Could not connect to URL: " + url + ". Response status: " + errorCode);
+			throw new SdmxException("Could not connect to URL: " + url + ". Response status: " + errorCode,
+					SDMX_ERROR_CODE.INTERNAL_SERVER_ERROR);
+		}
+	}
+
+	/**
+	 * @return the body of a request with its Content-Length, the message is written once to a buffer
+	 * @see #soapEntity(SOAPMessage, boolean)
+	 */
+	public static AbstractHttpEntity soapEntity(SOAPMessage message) throws IOException {
+		return soapEntity(message, false);
+	}
+
+	/**
+	 * <p>Some servers and proxies in front of the registries refuse requests without a Content-Length,
+	 * so a chunked body is only sent when asked for.</p>
+	 *
+	 * @param chunked true to write the message directly to the connection with a chunked transfer encoding
+	 * @return the body of a request
+	 */
+	public static AbstractHttpEntity soapEntity(SOAPMessage message, boolean chunked) throws IOException {
+		AbstractHttpEntity entity;
+		if (chunked) {
+			entity = new SoapMessageEntity(message);
+			entity.setChunked(true);
+		} else {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			try {
+				message.writeTo(out);
+			} catch (SOAPException e) {
+				throw new IOException("the soap message could not be written", e);
+			}
+			entity = new ByteArrayEntity(out.toByteArray());
+		}
+		entity.setContentType("text/xml; charset=UTF-8");
+		return entity;
+	}
+
+	private static CloseableHttpClient createClient(boolean secure, ProxySettings proxySet, String jksPath, String jksPassword) {
+		RegistryBuilder<ConnectionSocketFactory> socketFactories = RegistryBuilder.<ConnectionSocketFactory>create()
+				.register("http", PlainConnectionSocketFactory.getSocketFactory());
+		if (secure) {
+			// the default certificates when there is no jks
+			LayeredConnectionSocketFactory sslSocketFactory = CertificatesHandler.loadCertificates(jksPath, jksPassword);
+			socketFactories.register("https", sslSocketFactory);
+		} else {
+			socketFactories.register("https", SSLConnectionSocketFactory.getSocketFactory());
+		}
+		Registry<ConnectionSocketFactory> registry = socketFactories.build();
+		PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(registry);
+		connectionManager.setMaxTotal(MAX_CONNECTIONS);
+		connectionManager.setDefaultMaxPerRoute(MAX_CONNECTIONS_PER_ROUTE);
+		connectionManager.setValidateAfterInactivity(2000);
+
+		RequestConfig requestConfig = RequestConfig.custom()
+				.setConnectTimeout(TIMEOUT_MILLIS)
+				.setConnectionRequestTimeout(TIMEOUT_MILLIS)
+				.build();
+		HttpClientBuilder builder = HttpClients.custom()
+				.setConnectionManager(connectionManager)
+				.setDefaultRequestConfig(requestConfig)
+				.evictExpiredConnections()
+				.evictIdleConnections(IDLE_SECONDS, TimeUnit.SECONDS);
+		if (proxySet != null) {
+			HttpHost proxy = new HttpHost(proxySet.getHost(), proxySet.getPort());
+			final List<String> exclusions = proxySet.getExclusions() != null ? proxySet.getExclusions() : new ArrayList<>();
+			HttpRoutePlanner routePlanner = new DefaultProxyRoutePlanner(proxy) {
+				@Override
+				public HttpRoute determineRoute(final HttpHost host, final HttpRequest request, final HttpContext context)
+						throws HttpException {
+					String hostname = host.getHostName();
+					for (String hst : exclusions) {
+						if (hostname.equalsIgnoreCase(hst)) {
+							// Return direct route
+							return new HttpRoute(host, null, "https".equalsIgnoreCase(host.getSchemeName()));
+						}
+					}
+					return super.determineRoute(host, request, context);
+				}
+			};
+			CredentialsProvider credsProvider = new BasicCredentialsProvider();
+			credsProvider.setCredentials(new AuthScope(proxySet.getHost(), proxySet.getPort()),
+					new UsernamePasswordCredentials(proxySet.getUsername(), proxySet.getPassword()));
+			builder.setRoutePlanner(routePlanner).setDefaultCredentialsProvider(credsProvider);
+		}
+		logger.debug("pooled http client created, secure: {}, proxy: {}", secure, proxySet != null);
+		return builder.build();
+	}
+
+	/**
+	 * Writes the soap message to the connection each time the request is sent, instead of a copy of it in memory.
+	 */
+	private static final class SoapMessageEntity extends AbstractHttpEntity {
+
+		private final SOAPMessage message;
+
+		SoapMessageEntity(SOAPMessage message) {
+			this.message = message;
+		}
+
+		@Override
+		public boolean isRepeatable() {
+			return true;
+		}
+
+		@Override
+		public long getContentLength() {
+			return -1;
+		}
+
+		@Override
+		public InputStream getContent() throws IOException {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			writeTo(out);
+			return new ByteArrayInputStream(out.toByteArray());
+		}
+
+		@Override
+		public void writeTo(OutputStream outStream) throws IOException {
+			try {
+				message.writeTo(outStream);
+			} catch (SOAPException e) {
+				throw new IOException("the soap message could not be written", e);
+			}
+		}
+
+		@Override
+		public boolean isStreaming() {
+			return false;
+		}
+	}
+}
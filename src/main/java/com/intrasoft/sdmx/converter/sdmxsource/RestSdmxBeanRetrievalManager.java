@@ -27,11 +27,19 @@
  ******************************************************************************/
 package com.intrasoft.sdmx.converter.sdmxsource;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Set;
 import java.util.List;
 
+import com.intrasoft.sdmx.converter.services.ParsedStructureCache;
+import com.intrasoft.sdmx.converter.services.RegistryResponseCache;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.estat.sdmxsource.sdmx.structureparser.SdmxBeansSchemaDecorator;
@@ -41,7 +49,6 @@ import org.sdmxsource.sdmx.api.constants.STRUCTURE_QUERY_DETAIL;
 import org.sdmxsource.sdmx.api.constants.STRUCTURE_REFERENCE_DETAIL;
 import org.sdmxsource.sdmx.api.exception.SdmxException;
 import org.sdmxsource.sdmx.api.factory.ProxySettings;
-import org.sdmxsource.sdmx.api.factory.ReadableDataLocationByProxyFactory;
 import org.sdmxsource.sdmx.api.factory.ReadableDataLocationFactory;
 import org.sdmxsource.sdmx.api.manager.parse.StructureParsingManager;
 import org.sdmxsource.sdmx.api.model.ResolutionSettings.RESOLVE_CROSS_REFERENCES;
@@ -76,7 +83,7 @@ public class RestSdmxBeanRetrievalManager extends BaseSdmxBeanRetrievalManager {
 
 	private ReadableDataLocationFactory rdlFactory;
 
-	private ReadableDataLocationByProxyFactory rdlByProxyFactory;
+	private RegistryResponseCache responseCache;
 
 	public RestSdmxBeanRetrievalManager() {
 		super();
@@ -110,21 +117,15 @@ public class RestSdmxBeanRetrievalManager extends BaseSdmxBeanRetrievalManager {
 		} catch (MalformedURLException e) {
 			throw new SdmxException(e, "Could not open a connexion to URL: " + restQuery);
 		}
-		ReadableDataLocation rdl;
 		//SDMXCONV-1288
 		if(ObjectUtil.validObject(proxySet)
 				&& ObjectUtil.validCollection(proxySet.getExclusions())
 					&& proxySet.getExclusions().stream().anyMatch(s -> url.toString().startsWith(s))) {
 			//if the url we are trying to connect is in exclusions of proxy then connect without it
-			rdl = rdlByProxyFactory.getReadableDataLocation(url, jksPath, jksPassword);
+			return readStructures(url, null, jksPath, jksPassword);
 		} else {
-			rdl = rdlByProxyFactory.getReadableDataLocation(url, proxySet, jksPath, jksPassword);
+			return readStructures(url, proxySet, jksPath, jksPassword);
 		}
-		SdmxBeans bean = spm.parseStructures(rdl).getStructureBeans(false);
-		//SDMXCONV-792
-		SDMX_SCHEMA beansVersion = SdmxMessageUtil.getSchemaVersion(rdl);
-		SdmxBeansSchemaDecorator beansSchemaDecorator = new SdmxBeansSchemaDecorator(bean, beansVersion);
-		return beansSchemaDecorator;
 	}
 
 	public SdmxBeans getMaintainables(RESTStructureQuery sQuery, String jksPath, String jksPassword) {
@@ -135,14 +136,54 @@ public class RestSdmxBeanRetrievalManager extends BaseSdmxBeanRetrievalManager {
 		} catch (MalformedURLException e) {
 			throw new SdmxException(e, "Could not open a connexion to URL: " + restQuery);
 		}
-		ReadableDataLocation rdl;
-			rdl = rdlByProxyFactory.getReadableDataLocation(url, jksPath, jksPassword);
-			SdmxBeans bean = spm.parseStructures(rdl).getStructureBeans(false);
-			//SDMXCONV-792
-			SDMX_SCHEMA beansVersion = SdmxMessageUtil.getSchemaVersion(rdl);
-			SdmxBeansSchemaDecorator beansSchemaDecorator = new SdmxBeansSchemaDecorator(bean, beansVersion);
+		return readStructures(url, null, jksPath, jksPassword);
+	}
+
+	/**
+	 * Reads the structures of the query, through the {@link RegistryResponseCache} when there is one. The structures
+	 * of a response that did not change are taken from the {@link ParsedStructureCache} instead of parsed again.
+	 *
+	 * @param proxySet the proxy, null to connect directly
+	 */
+	private SdmxBeans readStructures(URL url, ProxySettings proxySet, String jksPath, String jksPassword) {
+		CloseableHttpClient client = HttpTransport.getClient(url, proxySet, jksPath, jksPassword);
+		if (responseCache == null) {
+			ReadableDataLocation rdl = getReadableDataLocation(client, url);
+			return parseStructures(rdl);
+		}
+		byte[] body;
+		try {
+			body = responseCache.get(client, url.toString());
+		} catch (IOException e) {
+			throw new SdmxException(e, "Could not open a connexion to URL: " + url);
+		}
+		String key = ParsedStructureCache.contentKey(body);
+		SdmxBeans cached = ParsedStructureCache.get(key);
+		if (cached != null) {
+			return cached;
+		}
+		return ParsedStructureCache.put(key, parseStructures(rdlFactory.getReadableDataLocation(new ByteArrayInputStream(body))));
+	}
+
+	private SdmxBeans parseStructures(ReadableDataLocation rdl) {
+		SdmxBeans bean = spm.parseStructures(rdl).getStructureBeans(false);
+		//SDMXCONV-792
+		SDMX_SCHEMA beansVersion = SdmxMessageUtil.getSchemaVersion(rdl);
+		return new SdmxBeansSchemaDecorator(bean, beansVersion);
+	}
 
-		return beansSchemaDecorator;
+	/**
+	 * Reads the response of the registry with the shared client of the {@link HttpTransport}.
+	 */
+	private ReadableDataLocation getReadableDataLocation(CloseableHttpClient client, URL url) {
+		try (CloseableHttpResponse response = client.execute(new HttpGet(url.toString()))) {
+			HttpTransport.checkStatus(response, url.toString());
+			try (InputStream content = response.getEntity().getContent()) {
+				return rdlFactory.getReadableDataLocation(content);
+			}
+		} catch (IOException e) {
+			throw new SdmxException(e, "Could not open a connexion to URL: " + url);
+		}
 	}
 
 	@Override
@@ -226,8 +267,11 @@ public class RestSdmxBeanRetrievalManager extends BaseSdmxBeanRetrievalManager {
 		this.rdlFactory = locationFactory;
 	}
 
-	public void setReadableLocationByProxyFactory(ReadableDataLocationByProxyFactory locationFactory) {
-		this.rdlByProxyFactory = locationFactory;
+	/**
+	 * @param responseCache the cache of the responses of the registry, null to query the registry every time
+	 */
+	public void setResponseCache(RegistryResponseCache responseCache) {
+		this.responseCache = responseCache;
 	}
 
 	public void setStructureQueryBuilder(StructureQueryBuilderRest queryBuilder) {
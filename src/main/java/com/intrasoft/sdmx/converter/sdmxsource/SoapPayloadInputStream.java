@@ -0,0 +1,308 @@
+package com.intrasoft.sdmx.converter.sdmxsource;
+
+import com.intrasoft.sdmx.converter.services.exceptions.RegistryConnectionException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Namespace;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <h2>The payload of a soap response, read from the envelope while it is received</h2>
+ * <p>The soap responses of the registries used to be parsed into a {@link javax.xml.soap.SOAPMessage}, the payload
+ * serialized from it into a String and parsed again, so a response with big codelists was held several times in
+ * memory. This stream skips the envelope with a StAX reader and gives the events of the payload, written again as
+ * xml, to the reader of the stream. Only a small part of the payload is held at any time.</p>
+ * <p>The payload is the first element of the soap body or, for the sdmx v2.1 web services, the first element inside
+ * the element of the operation. The namespaces declared on the envelope and the body are declared again on the
+ * payload, so that it can be read alone. A soap fault is read when the stream is created and thrown as a
+ * {@link RegistryConnectionException}.</p>
+ * <p>The stream does not close the stream of the response.</p>
+ *
+ * @see SoapSdmxBeanRetrievalManager
+ * @see com.intrasoft.sdmx.converter.ws.WsSoapClient
+ */
+public class SoapPayloadInputStream extends InputStream {
+
+	private static Logger logger = LogManager.getLogger(SoapPayloadInputStream.class);
+
+	/** the bytes written before they are given to the reader */
+	private static final int CHUNK_SIZE = 8192;
+
+	/** the events written before the size of the chunk is checked */
+	private static final int FLUSH_EVENTS = 64;
+
+	private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+	private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+	private static final XMLEventFactory EVENT_FACTORY = XMLEventFactory.newInstance();
+
+	private final XMLEventReader reader;
+
+	private final ChunkBuffer buffer = new ChunkBuffer();
+
+	private final XMLEventWriter writer;
+
+	private int position;
+
+	private int depth;
+
+	private boolean finished;
+
+	/**
+	 * @param soapResponse      the response of the web service
+	 * @param operationWrapped  true when the payload is inside the element of the operation, like for sdmx v2.1
+	 * @throws RegistryConnectionException when the response is a soap fault
+	 * @throws IOException                 when the response is not a soap envelope
+	 */
+	public SoapPayloadInputStream(InputStream soapResponse, boolean operationWrapped)
+			throws IOException, RegistryConnectionException {
+		try {
+			this.reader = INPUT_FACTORY.createXMLEventReader(soapResponse);
+			this.writer = OUTPUT_FACTORY.createXMLEventWriter(buffer, "UTF-8");
+			Map<String, String> namespaces = new LinkedHashMap<>();
+			StartElement envelope = nextChild(namespaces);
+			if (envelope == null || !"Envelope".equals(envelope.getName().getLocalPart())) {
+				throw new IOException("The response is not a soap envelope");
+			}
+			StartElement body = nextChild(namespaces);
+			while (body != null && !"Body".equals(body.getName().getLocalPart())) {
+				skipElement();
+				body = nextChild(namespaces);
+			}
+			if (body == null) {
+				throw new IOException("The soap envelope has no body");
+			}
+			StartElement payload = nextChild(namespaces);
+			if (payload != null && "Fault".equals(payload.getName().getLocalPart())) {
+				throw new RegistryConnectionException(readFault(), null);
+			}
+			if (payload != null && operationWrapped) {
+				payload = nextChild(namespaces);
+			}
+			if (payload == null) {
+				throw new IOException("The soap body has no content");
+			}
+			writer.add(EVENT_FACTORY.createStartDocument("UTF-8", "1.0"));
+			writer.add(withNamespaces(payload, namespaces));
+			depth = 1;
+		} catch (XMLStreamException e) {
+			throw new IOException("The soap response could not be read", e);
+		}
+	}
+
+	@Override
+	public int read() throws IOException {
+		byte[] single = new byte[1];
+		int read = read(single, 0, 1);
+		return read == -1 ? -1 : single[0] & 0xFF;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		while (position == buffer.size()) {
+			if (finished) {
+				return -1;
+			}
+			fill();
+		}
+		int read = Math.min(len, buffer.size() - position);
+		System.arraycopy(buffer.bytes(), position, b, off, read);
+		position += read;
+		return read;
+	}
+
+	@Override
+	public void close() throws IOException {
+		finished = true;
+		try {
+			reader.close();
+		} catch (XMLStreamException e) {
+			logger.debug("the soap response could not be closed: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * Writes the next events of the payload, until there is a chunk or the payload is complete.
+	 */
+	private void fill() throws IOException {
+		buffer.reset();
+		position = 0;
+		try {
+			int events = 0;
+			while (depth > 0 && buffer.size() < CHUNK_SIZE) {
+				if (!reader.hasNext()) {
+					throw new IOException("The soap response ended inside the payload");
+				}
+				XMLEvent event = reader.nextEvent();
+				if (event.isStartElement()) {
+					depth++;
+				} else if (event.isEndElement()) {
+					depth--;
+				}
+				writer.add(event);
+				// the writer keeps the bytes until it is flushed
+				if (++events % FLUSH_EVENTS == 0) {
+					writer.flush();
+				}
+			}
+			if (depth == 0 && !finished) {
+				writer.add(EVENT_FACTORY.createEndDocument());
+				writer.close();
+				finished = true;
+			}
+		} catch (XMLStreamException e) {
+			throw new IOException("The soap response could not be read", e);
+		}
+	}
+
+	/**
+	 * @param namespaces the namespaces declared on the parent elements, the ones of the child are added
+	 * @return the next child element of the current element, null at the end of the current element
+	 */
+	private StartElement nextChild(Map<String, String> namespaces) throws XMLStreamException {
+		while (reader.hasNext()) {
+			XMLEvent event = reader.nextEvent();
+			if (event.isStartElement()) {
+				StartElement element = event.asStartElement();
+				Iterator<?> declared = element.getNamespaces();
+				while (declared.hasNext()) {
+					Namespace namespace = (Namespace) declared.next();
+					namespaces.put(namespace.getPrefix(), namespace.getNamespaceURI());
+				}
+				return element;
+			}
+			if (event.isEndElement()) {
+				return null;
+			}
+		}
+		return null;
+	}
+
+	private void skipElement() throws XMLStreamException {
+		int level = 1;
+		while (level > 0 && reader.hasNext()) {
+			XMLEvent event = reader.nextEvent();
+			if (event.isStartElement()) {
+				level++;
+			} else if (event.isEndElement()) {
+				level--;
+			}
+		}
+	}
+
+	/**
+	 * @return the payload with the namespaces of its parents that it does not declare again
+	 */
+	private static StartElement withNamespaces(StartElement payload, Map<String, String> inherited) {
+		Map<String, String> namespaces = new LinkedHashMap<>(inherited);
+		List<Namespace> declarations = new ArrayList<>();
+		Iterator<?> declared = payload.getNamespaces();
+		while (declared.hasNext()) {
+			Namespace namespace = (Namespace) declared.next();
+			namespaces.remove(namespace.getPrefix());
+			declarations.add(namespace);
+		}
+		for (Map.Entry<String, String> namespace : namespaces.entrySet()) {
+			declarations.add(namespace.getKey().isEmpty()
+					? EVENT_FACTORY.createNamespace(namespace.getValue())
+					: EVENT_FACTORY.createNamespace(namespace.getKey(), namespace.getValue()));
+		}
+		QName name = payload.getName();
+		return EVENT_FACTORY.createStartElement(name.getPrefix(), name.getNamespaceURI(), name.getLocalPart(),
+				payload.getAttributes(), declarations.iterator(), payload.getNamespaceContext());
+	}
+
+	/**
+	 * Reads the fault of soap 1.1 or 1.2 in the format of {@link SoapSdmxBeanRetrievalManager#handleSoapFault}.
+	 */
+	private String readFault() throws XMLStreamException {
+		String actor = null;
+		String code = null;
+		String reason = null;
+		StringBuilder details = new StringBuilder();
+		Map<String, String> ignored = new LinkedHashMap<>();
+		StartElement child;
+		while ((child = nextChild(ignored)) != null) {
+			String name = child.getName().getLocalPart();
+			if ("detail".equalsIgnoreCase(name)) {
+				StartElement entry;
+				while ((entry = nextChild(ignored)) != null) {
+					details.append(String.format("%1$s : '%2$s'%n", entry.getName().getLocalPart(), readText()));
+				}
+			} else if ("faultactor".equals(name) || "Role".equals(name)) {
+				actor = readText();
+			} else if ("faultcode".equals(name) || "Code".equals(name)) {
+				code = readText();
+			} else if ("faultstring".equals(name) || "Reason".equals(name)) {
+				reason = readText();
+			} else {
+				skipElement();
+			}
+		}
+		String error = "SERVER RESPONSE ERROR: Received a SOAP FAULT:"
+				+ String.format("%nActor: '%1$s'%nCode: '%2$s'%nFault: '%3$s'%n", actor, code, reason) + details;
+		logger.error(error);
+		return error;
+	}
+
+	/**
+	 * @return the text of the current element and its children
+	 */
+	private String readText() throws XMLStreamException {
+		StringBuilder text = new StringBuilder();
+		int level = 1;
+		while (level > 0 && reader.hasNext()) {
+			XMLEvent event = reader.nextEvent();
+			if (event.isStartElement()) {
+				level++;
+			} else if (event.isEndElement()) {
+				level--;
+			} else if (event.isCharacters()) {
+				text.append(event.asCharacters().getData());
+			}
+		}
+		return text.toString().trim();
+	}
+
+	private static XMLInputFactory createInputFactory() {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		return factory;
+	}
+
+	/**
+	 * Gives access to the written bytes without copying them.
+	 */
+	private static final class ChunkBuffer extends ByteArrayOutputStream {
+
+		ChunkBuffer() {
+			super(CHUNK_SIZE * 2);
+		}
+
+		byte[] bytes() {
+			return buf;
+		}
+	}
+}
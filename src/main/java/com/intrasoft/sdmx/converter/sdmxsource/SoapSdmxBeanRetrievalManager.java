@@ -1,10 +1,7 @@
 package com.intrasoft.sdmx.converter.sdmxsource;
 
-import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
-import java.io.StringWriter;
 import java.util.Iterator;
-import java.util.List;
 import java.net.URL;
 import javax.xml.XMLConstants;
 import javax.xml.parsers.DocumentBuilder;
@@ -19,41 +16,16 @@ import javax.xml.soap.SOAPEnvelope;
 import javax.xml.soap.SOAPFault;
 import javax.xml.soap.SOAPMessage;
 import javax.xml.soap.SOAPPart;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
-
-import org.apache.commons.io.IOUtils;
-import org.apache.http.HttpEntity;
-import org.apache.http.HttpException;
-import org.apache.http.HttpHost;
-import org.apache.http.HttpRequest;
-import org.apache.http.HttpResponse;
-import org.apache.http.auth.AuthScope;
-import org.apache.http.auth.Credentials;
-import org.apache.http.auth.UsernamePasswordCredentials;
-import org.apache.http.client.CredentialsProvider;
-import org.apache.http.client.HttpClient;
-import org.apache.http.client.config.RequestConfig;
+
+import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
-import org.apache.http.conn.routing.HttpRoute;
-import org.apache.http.conn.routing.HttpRoutePlanner;
-import org.apache.http.entity.ByteArrayEntity;
-import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClientBuilder;
-import org.apache.http.impl.client.HttpClients;
-import org.apache.http.impl.conn.DefaultProxyRoutePlanner;
-import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.estat.sdmxsource.sdmx.structureparser.SdmxBeansSchemaDecorator;
-import org.sdmxsource.sdmx.api.constants.SDMX_ERROR_CODE;
 import org.sdmxsource.sdmx.api.constants.SDMX_SCHEMA;
 import org.sdmxsource.sdmx.api.constants.SDMX_STRUCTURE_TYPE;
-import org.sdmxsource.sdmx.api.exception.SdmxException;
 import org.sdmxsource.sdmx.api.factory.ReadableDataLocationFactory;
 import org.sdmxsource.sdmx.api.factory.ProxySettings;
 import org.sdmxsource.sdmx.api.factory.ReadableDataLocationByProxyFactory;
@@ -64,7 +36,6 @@ import org.sdmxsource.sdmx.api.model.beans.reference.StructureReferenceBean;
 import org.sdmxsource.sdmx.api.model.query.RESTStructureQuery;
 import org.sdmxsource.sdmx.api.util.ReadableDataLocation;
 import org.sdmxsource.sdmx.util.sdmx.SdmxMessageUtil;
-import org.sdmxsource.util.factory.CertificatesHandler;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
@@ -137,41 +108,7 @@ public abstract class SoapSdmxBeanRetrievalManager {
 	 */
 	protected SdmxBeans transformAndSendDocumentRequest(Document wdoc, SDMX_STRUCTURE_TYPE structureType)
 			throws Exception {
-		// needed to make a transformation to get rid of "DOM Level 3 Not implemented" exception
-		DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-		Document wdocDOM3 = builder.newDocument();
-		Element newRoot = (Element) wdocDOM3.importNode(wdoc.getDocumentElement(), true);
-		wdocDOM3.appendChild(newRoot);
-
-		final SOAPMessage soap = sendRequest(wdocDOM3, structureType);
-
-		Node element = soap.getSOAPBody().getFirstChild();
-		if (isV21Type) {
-			element = element.getFirstChild();
-			while (element.getNodeType() == Node.COMMENT_NODE) {
-				element = element.getNextSibling();
-			}
-		}
-		DOMSource source = new DOMSource(element);
-		String message = null;
-		try(StringWriter stringResult = new StringWriter();){
-			//SDMXCONV-848
-			Transformer transforming = TransformerFactory.newInstance().newTransformer();
-			transforming.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
-			transforming.transform(source, new StreamResult(stringResult));
-			message = stringResult.toString();
-		}
-		StructureWorkspace structureWorkspace = null;
-		SDMX_SCHEMA beansVersion = null;
-		try(InputStream inStream = IOUtils.toInputStream(message, "UTF-8");){
-			ReadableDataLocation dataLocation = readableDataLocationFactory.getReadableDataLocation(inStream);
-			structureWorkspace = structureParsingManager.parseStructures(dataLocation);
-			//SDMXCONV-792
-			beansVersion = SdmxMessageUtil.getSchemaVersion(dataLocation);
-		}
-		final SdmxBeans response = structureWorkspace.getStructureBeans(true);
-		SdmxBeansSchemaDecorator beansSchemaDecorator = new SdmxBeansSchemaDecorator(response, beansVersion);
-		return beansSchemaDecorator;
+		return readStructures(toDom3(wdoc), structureType, endpoint, null, null, null);
 	}
 
 	protected SdmxBeans transformAndSendDocumentRequest(Document wdoc, 
@@ -179,83 +116,62 @@ public abstract class SoapSdmxBeanRetrievalManager {
 														ProxySettings proxySet,
 														String jksPath,
 														String jksPassword) throws Exception {
-		// needed to make a transformation to get rid of "DOM Level 3 Not implemented" exception
-		DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-		Document wdocDOM3 = builder.newDocument();
-		Element newRoot = (Element) wdocDOM3.importNode(wdoc.getDocumentElement(), true);
-		wdocDOM3.appendChild(newRoot);
-
-		final SOAPMessage soap = sendRequest(wdocDOM3, structureType, proxySet, jksPath, jksPassword);
-
-		Node element = soap.getSOAPBody().getFirstChild();
-		if (isV21Type) {
-			element = element.getFirstChild();
-			while (element.getNodeType() == Node.COMMENT_NODE) {
-				element = element.getNextSibling();
-			}
-		}
-		DOMSource source = new DOMSource(element);
-		String message = null;
-		try(StringWriter stringResult = new StringWriter();){
-			Transformer transforming = TransformerFactory.newInstance().newTransformer();
-			//SDMXCONV-848
-			transforming.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
-			transforming.transform(source, new StreamResult(stringResult));
-			message = stringResult.toString();
-		}
-		StructureWorkspace structureWorkspace = null;
-		SDMX_SCHEMA beansVersion = null;
-		try(InputStream inStream = IOUtils.toInputStream(message, "UTF-8");){
-			ReadableDataLocation dataLocation = readableDataLocationFactory.getReadableDataLocation(inStream);
-			structureWorkspace = structureParsingManager.parseStructures(dataLocation);
-			//SDMXCONV-792
-            beansVersion = SdmxMessageUtil.getSchemaVersion(dataLocation);
-		}
-		final SdmxBeans response = structureWorkspace.getStructureBeans(true);
-		SdmxBeansSchemaDecorator beansSchemaDecorator = new SdmxBeansSchemaDecorator(response, beansVersion);
-		return beansSchemaDecorator;
+		setSoapURL(soapURL);
+		return readStructures(toDom3(wdoc), structureType, getSoapURL(), proxySet, jksPath, jksPassword);
 	}
 
 	protected SdmxBeans transformAndSendDocumentRequest(Document wdoc,
 														SDMX_STRUCTURE_TYPE structureType,
 														String jksPath,
 														String jksPassword) throws Exception {
-		// needed to make a transformation to get rid of "DOM Level 3 Not implemented exception"
+		setSoapURL(soapURL);
+		return readStructures(toDom3(wdoc), structureType, getSoapURL(), null, jksPath, jksPassword);
+	}
+
+	/**
+	 * needed to make a transformation to get rid of "DOM Level 3 Not implemented" exception
+	 */
+	private Document toDom3(Document wdoc) throws Exception {
 		DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
 		Document wdocDOM3 = builder.newDocument();
 		Element newRoot = (Element) wdocDOM3.importNode(wdoc.getDocumentElement(), true);
 		wdocDOM3.appendChild(newRoot);
+		return wdocDOM3;
+	}
 
-		final SOAPMessage soap = sendRequest(wdocDOM3, structureType, jksPath, jksPassword);
-
-		Node element = soap.getSOAPBody().getFirstChild();
-		if (isV21Type) {
-			element = element.getFirstChild();
-			while (element.getNodeType() == Node.COMMENT_NODE) {
-				element = element.getNextSibling();
-			}
-		}
-		DOMSource source = new DOMSource(element);
-		String message = null;
-		try(StringWriter stringResult = new StringWriter();){
-			//SDMXCONV-848
-			Transformer transforming = TransformerFactory.newInstance().newTransformer();
-			transforming.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
-			transforming.transform(source, new StreamResult(stringResult));
-			//TransformerFactory.newInstance().newTransformer().transform(source, new StreamResult(stringResult));
-			message = stringResult.toString();
-		}
+	/**
+	 * Posts the request and parses the structures of the response while it is received. The payload is taken from
+	 * the soap envelope by the {@link SoapPayloadInputStream}, the response is not built in memory.
+	 *
+	 * @param url      the url the request is posted to
+	 * @param proxySet the proxy, null to connect directly
+	 * @return the structures of the response, with the version of their schema
+	 * @throws RegistryConnectionException in case of a SOAP fault
+	 */
+	private SdmxBeans readStructures(final Document request,
+									 final SDMX_STRUCTURE_TYPE structureType,
+									 final String url,
+									 final ProxySettings proxySet,
+									 final String jksPath,
+									 final String jksPassword) throws Exception {
+		final SOAPMessage msg = createSoapMessage(request, structureType);
 		StructureWorkspace structureWorkspace = null;
-		
 		SDMX_SCHEMA beansVersion = null;
-		try(InputStream inStream = IOUtils.toInputStream(message, "UTF-8");){
-			ReadableDataLocation dataLocation = readableDataLocationFactory.getReadableDataLocation(inStream);
-			structureWorkspace = structureParsingManager.parseStructures(dataLocation);
-			//SDMXCONV-792
-            beansVersion = SdmxMessageUtil.getSchemaVersion(dataLocation);
+		try (CloseableHttpResponse infresponse = post(msg, structureType, url, proxySet, jksPath, jksPassword);
+			 InputStream payload = new SoapPayloadInputStream(infresponse.getEntity().getContent(), isV21Type)) {
+			ReadableDataLocation dataLocation = readableDataLocationFactory.getReadableDataLocation(payload);
+			try {
+				structureWorkspace = structureParsingManager.parseStructures(dataLocation);
+				//SDMXCONV-792
+				beansVersion = SdmxMessageUtil.getSchemaVersion(dataLocation);
+			} finally {
+				dataLocation.close();
+			}
+			// the rest of the envelope is read so that the connection goes back to the pool
+			EntityUtils.consume(infresponse.getEntity());
 		}
-		SdmxBeans response = structureWorkspace.getStructureBeans(true);
-		return response;
+		final SdmxBeans response = structureWorkspace.getStructureBeans(true);
+		return new SdmxBeansSchemaDecorator(response, beansVersion);
 	}
 
 	/**
@@ -272,42 +188,7 @@ public abstract class SoapSdmxBeanRetrievalManager {
 	 */
 	public SOAPMessage sendRequest(final Document request, final SDMX_STRUCTURE_TYPE operationName) 
 			throws Exception {
-		// Create message
-		MessageFactory mf;
-		mf = MessageFactory.newInstance();
-		final SOAPMessage msg = mf.createMessage();
-		final MimeHeaders hd = msg.getMimeHeaders();
-
-		hd.addHeader("SOAPAction", getSoapAction(operationName));
-		// Object for message parts
-		final SOAPPart part = msg.getSOAPPart();
-
-		final SOAPEnvelope env = part.getEnvelope();
-		env.addNamespaceDeclaration("xsi", XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI);
-		env.addNamespaceDeclaration(NSI_PREFIX, nsiNamespace);
-
-		// Obtain the SOAPEnvelope and header and body elements.
-		Node oldRoot = request.removeChild(request.getFirstChild());
-		if (isV21Type) {
-			final Element operation = request.createElementNS(nsiNamespace,
-					String.format("%1$s:%2$s", NSI_PREFIX, getSoapAction(operationName)));
-			Element parameter = operation;
-			parameter.appendChild(oldRoot);
-			request.appendChild(parameter);
-		} else {
-			request.appendChild(oldRoot);
-		}
-
-		final SOAPBody body = env.getBody();
-
-		body.addDocument(request);
-		msg.saveChanges();
-
-		try(ByteArrayOutputStream outputStream = new ByteArrayOutputStream();){
-			msg.writeTo(outputStream);
-			//SDMXCONV-848
-			//logger.info(outputStream.toString("UTF-8"));
-		}
+		final SOAPMessage msg = createSoapMessage(request, operationName);
 		SOAPMessage response = null;
 		final SOAPConnection connection = SOAPConnectionFactory.newInstance().createConnection();
 		try {
@@ -338,127 +219,7 @@ public abstract class SoapSdmxBeanRetrievalManager {
 									ProxySettings proxySet, 
 									final String jksPath,
 									final String jksPassword) throws Exception {
-		// Create message
-		MessageFactory mf;
-		mf = MessageFactory.newInstance();
-		final SOAPMessage msg = mf.createMessage();
-		final MimeHeaders hd = msg.getMimeHeaders();
-		hd.addHeader("SOAPAction", getSoapAction(operationName));
-		// Object for message parts
-		final SOAPPart part = msg.getSOAPPart();
-		final SOAPEnvelope env = part.getEnvelope();
-		env.addNamespaceDeclaration("xsi", XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI);
-		env.addNamespaceDeclaration(NSI_PREFIX, nsiNamespace);
-
-		// Obtain the SOAPEnvelope and header and body elements.
-		Node oldRoot = request.removeChild(request.getFirstChild());
-		if (isV21Type) {
-			final Element operation = request.createElementNS(nsiNamespace,
-					String.format("%1$s:%2$s", NSI_PREFIX, getSoapAction(operationName)));
-
-			Element parameter = operation;
-			parameter.appendChild(oldRoot);
-			request.appendChild(parameter);
-		} else {
-			request.appendChild(oldRoot);
-		}
-		final SOAPBody body = env.getBody();
-		body.addDocument(request);
-		msg.saveChanges();
-		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-		msg.writeTo(outputStream);
-		//logger.info(outputStream.toString("UTF-8"));
-		
-		// Default client initialization
-		HttpClient infapiclient = HttpClients.createDefault();
-		RequestConfig requestConfig = RequestConfig.custom().setConnectTimeout(100 * 1200) // 120s
-				.setConnectionRequestTimeout(100 * 1200) // 100s
-				.build();
-
-		setSoapURL(soapURL.toString());
-		URL soapURLnew = new URL(getSoapURL());
-
-		HttpHost proxy = new HttpHost(proxySet.getHost(), proxySet.getPort());
-		final List<String> exclusions = proxySet.getExclusions();
-		HttpRoutePlanner routePlanner = new DefaultProxyRoutePlanner(proxy) {
-		    @Override
-		    public HttpRoute determineRoute(
-		            final HttpHost host,
-		            final HttpRequest request,
-		            final HttpContext context) throws HttpException {
-		        String hostname = host.getHostName(); 
-		        for (String hst : exclusions) {
-		        	if (hostname.equalsIgnoreCase(hst)) {
-		            // Return direct route
-		            return new HttpRoute(host);
-		        	}
-		        }
-		        return super.determineRoute(host, request, context);
-		    }
-		};
-		
-		HttpClientBuilder httpClientBuilder = HttpClientBuilder.create();
-		httpClientBuilder = HttpClients.custom().setDefaultRequestConfig(requestConfig);
-		httpClientBuilder.setProxy(proxy);
-		Credentials credentials = new UsernamePasswordCredentials(proxySet.getUsername(), proxySet.getPassword());
-		AuthScope authScope = new AuthScope(proxySet.getHost(), proxySet.getPort());
-
-		CredentialsProvider credsProvider = new BasicCredentialsProvider();
-		credsProvider.setCredentials(authScope, credentials);
-		httpClientBuilder.setDefaultCredentialsProvider(credsProvider);
-
-		// Only if protocol is https load the cacerts file
-		if (soapURLnew.getProtocol().toString().equalsIgnoreCase("https")) {
-			infapiclient = httpClientBuilder
-					.setRoutePlanner(routePlanner)
-					.setSSLSocketFactory(CertificatesHandler.loadCertificates(jksPath, jksPassword)).build();
-		} else {
-			infapiclient = httpClientBuilder
-					.setRoutePlanner(routePlanner)
-					.build();
-		}
-
-		// We need the endpoint with the extension of ws
-		HttpPost infapiclientpost = new HttpPost(getSoapURL());
-		HttpResponse infresponse = null;		
-		//SDMXCONV-848
-		infapiclientpost.setHeader("SourceApplication", "application");
-		infapiclientpost.setHeader("Content-Type", "text/xml; charset=UTF-8");
-		infapiclientpost.setHeader("Accept-Encoding", "UTF-8");
-		infapiclientpost.setHeader("Accept", "text/html,application/xhtml+xml,application/xml;"); 
-		infapiclientpost.setHeader("SOAPAction", getSoapAction(operationName));
-		HttpEntity entity =null;
-		try {
-			entity = new ByteArrayEntity(outputStream.toString("UTF-8").getBytes("UTF-8"));
-		} finally {
-			IOUtils.closeQuietly(outputStream);
-		}
-		
-		infapiclientpost.setEntity(entity);
-		try {
-			infresponse = infapiclient.execute(infapiclientpost);
-		} catch (Exception ex) {
-			logger.error("Exception: ", ex);
-		}
-
-		int errorCode = infresponse.getStatusLine().getStatusCode();
-		// Check the response code
-		if (errorCode == 401 || errorCode == 407) {
-			logger.error("Please provide valid authentication credentials for the target resource." + " Response status: " + errorCode);
-			throw new SdmxException("Please provide valid authentication credentials for the target resource." + " Response status: " + errorCode, SDMX_ERROR_CODE.UNAUTHORISED);
-		} else if (errorCode >= 400) {
-			logger.error("Could not connect to URL: " + soapURL.toString() + ". Response status: " + errorCode);
-			throw new SdmxException( "Could not connect to URL: " + soapURL.toString() + ". Response status: " + errorCode, SDMX_ERROR_CODE.INTERNAL_SERVER_ERROR);
-		}
-		// Create the SOAPMessage from the entity content that we get as response
-		SOAPMessage response = MessageFactory.newInstance().createMessage(null, infresponse.getEntity().getContent());
-		// Watch out you can consume it only once so if you print it above you can't read it again
-
-		if (response.getSOAPBody().hasFault()) {
-			handleSoapFault(response.getSOAPBody().getFault());
-			return null;
-		}
-		return response;
+		return postSoapMessage(createSoapMessage(request, operationName), operationName, proxySet, jksPath, jksPassword);
 	}
 
 	/**
@@ -474,6 +235,13 @@ public abstract class SoapSdmxBeanRetrievalManager {
 									final SDMX_STRUCTURE_TYPE operationName,
 									final String jksPath, 
 									final String jksPassword) throws Exception {
+		return postSoapMessage(createSoapMessage(request, operationName), operationName, null, jksPath, jksPassword);
+	}
+
+	/**
+	 * Wraps the request in a SOAP envelope, inside the element of the operation for SDMX v2.1.
+	 */
+	private SOAPMessage createSoapMessage(final Document request, final SDMX_STRUCTURE_TYPE operationName) throws Exception {
 		// Create message
 		MessageFactory mf;
 		mf = MessageFactory.newInstance();
@@ -485,95 +253,81 @@ public abstract class SoapSdmxBeanRetrievalManager {
 		final SOAPEnvelope env = part.getEnvelope();
 		env.addNamespaceDeclaration("xsi", XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI);
 		env.addNamespaceDeclaration(NSI_PREFIX, nsiNamespace);
-		
+
 		// Obtain the SOAPEnvelope and header and body elements.
 		Node oldRoot = request.removeChild(request.getFirstChild());
-		
 		if (isV21Type) {
 			final Element operation = request.createElementNS(nsiNamespace,
 					String.format("%1$s:%2$s", NSI_PREFIX, getSoapAction(operationName)));
-
 			Element parameter = operation;
 			parameter.appendChild(oldRoot);
 			request.appendChild(parameter);
 		} else {
-		/*	For testing with the local ws of registry
-		 * if(soapURL.contains("localhost")) {
-				final Element operation = request.createElement(String.format("QueryStructure"));
-				Element parameter = operation;
-				parameter.appendChild(oldRoot);
-				request.appendChild(parameter);
-			}else {*/
-				request.appendChild(oldRoot);
-		}			
+			request.appendChild(oldRoot);
+		}
 		final SOAPBody body = env.getBody();
 		body.addDocument(request);
 		msg.saveChanges();
-		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-		msg.writeTo(outputStream);
-
-		//logger.info(outputStream.toString("UTF-8"));
+		return msg;
+	}
 
-		// Default client initialization
-		CloseableHttpClient infapiclient = HttpClients.createDefault();
-		RequestConfig requestConfig = RequestConfig.custom().setConnectTimeout(100 * 1200) // 1200s
-				.setConnectionRequestTimeout(100 * 1200) // 120s
-				.build();
+	/**
+	 * Posts the message with the shared client of the {@link HttpTransport}, the message is sent with its
+	 * Content-Length and the response is parsed from the connection.
+	 *
+	 * @param proxySet the proxy, null to connect directly
+	 * @return The response from the server or null in case of a SOAP fault
+	 */
+	private SOAPMessage postSoapMessage(final SOAPMessage msg,
+										final SDMX_STRUCTURE_TYPE operationName,
+										final ProxySettings proxySet,
+										final String jksPath,
+										final String jksPassword) throws Exception {
+		setSoapURL(soapURL);
+		//SDMXCONV-1243
+		try (CloseableHttpResponse infresponse = post(msg, operationName, getSoapURL(), proxySet, jksPath, jksPassword)) {
+			// Create the SOAPMessage from the entity content that we get as response
+			SOAPMessage response = MessageFactory.newInstance().createMessage(null, infresponse.getEntity().getContent());
+			// the body is parsed before the connection goes back to the pool
+			SOAPBody body = response.getSOAPBody();
+			EntityUtils.consume(infresponse.getEntity());
+			if (body.hasFault()) {
+				handleSoapFault(body.getFault());
+				return null;
+			}
+			return response;
+		}
+	}
 
-		setSoapURL(soapURL.toString());
-		URL soapURLnew = new URL(getSoapURL());
-		HttpClientBuilder httpClientBuilder = HttpClientBuilder.create();
-		httpClientBuilder = HttpClients.custom().setDefaultRequestConfig(requestConfig);
+	/**
+	 * @return the response, to be closed by the caller
+	 * @throws org.sdmxsource.sdmx.api.exception.SdmxException for the error status codes
+	 */
+	private CloseableHttpResponse post(final SOAPMessage msg,
+									   final SDMX_STRUCTURE_TYPE operationName,
+									   final String url,
+									   final ProxySettings proxySet,
+									   final String jksPath,
+									   final String jksPassword) throws Exception {
+		CloseableHttpClient infapiclient = HttpTransport.getClient(new URL(url), proxySet, jksPath, jksPassword);
 
-		// Only if protocol is https load the cacerts file
-		if (soapURLnew.getProtocol().toString().equalsIgnoreCase("https")) {
-			infapiclient = httpClientBuilder.setSSLSocketFactory(CertificatesHandler.loadCertificates(jksPath, jksPassword)).build();
-		} else {
-			infapiclient = httpClientBuilder.build();
-		}
 		// We need the endpoint with the extension of ws
-		HttpPost infapiclientpost = new HttpPost(getSoapURL());
-		HttpResponse infresponse = null;
+		HttpPost infapiclientpost = new HttpPost(url);
 		//SDMXCONV-848
 		infapiclientpost.setHeader("SourceApplication", "application");
 		infapiclientpost.setHeader("Content-Type", "text/xml; charset=UTF-8");
-		infapiclientpost.setHeader("Accept-Encoding", "UTF-8");
 		infapiclientpost.setHeader("Accept", "text/html,application/xhtml+xml,application/xml;"); 
 		infapiclientpost.setHeader("SOAPAction", getSoapAction(operationName));
-		HttpEntity entity = null;
-		try {
-			entity = new ByteArrayEntity(outputStream.toString("UTF-8").getBytes("UTF-8"));
-		} finally {
-			IOUtils.closeQuietly(outputStream);
-		}
-		infapiclientpost.setEntity(entity);
+		infapiclientpost.setEntity(HttpTransport.soapEntity(msg));
 
-		//SDMXCONV-1243
-		infresponse = infapiclient.execute(infapiclientpost);
-
-		int errorCode = infresponse.getStatusLine().getStatusCode();
-		// Check the response code
-		if (errorCode == 401 || errorCode == 407) {
-			logger.error("Please provide valid authentication credentials for the target resource."
-					+ " Response status: " + errorCode);
-			throw new SdmxException("Please provide valid authentication credentials for the target resource."
-					+ " Response status: " + errorCode, SDMX_ERROR_CODE.UNAUTHORISED);
-		} else if (errorCode >= 400) {
-			logger.error("Could not connect to URL: " + soapURL.toString() + ". Response status: " + errorCode);
-			throw new SdmxException(
-					"Could not connect to URL: " + soapURL.toString() + ". Response status: " + errorCode,
-					SDMX_ERROR_CODE.INTERNAL_SERVER_ERROR);
-		}
-		// Create the SOAPMessage from the entity content that we get as response
-		SOAPMessage response = MessageFactory.newInstance().createMessage(null, infresponse.getEntity().getContent());
-		// Watch out you can consume it only once so if you print it above you can't
-		// read it again
-
-		if (response.getSOAPBody().hasFault()) {
-			handleSoapFault(response.getSOAPBody().getFault());
-			return null;
+		CloseableHttpResponse infresponse = infapiclient.execute(infapiclientpost);
+		try {
+			HttpTransport.checkStatus(infresponse, url);
+		} catch (RuntimeException e) {
+			infresponse.close();
+			throw e;
 		}
-		return response;
+		return infresponse;
 	}
 
 	/**
@@ -0,0 +1,97 @@
+package com.intrasoft.sdmx.converter.services;
+
+import com.intrasoft.sdmx.converter.services.exceptions.RegistryConnectionException;
+import com.intrasoft.sdmx.converter.util.StructureIdentifier;
+import org.sdmxsource.sdmx.api.constants.SDMX_STRUCTURE_TYPE;
+import org.sdmxsource.sdmx.api.model.beans.SdmxBeans;
+import org.sdmxsource.sdmx.api.model.beans.base.MaintainableBean;
+import org.sdmxsource.sdmx.api.model.beans.datastructure.DataStructureBean;
+import org.sdmxsource.sdmx.api.model.beans.datastructure.DataflowBean;
+
+import java.util.Set;
+
+/**
+ * Registry service that keeps the full details of the dsds and dataflows and the constraints of the dataflows
+ * retrieved last in the {@link ParsedStructureCache}, so that they are not retrieved and parsed again for each file of
+ * the same dataflow. The stubs are not kept here: the rest registries take them, like the full details after the ttl
+ * of this cache, from the {@link RegistryResponseCache}, which revalidates the responses with the registry, while the
+ * soap registries always retrieve them.
+ *
+ * @see RegistryServiceFactory
+ */
+public class CachingRegistryService implements RegistryService {
+
+	private final RegistryService registryService;
+
+	private final long ttlMillis;
+
+	public CachingRegistryService(RegistryService registryService) {
+		this(registryService, ParsedStructureCache.REGISTRY_TTL_MILLIS);
+	}
+
+	/**
+	 * @param ttlMillis the time the retrieved structures are kept
+	 */
+	public CachingRegistryService(RegistryService registryService, long ttlMillis) {
+		this.registryService = registryService;
+		this.ttlMillis = ttlMillis;
+	}
+
+	@Override
+	public <T extends MaintainableBean> Set<T> retrieveAllStructureStubs(String url, Class<T> structureType)
+			throws RegistryConnectionException {
+		return registryService.retrieveAllStructureStubs(url, structureType);
+	}
+
+	@Override
+	public Set<DataStructureBean> retrieveAllDataStructureStubs(String url) throws RegistryConnectionException {
+		return registryService.retrieveAllDataStructureStubs(url);
+	}
+
+	@Override
+	public Set<DataflowBean> retrieveAllDataflowStubs(String url) throws RegistryConnectionException {
+		return registryService.retrieveAllDataflowStubs(url);
+	}
+
+	@Override
+	public Set<StructureIdentifier> retrieveStructureStubs(boolean isDataflow, String registryUrl)
+			throws RegistryConnectionException {
+		return registryService.retrieveStructureStubs(isDataflow, registryUrl);
+	}
+
+	@Override
+	public SdmxBeans retrieveFullDetailsForSingleDSD(String restUrl, StructureIdentifier structIdentifier)
+			throws RegistryConnectionException {
+		String key = ParsedStructureCache.registryKey(restUrl, SDMX_STRUCTURE_TYPE.DSD, structIdentifier);
+		SdmxBeans cached = ParsedStructureCache.get(key);
+		if (cached != null) {
+			return cached;
+		}
+		SdmxBeans retrieved = registryService.retrieveFullDetailsForSingleDSD(restUrl, structIdentifier);
+		return retrieved == null ? null : ParsedStructureCache.putRegistryStructure(key, retrieved, ttlMillis);
+	}
+
+	@Override
+	public SdmxBeans retrieveFullDetailsForSingleDataflow(String restUrl, StructureIdentifier structIdentifier)
+			throws RegistryConnectionException {
+		String key = ParsedStructureCache.registryKey(restUrl, SDMX_STRUCTURE_TYPE.DATAFLOW, structIdentifier);
+		SdmxBeans cached = ParsedStructureCache.get(key);
+		if (cached != null) {
+			return cached;
+		}
+		SdmxBeans retrieved = registryService.retrieveFullDetailsForSingleDataflow(restUrl, structIdentifier);
+		return retrieved == null ? null : ParsedStructureCache.putRegistryStructure(key, retrieved, ttlMillis);
+	}
+
+	@Override
+	public SdmxBeans retrieveReferencesForSingleDataflow(String restUrl, StructureIdentifier structIdentifier)
+			throws RegistryConnectionException {
+		String key = ParsedStructureCache.registryKey(restUrl, SDMX_STRUCTURE_TYPE.CONTENT_CONSTRAINT, structIdentifier);
+		SdmxBeans cached = ParsedStructureCache.get(key);
+		if (cached != null) {
+			return cached;
+		}
+		SdmxBeans retrieved = registryService.retrieveReferencesForSingleDataflow(restUrl, structIdentifier);
+		return retrieved == null ? null : ParsedStructureCache.putRegistryStructure(key, retrieved, ttlMillis);
+	}
+}
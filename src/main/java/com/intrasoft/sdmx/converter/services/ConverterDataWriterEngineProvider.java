@@ -157,6 +157,10 @@ public class ConverterDataWriterEngineProvider {
 				dataWriterEngine = new EDIDataWriterEngineImpl(outputStream, new SdmxSourceWriteableDataLocationFactory(), singleObservation);
 				break;
 			case FLR:
+				if (((FlrOutputConfig) outputConfig).getBeanRetrieval() == null) {
+					//the codelists give the widths of the coded components
+					((FlrOutputConfig) outputConfig).setBeanRetrieval(retrievalManager);
+				}
 				dataWriterEngine = new FlrDataWriterEngine(SDMX_SCHEMA.VERSION_TWO_POINT_ONE, BASE_DATA_FORMAT.CSV, outputStream, (FlrOutputConfig) outputConfig);
 				if(dataWriterEngine instanceof SdmxDataWriterEngine) {
 					dataWriterEngine = new WritingDataEngineDecorator(SDMX_SCHEMA.VERSION_TWO_POINT_ONE, BASE_DATA_FORMAT.CSV, outputStream, (SdmxDataWriterEngine) dataWriterEngine);
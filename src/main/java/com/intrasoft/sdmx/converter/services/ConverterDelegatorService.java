@@ -1,6 +1,8 @@
 package com.intrasoft.sdmx.converter.services;
 
 import com.intrasoft.sdmx.converter.*;
+import com.intrasoft.commons.ui.services.ConfigService;
+import com.intrasoft.sdmx.converter.config.FlrOutputConfig;
 import com.intrasoft.sdmx.converter.config.SdmxInputConfig;
 import com.intrasoft.sdmx.converter.config.SdmxOutputConfig;
 import com.intrasoft.sdmx.converter.ex.ExConverterPreparation;
@@ -16,7 +18,6 @@ import org.sdmxsource.sdmx.api.factory.ReadableDataLocationFactory;
 import org.sdmxsource.sdmx.api.model.header.HeaderBean;
 import org.sdmxsource.sdmx.api.model.header.PartyBean;
 import org.sdmxsource.sdmx.api.util.ReadableDataLocation;
-import org.sdmxsource.sdmx.dataparser.engine.reader.ThreadLocalOutputReporter;
 import org.sdmxsource.sdmx.dataparser.engine.writer.utils.EscapeCsvValues;
 import org.sdmxsource.sdmx.dataparser.engine.writer.utils.SdmxCsvOutputConfig;
 import org.sdmxsource.util.io.SharedApplicationFolder;
@@ -25,6 +26,7 @@ import org.springframework.stereotype.Service;
 
 import java.io.*;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.regex.Pattern;
 
 /**
@@ -56,22 +58,55 @@ public class ConverterDelegatorService {
     @Autowired
     private ReadableDataLocationFactory readableDataLocationFactory;
 
-	public static ConverterMetrics getMetrics() { return metrics; }
+	/**
+	 * Listeners declared in the application context, notified with the stage timings of every conversion
+	 */
+	@Autowired(required = false)
+	private List<ConversionMetricsListener> metricsListeners;
+
+	@Autowired(required = false)
+	private ConfigService configService;
+
+	/**
+	 * Context of the last completed conversion, only kept for the callers of
+	 * {@link #getMetrics()} and {@link #getFinalFlrMappings()}.
+	 */
+	private static volatile ConversionContext lastConversionContext;
 
-	private static ConverterMetrics metrics;
+	/**
+	 * @return the metrics of the last completed conversion, whichever thread made it
+	 * @deprecated use the {@link ConversionContext} returned by {@link #converterDelegateWithContext(ConverterInput, ConverterOutput, ConverterStructure)}
+	 */
+	@Deprecated
+	public static ConverterMetrics getMetrics() {
+		ConversionContext conversionContext = lastConversionContext;
+		return conversionContext != null ? conversionContext.getMetrics() : null;
+	}
 
+	/**
+	 * @return the final FLR mappings of the last completed conversion, whichever thread made it
+	 * @deprecated use the {@link ConversionContext} returned by {@link #converterDelegateWithContext(ConverterInput, ConverterOutput, ConverterStructure)}
+	 */
+	@Deprecated
 	public LinkedHashMap<String, FlrInColumnMapping> getFinalFlrMappings() {
-		return finalFlrMappings;
+		ConversionContext conversionContext = lastConversionContext;
+		return conversionContext != null ? conversionContext.getFinalFlrMappings() : null;
 	}
 
+	/**
+	 * @param finalFlrMappings replaces the final FLR mappings of the last completed conversion
+	 * @deprecated the final FLR mappings are set by the conversion in its {@link ConversionContext}
+	 */
+	@Deprecated
 	public void setFinalFlrMappings(LinkedHashMap<String, FlrInColumnMapping> finalFlrMappings) {
-		this.finalFlrMappings = finalFlrMappings;
+		ConversionContext conversionContext = lastConversionContext;
+		if (conversionContext != null) {
+			conversionContext.setFinalFlrMappings(finalFlrMappings);
+		}
 	}
-
-	private LinkedHashMap<String, FlrInColumnMapping> finalFlrMappings = null;
     
 	/**
-     * Performs a conversion from one format to another
+     * Performs a conversion from one format to another.
      *
      * @param converterInput  the parameters for input:  source format, input data location, input configuration
      * @param converterOutput the parameters for output: destination format, output stream, output configuration
@@ -81,16 +116,39 @@ public class ConverterDelegatorService {
 	public void converterDelegate(ConverterInput converterInput,
 								  ConverterOutput converterOutput,
 								  ConverterStructure converterStructure) throws Exception {
+		converterDelegateWithContext(converterInput, converterOutput, converterStructure);
+	}
+
+	/**
+     * Performs a conversion from one format to another.
+     * The service keeps no state about the conversion, so it can be called concurrently.
+     *
+     * @param converterInput  the parameters for input:  source format, input data location, input configuration
+     * @param converterOutput the parameters for output: destination format, output stream, output configuration
+     * @param converterStructure: dataStructure and dataflow
+     * @return the context of the conversion holding its metrics and the final FLR mappings
+     * @throws Exception
+     */
+	public ConversionContext converterDelegateWithContext(ConverterInput converterInput,
+								  ConverterOutput converterOutput,
+								  ConverterStructure converterStructure) throws Exception {
 		validateInputParameters(converterInput, converterOutput, converterStructure);
+		if (Formats.FLR.equals(converterOutput.getOutputFormat()) && converterOutput.getOutputConfig() instanceof FlrOutputConfig
+				&& configService != null && configService.isFlrWidthsFromStructure()) {
+			((FlrOutputConfig) converterOutput.getOutputConfig()).setWidthsFromStructure(true);
+		}
+		if (configService != null && !configService.isConversionPipelined()) {
+			converterOutput.setPipelined(false);
+		}
 
+		//SDMXCONV-816, SDMXCONV-867
+		ConversionContext conversionContext = new ConversionContext(Formats.iSDMX_CSV.equals(converterOutput.getOutputFormat())
+				|| Formats.iSDMX_CSV_2_0.equals(converterOutput.getOutputFormat()));
+		if (metricsListeners != null) {
+			metricsListeners.forEach(conversionContext::addMetricsListener);
+		}
 		try (OutputStream intermediateOutputStreamResult = new BufferedOutputStream(converterOutput.getOutputStream())) {
 			converterOutput.setOutputStream(intermediateOutputStreamResult);
-			//SDMXCONV-816, SDMXCONV-867
-			if (Formats.iSDMX_CSV.equals(converterOutput.getOutputFormat()) || Formats.iSDMX_CSV_2_0.equals(converterOutput.getOutputFormat())) {
-				ThreadLocalOutputReporter.getWriteAnnotations().set(true);
-			} else {
-				ThreadLocalOutputReporter.getWriteAnnotations().set(false);
-			}
 			if (isXSOutput(converterOutput)) {
 				if (converterInput.getInputFormat().isSdmx21()) {
 					throw new ConverterException("SDMX21 to Cross Sectional not supported");
@@ -99,20 +157,17 @@ public class ConverterDelegatorService {
 
 			if (isCompactInput(converterInput) && isXSOutput(converterOutput)) {
 				//FIXME is this a valid case?
-				ExConverterPreparation.convertWithPreviousImpl(converterInput, converterOutput, converterStructure);
-				metrics = ExConverterPreparation.getMetrics();
+				conversionContext.setMetrics(ExConverterPreparation.convertWithMetrics(converterInput, converterOutput, converterStructure));
 			} else if ((isGesmesInput(converterInput) && isXSOutput(converterOutput))) {
 				firstNewConvertThenOldConvert(readableDataLocationFactory,
-						converterInput, converterOutput, converterStructure);
+						converterInput, converterOutput, converterStructure, conversionContext);
 			} else {
-				Converter.convertWithCurrentImpl(converterInput, converterOutput, converterStructure);
-				metrics = Converter.getMetrics();
-			}
-			//SDMXCONV-1047
-			if (isFlrOutput(converterOutput)) {
-				setFinalFlrMappings(Converter.getFinalFlrMappings());
+				Converter.convertWithCurrentImpl(converterInput, converterOutput, converterStructure, conversionContext);
 			}
+			//SDMXCONV-1047 the final FLR mappings are set inside the context by the FLR writer
 		}
+		lastConversionContext = conversionContext;
+		return conversionContext;
 	}
 
     /** 
@@ -124,10 +179,12 @@ public class ConverterDelegatorService {
      * @param converterInput
      * @param converterOutput
      * @param converterStructure
+     * @param conversionContext
      * @throws Exception 
      */
 	private void firstNewConvertThenOldConvert(ReadableDataLocationFactory readableDataLocationFactory,
-			ConverterInput converterInput, ConverterOutput converterOutput, ConverterStructure converterStructure) 
+			ConverterInput converterInput, ConverterOutput converterOutput, ConverterStructure converterStructure,
+			ConversionContext conversionContext) 
 					throws Exception {
 		//create parameters for CSV Output
 		File tempDir = new File(SharedApplicationFolder.getLocalFileStorageConversion());
@@ -145,16 +202,14 @@ public class ConverterDelegatorService {
 			SdmxOutputConfig sdmxOutputConfig = new SdmxOutputConfig();
 			ConverterOutput step1ConverterOutput = new ConverterOutput(Formats.COMPACT_SDMX, intermediateOutputStreamResult, sdmxOutputConfig);
 			
-			Converter.convertWithCurrentImpl(converterInput, step1ConverterOutput, converterStructure);
-			metrics = Converter.getMetrics();
+			Converter.convertWithCurrentImpl(converterInput, step1ConverterOutput, converterStructure, conversionContext);
 			intermediateOutputStreamResult.flush();
 		
 			dataLocation = readableDataLocationFactory.getReadableDataLocation(intermediateResponseFile);
 			SdmxInputConfig inputConfig = new SdmxInputConfig();
 			ConverterInput step2ConverterInput = new ConverterInput(Formats.COMPACT_SDMX, dataLocation, inputConfig);
 
-			ExConverterPreparation.convertWithPreviousImpl(step2ConverterInput, converterOutput, converterStructure);
-			metrics = ExConverterPreparation.getMetrics();
+			conversionContext.setMetrics(ExConverterPreparation.convertWithMetrics(step2ConverterInput, converterOutput, converterStructure));
 		} finally {
 			if(intermediateResponseFile!=null) intermediateResponseFile.delete();
 			if(dataLocation!=null) dataLocation.close();
@@ -1,15 +1,14 @@
 package com.intrasoft.sdmx.converter.services;
 
+import com.intrasoft.sdmx.converter.io.data.TranscodingTable;
 import com.intrasoft.sdmx.converter.io.data.excel.ExcelSheetUtils;
+import com.intrasoft.sdmx.converter.io.data.excel.ExcelWorkbookSession;
 import com.monitorjbl.xlsx.StreamingReader;
-import com.monitorjbl.xlsx.exceptions.OpenException;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.apache.poi.EncryptedDocumentException;
 import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
-import org.apache.poi.openxml4j.util.ZipSecureFile;
 import org.apache.poi.poifs.filesystem.FileMagic;
 import org.apache.poi.ss.format.CellFormat;
 import org.apache.poi.ss.usermodel.*;
@@ -18,11 +17,8 @@ import org.apache.poi.util.IOUtils;
 import org.estat.sdmxsource.extension.datavalidation.Pair;
 import org.estat.sdmxsource.util.excel.*;
 import org.sdmxsource.sdmx.api.constants.ExceptionCode;
-import org.sdmxsource.sdmx.api.constants.SDMX_ERROR_CODE;
 import org.sdmxsource.sdmx.api.constants.SDMX_SCHEMA;
 import org.sdmxsource.sdmx.api.exception.ExceptionHandler;
-import org.sdmxsource.sdmx.api.exception.SdmxException;
-import org.sdmxsource.sdmx.api.exception.SdmxInternalServerException;
 import org.sdmxsource.sdmx.api.model.beans.base.ComponentBean;
 import org.sdmxsource.sdmx.api.model.beans.base.OccurrenceBean;
 import org.sdmxsource.sdmx.api.model.beans.datastructure.DataStructureBean;
@@ -217,39 +213,17 @@ public final class ExcelUtils {
 	 */
 	public static List<String> readExcelParameterSheetNames(final InputStream parameterFile, Double inflateRatio) throws IOException, InvalidFormatException {
 		List<String> excelParameterNames = new ArrayList<>();
-		BufferedInputStream bis = null;
-		Workbook workbook = null;
-		try {
-			if (inflateRatio!= null)
-				ZipSecureFile.setMinInflateRatio(inflateRatio);
-			bis = new BufferedInputStream(parameterFile);
-			// Create Workbook instance
-			if (FileMagic.valueOf(bis).equals(FileMagic.OOXML)) {
-				// Xlsx and xlsm
-				workbook = StreamingReader.builder().rowCacheSize(5000) // number of rows to keep in memory (defaults to
-						// 10)
-						// .bufferSize(4096) // buffer size to use when reading InputStream to file
-						// (defaults to 1024)
-						.open(bis); // InputStream or File for XLSX file (required)
-			} else {
-				// Xls
-				workbook = WorkbookFactory.create(bis);
-			}
-			for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
-				// Get first/desired sheet from the workbook
-				Sheet sheet = workbook.getSheetAt(i);
-				if (sheet.getSheetName().startsWith(PARAMETER_SHEET_NAME)
-						&& !sheet.getSheetName().startsWith(PARAMETER_MAP_SHEET_NAME)) {
-					excelParameterNames.add(sheet.getSheetName());
+		try (ExcelWorkbookSession session = ExcelWorkbookSession.openTemplate(parameterFile, inflateRatio)) {
+			// Only the names are needed, the sheets are not loaded
+			for (String sheetName : session.getSheetNames()) {
+				if (sheetName.startsWith(PARAMETER_SHEET_NAME)
+						&& !sheetName.startsWith(PARAMETER_MAP_SHEET_NAME)) {
+					excelParameterNames.add(sheetName);
 				}
 			}
 		} finally {
 			// SDMXCONV-833
-			if (workbook != null) {
-				workbook.close();
-			}
 			IOUtils.closeQuietly(parameterFile);
-			IOUtils.closeQuietly(bis);
 		}
 		return excelParameterNames;
 	}
@@ -761,64 +735,30 @@ public final class ExcelUtils {
 		return subpositions;
 	}
 
-	private static Workbook setWorkbook(InputStream is, Double inflateRatio) {
-		Workbook workbook;
-		//SDMXCONV-874
-		if (inflateRatio != null) ZipSecureFile.setMinInflateRatio(inflateRatio);
-		try(BufferedInputStream bis = new BufferedInputStream(is)) {
-			// Create Workbook instance
-			if (FileMagic.valueOf(bis).equals(FileMagic.OOXML)) {
-				logger.info("FileMagic Type of file " + FileMagic.OOXML + " streaming reader will be used.");
-				// Xlsx and xlsm
-				workbook = StreamingReader.builder()
-						.rowCacheSize(5000) // number of rows to keep in memory (defaults to 10)
-						//.bufferSize(4096) //buffer size to use when reading InputStream to file(defaults to 1024)
-						//.sstCacheSize(4096) //experimental - size of SST cache
-						.open(bis); // InputStream or File for XLSX file(required)
-			} else {
-				logger.info("FileMagic Type of file " + FileMagic.valueOf(bis) + " old reader will be used.");
-				// Xls
-				workbook = WorkbookFactory.create(bis);
-			}
-		} catch (IOException | EncryptedDocumentException e) {
-			throw new SdmxException(e, SDMX_ERROR_CODE.SEMANTIC_ERROR, ExceptionCode.WORKBOOK_READER_ERROR, "ExcelDataReaderEngine could not open/read workbook.");
-		} catch (OpenException ex) {
-			//SDMXCONV-874
-			throw new SdmxInternalServerException("ExcelDataReaderEngine could not open/read workbook." + ex.getCause());
-		}
-		return workbook;
-	}
-
-	public static LinkedHashMap<String, ExcelSheetUtils> readCodes(InputStream is, List<ExcelConfiguration> configurations, Double inflateRatio, ExceptionHandler exceptionHandler) throws InvalidExcelParamsException, IOException {
-		Workbook workbook = setWorkbook(is, inflateRatio);
-		LinkedHashMap<String, ExcelSheetUtils> codes = null;
-		if(ObjectUtil.validCollection(configurations)) {
-			try {
-				codes = readCodesSheets(workbook, configurations, exceptionHandler);
-			} finally {
-				workbook.close();
-			}
-		}
-		return codes;
-	}
-
 	/**
 	 * <u>Method that reads the sheet of codes.</u>
 	 * <p>For every sheet found we set ExcelSheetUtil object,
-	 * which holds the rows of the sheets.</p>
+	 * which holds the rows of the sheets. The file is opened once
+	 * and each sheet is read once.</p>
 	 * @see <a href="https://citnet.tech.ec.europa.eu/CITnet/jira/browse/SDMXCONV-1286">SDMXCONV-1286</a>
-	 * @param workbook Workbook where the parameter sheets is in
+	 * @param is the Excel file where the codes sheets are in
 	 * @param configurations All the parameters sheets Object
+	 * @param inflateRatio the minimum inflate ratio of the xlsx files
 	 * @param exceptionHandler handler to catch nor errors
 	 * @throws InvalidExcelParamsException misconfiguration errors
 	 */
-	private static LinkedHashMap<String, ExcelSheetUtils> readCodesSheets(Workbook workbook, List<ExcelConfiguration> configurations, ExceptionHandler exceptionHandler) throws InvalidExcelParamsException {
-		LinkedHashMap<String, ExcelSheetUtils> codesSheetsUtilList = new LinkedHashMap<>();
-		for(ExcelConfiguration configuration : configurations) {
-			String sheetName = configuration.getCodesFromFile();
-			codesSheetsUtilList.put(sheetName, ExcelUtils.getCodesFromSheet(workbook, sheetName, exceptionHandler));
+	public static LinkedHashMap<String, ExcelSheetUtils> readCodes(InputStream is, List<ExcelConfiguration> configurations, Double inflateRatio, ExceptionHandler exceptionHandler) throws InvalidExcelParamsException, IOException {
+		LinkedHashMap<String, ExcelSheetUtils> codes = null;
+		if(ObjectUtil.validCollection(configurations)) {
+			try (ExcelWorkbookSession session = ExcelWorkbookSession.openTemplate(is, inflateRatio)) {
+				codes = new LinkedHashMap<>();
+				for (ExcelConfiguration configuration : configurations) {
+					String sheetName = configuration.getCodesFromFile();
+					codes.put(sheetName, session.getSheet(ExcelWorkbookSession.CODES, sheetName, ExcelUtils::getCodesFromSheet, exceptionHandler));
+				}
+			}
 		}
-		return codesSheetsUtilList;
+		return codes;
 	}
 
 	/**
@@ -930,6 +870,21 @@ public final class ExcelUtils {
 		return valueFormulaAware;
 	}
 
+	/**
+	 * This method finds the rule the 'value' will be transcoded with, from the compiled rules.
+	 * <p>Same result as {@link #getValue_fromTranscoding(String, String, LinkedHashMap)} without scanning the rules.</p>
+	 * @param cref
+	 * @param value
+	 * @param transcoding
+	 * @return the rule, null when the value is not transcoded
+	 */
+	public static ExcelTranscodingValue getRule_fromTranscoding(final String cref, final String value, TranscodingTable<ExcelTranscodingValue> transcoding) {
+		if (value == null) {
+			return null;
+		}
+		return transcoding.find(cref, value);
+	}
+
 	/**
 	 * Returns the String value of the value contained in the given Cell.
 	 *
@@ -1228,9 +1183,8 @@ public final class ExcelUtils {
 		List<String> result = new ArrayList<>();
 
 		for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
-			Sheet sheet = workbook.getSheetAt(i);
 			if (!workbook.isSheetHidden(i)) {
-				result.add(sheet.getSheetName());
+				result.add(workbook.getSheetName(i));
 			}
 		}
 		return result;
@@ -1389,14 +1343,14 @@ public final class ExcelUtils {
 
 		// Iterate through all sheets in the workbook
 		for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
-			// Get the current sheet from the workbook
-			Sheet sheet = workbook.getSheetAt(i);
+			// Get the name of the current sheet, the sheet is only loaded when it is read
+			String sheetName = workbook.getSheetName(i);
 
 			// Check if the sheet name starts with PARAMETER_SHEET_NAME but not with PARAMETER_MAP_SHEET_NAME
-			if (sheet.getSheetName().startsWith(PARAMETER_SHEET_NAME)
-					&& !sheet.getSheetName().startsWith(PARAMETER_MAP_SHEET_NAME)) {
+			if (sheetName.startsWith(PARAMETER_SHEET_NAME)
+					&& !sheetName.startsWith(PARAMETER_MAP_SHEET_NAME)) {
 				// If the condition is met, read the parameters from the sheet and add it to the result list
-				result.add(readExcelParametersXlsx(sheet, exceptionHandler));
+				result.add(readExcelParametersXlsx(workbook.getSheetAt(i), exceptionHandler));
 			}
 		}
 
@@ -1477,33 +1431,19 @@ public final class ExcelUtils {
 	 */
 	public static List<ExcelConfiguration> readExcelConfigFromXlsx(final InputStream parameterFile, ExceptionHandler exceptionHandler)
 			throws IOException, InvalidExcelParamsException, InvalidFormatException {
-		List<ExcelConfiguration> excelParameters;
-		BufferedInputStream bis = null;
-		Workbook workbook = null;
-		try {
-			bis = new BufferedInputStream(parameterFile);
-			// Create Workbook instance
-			// Decide if we will stream process the file based on its format
-			if (FileMagic.valueOf(bis).equals(FileMagic.OOXML)) {
-				// Xlsx and xlsm
-				workbook = StreamingReader.builder().rowCacheSize(5000) // number of rows to keep in memory (defaults to
-																		// 10)
-						// .bufferSize(4096) // buffer size to use when reading InputStream to file
-						// (defaults to 1024)
-						.open(bis); // InputStream or File for XLSX file (required)
-				excelParameters = readExcelConfigFromWorkbookXlsx(workbook, exceptionHandler);
-			} else {
-				// Xls
-				workbook = WorkbookFactory.create(bis);
-				excelParameters = readExcelConfigFromWorkbook(workbook, exceptionHandler);
+		List<ExcelConfiguration> excelParameters = new ArrayList<>();
+		try (ExcelWorkbookSession session = ExcelWorkbookSession.openTemplate(parameterFile, null)) {
+			// The sheets are parsed once per content of the file, the same template is not parsed again
+			for (String sheetName : session.getSheetNames()) {
+				if (sheetName.startsWith(PARAMETER_SHEET_NAME)
+						&& !sheetName.startsWith(PARAMETER_MAP_SHEET_NAME)) {
+					excelParameters.add(session.getSheet(ExcelWorkbookSession.PARAMETERS, sheetName,
+							(workbook, name, handler) -> readExcelParametersXlsx(workbook.getSheet(name), handler), exceptionHandler));
+				}
 			}
 		} finally {
 			// SDMXCONV-833
-			if (workbook != null) {
-				workbook.close();
-			}
 			IOUtils.closeQuietly(parameterFile);
-			IOUtils.closeQuietly(bis);
 		}
 		return excelParameters;
 	}
@@ -1522,14 +1462,14 @@ public final class ExcelUtils {
 			throws InvalidExcelParamsException {
 		List<ExcelConfiguration> result = new ArrayList<>();
 		for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
-			// Get the sheet from the workbook at the current index
-			Sheet sheet = workbook.getSheetAt(i);
+			// Get the name of the sheet at the current index, the sheet is only loaded when it is read
+			String sheetName = workbook.getSheetName(i);
 
 			// If the sheet's name starts with PARAMETER_SHEET_NAME but does not start with PARAMETER_MAP_SHEET_NAME,
 			// read the Excel parameters from the sheet and add it to the result list
-			if (sheet.getSheetName().startsWith(PARAMETER_SHEET_NAME)
-					&& !sheet.getSheetName().startsWith(PARAMETER_MAP_SHEET_NAME)) {
-				result.add(readExcelParametersXlsx(sheet, exceptionHandler));
+			if (sheetName.startsWith(PARAMETER_SHEET_NAME)
+					&& !sheetName.startsWith(PARAMETER_MAP_SHEET_NAME)) {
+				result.add(readExcelParametersXlsx(workbook.getSheetAt(i), exceptionHandler));
 			}
 		}
 		return result;
@@ -1782,46 +1722,21 @@ public final class ExcelUtils {
 	 */
 	public static List<String> readExcelDataSheetNames(final InputStream parameterFile, Double inflateRatio) throws IOException {
 		List<String> excelDataSheetNames = new ArrayList<>();
-		BufferedInputStream bis = null;
-		Workbook workbook = null;
-		try {
-			if (inflateRatio != null)
-				ZipSecureFile.setMinInflateRatio(inflateRatio);
-
-			bis = new BufferedInputStream(parameterFile);
-			// Create Workbook instance
-			// Decide if we will stream process the file based on its format
-			if (FileMagic.valueOf(bis).equals(FileMagic.OOXML)) {
-				// Xlsx and xlsm
-				workbook = StreamingReader.builder().rowCacheSize(5000) // number of rows to keep in memory (defaults to
-						// 10)
-						// .bufferSize(4096) // buffer size to use when reading InputStream to file
-						// (defaults to 1024)
-						.open(bis); // InputStream or File for XLSX file (required)
-			} else {
-				// Xls
-				workbook = WorkbookFactory.create(bis);
-			}
-
-			for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
-				// Get first/desired sheet from the workbook
-				Sheet sheet = workbook.getSheetAt(i);
+		try (ExcelWorkbookSession session = ExcelWorkbookSession.open(parameterFile, inflateRatio)) {
+			// Only the names are needed, the sheets are not loaded
+			for (String sheetName : session.getSheetNames()) {
 				/*
 				 * SDMXCONV-811 if (workbook.isSheetHidden(i)) { continue; }
 				 */
-				if (!sheet.getSheetName().startsWith(PARAMETER_SHEET_NAME)
-						&& !sheet.getSheetName().startsWith(VAL_SHEET_NAME)
-						&& !sheet.getSheetName().startsWith(TRANSCODING_SHEET_NAME)) {
-					excelDataSheetNames.add(sheet.getSheetName());
+				if (!sheetName.startsWith(PARAMETER_SHEET_NAME)
+						&& !sheetName.startsWith(VAL_SHEET_NAME)
+						&& !sheetName.startsWith(TRANSCODING_SHEET_NAME)) {
+					excelDataSheetNames.add(sheetName);
 				}
 			}
 		} finally {
 			// SDMXCONV-833
-			if (workbook != null) {
-				workbook.close();
-			}
 			IOUtils.closeQuietly(parameterFile);
-			IOUtils.closeQuietly(bis);
 		}
 		return excelDataSheetNames;
 	}
@@ -0,0 +1,199 @@
+package com.intrasoft.sdmx.converter.services;
+
+import com.intrasoft.sdmx.converter.util.StructureIdentifier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.estat.sdmxsource.sdmx.structureparser.SdmxBeansSchemaDecorator;
+import org.sdmxsource.sdmx.api.constants.SDMX_SCHEMA;
+import org.sdmxsource.sdmx.api.constants.SDMX_STRUCTURE_TYPE;
+import org.sdmxsource.sdmx.api.manager.retrieval.SdmxBeanRetrievalManager;
+import org.sdmxsource.sdmx.api.model.beans.SdmxBeans;
+import org.sdmxsource.sdmx.structureretrieval.manager.InMemoryRetrievalManager;
+import org.sdmxsource.sdmx.util.beans.container.SdmxBeansImpl;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h2>The structures parsed last, by content or by registry reference</h2>
+ * <p>The same few structure files are parsed again for every conversion and validation. They are kept here:</p>
+ * <ul>
+ *     <li>by the SHA-256 of the bytes of the structure file, for the structures read from a file or a stream,</li>
+ *     <li>by the registry url, the type and the agency, id and version of the artefact, for the structures retrieved
+ *     from a registry. These expire after {@link #REGISTRY_TTL_MILLIS} since the registry may change them.</li>
+ * </ul>
+ * <p>Every caller gets its own container of the cached beans, since the containers are changed by the scanners of
+ * the structures, the beans themselves are immutable and shared. The retrieval manager of a structure is built once
+ * and shared, it is only read. It is found from any of the containers handed out for the structure.</p>
+ *
+ * @see StructureService
+ * @see ValidationService
+ */
+public final class ParsedStructureCache {
+
+	private static Logger logger = LogManager.getLogger(ParsedStructureCache.class);
+
+	private static final int CACHE_SIZE = 32;
+
+	/** the default time the structures retrieved from a registry are kept */
+	public static final long REGISTRY_TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+	private static final Map<String, CachedStructure> CACHE = new LinkedHashMap<String, CachedStructure>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, CachedStructure> eldest) {
+			return size() > CACHE_SIZE;
+		}
+	};
+
+	/** the containers handed out to the callers, with the structure they were copied from */
+	private static final Map<SdmxBeans, CachedStructure> HANDED_OUT = Collections.synchronizedMap(new WeakHashMap<>());
+
+	private ParsedStructureCache() {
+	}
+
+	/**
+	 * @param structure the bytes of a structure file
+	 * @return the key of the structure parsed from these bytes
+	 */
+	public static String contentKey(byte[] structure) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(structure);
+			StringBuilder key = new StringBuilder("sha256:");
+			for (byte b : digest) {
+				key.append(Character.forDigit(b >> 4 & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+			}
+			return key.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+
+	/**
+	 * @return the key of the structure retrieved from the registry with its references
+	 */
+	public static String registryKey(String registryUrl, SDMX_STRUCTURE_TYPE type, StructureIdentifier structIdentifier) {
+		return registryUrl + '|' + type.getUrnClass() + '|' + structIdentifier.getAgency() + ':'
+				+ structIdentifier.getArtefactId() + '(' + structIdentifier.getArtefactVersion() + ')';
+	}
+
+	/**
+	 * @return a new container of the structures cached with the key, null when they are not cached
+	 */
+	public static SdmxBeans get(String key) {
+		CachedStructure cached = lookup(key);
+		return cached == null ? null : handOut(cached);
+	}
+
+	/**
+	 * @param beans a container of structures
+	 * @return the shared retrieval manager of the cached structures when the container was handed out by this cache,
+	 * a new retrieval manager of the container otherwise
+	 */
+	public static SdmxBeanRetrievalManager getRetrievalManager(SdmxBeans beans) {
+		CachedStructure cached = HANDED_OUT.get(beans);
+		return cached == null ? new InMemoryRetrievalManager(beans) : cached.getRetrievalManager();
+	}
+
+	/**
+	 * Keeps the structures parsed from a file until they are the least recently used.
+	 *
+	 * @param beans the parsed structures, they must not be changed after
+	 * @return a new container of the structures, for the caller
+	 */
+	public static SdmxBeans put(String key, SdmxBeans beans) {
+		return store(key, new CachedStructure(beans, Long.MAX_VALUE));
+	}
+
+	/**
+	 * Keeps the structures retrieved from a registry for {@link #REGISTRY_TTL_MILLIS}.
+	 *
+	 * @param beans the retrieved structures, they must not be changed after
+	 * @return a new container of the structures, for the caller
+	 */
+	public static SdmxBeans putRegistryStructure(String key, SdmxBeans beans) {
+		return putRegistryStructure(key, beans, REGISTRY_TTL_MILLIS);
+	}
+
+	/**
+	 * @param beans     the retrieved structures, they must not be changed after
+	 * @param ttlMillis the time the structures are kept
+	 * @return a new container of the structures, for the caller
+	 */
+	public static SdmxBeans putRegistryStructure(String key, SdmxBeans beans, long ttlMillis) {
+		return store(key, new CachedStructure(beans, System.currentTimeMillis() + ttlMillis));
+	}
+
+	public static void clear() {
+		synchronized (CACHE) {
+			CACHE.clear();
+		}
+		HANDED_OUT.clear();
+	}
+
+	private static SdmxBeans store(String key, CachedStructure cached) {
+		synchronized (CACHE) {
+			CACHE.put(key, cached);
+		}
+		return handOut(cached);
+	}
+
+	private static SdmxBeans handOut(CachedStructure cached) {
+		SdmxBeans copy = cached.copy();
+		HANDED_OUT.put(copy, cached);
+		return copy;
+	}
+
+	private static CachedStructure lookup(String key) {
+		synchronized (CACHE) {
+			CachedStructure cached = CACHE.get(key);
+			if (cached != null && cached.expiresAt < System.currentTimeMillis()) {
+				CACHE.remove(key);
+				return null;
+			}
+			if (cached != null) {
+				logger.debug("structures {} taken from the cache", key);
+			}
+			return cached;
+		}
+	}
+
+	private static final class CachedStructure {
+		private final SdmxBeans beans;
+		private final long expiresAt;
+		private volatile SdmxBeanRetrievalManager retrievalManager;
+
+		CachedStructure(SdmxBeans beans, long expiresAt) {
+			this.beans = beans;
+			this.expiresAt = expiresAt;
+		}
+
+		/**
+		 * @return a new container of the beans, with the schema version of a decorated container
+		 */
+		SdmxBeans copy() {
+			SdmxBeansImpl copy = new SdmxBeansImpl(beans.getHeader());
+			copy.merge(beans);
+			if (beans instanceof SdmxBeansSchemaDecorator) {
+				SDMX_SCHEMA schema = ((SdmxBeansSchemaDecorator) beans).getSdmxSchema();
+				return new SdmxBeansSchemaDecorator(copy, schema);
+			}
+			return copy;
+		}
+
+		SdmxBeanRetrievalManager getRetrievalManager() {
+			if (retrievalManager == null) {
+				synchronized (this) {
+					if (retrievalManager == null) {
+						retrievalManager = new InMemoryRetrievalManager(beans);
+					}
+				}
+			}
+			return retrievalManager;
+		}
+	}
+}
@@ -0,0 +1,270 @@
+package com.intrasoft.sdmx.converter.services;
+
+import com.intrasoft.commons.ui.services.ConfigService;
+import com.intrasoft.sdmx.converter.sdmxsource.HttpTransport;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.sdmxsource.util.ObjectUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h2>The responses of the registries to the structure queries</h2>
+ * <p>The same dataflows and dsds are queried from the registry for every conversion although they rarely change.
+ * The responses are kept by the url of the query, which holds the endpoint and the reference of the artefact:</p>
+ * <ul>
+ *     <li>for <code>registry.cache.ttl</code> seconds they are returned without asking the registry,</li>
+ *     <li>after that, they are revalidated with If-None-Match and If-Modified-Since when the registry sent an ETag or
+ *     Last-Modified, and returned again when the registry answers 304 Not Modified,</li>
+ *     <li>otherwise they are queried again.</li>
+ * </ul>
+ * <p>The responses are kept in memory and, when the property <code>registry.cache.path</code> is set, in files of
+ * that folder, so that they are revalidated instead of downloaded by the next processes.</p>
+ *
+ * @see com.intrasoft.sdmx.converter.sdmxsource.RestSdmxBeanRetrievalManager
+ */
+@Service
+public class RegistryResponseCache {
+
+	private static Logger logger = LogManager.getLogger(RegistryResponseCache.class);
+
+	private static final int CACHE_SIZE = 32;
+
+	private static final int MAGIC = 0x52455350;
+
+	private static final int FORMAT_VERSION = 2;
+
+	/** the position of the time of the response in the file, after the magic number and the version */
+	private static final long FETCHED_AT_OFFSET = 8;
+
+	private static final String SUFFIX = ".response";
+
+	@Autowired
+	private ConfigService configService;
+
+	private final Map<String, CachedResponse> responses = new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+			return size() > CACHE_SIZE;
+		}
+	};
+
+	private long ttlMillis = TimeUnit.MINUTES.toMillis(5);
+
+	private File folder;
+
+	public RegistryResponseCache() {
+	}
+
+	/**
+	 * @param ttlMillis the time the responses are used without revalidation
+	 * @param folder    the folder of the responses, null to keep them only in memory
+	 */
+	RegistryResponseCache(long ttlMillis, File folder) {
+		this.ttlMillis = ttlMillis;
+		this.folder = folder;
+	}
+
+	@PostConstruct
+	private void init() {
+		ttlMillis = TimeUnit.SECONDS.toMillis(configService.getRegistryCacheTtl());
+		String path = configService.getRegistryCachePath();
+		if (ObjectUtil.validString(path)) {
+			File dir = new File(path);
+			if (dir.isDirectory() || dir.mkdirs()) {
+				folder = dir;
+				logger.info("registry responses are kept in {}", dir.getAbsolutePath());
+			} else {
+				logger.warn("the registry cache folder {} could not be created, the responses are kept in memory", path);
+			}
+		}
+	}
+
+	/**
+	 * Returns the response kept for the url, after revalidating it when it is older than the ttl,
+	 * or queries the registry.
+	 *
+	 * @param client the client of the registry
+	 * @param url    the structure query
+	 * @return the body of the response
+	 * @throws org.sdmxsource.sdmx.api.exception.SdmxException for the error status codes
+	 */
+	public byte[] get(CloseableHttpClient client, String url) throws IOException {
+		CachedResponse cached = lookup(url);
+		long now = System.currentTimeMillis();
+		if (cached != null && now - cached.fetchedAt < ttlMillis) {
+			logger.debug("registry response {} taken from the cache", url);
+			return cached.body;
+		}
+		HttpGet get = new HttpGet(url);
+		if (cached != null) {
+			if (cached.etag != null) {
+				get.setHeader(HttpHeaders.IF_NONE_MATCH, cached.etag);
+			}
+			if (cached.lastModified != null) {
+				get.setHeader(HttpHeaders.IF_MODIFIED_SINCE, cached.lastModified);
+			}
+		}
+		try (CloseableHttpResponse response = client.execute(get)) {
+			if (cached != null && response.getStatusLine().getStatusCode() == HttpStatus.SC_NOT_MODIFIED) {
+				EntityUtils.consume(response.getEntity());
+				logger.debug("registry response {} not modified", url);
+				refresh(url, new CachedResponse(cached.body, cached.etag, cached.lastModified, now));
+				return cached.body;
+			}
+			HttpTransport.checkStatus(response, url);
+			byte[] body = EntityUtils.toByteArray(response.getEntity());
+			store(url, new CachedResponse(body, headerValue(response, HttpHeaders.ETAG),
+					headerValue(response, HttpHeaders.LAST_MODIFIED), now));
+			return body;
+		}
+	}
+
+	public void clear() {
+		synchronized (responses) {
+			responses.clear();
+		}
+	}
+
+	private CachedResponse lookup(String url) {
+		synchronized (responses) {
+			CachedResponse cached = responses.get(url);
+			if (cached != null) {
+				return cached;
+			}
+		}
+		CachedResponse cached = read(url);
+		if (cached != null) {
+			synchronized (responses) {
+				responses.put(url, cached);
+			}
+		}
+		return cached;
+	}
+
+	private void store(String url, CachedResponse cached) {
+		synchronized (responses) {
+			responses.put(url, cached);
+		}
+		write(url, cached);
+	}
+
+	/**
+	 * Keeps the revalidated response, only its time is written again to the file.
+	 */
+	private void refresh(String url, CachedResponse cached) {
+		synchronized (responses) {
+			responses.put(url, cached);
+		}
+		if (folder == null) {
+			return;
+		}
+		File file = responseFile(url);
+		if (!file.isFile()) {
+			write(url, cached);
+			return;
+		}
+		try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+			out.seek(FETCHED_AT_OFFSET);
+			out.writeLong(cached.fetchedAt);
+		} catch (IOException e) {
+			logger.warn("the registry response {} could not be refreshed: {}", url, e.getMessage());
+		}
+	}
+
+	private CachedResponse read(String url) {
+		if (folder == null) {
+			return null;
+		}
+		File file = responseFile(url);
+		if (!file.isFile()) {
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+			if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+				return null;
+			}
+			long fetchedAt = in.readLong();
+			if (!url.equals(in.readUTF())) {
+				return null;
+			}
+			String etag = in.readUTF();
+			String lastModified = in.readUTF();
+			byte[] body = new byte[in.readInt()];
+			in.readFully(body);
+			return new CachedResponse(body, etag.isEmpty() ? null : etag, lastModified.isEmpty() ? null : lastModified, fetchedAt);
+		} catch (IOException e) {
+			logger.warn("the registry response {} could not be read: {}", file, e.getMessage());
+			return null;
+		}
+	}
+
+	private void write(String url, CachedResponse cached) {
+		if (folder == null) {
+			return;
+		}
+		File tmp = null;
+		try {
+			tmp = File.createTempFile("registry", SUFFIX + ".tmp", folder);
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp.toPath())))) {
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT_VERSION);
+				out.writeLong(cached.fetchedAt);
+				out.writeUTF(url);
+				out.writeUTF(cached.etag != null ? cached.etag : "");
+				out.writeUTF(cached.lastModified != null ? cached.lastModified : "");
+				out.writeInt(cached.body.length);
+				out.write(cached.body);
+			}
+			Files.move(tmp.toPath(), responseFile(url).toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			logger.warn("the registry response {} could not be written: {}", url, e.getMessage());
+			if (tmp != null && !tmp.delete()) {
+				tmp.deleteOnExit();
+			}
+		}
+	}
+
+	private File responseFile(String url) {
+		return new File(folder, ParsedStructureCache.contentKey(url.getBytes(StandardCharsets.UTF_8)).replace(':', '_') + SUFFIX);
+	}
+
+	private static String headerValue(CloseableHttpResponse response, String name) {
+		return response.getFirstHeader(name) != null ? response.getFirstHeader(name).getValue() : null;
+	}
+
+	private static final class CachedResponse {
+		private final byte[] body;
+		private final String etag;
+		private final String lastModified;
+		private final long fetchedAt;
+
+		CachedResponse(byte[] body, String etag, String lastModified, long fetchedAt) {
+			this.body = body;
+			this.etag = etag;
+			this.lastModified = lastModified;
+			this.fetchedAt = fetchedAt;
+		}
+	}
+}
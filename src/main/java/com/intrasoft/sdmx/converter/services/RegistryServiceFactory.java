@@ -21,6 +21,7 @@
  */
 package com.intrasoft.sdmx.converter.services;
 
+import com.intrasoft.commons.ui.services.ConfigService;
 import com.intrasoft.commons.ui.services.JsonEndpoint;
 import com.intrasoft.sdmx.converter.util.TypeOfVersion;
 import org.apache.logging.log4j.LogManager;
@@ -28,6 +29,9 @@ import org.apache.logging.log4j.Logger;
 import org.sdmxsource.util.ObjectUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
 /**
  * Registry Service factory to decide depending on the URL string and 
  * the information form the wsdl which Registry Service to be used.
@@ -47,7 +51,18 @@ public class RegistryServiceFactory {
     @Autowired
 	private RestV2RegistryService restV2RegistryService;
 
+	@Autowired
+	private ConfigService configService;
+
+	/**
+	 * @return the registry service of the endpoint, keeping the structures it retrieves in the {@link ParsedStructureCache}
+	 */
 	public RegistryService getRegistryService(JsonEndpoint endpoint) {
+		return new CachingRegistryService(selectRegistryService(endpoint),
+				TimeUnit.SECONDS.toMillis(configService.getRegistryCacheTtl()));
+	}
+
+	private RegistryService selectRegistryService(JsonEndpoint endpoint) {
 		if(!ObjectUtil.validObject(endpoint.getVersion())) {
 			endpoint.setVersion(TypeOfVersion.EMPTY);
 		}
@@ -9,7 +9,6 @@ import org.apache.logging.log4j.Logger;
 import org.sdmxsource.sdmx.api.constants.SDMX_STRUCTURE_TYPE;
 import org.sdmxsource.sdmx.api.constants.STRUCTURE_QUERY_DETAIL;
 import org.sdmxsource.sdmx.api.constants.STRUCTURE_REFERENCE_DETAIL;
-import org.sdmxsource.sdmx.api.factory.ReadableDataLocationByProxyFactory;
 import org.sdmxsource.sdmx.api.factory.ReadableDataLocationFactory;
 import org.sdmxsource.sdmx.api.manager.parse.StructureParsingManager;
 import org.sdmxsource.sdmx.api.model.beans.SdmxBeans;
@@ -51,12 +50,10 @@ public class RestRegistryService implements RegistryService {
 	private ReadableDataLocationFactory readableLocationFactory;
 
 	@Autowired
-	@Qualifier("readableDataLocationByProxyFactory")
-	private ReadableDataLocationByProxyFactory readableDataLocationByProxyFactory;
-
+	private ConfigService configService;
 
 	@Autowired
-	private ConfigService configService;
+	private RegistryResponseCache registryResponseCache;
 
 	/**
 	 * retrieves the structure stubs from the provided registry rest url
@@ -285,8 +282,8 @@ public class RestRegistryService implements RegistryService {
 		restRetrievalManager.setRestUrl(restEndpointUrl);
 		restRetrievalManager.setStructureParsingManager(structureParsingManager);
 		restRetrievalManager.setReadableLocationFactory(readableLocationFactory);
-		restRetrievalManager.setReadableLocationByProxyFactory(readableDataLocationByProxyFactory);
 		restRetrievalManager.setStructureQueryBuilder(restQueryBuilder);
+		restRetrievalManager.setResponseCache(registryResponseCache);
 		return restRetrievalManager;
 	}
 }
@@ -29,31 +29,18 @@ import com.ibm.wsdl.extensions.mime.MIMEMultipartRelatedSerializer;
 import com.ibm.wsdl.extensions.soap.*;
 import com.ibm.wsdl.extensions.soap12.*;
 import com.intrasoft.commons.ui.services.ConfigService;
+import com.intrasoft.sdmx.converter.sdmxsource.HttpTransport;
 import com.intrasoft.sdmx.converter.sdmxsource.SoapSdmxBeanRetrievalManager;
 import com.intrasoft.sdmx.converter.sdmxsource.SoapSdmxBeanRetrievalManagerV20;
 import com.intrasoft.sdmx.converter.sdmxsource.SoapSdmxBeanRetrievalManagerV21;
 import com.intrasoft.sdmx.converter.services.exceptions.RegistryConnectionException;
 import com.intrasoft.sdmx.converter.util.StructureIdentifier;
 import org.apache.commons.io.IOUtils;
-import org.apache.http.HttpException;
-import org.apache.http.HttpHost;
-import org.apache.http.HttpRequest;
-import org.apache.http.HttpResponse;
-import org.apache.http.auth.AuthScope;
-import org.apache.http.auth.Credentials;
-import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.ClientProtocolException;
-import org.apache.http.client.CredentialsProvider;
-import org.apache.http.client.HttpClient;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
-import org.apache.http.conn.routing.HttpRoute;
-import org.apache.http.conn.routing.HttpRoutePlanner;
-import org.apache.http.impl.client.BasicCredentialsProvider;
-import org.apache.http.impl.client.HttpClientBuilder;
-import org.apache.http.impl.client.HttpClients;
-import org.apache.http.impl.conn.DefaultProxyRoutePlanner;
-import org.apache.http.protocol.HttpContext;
+import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.sdmxsource.sdmx.api.constants.SDMX_STRUCTURE_TYPE;
@@ -71,7 +58,6 @@ import org.sdmxsource.sdmx.api.model.beans.reference.StructureReferenceBean;
 import org.sdmxsource.sdmx.util.beans.reference.MaintainableRefBeanImpl;
 import org.sdmxsource.sdmx.util.beans.reference.StructureReferenceBeanImpl;
 import org.sdmxsource.util.ObjectUtil;
-import org.sdmxsource.util.factory.CertificatesHandler;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
@@ -87,7 +73,6 @@ import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
 
 /**
@@ -457,49 +442,7 @@ public class SoapRegistryService implements RegistryService {
 		} catch (MalformedURLException e) {
 			logger.error("Malformed Url Exception", e);
 		}
-		HttpClient client;
-		RequestConfig requestConfig = RequestConfig.custom().setConnectTimeout(100 * 1000) // 100 s
-				.setConnectionRequestTimeout(100 * 1000) // 100 s
-				.build();
-
-		HttpClientBuilder httpClientBuilder = HttpClients.custom().setDefaultRequestConfig(requestConfig);
-		HttpHost proxy = new HttpHost(proxySet.getHost(), proxySet.getPort());
-		final List<String> exclusions = proxySet.getExclusions();
-		HttpRoutePlanner routePlanner = new DefaultProxyRoutePlanner(proxy) {
-		    @Override
-		    public HttpRoute determineRoute(
-		            final HttpHost host,
-		            final HttpRequest request,
-		            final HttpContext context) throws HttpException {
-		        String hostname = host.getHostName(); 
-		        for (String hst : exclusions) {
-		        	if (hostname.equalsIgnoreCase(hst)) {
-		            // Return direct route
-		            return new HttpRoute(host);
-		        	}
-		        }
-		        return super.determineRoute(host, request, context);
-		    }
-		};
-		
-		//Use the credential for proxy server
-		Credentials credentials = new UsernamePasswordCredentials(proxySet.getUsername(), proxySet.getPassword());
-		AuthScope authScope = new AuthScope(proxySet.getHost(), proxySet.getPort());
-
-		CredentialsProvider credsProvider = new BasicCredentialsProvider();
-		credsProvider.setCredentials(authScope, credentials);
-		httpClientBuilder.setDefaultCredentialsProvider(credsProvider);
-
-		//Only if protocol is https load the cacerts file
-		if(url.getProtocol().toString().equalsIgnoreCase("https")){
-			client = httpClientBuilder
-					.setRoutePlanner(routePlanner)
-			        .setSSLSocketFactory(CertificatesHandler.loadCertificates(jksPath, jksPassword)).build();
-		} else {
-			client = httpClientBuilder
-					.setRoutePlanner(routePlanner)
-			        .build();
-		}
+		CloseableHttpClient client = HttpTransport.getClient(url, proxySet, jksPath, jksPassword);
 
 		//We just want to take the wsdl xml
 		HttpGet get = new HttpGet(url.toString());
@@ -507,7 +450,7 @@ public class SoapRegistryService implements RegistryService {
 		get.setHeader("Content-Type", "text/xml;");
 		get.setHeader("Accept", "text/html,application/xhtml+xml,application/xml;");
 		
-		HttpResponse response = null;
+		CloseableHttpResponse response = null;
 		InputStream initialStream = null;
 		Definition definition = null;
 		InputSource source = null;
@@ -539,6 +482,7 @@ public class SoapRegistryService implements RegistryService {
 			throw new RuntimeException(message,e);
 		} finally {
 			IOUtils.closeQuietly(initialStream);
+			IOUtils.closeQuietly(response);
 		}
 		return definition;
     }
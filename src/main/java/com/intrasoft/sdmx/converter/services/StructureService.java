@@ -47,6 +47,9 @@ public class StructureService {
     @Autowired
     private ReadableDataLocationFactory readableDataLocationFactory;
 
+    @Autowired
+    private StructureSnapshotStore structureSnapshotStore;
+
     /**
      * Method that parses the provided dsd file (contains a structure) and creates its memory representation.
      * @param structureInputStream the stream with the structures
@@ -54,16 +57,9 @@ public class StructureService {
      * @throws InvalidStructureException   when exceptions occur during the structure parsing process
      */
     public SdmxBeans readStructuresFromStream(InputStream structureInputStream) throws InvalidStructureException, IOException {
-		SdmxBeansSchemaDecorator beansSchemaDecorator;
-        //SDMXCONV-1227
-        try(BOMInputStream bomStructureInputStream = new BOMInputStream(structureInputStream);
-			ReadableDataLocation dataLocation = readableDataLocationFactory.getReadableDataLocation(bomStructureInputStream)) {
-
-	        StructureWorkspace structureWorkspace = structureParsingManager.parseStructures(dataLocation);
-			SdmxBeans result = structureWorkspace.getStructureBeans(false);
-            //SDMXCONV-792
-            SDMX_SCHEMA beansVersion = SdmxMessageUtil.getSchemaVersion(dataLocation);
-			beansSchemaDecorator = new SdmxBeansSchemaDecorator(result, beansVersion);
+		byte[] structureBytes = IOUtils.toByteArray(structureInputStream);
+        try {
+			return readStructuresFromBytes(structureBytes);
         }catch(SdmxSyntaxException syntaxEx){
         	//SDMXCONV-729, 584
         	String errorMessage = "Error: Structure file cannot be read." + " Technical details: " + syntaxEx.getMessage();
@@ -81,7 +77,38 @@ public class StructureService {
                 throw illegalArgumentExc;
             }
         }
-        return beansSchemaDecorator;
+    }
+
+    /**
+     * Parses the structures of a structure file, unless the same bytes were parsed before
+     * and their structures are found in the {@link ParsedStructureCache} or the {@link StructureSnapshotStore}.
+     * The exceptions of the parser are thrown as they are.
+     * @param structureBytes the content of the structure file
+     * @return a container of the structures, decorated with the schema version of the file
+     */
+    SdmxBeans readStructuresFromBytes(byte[] structureBytes) throws IOException {
+		String cacheKey = ParsedStructureCache.contentKey(structureBytes);
+		SdmxBeans cached = ParsedStructureCache.get(cacheKey);
+		if (cached != null) {
+			return cached;
+		}
+		SdmxBeans snapshot = structureSnapshotStore.load(cacheKey);
+		if (snapshot != null) {
+			return ParsedStructureCache.put(cacheKey, snapshot);
+		}
+		SdmxBeansSchemaDecorator beansSchemaDecorator;
+        //SDMXCONV-1227
+        try(BOMInputStream bomStructureInputStream = new BOMInputStream(new ByteArrayInputStream(structureBytes));
+			ReadableDataLocation dataLocation = readableDataLocationFactory.getReadableDataLocation(bomStructureInputStream)) {
+
+	        StructureWorkspace structureWorkspace = structureParsingManager.parseStructures(dataLocation);
+			SdmxBeans result = structureWorkspace.getStructureBeans(false);
+            //SDMXCONV-792
+            SDMX_SCHEMA beansVersion = SdmxMessageUtil.getSchemaVersion(dataLocation);
+			beansSchemaDecorator = new SdmxBeansSchemaDecorator(result, beansVersion);
+        }
+		structureSnapshotStore.save(cacheKey, beansSchemaDecorator);
+		return ParsedStructureCache.put(cacheKey, beansSchemaDecorator);
     }
     
     /**
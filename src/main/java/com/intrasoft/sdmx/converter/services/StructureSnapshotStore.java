@@ -0,0 +1,203 @@
+package com.intrasoft.sdmx.converter.services;
+
+import com.intrasoft.commons.ui.services.ConfigService;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.estat.sdmxsource.sdmx.structureparser.SdmxBeansSchemaDecorator;
+import org.sdmxsource.sdmx.api.constants.SDMX_SCHEMA;
+import org.sdmxsource.sdmx.api.model.beans.SdmxBeans;
+import org.sdmxsource.sdmx.api.model.beans.base.MaintainableBean;
+import org.sdmxsource.sdmx.util.beans.container.SdmxBeansImpl;
+import org.sdmxsource.util.ObjectUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * <h2>Snapshots of the parsed structures on the local disk</h2>
+ * <p>Parsing a dsd with big codelists takes seconds and the {@link ParsedStructureCache} is empty after each start.
+ * The structures parsed from a file are written to the folder of the property <code>structure.snapshot.path</code>,
+ * in a file named after the SHA-256 of the structure file, and read back from there by the next processes that get
+ * the same structure file. Nothing is kept when the property is empty.</p>
+ * <p>A snapshot starts with a header holding the version of the format and the schema of the structure file,
+ * followed by the maintainable beans, serialized and deflated. A snapshot that cannot be read,
+ * e.g. written by another version of sdmxsource, is deleted and the structure file is parsed again.</p>
+ *
+ * @see StructureService
+ * @see ValidationService
+ */
+@Service
+public class StructureSnapshotStore {
+
+	private static Logger logger = LogManager.getLogger(StructureSnapshotStore.class);
+
+	private static final int MAGIC = 0x53444d58;
+
+	/** to increase when the content of the snapshots changes */
+	private static final int FORMAT_VERSION = 2;
+
+	private static final String SUFFIX = ".snapshot";
+
+	@Autowired
+	private ConfigService configService;
+
+	private File folder;
+
+	public StructureSnapshotStore() {
+	}
+
+	/**
+	 * @param folder the folder of the snapshots
+	 */
+	StructureSnapshotStore(File folder) {
+		this.folder = folder;
+	}
+
+	@PostConstruct
+	private void init() {
+		String path = configService.getStructureSnapshotPath();
+		if (ObjectUtil.validString(path)) {
+			File dir = new File(path);
+			if (dir.isDirectory() || dir.mkdirs()) {
+				folder = dir;
+				logger.info("structure snapshots are kept in {}", dir.getAbsolutePath());
+			} else {
+				logger.warn("the structure snapshot folder {} could not be created, the snapshots are not kept", path);
+			}
+		}
+	}
+
+	public boolean isEnabled() {
+		return folder != null;
+	}
+
+	/**
+	 * @param contentKey the key of the structure file, see {@link ParsedStructureCache#contentKey(byte[])}
+	 * @return the structures of the snapshot, null when there is none or it cannot be read
+	 */
+	public SdmxBeans load(String contentKey) {
+		if (folder == null) {
+			return null;
+		}
+		File file = snapshotFile(contentKey);
+		if (!file.isFile()) {
+			return null;
+		}
+		long start = System.currentTimeMillis();
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+			if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+				throw new InvalidClassException("structure snapshot", "unknown format");
+			}
+			String schema = in.readUTF();
+			SdmxBeansImpl beans = new SdmxBeansImpl();
+			try (ObjectInputStream objects = new SnapshotObjectInputStream(new InflaterInputStream(in))) {
+				int maintainables = objects.readInt();
+				for (int i = 0; i < maintainables; i++) {
+					beans.addIdentifiable((MaintainableBean) objects.readObject());
+				}
+			}
+			logger.debug("structures {} read from the snapshot in {} ms", contentKey, System.currentTimeMillis() - start);
+			return schema.isEmpty() ? beans : new SdmxBeansSchemaDecorator(beans, SDMX_SCHEMA.valueOf(schema));
+		} catch (IOException | ClassNotFoundException | ClassCastException | IllegalArgumentException e) {
+			logger.warn("the structure snapshot {} could not be read and is deleted: {}", file, e.getMessage());
+			deleteFile(file);
+			return null;
+		}
+	}
+
+	/**
+	 * Writes the snapshot of the structures, unless there is one already.
+	 *
+	 * @param contentKey the key of the structure file, see {@link ParsedStructureCache#contentKey(byte[])}
+	 * @param beans      the structures parsed from the file
+	 */
+	public void save(String contentKey, SdmxBeans beans) {
+		if (folder == null) {
+			return;
+		}
+		File file = snapshotFile(contentKey);
+		if (file.isFile()) {
+			return;
+		}
+		File tmp = null;
+		try {
+			tmp = File.createTempFile("structure", SUFFIX + ".tmp", folder);
+			List<MaintainableBean> maintainables = new ArrayList<>(beans.getAllMaintainables());
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp.toPath())))) {
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT_VERSION);
+				out.writeUTF(beans instanceof SdmxBeansSchemaDecorator
+						&& ((SdmxBeansSchemaDecorator) beans).getSdmxSchema() != null
+						? ((SdmxBeansSchemaDecorator) beans).getSdmxSchema().name() : "");
+				DeflaterOutputStream deflater = new DeflaterOutputStream(out, new Deflater(Deflater.BEST_SPEED));
+				try (ObjectOutputStream objects = new ObjectOutputStream(deflater)) {
+					objects.writeInt(maintainables.size());
+					for (MaintainableBean maintainable : maintainables) {
+						objects.writeObject(maintainable);
+					}
+				}
+			}
+			Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			logger.debug("snapshot of the structures {} written to {}", contentKey, file);
+		} catch (IOException | RuntimeException e) {
+			logger.warn("the snapshot of the structures {} could not be written: {}", contentKey, e.getMessage());
+			if (tmp != null) {
+				deleteFile(tmp);
+			}
+		}
+	}
+
+	private File snapshotFile(String contentKey) {
+		return new File(folder, contentKey.replace(':', '_') + SUFFIX);
+	}
+
+	private static void deleteFile(File file) {
+		if (!file.delete() && file.exists()) {
+			logger.warn("could not delete the structure snapshot {}", file);
+		}
+	}
+
+	/**
+	 * Reads only the classes of the structures, the snapshots are local files but should not be able to create
+	 * anything else.
+	 */
+	private static final class SnapshotObjectInputStream extends ObjectInputStream {
+
+		SnapshotObjectInputStream(InputStream in) throws IOException {
+			super(in);
+		}
+
+		@Override
+		protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+			String name = desc.getName();
+			while (name.startsWith("[")) {
+				name = name.substring(1);
+			}
+			if (name.length() == 1 || name.startsWith("Ljava.") || name.startsWith("Lorg.sdmxsource.")
+					|| name.startsWith("Lorg.estat.") || name.startsWith("java.") || name.startsWith("org.sdmxsource.")
+					|| name.startsWith("org.estat.")) {
+				return super.resolveClass(desc);
+			}
+			throw new InvalidClassException(desc.getName(), "not a structure class");
+		}
+	}
+}
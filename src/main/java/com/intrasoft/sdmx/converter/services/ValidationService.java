@@ -1,6 +1,11 @@
 package com.intrasoft.sdmx.converter.services;
 
 import com.intrasoft.commons.ui.services.ConfigService;
+import com.intrasoft.sdmx.converter.ConversionMetricsListener;
+import com.intrasoft.sdmx.converter.ConversionMetricsRecorder;
+import com.intrasoft.sdmx.converter.ConversionStage;
+import com.intrasoft.sdmx.converter.ConverterMetrics;
+import com.intrasoft.sdmx.converter.io.data.ByteCountingDataLocation;
 import com.intrasoft.sdmx.converter.io.data.Formats;
 import com.intrasoft.sdmx.converter.io.data.excel.ExcelInputConfigImpl;
 import com.intrasoft.sdmx.converter.sdmxsource.MessageDecoderConverter;
@@ -31,9 +36,7 @@ import org.sdmxsource.sdmx.api.engine.DataReaderEngine;
 import org.sdmxsource.sdmx.api.exception.ErrorLimitException;
 import org.sdmxsource.sdmx.api.exception.SdmxException;
 import org.sdmxsource.sdmx.api.factory.ReadableDataLocationFactory;
-import org.sdmxsource.sdmx.api.manager.parse.StructureParsingManager;
 import org.sdmxsource.sdmx.api.manager.retrieval.SdmxBeanRetrievalManager;
-import org.sdmxsource.sdmx.api.model.StructureWorkspace;
 import org.sdmxsource.sdmx.api.model.beans.SdmxBeans;
 import org.sdmxsource.sdmx.api.model.beans.datastructure.DataStructureBean;
 import org.sdmxsource.sdmx.api.model.beans.datastructure.DataflowBean;
@@ -48,7 +51,6 @@ import org.sdmxsource.sdmx.dataparser.engine.reader.deduplication.ValidationEngi
 import org.sdmxsource.sdmx.dataparser.manager.DataInformationManager;
 import org.sdmxsource.sdmx.dataparser.manager.DataReaderManager;
 import org.sdmxsource.sdmx.dataparser.manager.impl.DataValidationManagerImpl;
-import org.sdmxsource.sdmx.structureretrieval.manager.InMemoryRetrievalManager;
 import org.sdmxsource.sdmx.structureretrieval.manager.SdmxSuperBeanRetrievalManagerImpl;
 import org.sdmxsource.sdmx.util.sdmx.SdmxMessageUtil;
 import org.sdmxsource.sdmx.validation.exceptions.DataValidationError;
@@ -83,11 +85,17 @@ public class ValidationService {
 	private ReadableDataLocationFactory readableDataLocationFactory;
 
 	@Autowired
-	private StructureParsingManager structureParsingManager;
+	private StructureService structureService;
 	
 	@Autowired
     private ConfigService configService;
 
+	/**
+	 * Listeners declared in the application context, notified with the stage timings of every validation
+	 */
+	@Autowired(required = false)
+	private List<ConversionMetricsListener> metricsListeners;
+
 	private Formats sourceFormat;
 	
 	private String defaultVersion;
@@ -125,13 +133,16 @@ public class ValidationService {
 			                                InputConfig inputConfig, 
 			                                int errorsLimit) {
 		ValidationServiceReturn result = new ValidationServiceReturn();
+		ConversionMetricsRecorder metricsRecorder = new ConversionMetricsRecorder(metricsListeners);
 		try {
-			ReadableDataLocation dsdLocation = readableDataLocationFactory.getReadableDataLocation(structureFile);
-			StructureWorkspace parseStructures = structureParsingManager.parseStructures(dsdLocation);
-			//SDMXCONV-792
-            SDMX_SCHEMA beansVersion = SdmxMessageUtil.getSchemaVersion(dsdLocation);
-			SdmxBeans structureBeans = parseStructures.getStructureBeans(false);
-			SdmxBeansSchemaDecorator beansSchemaDecorator = new SdmxBeansSchemaDecorator(structureBeans, beansVersion);
+			long stageStart = System.nanoTime();
+			SdmxBeans beansSchemaDecorator;
+			try {
+				beansSchemaDecorator = structureService.readStructuresFromBytes(IOUtils.toByteArray(structureFile));
+			} catch (IOException e) {
+				throw new SdmxException(e, "The structure file could not be read");
+			}
+			metricsRecorder.stageCompleted(ConversionStage.STRUCTURE_LOAD, stageStart);
 			DataStructureBean dsdBean = null;
 			if (beansSchemaDecorator.getDataStructures() != null && !beansSchemaDecorator.getDataStructures().isEmpty()) {
 				dsdBean = beansSchemaDecorator.getDataStructures().iterator().next();
@@ -141,7 +152,8 @@ public class ValidationService {
 			if (beansSchemaDecorator.getDataflows() != null && !beansSchemaDecorator.getDataflows().isEmpty()) {
 				dataflowBean = beansSchemaDecorator.getDataflows().iterator().next();
 			}
-			result = validate(dataFile, beansSchemaDecorator, inputConfig, dsdBean, dataflowBean, errorsLimit);
+			result = validate(dataFile, beansSchemaDecorator, inputConfig, dsdBean, dataflowBean, errorsLimit,
+					ParsedStructureCache.getRetrievalManager(beansSchemaDecorator), metricsRecorder);
 		} finally {
 			IOUtils.closeQuietly(dataFile);
 			IOUtils.closeQuietly(structureFile);
@@ -169,7 +181,9 @@ public class ValidationService {
 		SdmxBeansSchemaDecorator beansSchemaDecorator = new SdmxBeansSchemaDecorator(structureBeans, structureVersion);
 		try(FileInputStream dataInputStream = new FileInputStream(dataFile)) {
 			this.sourceFormat = sourceFormat;
-			result = validate(dataInputStream, beansSchemaDecorator, inputConfig, dataStructureBean, dataflowBean, errorsLimit);
+			//the decorator is new, the retrieval manager is the one of the decorated structures
+			result = validate(dataInputStream, beansSchemaDecorator, inputConfig, dataStructureBean, dataflowBean, errorsLimit,
+					ParsedStructureCache.getRetrievalManager(structureBeans), new ConversionMetricsRecorder(metricsListeners));
 		} catch (IOException e) {
 			throw new RuntimeException(DATA_NOT_FOUND, e);
 		}
@@ -216,6 +230,23 @@ public class ValidationService {
 			                                DataStructureBean dataStructureBean, 
 			                                DataflowBean dataflowBean, 
 			                                int errorsLimit) {
+		return validate(dataFile, structureBeans, inputConfig, dataStructureBean, dataflowBean, errorsLimit,
+				ParsedStructureCache.getRetrievalManager(structureBeans), new ConversionMetricsRecorder(metricsListeners));
+	}
+
+	/**
+	 * @param retrievalManager the retrieval manager of the structures, shared by the {@link ParsedStructureCache}
+	 *                         when the structures were parsed or retrieved through it
+	 * @param metricsRecorder  the recorder of this validation, it may already hold the loading of the structure
+	 */
+	private ValidationServiceReturn validate(InputStream dataFile,
+			                                 SdmxBeans structureBeans,
+			                                 InputConfig inputConfig,
+			                                 DataStructureBean dataStructureBean,
+			                                 DataflowBean dataflowBean,
+			                                 int errorsLimit,
+			                                 SdmxBeanRetrievalManager retrievalManager,
+			                                 ConversionMetricsRecorder metricsRecorder) {
 
 		ValidationServiceReturn result = new ValidationServiceReturn();
 		List<ValidationError> errors = new ArrayList<>();
@@ -236,14 +267,16 @@ public class ValidationService {
 		DataValidationErrorDeduplicator deduplicatorDeep = null;
 		DataValidationErrorDeduplicator deduplicatorConstraints = null;
 		DataValidationErrorDeduplicator deduplicatorMandatory = null;
+		long startTime = System.currentTimeMillis();
+		long stageStart = System.nanoTime();
 		try (BOMInputStream bomInStream = new BOMInputStream(dataFile)) {
-			SdmxBeanRetrievalManager retrievalManager = new InMemoryRetrievalManager(structureBeans);
 			// SDMXCONV-1198
 			if (configService.isCheckBomError() && bomInStream.hasBOM()) {
 				final String errorString = "Unexpected character encoding: 'UTF-8 BOM'. Please make sure the input file is encoded in 'UTF-8'.";
 				throw new SdmxDataFormatException(ExceptionCode.XML_PARSE_EXCEPTION, null, 1, 1, errorString);
 			}
-			ReadableDataLocation sourceData = readableDataLocationFactory.getReadableDataLocation(bomInStream);
+			//The input is counted like the one of a conversion, every stream the readers open on it
+			ByteCountingDataLocation sourceData = new ByteCountingDataLocation(readableDataLocationFactory.getReadableDataLocation(bomInStream));
 			DATA_VERSION dataInputVersion = DATA_VERSION.NULL;
 			final ReadableDataLocation actualSourceData;
 			if (inputConfig != null) {
@@ -314,6 +347,7 @@ public class ValidationService {
 				}
 			}
 			dataReaderEngine = new ObservationCounterDecorator(dataReaderEngine, inputConfig, sourceFormat, dataflowBean);
+			metricsRecorder.stageCompleted(ConversionStage.FORMAT_DETECTION, stageStart);
 			// Report an error of bad formed XML document at start, because of the limit of the errors is not reported at all
 			exceptionHandler.wellFormedXml(actualSourceData.getInputStream(), XmlUtil.isXML(actualSourceData));
 			//SDMXCONV-1338
@@ -366,6 +400,7 @@ public class ValidationService {
 						errorsLimit, errorPositions, inputConfig.getStructureSchemaVersion());
 				dataValidationManager.addValidatorFactory(deduplicatorConstraints);
 			}
+			stageStart = System.nanoTime();
 			try {
 				dataValidationManager.validateData(validatingDataReaderEngine, exceptionHandler);
 			} catch (ErrorLimitException e) {
@@ -378,8 +413,16 @@ public class ValidationService {
 				numberOfErrors = DeduplicatorDecorator.handleExceptions(dataValidationErrors, exceptionHandler);
 				result.setNumberOfErrorsFound(numberOfErrors);
 			}
+			long validationNanos = System.nanoTime() - stageStart;
 			if (dataReaderEngine instanceof ObservationCounterDecorator) {
-				result.setObsCount(((ObservationCounterDecorator) dataReaderEngine).getObservationCounter());
+				ObservationCounterDecorator observationCounter = (ObservationCounterDecorator) dataReaderEngine;
+				result.setObsCount(observationCounter.getObservationCounter());
+				//The validators pull the observations from the reader, so reading is part of the validation
+				metricsRecorder.record(ConversionStage.VALIDATION, validationNanos);
+				ConverterMetrics metrics = new ConverterMetrics(startTime, System.currentTimeMillis(),
+						observationCounter.getIgnoredObservationCounter(), observationCounter.getObservationCounter());
+				metrics.setBytesRead(sourceData.getByteCount());
+				result.setMetrics(metricsRecorder.complete(metrics));
 			}
 		} catch (RuntimeException | IOException rex) {
 			// workaround for a design flaw in SdmxSource api 
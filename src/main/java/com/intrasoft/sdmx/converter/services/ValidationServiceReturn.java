@@ -2,6 +2,8 @@ package com.intrasoft.sdmx.converter.services;
 
 import java.util.ArrayList;
 import java.util.List;
+
+import com.intrasoft.sdmx.converter.ConverterMetrics;
 import org.estat.struval.ValidationError;
 
 import lombok.Data;
@@ -15,4 +17,7 @@ public @Data class ValidationServiceReturn {
 	private boolean hasMoreErrors = false;
 	
 	private int obsCount = 0; 
+
+	/** Timings of the validation, null if the validation did not complete */
+	private ConverterMetrics metrics;
 }
@@ -0,0 +1,162 @@
+package com.intrasoft.sdmx.converter.structures;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The components of a data structure compiled into ordinals.
+ * <p>Every component gets a stable ordinal, in the order of
+ * {@link DataStructureScanner#getComponents(boolean) getComponents(false)} with the cross sectional measures
+ * after the primary measure, the roles it has as a bitmask and, per level, the ordinals of the components of
+ * that level in the order of the scanner lists. Buffers of component values can then be flat arrays addressed
+ * by ordinal and reset a whole level without hashing a name or recomputing the lists of the scanner.</p>
+ */
+public final class ComponentSchema implements Serializable {
+
+	private static final long serialVersionUID = -2470962813658437155L;
+
+	public static final int DIMENSION = 1;
+	public static final int PRIMARY_MEASURE = 1 << 1;
+	public static final int CROSS_SECTIONAL_MEASURE = 1 << 2;
+	public static final int MEASURE = 1 << 3;
+	public static final int OBSERVATION_ATTRIBUTE = 1 << 4;
+	public static final int DATASET_ATTRIBUTE = 1 << 5;
+	public static final int GROUP_ATTRIBUTE = 1 << 6;
+	public static final int SERIES_ATTRIBUTE = 1 << 7;
+
+	private final List<String> names = new ArrayList<>();
+	private final Map<String, Integer> ordinals = new HashMap<>();
+	private int[] roles = new int[0];
+
+	private final int[] dimensionsAndPrimaryMeasure;
+	private final int[] crossSectionalMeasures;
+	private final int[] measures;
+	private final int[] observationLevelAttributes;
+	private final int[] datasetLevelAttributes;
+	private final int[] groupLevelAttributes;
+	private final int[] seriesLevelAttributes;
+
+	/**
+	 * @param dimensions                 the dimensions followed by the primary measure, as {@link DataStructureScanner#getDimensions(boolean) getDimensions(false)}
+	 * @param primaryMeasure             the primary measure, null when the structure has none
+	 * @param crossSectionalMeasures     the cross sectional measures, empty when the structure has none
+	 * @param measures                   the measures other than the primary measure
+	 * @param observationLevelAttributes the attributes at observation level
+	 * @param datasetLevelAttributes     the attributes at dataset level
+	 * @param groupLevelAttributes       the attributes of the groups
+	 * @param seriesLevelAttributes      the attributes at series level
+	 */
+	public ComponentSchema(List<String> dimensions, String primaryMeasure, List<String> crossSectionalMeasures,
+						   List<String> measures, List<String> observationLevelAttributes,
+						   List<String> datasetLevelAttributes, List<String> groupLevelAttributes,
+						   List<String> seriesLevelAttributes) {
+		this.dimensionsAndPrimaryMeasure = new int[dimensions.size()];
+		for (int i = 0; i < dimensions.size(); i++) {
+			String name = dimensions.get(i);
+			this.dimensionsAndPrimaryMeasure[i] = register(name, name.equals(primaryMeasure) ? PRIMARY_MEASURE : DIMENSION);
+		}
+		this.crossSectionalMeasures = register(crossSectionalMeasures, CROSS_SECTIONAL_MEASURE);
+		this.measures = register(measures, MEASURE);
+		this.observationLevelAttributes = register(observationLevelAttributes, OBSERVATION_ATTRIBUTE);
+		this.datasetLevelAttributes = register(datasetLevelAttributes, DATASET_ATTRIBUTE);
+		this.groupLevelAttributes = register(groupLevelAttributes, GROUP_ATTRIBUTE);
+		this.seriesLevelAttributes = register(seriesLevelAttributes, SERIES_ATTRIBUTE);
+	}
+
+	private int[] register(List<String> components, int role) {
+		int[] result = new int[components.size()];
+		for (int i = 0; i < components.size(); i++) {
+			result[i] = register(components.get(i), role);
+		}
+		return result;
+	}
+
+	/**
+	 * A component found on several levels keeps the ordinal of its first occurrence and collects the roles.
+	 */
+	private int register(String name, int role) {
+		Integer ordinal = ordinals.get(name);
+		if (ordinal == null) {
+			ordinal = names.size();
+			names.add(name);
+			ordinals.put(name, ordinal);
+			int[] grown = new int[names.size()];
+			System.arraycopy(roles, 0, grown, 0, roles.length);
+			roles = grown;
+		}
+		roles[ordinal] |= role;
+		return ordinal;
+	}
+
+	/**
+	 * @return the number of components, the ordinals are 0 to size - 1
+	 */
+	public int size() {
+		return names.size();
+	}
+
+	/**
+	 * @return the ordinal of the component, -1 when it is not part of the structure
+	 */
+	public int ordinalOf(String component) {
+		Integer ordinal = ordinals.get(component);
+		return ordinal != null ? ordinal : -1;
+	}
+
+	public String nameOf(int ordinal) {
+		return names.get(ordinal);
+	}
+
+	public List<String> getNames() {
+		return Collections.unmodifiableList(names);
+	}
+
+	/**
+	 * @return the roles of the component as a bitmask of the role constants of this class, 0 when it is not part of the structure
+	 */
+	public int rolesOf(String component) {
+		int ordinal = ordinalOf(component);
+		return ordinal >= 0 ? roles[ordinal] : 0;
+	}
+
+	public boolean hasRole(int ordinal, int role) {
+		return (roles[ordinal] & role) != 0;
+	}
+
+	/**
+	 * The arrays returned by the level getters are shared, they must not be modified.
+	 *
+	 * @return the ordinals of the dimensions followed by the primary measure
+	 */
+	public int[] getDimensionsAndPrimaryMeasure() {
+		return dimensionsAndPrimaryMeasure;
+	}
+
+	public int[] getCrossSectionalMeasures() {
+		return crossSectionalMeasures;
+	}
+
+	public int[] getMeasures() {
+		return measures;
+	}
+
+	public int[] getObservationLevelAttributes() {
+		return observationLevelAttributes;
+	}
+
+	public int[] getDatasetLevelAttributes() {
+		return datasetLevelAttributes;
+	}
+
+	public int[] getGroupLevelAttributes() {
+		return groupLevelAttributes;
+	}
+
+	public int[] getSeriesLevelAttributes() {
+		return seriesLevelAttributes;
+	}
+}
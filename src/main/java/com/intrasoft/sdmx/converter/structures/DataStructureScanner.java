@@ -80,6 +80,11 @@ public class DataStructureScanner implements SdmxBeansScanner, Serializable {
 	 */
 	private List<String> codedComponentNames;
 
+	/**
+	 * lazy computed cache for the component ordinals
+	 */
+	private ComponentSchema componentSchema;
+
 	/**
 	 * @param sdmxBeans
 	 */
@@ -395,6 +400,30 @@ public class DataStructureScanner implements SdmxBeansScanner, Serializable {
 		return result;
 	}
 
+	/**
+	 * retrieves lazily the components compiled into ordinals, see {@link ComponentSchema}
+	 *
+	 * @return the component schema of the data structure
+	 */
+	public ComponentSchema getComponentSchema() {
+		if (componentSchema == null) {
+			componentSchema = computeComponentSchema();
+		}
+		return componentSchema;
+	}
+
+	private ComponentSchema computeComponentSchema() {
+		String primaryMeasure = ObjectUtil.validObject(dataStructureBean.getPrimaryMeasure()) ? dataStructureBean.getPrimaryMeasure().getId() : null;
+		List<String> crossXMeasures = new ArrayList<>();
+		if (hasCrossSectionalMeasures()) {
+			for (CrossSectionalMeasureBean crossXMeasure : ((CrossSectionalDataStructureBean) dataStructureBean).getCrossSectionalMeasures()) {
+				crossXMeasures.add(crossXMeasure.getId());
+			}
+		}
+		return new ComponentSchema(computeDimensions(false), primaryMeasure, crossXMeasures, getMeasures(),
+				getObservationLevelAttributes(), getDatasetLevelAttributes(), getGroupLevelAttributes(), getSeriesLevelAttributes());
+	}
+
 	/**
 	 * retrieves lazily the names of the coded components
 	 *
@@ -590,6 +619,7 @@ public class DataStructureScanner implements SdmxBeansScanner, Serializable {
 		measureDimension = null;
 		dimensionAtObservation = null;
 		codedComponentNames = null;
+		componentSchema = null;
 	}
 
 }
@@ -67,6 +67,7 @@ public class DataReaderToWriter {
 		}
 		context.reset();
 		context.writeHeader();
+		Exception failure = null;
 		try {
 			//Reading and writing starts here
 			while (dataReaderEngine.moveNextDataset()) {
@@ -101,13 +102,33 @@ public class DataReaderToWriter {
 			}
 		} catch (Exception ex) {
 			logger.debug("Error when transferring data from reader to writer", ex);
+			failure = ex;
 			throw ex;
 		} finally {
 			if(dataReaderEngine != null)
-				dataReaderEngine.close();
+				close(dataReaderEngine::close, failure);
 			if(dataWriterEngine != null)
-				dataWriterEngine.close();
+				close(() -> dataWriterEngine.close(), failure);
 		}
 
 	}
+
+	/**
+	 * Closes an engine without hiding the error of the transfer.
+	 * <p>A pipelined writer re-throws on close the errors of its writer thread,
+	 * these are added as suppressed to the error that stopped the reading.</p>
+	 *
+	 * @param closing the close of the engine
+	 * @param failure the error of the transfer, null when it completed
+	 */
+	private static void close(Runnable closing, Exception failure) {
+		try {
+			closing.run();
+		} catch (RuntimeException ex) {
+			if (failure == null) {
+				throw ex;
+			}
+			failure.addSuppressed(ex);
+		}
+	}
 }
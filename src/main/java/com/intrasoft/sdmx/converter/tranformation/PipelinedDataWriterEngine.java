@@ -0,0 +1,426 @@
+package com.intrasoft.sdmx.converter.tranformation;
+
+import com.intrasoft.sdmx.converter.ConversionMetricsRecorder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.sdmxsource.sdmx.api.constants.TIME_FORMAT;
+import org.sdmxsource.sdmx.api.engine.DataWriterEngine;
+import org.sdmxsource.sdmx.api.exception.SdmxException;
+import org.sdmxsource.sdmx.api.model.beans.base.AnnotationBean;
+import org.sdmxsource.sdmx.api.model.beans.datastructure.DataStructureBean;
+import org.sdmxsource.sdmx.api.model.beans.datastructure.DataflowBean;
+import org.sdmxsource.sdmx.api.model.beans.registry.ProvisionAgreementBean;
+import org.sdmxsource.sdmx.api.model.data.KeyValue;
+import org.sdmxsource.sdmx.api.model.header.DatasetHeaderBean;
+import org.sdmxsource.sdmx.api.model.header.HeaderBean;
+import org.sdmxsource.sdmx.dataparser.engine.reader.ThreadLocalOutputReporter;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * <b>Decorator that moves the serialization of a {@link DataWriterEngine} to its own thread.</b>
+ * <p>Every call received from the reading side is recorded as an event inside a batch. Full batches are handed
+ * over through a bounded queue to a writer thread that replays them, in the same order, on the decorated writer.
+ * This way parsing of the input and serialization of the output run on different cores.</p>
+ * <p>Batches are recycled between the two threads. When all of them are in use the reading side blocks until the
+ * writer catches up, so memory stays bounded to {@code batchCount * batchSize} pending events.</p>
+ * <p>An exception thrown by the decorated writer is re-thrown on the reading side at the next batch hand over
+ * or at the latest on {@link #close(FooterMessage...)}.</p>
+ * <p>Only the writer methods that return nothing are pipelined, the decorated writer must not be used directly
+ * while this decorator is open.</p>
+ * <p>The time of the two threads is measured per batch: the time the writer thread spends replaying batches
+ * and the time the reading side waits for the writer thread. The bytes allocated by the writer thread are
+ * measured as well, they are not part of the allocations of the reading side.</p>
+ */
+public class PipelinedDataWriterEngine implements DataWriterEngine {
+
+	private static Logger logger = LogManager.getLogger(PipelinedDataWriterEngine.class);
+
+	/** Default number of events recorded before a batch is handed to the writer thread. */
+	public static final int DEFAULT_BATCH_SIZE = 2048;
+
+	/** Default number of batches that can be in flight at the same time. */
+	public static final int DEFAULT_BATCH_COUNT = 8;
+
+	private static final int ARGS_PER_EVENT = 4;
+
+	private enum Operation {
+		WRITE_HEADER, START_DATASET, START_PROVISION_DATASET, START_GROUP, START_SERIES,
+		WRITE_GROUP_KEY_VALUE, WRITE_SERIES_KEY_VALUE, WRITE_ATTRIBUTE_VALUE,
+		WRITE_OBSERVATION, WRITE_OBSERVATION_WITH_CONCEPT, WRITE_TIME_OBSERVATION, WRITE_OBSERVATION_WITHOUT_VALUE,
+		WRITE_COMPLEX_ATTRIBUTE_VALUE, WRITE_COMPLEX_MEASURE_VALUE, WRITE_MEASURE_VALUE, CLOSE
+	}
+
+	/**
+	 * Fixed size block of events, the arguments of event {@code i}
+	 * are stored in {@code args[i * ARGS_PER_EVENT]...args[i * ARGS_PER_EVENT + 3]}.
+	 */
+	private static final class Batch {
+		private final Operation[] operations;
+		private final Object[] args;
+		private int size;
+		private boolean last;
+
+		private Batch(int capacity) {
+			this.operations = new Operation[capacity];
+			this.args = new Object[capacity * ARGS_PER_EVENT];
+		}
+
+		private boolean isFull() {
+			return size == operations.length;
+		}
+
+		private void add(Operation operation, Object arg0, Object arg1, Object arg2, Object arg3) {
+			int offset = size * ARGS_PER_EVENT;
+			operations[size] = operation;
+			args[offset] = arg0;
+			args[offset + 1] = arg1;
+			args[offset + 2] = arg2;
+			args[offset + 3] = arg3;
+			size++;
+		}
+
+		private void clear() {
+			Arrays.fill(args, 0, size * ARGS_PER_EVENT, null);
+			size = 0;
+			last = false;
+		}
+	}
+
+	private final DataWriterEngine dataWriterEngine;
+
+	private final BlockingQueue<Batch> pendingBatches;
+
+	private final BlockingQueue<Batch> freeBatches;
+
+	private final Thread writerThread;
+
+	private volatile Throwable writerFailure;
+
+	/** nanoseconds spent by the writer thread replaying batches, read after the writer thread has been joined */
+	private long writingNanos;
+
+	/** bytes allocated by the writer thread, read after the writer thread has been joined */
+	private long allocatedBytes = -1;
+
+	/** nanoseconds the reading side spent waiting for the writer thread */
+	private long waitingNanos;
+
+	private Batch currentBatch;
+
+	private boolean closed;
+
+	public PipelinedDataWriterEngine(DataWriterEngine dataWriterEngine) {
+		this(dataWriterEngine, DEFAULT_BATCH_SIZE, DEFAULT_BATCH_COUNT);
+	}
+
+	/**
+	 * @param dataWriterEngine the writer that will do the actual serialization
+	 * @param batchSize        number of events per batch
+	 * @param batchCount       number of batches, bounds the events that wait for the writer thread
+	 */
+	public PipelinedDataWriterEngine(DataWriterEngine dataWriterEngine, int batchSize, int batchCount) {
+		if (dataWriterEngine == null) {
+			throw new IllegalArgumentException("The data writer engine cannot be null");
+		}
+		if (batchSize < 1 || batchCount < 2) {
+			throw new IllegalArgumentException("Pipeline needs a batch size of at least 1 and at least 2 batches");
+		}
+		this.dataWriterEngine = dataWriterEngine;
+		this.pendingBatches = new ArrayBlockingQueue<>(batchCount);
+		this.freeBatches = new ArrayBlockingQueue<>(batchCount);
+		for (int i = 1; i < batchCount; i++) {
+			this.freeBatches.add(new Batch(batchSize));
+		}
+		this.currentBatch = new Batch(batchSize);
+		// Writers may consult the reporter settings of the thread that started the conversion
+		final Boolean writeAnnotations = ThreadLocalOutputReporter.getWriteAnnotations().get();
+		this.writerThread = new Thread(() -> {
+			ThreadLocalOutputReporter.getWriteAnnotations().set(writeAnnotations);
+			replayBatches();
+		}, "sdmx-pipelined-writer");
+		this.writerThread.setDaemon(true);
+		this.writerThread.start();
+	}
+
+	/**
+	 * @return the decorated writer
+	 */
+	public DataWriterEngine getDataWriterEngine() {
+		return dataWriterEngine;
+	}
+
+	private void replayBatches() {
+		long startAllocatedBytes = ConversionMetricsRecorder.currentThreadAllocatedBytes();
+		try {
+			while (true) {
+				Batch batch = pendingBatches.take();
+				boolean last = batch.last;
+				if (writerFailure == null) {
+					long start = System.nanoTime();
+					try {
+						replay(batch);
+					} catch (Throwable ex) {
+						logger.debug("Error while writing in the pipelined writer thread", ex);
+						writerFailure = ex;
+					}
+					writingNanos += System.nanoTime() - start;
+				}
+				batch.clear();
+				freeBatches.put(batch);
+				if (last) {
+					return;
+				}
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			if (writerFailure == null) {
+				writerFailure = ex;
+			}
+		} finally {
+			long endAllocatedBytes = ConversionMetricsRecorder.currentThreadAllocatedBytes();
+			if (startAllocatedBytes >= 0 && endAllocatedBytes >= 0) {
+				allocatedBytes = endAllocatedBytes - startAllocatedBytes;
+			}
+		}
+	}
+
+	private void replay(Batch batch) {
+		Object[] args = batch.args;
+		for (int i = 0; i < batch.size; i++) {
+			int o = i * ARGS_PER_EVENT;
+			switch (batch.operations[i]) {
+				case WRITE_HEADER:
+					dataWriterEngine.writeHeader((HeaderBean) args[o]);
+					break;
+				case START_DATASET:
+					dataWriterEngine.startDataset((DataflowBean) args[o], (DataStructureBean) args[o + 1],
+							(DatasetHeaderBean) args[o + 2], (AnnotationBean[]) args[o + 3]);
+					break;
+				case START_PROVISION_DATASET:
+					Object[] provisionArgs = (Object[]) args[o + 3];
+					dataWriterEngine.startDataset((ProvisionAgreementBean) args[o], (DataflowBean) args[o + 1],
+							(DataStructureBean) args[o + 2], (DatasetHeaderBean) provisionArgs[0],
+							(AnnotationBean[]) provisionArgs[1]);
+					break;
+				case START_GROUP:
+					dataWriterEngine.startGroup((String) args[o], (AnnotationBean[]) args[o + 1]);
+					break;
+				case START_SERIES:
+					dataWriterEngine.startSeries((AnnotationBean[]) args[o]);
+					break;
+				case WRITE_GROUP_KEY_VALUE:
+					dataWriterEngine.writeGroupKeyValue((String) args[o], (String) args[o + 1]);
+					break;
+				case WRITE_SERIES_KEY_VALUE:
+					dataWriterEngine.writeSeriesKeyValue((String) args[o], (String) args[o + 1]);
+					break;
+				case WRITE_ATTRIBUTE_VALUE:
+					dataWriterEngine.writeAttributeValue((String) args[o], (String) args[o + 1]);
+					break;
+				case WRITE_OBSERVATION:
+					dataWriterEngine.writeObservation((String) args[o], (String) args[o + 1], (AnnotationBean[]) args[o + 2]);
+					break;
+				case WRITE_OBSERVATION_WITH_CONCEPT:
+					dataWriterEngine.writeObservation((String) args[o], (String) args[o + 1], (String) args[o + 2],
+							(AnnotationBean[]) args[o + 3]);
+					break;
+				case WRITE_TIME_OBSERVATION:
+					dataWriterEngine.writeObservation((Date) args[o], (String) args[o + 1], (TIME_FORMAT) args[o + 2],
+							(AnnotationBean[]) args[o + 3]);
+					break;
+				case WRITE_OBSERVATION_WITHOUT_VALUE:
+					dataWriterEngine.writeObservation((String) args[o], (AnnotationBean[]) args[o + 1]);
+					break;
+				case WRITE_COMPLEX_ATTRIBUTE_VALUE:
+					dataWriterEngine.writeComplexAttributeValue((KeyValue) args[o]);
+					break;
+				case WRITE_COMPLEX_MEASURE_VALUE:
+					dataWriterEngine.writeComplexMeasureValue((KeyValue) args[o]);
+					break;
+				case WRITE_MEASURE_VALUE:
+					dataWriterEngine.writeMeasureValue((String) args[o], (String) args[o + 1]);
+					break;
+				case CLOSE:
+					dataWriterEngine.close((FooterMessage[]) args[o]);
+					break;
+				default:
+					throw new IllegalStateException("Unknown pipelined writer operation " + batch.operations[i]);
+			}
+		}
+	}
+
+	private void record(Operation operation, Object arg0, Object arg1, Object arg2, Object arg3) {
+		if (closed) {
+			throw new IllegalStateException("The pipelined writer has already been closed");
+		}
+		currentBatch.add(operation, arg0, arg1, arg2, arg3);
+		if (currentBatch.isFull()) {
+			handOver(false);
+			rethrowWriterFailure();
+		}
+	}
+
+	/**
+	 * Passes the current batch to the writer thread and takes a free one.
+	 * Blocks when the writer thread is behind, which is what keeps the memory bounded.
+	 */
+	private void handOver(boolean last) {
+		currentBatch.last = last;
+		long start = System.nanoTime();
+		try {
+			pendingBatches.put(currentBatch);
+			currentBatch = last ? null : freeBatches.take();
+			waitingNanos += System.nanoTime() - start;
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			writerThread.interrupt();
+			throw new SdmxException(ex, "Interrupted while waiting for the pipelined writer");
+		}
+	}
+
+	private void rethrowWriterFailure() {
+		Throwable failure = writerFailure;
+		if (failure == null) {
+			return;
+		}
+		if (failure instanceof RuntimeException) {
+			throw (RuntimeException) failure;
+		}
+		if (failure instanceof Error) {
+			throw (Error) failure;
+		}
+		throw new SdmxException(failure, "Error while writing the output: " + failure.getMessage());
+	}
+
+	@Override
+	public void writeHeader(HeaderBean header) {
+		record(Operation.WRITE_HEADER, header, null, null, null);
+	}
+
+	@Override
+	public void startDataset(DataflowBean dataflow, DataStructureBean dataStructureBean, DatasetHeaderBean header, AnnotationBean... annotations) {
+		record(Operation.START_DATASET, dataflow, dataStructureBean, header, annotations);
+	}
+
+	@Override
+	public void startDataset(ProvisionAgreementBean provision, DataflowBean dataflow, DataStructureBean dataStructureBean, DatasetHeaderBean header, AnnotationBean... annotations) {
+		record(Operation.START_PROVISION_DATASET, provision, dataflow, dataStructureBean, new Object[]{header, annotations});
+	}
+
+	@Override
+	public void startGroup(String groupId, AnnotationBean... annotations) {
+		record(Operation.START_GROUP, groupId, annotations, null, null);
+	}
+
+	@Override
+	public void startSeries(AnnotationBean... annotations) {
+		record(Operation.START_SERIES, annotations, null, null, null);
+	}
+
+	@Override
+	public void writeGroupKeyValue(String id, String value) {
+		record(Operation.WRITE_GROUP_KEY_VALUE, id, value, null, null);
+	}
+
+	@Override
+	public void writeSeriesKeyValue(String id, String value) {
+		record(Operation.WRITE_SERIES_KEY_VALUE, id, value, null, null);
+	}
+
+	@Override
+	public void writeAttributeValue(String id, String value) {
+		record(Operation.WRITE_ATTRIBUTE_VALUE, id, value, null, null);
+	}
+
+	@Override
+	public void writeObservation(String obsConceptValue, String obsValue, AnnotationBean... annotations) {
+		record(Operation.WRITE_OBSERVATION, obsConceptValue, obsValue, annotations, null);
+	}
+
+	@Override
+	public void writeObservation(String observationConceptId, String obsConceptValue, String obsValue, AnnotationBean... annotations) {
+		record(Operation.WRITE_OBSERVATION_WITH_CONCEPT, observationConceptId, obsConceptValue, obsValue, annotations);
+	}
+
+	@Override
+	public void writeObservation(Date obsTime, String obsValue, TIME_FORMAT sdmxTimeFormat, AnnotationBean... annotations) {
+		record(Operation.WRITE_TIME_OBSERVATION, obsTime, obsValue, sdmxTimeFormat, annotations);
+	}
+
+	@Override
+	public void writeObservation(String obsConceptValue, AnnotationBean... annotations) {
+		record(Operation.WRITE_OBSERVATION_WITHOUT_VALUE, obsConceptValue, annotations, null, null);
+	}
+
+	@Override
+	public void writeComplexAttributeValue(KeyValue keyValue) {
+		record(Operation.WRITE_COMPLEX_ATTRIBUTE_VALUE, keyValue, null, null, null);
+	}
+
+	@Override
+	public void writeComplexMeasureValue(KeyValue keyValue) {
+		record(Operation.WRITE_COMPLEX_MEASURE_VALUE, keyValue, null, null, null);
+	}
+
+	@Override
+	public void writeMeasureValue(String id, String value) {
+		record(Operation.WRITE_MEASURE_VALUE, id, value, null, null);
+	}
+
+	/**
+	 * Sends the remaining events together with the close to the writer thread
+	 * and waits until everything has been written.
+	 * @param footer footer messages passed to the decorated writer
+	 */
+	@Override
+	public void close(FooterMessage... footer) {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		currentBatch.add(Operation.CLOSE, footer, null, null, null);
+		try {
+			// the writer thread always stops after the last batch, even when it has already failed
+			handOver(true);
+			long start = System.nanoTime();
+			writerThread.join();
+			waitingNanos += System.nanoTime() - start;
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			writerThread.interrupt();
+			throw new SdmxException(ex, "Interrupted while waiting for the pipelined writer to finish");
+		}
+		rethrowWriterFailure();
+	}
+
+	public void close() {
+		close(new FooterMessage[]{});
+	}
+
+	/**
+	 * @return the nanoseconds the writer thread spent in the decorated writer, complete once the pipeline is closed
+	 */
+	public long getWritingNanos() {
+		return closed && !writerThread.isAlive() ? writingNanos : -1;
+	}
+
+	/**
+	 * @return the bytes allocated by the writer thread, complete once the pipeline is closed,
+	 * or -1 if the JVM does not report them
+	 */
+	public long getAllocatedBytes() {
+		return closed && !writerThread.isAlive() ? allocatedBytes : -1;
+	}
+
+	/**
+	 * @return the nanoseconds the reading side spent waiting for the writer thread,
+	 * including the wait for the last batch on close
+	 */
+	public long getWaitingNanos() {
+		return waitingNanos;
+	}
+}
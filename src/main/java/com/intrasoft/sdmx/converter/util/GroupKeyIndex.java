@@ -0,0 +1,105 @@
+package com.intrasoft.sdmx.converter.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index of group keys by the projection of a series key onto the dimensions of each group.
+ * <p>The groups are bucketed by their set of dimensions. Finding the groups of a series projects the series key
+ * onto the dimensions of each bucket and does one hash lookup per bucket, instead of testing every group
+ * whether its key is a subset of the series key. The number of buckets is the number of group types of
+ * the data structure.</p>
+ * <p>The key values of a group are read when the group is added.</p>
+ *
+ * @param <G> the group held for a key
+ */
+final class GroupKeyIndex<G> {
+
+	private static final class Bucket<G> {
+
+		/** the dimensions of the groups of this bucket, in the order the projection is made */
+		final String[] dimensions;
+		final Map<List<String>, Entry<G>> groups = new HashMap<>();
+
+		Bucket(String[] dimensions) {
+			this.dimensions = dimensions;
+		}
+	}
+
+	private static final class Entry<G> {
+
+		final G group;
+		/** the position of the group in the order the groups were added */
+		final int order;
+
+		Entry(G group, int order) {
+			this.group = group;
+			this.order = order;
+		}
+	}
+
+	private final Map<Set<String>, Bucket<G>> buckets = new LinkedHashMap<>();
+
+	/** whether the last group added for a key wins, otherwise the first one */
+	private final boolean lastWins;
+
+	private int added;
+
+	/**
+	 * @param lastWins true when the group added last wins over the groups of the same series, false for the first one
+	 */
+	GroupKeyIndex(boolean lastWins) {
+		this.lastWins = lastWins;
+	}
+
+	void add(Map<String, String> groupKeyValues, G group) {
+		Bucket<G> bucket = buckets.get(groupKeyValues.keySet());
+		if (bucket == null) {
+			bucket = new Bucket<>(groupKeyValues.keySet().toArray(new String[0]));
+			buckets.put(new HashSet<>(groupKeyValues.keySet()), bucket);
+		}
+		List<String> values = project(groupKeyValues, bucket.dimensions);
+		Entry<G> entry = new Entry<>(group, added++);
+		if (lastWins) {
+			bucket.groups.put(values, entry);
+		} else {
+			bucket.groups.putIfAbsent(values, entry);
+		}
+	}
+
+	/**
+	 * @return the group whose key values are all part of the series key values, the first or the last one added
+	 * when there are several, null when there is none
+	 */
+	G find(Map<String, String> seriesKeyValues) {
+		Entry<G> result = null;
+		for (Bucket<G> bucket : buckets.values()) {
+			List<String> values = project(seriesKeyValues, bucket.dimensions);
+			Entry<G> entry = values != null ? bucket.groups.get(values) : null;
+			if (entry != null && (result == null || (lastWins ? entry.order > result.order : entry.order < result.order))) {
+				result = entry;
+			}
+		}
+		return result != null ? result.group : null;
+	}
+
+	/**
+	 * @return the values of the key for the dimensions, null when the key misses one of them
+	 */
+	private static List<String> project(Map<String, String> keyValues, String[] dimensions) {
+		List<String> values = new ArrayList<>(dimensions.length);
+		for (String dimension : dimensions) {
+			String value = keyValues.get(dimension);
+			if (value == null && !keyValues.containsKey(dimension)) {
+				return null;
+			}
+			values.add(value);
+		}
+		return values;
+	}
+}
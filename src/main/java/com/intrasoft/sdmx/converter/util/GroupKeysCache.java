@@ -1,8 +1,6 @@
 package com.intrasoft.sdmx.converter.util;
 
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 import com.intrasoft.sdmx.converter.model.data.GroupKey;
@@ -10,7 +8,10 @@ import com.intrasoft.sdmx.converter.model.data.TimeseriesKey;
 
 public class GroupKeysCache {
 	
-	private List<GroupKey> listOfGroups = new ArrayList<GroupKey>();
+	/**
+	 * the group keys indexed by their dimensions, the last group added wins
+	 */
+	private GroupKeyIndex<GroupKey> index = new GroupKeyIndex<GroupKey>(true);
 			
 	public boolean hasGroupForKey(TimeseriesKey seriesKey){
 	    if (getGroupForSeries(seriesKey) !=null) {
@@ -30,18 +31,10 @@ public class GroupKeysCache {
 	}
 	
 	public void addGroupKey(GroupKey groupKey) {
-		listOfGroups.add(groupKey);
+		index.add(groupKey.getKeyValues(), groupKey);
 	}
 	
 	private GroupKey getGroupForSeries(TimeseriesKey seriesKey){
-		GroupKey result = null;
-		Map<String,String> keysFromSeries = seriesKey.getKeyValues();
-	    for (GroupKey group: listOfGroups) {
-	    	Map<String,String> keysFromGroups = group.getKeyValues();
-	    	if (keysFromSeries.entrySet().containsAll(keysFromGroups.entrySet())) {
-	    		result = group;
-	    	}
-	    }
-	    return result;
+		return index.find(seriesKey.getKeyValues());
 	}
 }
@@ -12,9 +12,15 @@ public class GroupsCache {
 	private Map<Keys, Attrs> keysAndAttributes = new LinkedHashMap<>();
 	private Map<Keys, String> keysAndNames = new LinkedHashMap<>();
 
+	/**
+	 * the group keys indexed by their dimensions, the first group added wins
+	 */
+	private GroupKeyIndex<Keys> index = new GroupKeyIndex<>(false);
+
 	public void addGroup(String groupId, Keys groupKey, Attrs groupAttrs) {
 		keysAndNames.put(groupKey, groupId);
 		keysAndAttributes.put(groupKey, groupAttrs);
+		index.add(groupKey.getKeysWithValues(), groupKey);
 	}
 
     /**
@@ -23,14 +29,7 @@ public class GroupsCache {
      * @return
      */
     public boolean hasGroupForKey(Keys seriesKeys){
-	    boolean result = false;
-        for (Keys groupKeys: keysAndAttributes.keySet()) {
-            if (seriesKeys.includes(groupKeys)) {
-                result = true;
-                break;
-            }
-        }
-        return result;
+        return index.find(seriesKeys.getKeysWithValues()) != null;
     }
 
 	/**
@@ -41,12 +40,10 @@ public class GroupsCache {
 	 */
 	public Pair<String, Attrs> getGroupForSeries(Keys seriesKeys){
 		Pair<String, Attrs> result = null;
-	    for (Keys groupKeys: keysAndAttributes.keySet()) {
-	    	if (seriesKeys.includes(groupKeys)) {
-	    		result = Pair.of(keysAndNames.get(groupKeys), keysAndAttributes.get(groupKeys));
-	    		break;
-	    	}
-	    }
+		Keys groupKeys = index.find(seriesKeys.getKeysWithValues());
+		if (groupKeys != null) {
+			result = Pair.of(keysAndNames.get(groupKeys), keysAndAttributes.get(groupKeys));
+		}
 	    return result;
 	}
 }
@@ -1,28 +1,27 @@
 package com.intrasoft.sdmx.converter.ws;
 
-import org.apache.commons.io.FileUtils;
+import com.intrasoft.sdmx.converter.sdmxsource.HttpTransport;
+import com.intrasoft.sdmx.converter.sdmxsource.SoapPayloadInputStream;
+import com.intrasoft.sdmx.converter.services.exceptions.RegistryConnectionException;
 import org.apache.commons.io.IOUtils;
 import org.apache.http.HttpRequest;
 import org.apache.http.HttpRequestInterceptor;
-import org.apache.http.HttpResponse;
-import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.entity.AbstractHttpEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClientBuilder;
-import org.apache.http.impl.client.HttpClients;
 import org.apache.http.protocol.HTTP;
 import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.sdmxsource.sdmx.api.constants.SDMX_ERROR_CODE;
-import org.sdmxsource.sdmx.api.exception.SdmxException;
-import org.sdmxsource.util.ObjectUtil;
+import org.w3c.dom.Document;
 
+import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.soap.*;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
 import java.util.Iterator;
 
 /**
@@ -34,99 +33,108 @@ public class WsSoapClient {
 	private static Logger logger = LogManager.getLogger(WsSoapClient.class);
 
 	/**
-	 * Method that writes the SOAPMessage in a file,
-	 * sets the entity in an HttpClient
-	 * and sends a simple POST.
+	 * Method that sends the SOAPMessage with a simple POST
+	 * and builds the SOAPMessage of the response.
+	 * <p>The envelope of the response is skipped by the {@link SoapPayloadInputStream} while it is received, only the
+	 * payload is parsed into the body of the SOAPMessage returned. The header of the response is not kept.
+	 * For big responses prefer {@link #sendRequest(SOAPMessage, String, OutputStream)},
+	 * which does not build the payload in memory.</p>
 	 *
 	 * @param message SOAPMessage
 	 * @param url     Web Service URL
-	 * @return SOAPMessage The response
+	 * @return SOAPMessage The response, null when the response is a soap fault or cannot be read
 	 * @throws Exception
 	 */
 	public static SOAPMessage sendRequest(final SOAPMessage message, String url) throws Exception {
-		File outputFile = File.createTempFile("tempSoapMessage", null);
-		FileOutputStream outputStream = null;
-		CloseableHttpClient infapiclient = HttpClients.createDefault();
 		SOAPMessage response = null;
-		try {
-			outputStream = new FileOutputStream(outputFile);
-			message.writeTo(outputStream);
-			// Default client initialization
-			RequestConfig requestConfig = RequestConfig.custom().setConnectTimeout(100 * 1200) // 1200s
-					.setConnectionRequestTimeout(100 * 1200) // 120s
-					.build();
+		try (CloseableHttpResponse infresponse = post(message, url);
+			 InputStream content = new SoapPayloadInputStream(infresponse.getEntity().getContent(), false)) {
+			DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+			documentBuilderFactory.setNamespaceAware(true);
+			Document payload = documentBuilderFactory.newDocumentBuilder().parse(content);
+			response = MessageFactory.newInstance().createMessage();
+			response.getSOAPBody().addDocument(payload);
+			response.saveChanges();
+			// the response is parsed before the connection goes back to the pool
+			EntityUtils.consume(infresponse.getEntity());
+		} catch (RegistryConnectionException ex) {
+			logger.error("Response contains Fault: " + ex.getMessage());
+		} catch (Exception ex) {
+			logger.error("General Exception", ex);
+		}
+		return response;
+	}
 
-			HttpClientBuilder httpClientBuilder = HttpClientBuilder.create();
-			httpClientBuilder = HttpClients.custom().addInterceptorFirst(new ContentLengthHeaderRemover()).setDefaultRequestConfig(requestConfig);
-			infapiclient = httpClientBuilder.build();
+	/**
+	 * Method that sends the SOAPMessage with a simple POST
+	 * and writes the content of the soap body of the response to the output.
+	 * <p>The envelope of the response is skipped while it is received by the {@link SoapPayloadInputStream},
+	 * so the response is never held in memory.</p>
+	 *
+	 * @param message SOAPMessage
+	 * @param url     Web Service URL
+	 * @param payload the output of the content of the soap body
+	 * @return false when the response is a soap fault
+	 * @throws Exception
+	 */
+	public static boolean sendRequest(final SOAPMessage message, String url, OutputStream payload) throws Exception {
+		try (CloseableHttpResponse infresponse = post(message, url);
+			 InputStream content = new SoapPayloadInputStream(infresponse.getEntity().getContent(), false)) {
+			IOUtils.copy(content, payload);
+			EntityUtils.consume(infresponse.getEntity());
+			return true;
+		} catch (RegistryConnectionException ex) {
+			logger.error("Response contains Fault: " + ex.getMessage());
+			return false;
+		}
+	}
 
-			// We need the endpoint with the extension of ws
-			HttpPost infapiclientpost = new HttpPost(url);
-			HttpResponse infresponse;
-			Iterator headers = message.getMimeHeaders().getAllHeaders();
+	/**
+	 * Posts the message with the shared client of the {@link HttpTransport},
+	 * the message is sent with its Content-Length.
+	 *
+	 * @return the response, to be closed by the caller
+	 */
+	private static CloseableHttpResponse post(final SOAPMessage message, String url) throws Exception {
+		CloseableHttpClient infapiclient = HttpTransport.getClient(new URL(url), null, null, null);
+		// We need the endpoint with the extension of ws
+		HttpPost infapiclientpost = new HttpPost(url);
+		Iterator headers = message.getMimeHeaders().getAllHeaders();
 
-			//Add all headers
-			while (headers.hasNext()) {
-				Object header = headers.next();
-				MimeHeader mh = (MimeHeader) header;
+		//Add all headers, except Content-Length, which is set by the client (ProtocolException "Content-Length header already present")
+		while (headers.hasNext()) {
+			MimeHeader mh = (MimeHeader) headers.next();
+			if (!HTTP.CONTENT_LEN.equalsIgnoreCase(mh.getName())) {
 				infapiclientpost.setHeader(mh.getName(), mh.getValue());
 			}
+		}
 
-			InputStreamEntity entity = new InputStreamEntity(new FileInputStream(outputFile));
-			//We don't really know if this configs are required
-			entity.setChunked(true); //to send in chunks
-			entity.setContentType("multipart/related"); //to enforce multiparts as content
-			infapiclientpost.setEntity(entity);
-			infresponse = infapiclient.execute(infapiclientpost);
-			//Status code
-			int errorCode = infresponse.getStatusLine().getStatusCode();
+		AbstractHttpEntity entity = HttpTransport.soapEntity(message);
+		//We don't really know if this configs are required
+		entity.setContentType("multipart/related"); //to enforce multiparts as content
+		infapiclientpost.setEntity(entity);
+		CloseableHttpResponse infresponse = infapiclient.execute(infapiclientpost);
+		try {
 			// Check the response code
-			if (errorCode == 401 || errorCode == 407) {
-				logger.error("Please provide valid authentication credentials for the target resource." + " Response status: " + errorCode);
-				throw new SdmxException("Please provide valid authentication credentials for the target resource."
-						+ " Response status: " + errorCode, SDMX_ERROR_CODE.UNAUTHORISED);
-			} else if (errorCode >= 400) {
-				logger.error("Could not connect to URL: " + url + ". Response status: " + errorCode);
-				throw new SdmxException("Could not connect to URL: " + url + ". Response status: " + errorCode, SDMX_ERROR_CODE.INTERNAL_SERVER_ERROR);
-			}
-			// Create the SOAPMessage from the entity content that we get as response
-			response = MessageFactory.newInstance().createMessage(null, infresponse.getEntity().getContent());
-			response.saveChanges();
-			try {
-				SOAPBody body = response.getSOAPBody();
-				if (body.hasFault()) {
-					logger.error("Response contains Fault: " + response.getSOAPBody().getFault());
-					response = null;
-				}
-			} catch (SOAPException ex) {
-				if(ObjectUtil.validObject(ex.getMessage()) && ex.getMessage().contains("Unable to create envelope from given source")) {
-					logger.error("Response is not what expected. Check the callback client and try again.");
-				} else {
-					throw ex;
-				}
-			}
-			// Watch out you can consume it only once so if you print it above you can't read it again
-			infapiclient.close();
-		} catch (Exception ex) {
-			logger.error("General Exception", ex);
-		} finally {
-			//Close everything really important
-			IOUtils.closeQuietly(outputStream);
-			FileUtils.deleteQuietly(outputFile);
-			infapiclient.close();
+			HttpTransport.checkStatus(infresponse, url);
+		} catch (RuntimeException e) {
+			infresponse.close();
+			throw e;
 		}
-		return response;
+		return infresponse;
 	}
 
 	/**
 	 * Class that is used to avoid ProtocolException("Content-Length header already present").
 	 * We intercept the header and remove attribute Content-Length, to avoid be added for the second time.
+	 * @deprecated the requests are posted without the Content-Length of the mime headers of the message,
+	 * this interceptor is not added to the client anymore
 	 */
+	@Deprecated
 	public static class ContentLengthHeaderRemover implements HttpRequestInterceptor {
 		@Override
 		public void process(HttpRequest request, HttpContext context) {
 			request.removeHeaders(HTTP.CONTENT_LEN);// fighting org.apache.http.protocol.RequestContent's ProtocolException("Content-Length header already present");
 		}
 	}
-
 }
@@ -0,0 +1,195 @@
+package org.estat.sdmxsource.engine.reader;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+
+/**
+ * One observation of a cross sectional dataset regrouped into its time series, as spooled by
+ * {@link WrapperCrossSectionalDataCachingReaderEngine}.
+ * <p>The series is identified by all its key values and attributes, whatever their order, the same as comparing
+ * the maps they were collected in.</p>
+ */
+final class CrossSectionalRecord {
+
+	/**
+	 * Groups the records by dataset and series, the records of a series in the order they were read
+	 */
+	static final Comparator<CrossSectionalRecord> BY_SERIES = (first, second) -> {
+		int result = Integer.compare(first.dataset, second.dataset);
+		if (result == 0) {
+			result = first.seriesIdentity.compareTo(second.seriesIdentity);
+		}
+		return result != 0 ? result : Long.compare(first.sequence, second.sequence);
+	};
+
+	/**
+	 * Orders the series by their first observation read, the observations of a series last read first
+	 */
+	static final Comparator<CrossSectionalRecord> BY_FIRST_APPEARANCE = (first, second) -> {
+		int result = Integer.compare(first.dataset, second.dataset);
+		if (result == 0) {
+			result = Long.compare(first.seriesSequence, second.seriesSequence);
+		}
+		return result != 0 ? result : Long.compare(second.sequence, first.sequence);
+	};
+
+	static final ExternalRecordSorter.Codec<CrossSectionalRecord> CODEC = new ExternalRecordSorter.Codec<CrossSectionalRecord>() {
+		@Override
+		public void write(CrossSectionalRecord record, DataOutputStream out) throws IOException {
+			out.writeInt(record.dataset);
+			out.writeLong(record.sequence);
+			out.writeLong(record.seriesSequence);
+			writeStrings(record.seriesConcepts, out);
+			writeStrings(record.seriesCodes, out);
+			writeString(record.obsTime, out);
+			writeString(record.obsValue, out);
+			writeStrings(record.obsAttributeConcepts, out);
+			writeStrings(record.obsAttributeCodes, out);
+		}
+
+		@Override
+		public CrossSectionalRecord read(DataInputStream in) throws IOException {
+			int dataset = in.readInt();
+			long sequence = in.readLong();
+			long seriesSequence = in.readLong();
+			CrossSectionalRecord record = new CrossSectionalRecord(dataset, sequence,
+					readStrings(in), readStrings(in), readString(in), readString(in), readStrings(in), readStrings(in));
+			record.seriesSequence = seriesSequence;
+			return record;
+		}
+
+		@Override
+		public long sizeOf(CrossSectionalRecord record) {
+			return record.approximateSize;
+		}
+	};
+
+	final int dataset;
+	/** the position of the observation in the input */
+	final long sequence;
+	/** the position in the input of the first observation of the series, set once the series are grouped */
+	long seriesSequence;
+	final String[] seriesConcepts;
+	final String[] seriesCodes;
+	final String obsTime;
+	final String obsValue;
+	final String[] obsAttributeConcepts;
+	final String[] obsAttributeCodes;
+
+	private final String seriesIdentity;
+	private final long approximateSize;
+
+	CrossSectionalRecord(int dataset, long sequence, LinkedHashMap<String, String> series,
+						 String obsTime, String obsValue, LinkedHashMap<String, String> obsAttributes) {
+		this(dataset, sequence, series.keySet().toArray(new String[0]), series.values().toArray(new String[0]),
+				obsTime, obsValue, obsAttributes.keySet().toArray(new String[0]), obsAttributes.values().toArray(new String[0]));
+	}
+
+	private CrossSectionalRecord(int dataset, long sequence, String[] seriesConcepts, String[] seriesCodes,
+								 String obsTime, String obsValue, String[] obsAttributeConcepts, String[] obsAttributeCodes) {
+		this.dataset = dataset;
+		this.sequence = sequence;
+		this.seriesConcepts = seriesConcepts;
+		this.seriesCodes = seriesCodes;
+		this.obsTime = obsTime;
+		this.obsValue = obsValue;
+		this.obsAttributeConcepts = obsAttributeConcepts;
+		this.obsAttributeCodes = obsAttributeCodes;
+		this.seriesIdentity = identityOf(seriesConcepts, seriesCodes);
+		this.approximateSize = 64 + sizeOf(seriesConcepts) + sizeOf(seriesCodes) + sizeOf(obsTime) + sizeOf(obsValue)
+				+ sizeOf(obsAttributeConcepts) + sizeOf(obsAttributeCodes) + sizeOf(seriesIdentity);
+	}
+
+	boolean sameSeriesAs(CrossSectionalRecord other) {
+		return other != null && dataset == other.dataset && seriesIdentity.equals(other.seriesIdentity);
+	}
+
+	/**
+	 * The concepts and codes sorted by concept, so that the identity does not depend on the order of the values.
+	 * A null code is told apart from an empty one.
+	 */
+	private static String identityOf(String[] concepts, String[] codes) {
+		Integer[] order = new Integer[concepts.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, (first, second) -> concepts[first].compareTo(concepts[second]));
+		StringBuilder identity = new StringBuilder();
+		for (int i : order) {
+			identity.append(concepts[i]).append('\u0000');
+			if (codes[i] == null) {
+				identity.append('\u0001');
+			} else {
+				identity.append('\u0002').append(codes[i]);
+			}
+			identity.append('\u0000');
+		}
+		return identity.toString();
+	}
+
+	static LinkedHashMap<String, String> toMap(String[] concepts, String[] codes) {
+		LinkedHashMap<String, String> result = new LinkedHashMap<>();
+		for (int i = 0; i < concepts.length; i++) {
+			result.put(concepts[i], codes[i]);
+		}
+		return result;
+	}
+
+	private static long sizeOf(String value) {
+		return value != null ? 40 + 2L * value.length() : 0;
+	}
+
+	private static long sizeOf(String[] values) {
+		long result = 16 + 8L * values.length;
+		for (String value : values) {
+			result += sizeOf(value);
+		}
+		return result;
+	}
+
+	private static void writeString(String value, DataOutputStream out) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+		} else {
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void writeStrings(String[] values, DataOutputStream out) throws IOException {
+		out.writeInt(values.length);
+		for (String value : values) {
+			writeString(value, out);
+		}
+	}
+
+	private static String[] readStrings(DataInputStream in) throws IOException {
+		String[] values = new String[in.readInt()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = readString(in);
+		}
+		return values;
+	}
+
+	@Override
+	public String toString() {
+		return "CrossSectionalRecord[dataset=" + dataset + ", sequence=" + sequence
+				+ ", series=" + toMap(seriesConcepts, seriesCodes) + ", time=" + obsTime + ", value=" + obsValue + "]";
+	}
+}
@@ -25,7 +25,10 @@ import java.util.Map;
  * To write in fixed-Length format such as Flr
  * we must set the character length of every column.
  * <p>We read all the input and store the max length of all values for a component (dimensions, attributes etc.)</p>
+ * @deprecated the FLR writer counts the lengths of the values it writes, without reading the input twice,
+ * see {@link com.intrasoft.sdmx.converter.io.data.csv.FlrDataWriterEngine}
  */
+@Deprecated
 public class DataCountingLengthReaderEngine {
 	private DataReaderEngine dataReaderEngine;
 	private HeaderBean header;
@@ -0,0 +1,268 @@
+package org.estat.sdmxsource.engine.reader;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Sorts records that may not fit in memory.
+ * <p>The records are buffered until the memory budget is reached, then the buffer is sorted and spilled to a
+ * temporary file as a run of binary records. The sorted records are read by merging the runs. When everything
+ * fits in the budget nothing is written to disk. Records that compare equal keep the order they were added in.</p>
+ * <p>Only a limited number of runs, {@link #DEFAULT_MAX_FAN_IN} by default, are open at once: when there are more,
+ * consecutive runs are merged into bigger runs in passes until they are few enough, so a big input does not run out
+ * of file handles.</p>
+ * <p>The temporary files are deleted by {@link #close()}.</p>
+ *
+ * @param <R> the record type
+ */
+final class ExternalRecordSorter<R> implements Closeable {
+
+	private static Logger logger = LogManager.getLogger(ExternalRecordSorter.class);
+
+	/**
+	 * Binary form of a record in the runs
+	 */
+	interface Codec<R> {
+
+		void write(R record, DataOutputStream out) throws IOException;
+
+		R read(DataInputStream in) throws IOException;
+
+		/**
+		 * @return the approximate number of bytes the record takes in memory
+		 */
+		long sizeOf(R record);
+	}
+
+	private static final int IO_BUFFER_SIZE = 1 << 16;
+
+	static final int DEFAULT_MAX_FAN_IN = 64;
+
+	private final Comparator<R> comparator;
+	private final Codec<R> codec;
+	private final long memoryBudget;
+	private final int maxFanIn;
+
+	private final List<R> buffer = new ArrayList<>();
+	private long bufferedBytes;
+
+	private final List<File> runs = new ArrayList<>();
+	private final List<DataInputStream> openRuns = new ArrayList<>();
+
+	/**
+	 * @param comparator   the order of the records
+	 * @param codec        the binary form of the records
+	 * @param memoryBudget the number of bytes of records kept in memory before spilling a run
+	 */
+	ExternalRecordSorter(Comparator<R> comparator, Codec<R> codec, long memoryBudget) {
+		this(comparator, codec, memoryBudget, DEFAULT_MAX_FAN_IN);
+	}
+
+	/**
+	 * @param maxFanIn the number of runs merged at once, at least 2
+	 */
+	ExternalRecordSorter(Comparator<R> comparator, Codec<R> codec, long memoryBudget, int maxFanIn) {
+		if (maxFanIn < 2) {
+			throw new IllegalArgumentException("at least 2 runs must be merged at once, not " + maxFanIn);
+		}
+		this.comparator = comparator;
+		this.codec = codec;
+		this.memoryBudget = memoryBudget;
+		this.maxFanIn = maxFanIn;
+	}
+
+	void add(R record) throws IOException {
+		buffer.add(record);
+		bufferedBytes += codec.sizeOf(record);
+		if (bufferedBytes >= memoryBudget) {
+			spill();
+		}
+	}
+
+	private void spill() throws IOException {
+		buffer.sort(comparator);
+		File run = createRun();
+		writeRun(run, buffer.iterator());
+		logger.debug("spilled {} records ({} bytes) to {}", buffer.size(), bufferedBytes, run);
+		buffer.clear();
+		bufferedBytes = 0;
+	}
+
+	/**
+	 * @return a new temporary file, deleted by {@link #close()}
+	 */
+	private File createRun() throws IOException {
+		File run = File.createTempFile("xsSortRun", ".bin");
+		run.deleteOnExit();
+		runs.add(run);
+		return run;
+	}
+
+	private void writeRun(File run, Iterator<R> records) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run), IO_BUFFER_SIZE))) {
+			while (records.hasNext()) {
+				out.writeBoolean(true);
+				codec.write(records.next(), out);
+			}
+			out.writeBoolean(false);
+		}
+	}
+
+	/**
+	 * Merges each group of at most {@link #maxFanIn} consecutive runs into one run. The groups are consecutive,
+	 * so the records that compare equal keep the order they were added in.
+	 */
+	private void mergePass() throws IOException {
+		List<File> previous = new ArrayList<>(runs);
+		List<File> merged = new ArrayList<>();
+		for (int from = 0; from < previous.size(); from += maxFanIn) {
+			File run = createRun();
+			merged.add(run);
+			try {
+				writeRun(run, merge(previous.subList(from, Math.min(from + maxFanIn, previous.size()))));
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			} finally {
+				closeOpenRuns();
+			}
+		}
+		logger.debug("merged {} sort runs into {}", previous.size(), merged.size());
+		for (File run : previous) {
+			if (!run.delete()) {
+				logger.warn("could not delete the sort run {}", run);
+			}
+		}
+		runs.clear();
+		runs.addAll(merged);
+	}
+
+	/**
+	 * @return the number of runs on disk, fewer once they have been merged in passes
+	 */
+	int getSpilledRuns() {
+		return runs.size();
+	}
+
+	/**
+	 * Ends the adding of records.
+	 *
+	 * @return the records in order, the iterator throws {@link UncheckedIOException} when a run cannot be read
+	 */
+	Iterator<R> sorted() throws IOException {
+		if (runs.isEmpty()) {
+			buffer.sort(comparator);
+			return buffer.iterator();
+		}
+		if (!buffer.isEmpty()) {
+			spill();
+		}
+		while (runs.size() > maxFanIn) {
+			mergePass();
+		}
+		return merge(runs);
+	}
+
+	/**
+	 * @param files the runs to merge, the records that compare equal are taken from the first run first
+	 * @return the records of the runs in order, the iterator throws {@link UncheckedIOException} when a run cannot
+	 * be read
+	 */
+	private Iterator<R> merge(List<File> files) throws IOException {
+		PriorityQueue<RunHead<R>> heads = new PriorityQueue<>((first, second) -> {
+			int result = comparator.compare(first.record, second.record);
+			return result != 0 ? result : Integer.compare(first.run, second.run);
+		});
+		for (int i = 0; i < files.size(); i++) {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(files.get(i)), IO_BUFFER_SIZE));
+			openRuns.add(in);
+			RunHead<R> head = new RunHead<>(i, in);
+			if (head.advance(codec)) {
+				heads.add(head);
+			}
+		}
+		return new Iterator<R>() {
+			@Override
+			public boolean hasNext() {
+				return !heads.isEmpty();
+			}
+
+			@Override
+			public R next() {
+				RunHead<R> head = heads.poll();
+				if (head == null) {
+					throw new NoSuchElementException();
+				}
+				R result = head.record;
+				try {
+					if (head.advance(codec)) {
+						heads.add(head);
+					}
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				return result;
+			}
+		};
+	}
+
+	@Override
+	public void close() {
+		closeOpenRuns();
+		for (File run : runs) {
+			if (!run.delete()) {
+				logger.warn("could not delete the sort run {}", run);
+			}
+		}
+		runs.clear();
+		buffer.clear();
+	}
+
+	private void closeOpenRuns() {
+		for (DataInputStream in : openRuns) {
+			try {
+				in.close();
+			} catch (IOException e) {
+				logger.warn("could not close a sort run", e);
+			}
+		}
+		openRuns.clear();
+	}
+
+	private static final class RunHead<R> {
+
+		final int run;
+		final DataInputStream in;
+		R record;
+
+		RunHead(int run, DataInputStream in) {
+			this.run = run;
+			this.in = in;
+		}
+
+		boolean advance(Codec<R> codec) throws IOException {
+			if (in.readBoolean()) {
+				record = codec.read(in);
+				return true;
+			}
+			record = null;
+			return false;
+		}
+	}
+}
@@ -21,12 +21,12 @@
  */
 package org.estat.sdmxsource.engine.reader;
 
-import com.intrasoft.sdmx.converter.cache.ConverterCacheManager;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.sdmxsource.sdmx.api.constants.ATTRIBUTE_ATTACHMENT_LEVEL;
 import org.sdmxsource.sdmx.api.engine.DataReaderEngine;
 import org.sdmxsource.sdmx.api.engine.DataWriterEngine;
+import org.sdmxsource.sdmx.api.exception.SdmxException;
 import org.sdmxsource.sdmx.api.model.beans.datastructure.AttributeBean;
 import org.sdmxsource.sdmx.api.model.beans.datastructure.DataStructureBean;
 import org.sdmxsource.sdmx.api.model.beans.datastructure.DataflowBean;
@@ -39,13 +39,13 @@ import org.sdmxsource.sdmx.api.model.header.DatasetStructureReferenceBean;
 import org.sdmxsource.sdmx.api.model.header.HeaderBean;
 import org.sdmxsource.sdmx.sdmxbeans.model.header.DatasetStructureReferenceBeanImpl;
 
-import javax.cache.Cache;
+import java.io.IOException;
 import java.util.*;
 import java.util.Map.Entry;
 
 /**
  * Class the facilitates reading from a CrossSectionalDataReader engine and writes to the provided writer in two steps.
- * Takes all the data from the Reader (prepareCrossSectionalDataInCache(DataReaderEngine dataReaderEngine)), saves it in the cache in the non-CrossSectional form
+ * Takes all the data from the Reader (prepareCrossSectionalDataInCacheFromReader(DataReaderEngine dataReaderEngine)), spools it in the non-CrossSectional form
  * and writes it using the Writer (writeCrossSectionalData(DataWriterEngine dataWriterEngine)). 
  * 
  * The dataReaderEngine for CrossSectional returns Time Series and Observations for each series. 
@@ -96,6 +96,12 @@ import java.util.Map.Entry;
 			<ns1:Obs TIME="1994" OBS_VALUE="748498" TIME_FORMAT="P1Y"
 				UNIT_MULT="0" UNIT="PERS" DECI="3"></ns1:Obs>
 		</ns1:Series>  
+ *
+ * The observations are spooled as binary records into an {@link ExternalRecordSorter} and sorted by series key,
+ * spilling to temporary files once the memory budget is reached, so the input does not have to fit in the heap.
+ * The series are written in the order of their first observation in the input and the observations of a series
+ * last read first.
+ *
  * @author Mihaela Munteanu
  * @since  7th of June 2017
  *
@@ -103,32 +109,41 @@ import java.util.Map.Entry;
 public class WrapperCrossSectionalDataCachingReaderEngine{
 
 	private static Logger logger = LogManager.getLogger(WrapperCrossSectionalDataCachingReaderEngine.class);
+
+	/**
+	 * the default number of bytes of observations kept in memory before they are spilled to temporary files
+	 */
+	public static final long DEFAULT_MEMORY_BUDGET = 64L * 1024 * 1024;
 	
 	HeaderBean header;
 	List<DatasetHeaderBean> datasetHeaderBeans = new ArrayList<>();
 	DataStructureBean dataStructureBean; 
 	DataflowBean dataflowBean;
-	
-	Cache<LinkedHashMap<String, String>, LinkedHashMap<String,String>> xsCache;
 
-	LinkedHashMap<String,String> startDataSetAtributesElementKey;
-	
-	HashMap<String,String> startDataSetAtributesForGroupKey;
-	
-	ConverterCacheManager converterCacheManager = ConverterCacheManager.INSTANCE;
-	
-	private String cacheName;
-	
-	private static final String NEXT = "Next";
-	private static final String OBS_VALUE = "OBS_VALUE";
-	private static final String GROUP = "Group";
-	private static final String GROUP_NAME = "GroupName";
-	private static final String DATASET = "Dataset";
-	
+	/** the attributes of each dataset */
+	List<LinkedHashMap<String, String>> datasetAttributes = new ArrayList<>();
+
+	/** the distinct groups of each dataset, in the order they were read */
+	List<Set<CrossSectionalGroup>> datasetGroups = new ArrayList<>();
+
+	private final long memoryBudget;
+
+	/** the observations sorted by series key */
+	private ExternalRecordSorter<CrossSectionalRecord> seriesSorter;
+
+	/** the observations sorted by the first appearance of their series */
+	private ExternalRecordSorter<CrossSectionalRecord> outputSorter;
+
 	public WrapperCrossSectionalDataCachingReaderEngine() {
-		cacheName = ConverterCacheManager.CROSS_SECTIONAL_CACHE + (new Date()).toString();
-		converterCacheManager.createConverterCache(cacheName);
-		xsCache = converterCacheManager.getConverterCache(cacheName);
+		this(DEFAULT_MEMORY_BUDGET);
+	}
+
+	/**
+	 * @param memoryBudget the number of bytes of observations kept in memory before they are spilled to temporary files
+	 */
+	public WrapperCrossSectionalDataCachingReaderEngine(long memoryBudget) {
+		this.memoryBudget = memoryBudget;
+		this.seriesSorter = new ExternalRecordSorter<>(CrossSectionalRecord.BY_SERIES, CrossSectionalRecord.CODEC, memoryBudget);
 	}
 
 	boolean checkAttachmentLevel(String attachmentLevel, String conceptId) {
@@ -161,127 +176,92 @@ public class WrapperCrossSectionalDataCachingReaderEngine{
 	public void prepareCrossSectionalDataInCacheFromReader(DataReaderEngine dataReaderEngine) {
 		dataReaderEngine.reset();
 		header = dataReaderEngine.getHeader();
-		
-		while(dataReaderEngine.moveNextDataset()) {
-			boolean firstKeyable = true;
-			boolean firstGroup = true;
-			LinkedHashMap<String, String> previousSeriesKeyable = null;
-			LinkedHashMap<String, String> previousGroupKeyable =null;
-			
-			DatasetHeaderBean datasetHeader = dataReaderEngine.getCurrentDatasetHeaderBean();
-			datasetHeaderBeans.add(datasetHeader);
-			String dimensionAtObs = datasetHeader.getDataStructureReference().getDimensionAtObservation();
-			dataStructureBean = dataReaderEngine.getDataStructure();
-			dataflowBean = dataReaderEngine.getDataFlow();
+		long sequence = 0;
+		try {
+			while(dataReaderEngine.moveNextDataset()) {
+				int dataset = datasetHeaderBeans.size();
+				DatasetHeaderBean datasetHeader = dataReaderEngine.getCurrentDatasetHeaderBean();
+				datasetHeaderBeans.add(datasetHeader);
+				String dimensionAtObs = datasetHeader.getDataStructureReference().getDimensionAtObservation();
+				dataStructureBean = dataReaderEngine.getDataStructure();
+				dataflowBean = dataReaderEngine.getDataFlow();
 
-			LinkedHashMap<String, String> datasetAttributes = new LinkedHashMap<String, String>();
-			for(KeyValue kv : dataReaderEngine.getDatasetAttributes()) {
-				datasetAttributes.put(kv.getConcept(), kv.getCode());
-				
-			}
-			startDataSetAtributesElementKey = datasetAttributes;
-			startDataSetAtributesElementKey.put(DATASET, "true");
-			LinkedHashMap<String, String> datasetGroupKey = new LinkedHashMap<>();
-			datasetGroupKey.putAll(datasetAttributes);
-			datasetGroupKey.put(GROUP, "true");
-			startDataSetAtributesForGroupKey = datasetGroupKey;				
+				LinkedHashMap<String, String> attributes = new LinkedHashMap<String, String>();
+				for(KeyValue kv : dataReaderEngine.getDatasetAttributes()) {
+					attributes.put(kv.getConcept(), kv.getCode());
+				}
+				datasetAttributes.add(attributes);
+				Set<CrossSectionalGroup> groups = new LinkedHashSet<>();
+				datasetGroups.add(groups);
 
-			while (dataReaderEngine.moveNextKeyable()) {
-				Keyable currentKey = dataReaderEngine.getCurrentKey();
+				while (dataReaderEngine.moveNextKeyable()) {
+					Keyable currentKey = dataReaderEngine.getCurrentKey();
 
-				if (!currentKey.isTimeSeries() && !DimensionBean.TIME_DIMENSION_FIXED_ID.equals(dimensionAtObs)) {
-					while (dataReaderEngine.moveNextObservation()) {
-						//TODO build different keyable (with measure and value) and write to cache
-						Observation observation = dataReaderEngine.getCurrentObservation();
+					if (!currentKey.isTimeSeries() && !DimensionBean.TIME_DIMENSION_FIXED_ID.equals(dimensionAtObs)) {
+						while (dataReaderEngine.moveNextObservation()) {
+							Observation observation = dataReaderEngine.getCurrentObservation();
 
-						LinkedHashMap<String, String> seriesKeyable = new LinkedHashMap<>();
-						for (KeyValue keyValue : currentKey.getKey()) {
-							seriesKeyable.put(keyValue.getConcept(), keyValue.getCode());
-						} 
-						seriesKeyable.put(dimensionAtObs, observation.getCrossSectionalValue().getCode());
-						for (KeyValue keyValue : currentKey.getAttributes()) {
-							seriesKeyable.put(keyValue.getConcept(), keyValue.getCode());
-						}
-						for (KeyValue keyValue : observation.getAttributes()) {
-							if(checkAttachmentLevel("Series", keyValue.getConcept())) {
+							LinkedHashMap<String, String> seriesKeyable = new LinkedHashMap<>();
+							for (KeyValue keyValue : currentKey.getKey()) {
+								seriesKeyable.put(keyValue.getConcept(), keyValue.getCode());
+							} 
+							seriesKeyable.put(dimensionAtObs, observation.getCrossSectionalValue().getCode());
+							for (KeyValue keyValue : currentKey.getAttributes()) {
 								seriesKeyable.put(keyValue.getConcept(), keyValue.getCode());
 							}
-						}
-						
-						if (firstKeyable) {
-							converterCacheManager.putKeyAndValue(xsCache, datasetAttributes, seriesKeyable);
-							logger.debug(datasetAttributes + " => " + seriesKeyable);
-							firstKeyable = false;
-						} else {
-							LinkedHashMap<String, String> resultFromCache = converterCacheManager.getValueFromKey(xsCache, seriesKeyable);
-							if (resultFromCache == null) {
-								converterCacheManager.putKeyAndValue(xsCache, previousSeriesKeyable, seriesKeyable);
-								logger.debug(previousSeriesKeyable + " => " + seriesKeyable);
-								previousSeriesKeyable = new LinkedHashMap<>();//reset
-
-							} else {
-								//put it back as it might get erased from cache
-								converterCacheManager.putKeyAndValue(xsCache, seriesKeyable, resultFromCache);
-								logger.debug("Put back not to be erased: " + seriesKeyable + " => " + resultFromCache);
+							for (KeyValue keyValue : observation.getAttributes()) {
+								if(checkAttachmentLevel("Series", keyValue.getConcept())) {
+									seriesKeyable.put(keyValue.getConcept(), keyValue.getCode());
+								}
 							}
-						}
-						
-						previousSeriesKeyable = new LinkedHashMap<>();
-						previousSeriesKeyable.putAll(seriesKeyable);
-						previousSeriesKeyable.put(NEXT, "true");
 
-						LinkedHashMap<String, String> observationCache = new LinkedHashMap<>();
-						observationCache.put(DimensionBean.TIME_DIMENSION_FIXED_ID, observation.getObsTime());
-						observationCache.put(OBS_VALUE, observation.getObservationValue());
-						
-						for (KeyValue keyValue : observation.getAttributes()) {
-							if(checkAttachmentLevel("Observation", keyValue.getConcept())) {
-								observationCache.put(keyValue.getConcept(), keyValue.getCode());
+							LinkedHashMap<String, String> observationAttributes = new LinkedHashMap<>();
+							for (KeyValue keyValue : observation.getAttributes()) {
+								if(checkAttachmentLevel("Observation", keyValue.getConcept())) {
+									observationAttributes.put(keyValue.getConcept(), keyValue.getCode());
+								}
 							}
+							seriesSorter.add(new CrossSectionalRecord(dataset, sequence++, seriesKeyable,
+									observation.getObsTime(), observation.getObservationValue(), observationAttributes));
 						}
 
-						LinkedHashMap<String, String> resultObsFromCache = converterCacheManager.getValueFromKey(xsCache, seriesKeyable);
-						if (resultObsFromCache == null) {
-							logger.debug(seriesKeyable + " => " + observationCache);
-							converterCacheManager.putKeyAndValue(xsCache, seriesKeyable, observationCache);
-						} else {
-							converterCacheManager.putKeyAndValue(xsCache, seriesKeyable, observationCache);
-							logger.debug(seriesKeyable + " => " + observationCache);
-							converterCacheManager.putKeyAndValue(xsCache, observationCache, resultObsFromCache);
-							logger.debug("Put back not to be erased: " + observationCache + " => " + resultObsFromCache);
-						}
-						
-					}
-
-				}
-				if (!currentKey.isSeries() || currentKey.getGroupName() != null) {
-
-					LinkedHashMap<String, String> groupKey = new LinkedHashMap<>();
-					groupKey.put(GROUP_NAME, currentKey.getGroupName());
-					for (KeyValue keyValue : currentKey.getKey()) {
-						groupKey.put(keyValue.getConcept(), keyValue.getCode());
-					}
-					for (KeyValue keyValue : currentKey.getAttributes()) {
-						groupKey.put(keyValue.getConcept(), keyValue.getCode());
 					}
-					
-					if (firstGroup) {
-						converterCacheManager.putKeyAndValue(xsCache, datasetGroupKey, groupKey);
-						firstGroup = false;
-					} else {
-						LinkedHashMap<String, String> resultFromCache = converterCacheManager.getValueFromKey(xsCache, groupKey);
-						if (resultFromCache == null) {
-							converterCacheManager.putKeyAndValue(xsCache, previousGroupKeyable, groupKey);
-							previousGroupKeyable = new LinkedHashMap<>();
-						} else {
-							//put it back, it might be erased from cache
-							converterCacheManager.putKeyAndValue(xsCache, groupKey, resultFromCache);
+					if (!currentKey.isSeries() || currentKey.getGroupName() != null) {
+						LinkedHashMap<String, String> groupKey = new LinkedHashMap<>();
+						for (KeyValue keyValue : currentKey.getKey()) {
+							groupKey.put(keyValue.getConcept(), keyValue.getCode());
+						}
+						LinkedHashMap<String, String> groupAttributes = new LinkedHashMap<>();
+						for (KeyValue keyValue : currentKey.getAttributes()) {
+							groupAttributes.put(keyValue.getConcept(), keyValue.getCode());
 						}
+						groups.add(new CrossSectionalGroup(currentKey.getGroupName(), groupKey, groupAttributes));
 					}
 				}
 			}
+			logger.debug("{} observations spooled in {} runs", sequence, seriesSorter.getSpilledRuns());
+			groupObservationsBySeries();
+		} catch (IOException e) {
+			closeSorters();
+			throw new SdmxException(e, "Could not spool the cross sectional observations");
 		}
-			
+	}
+
+	/**
+	 * Marks every observation with the position of the first observation of its series
+	 * and sorts them again in the order the series are written.
+	 */
+	private void groupObservationsBySeries() throws IOException {
+		outputSorter = new ExternalRecordSorter<>(CrossSectionalRecord.BY_FIRST_APPEARANCE, CrossSectionalRecord.CODEC, memoryBudget);
+		CrossSectionalRecord previous = null;
+		Iterator<CrossSectionalRecord> records = seriesSorter.sorted();
+		while (records.hasNext()) {
+			CrossSectionalRecord record = records.next();
+			record.seriesSequence = record.sameSeriesAs(previous) ? previous.seriesSequence : record.sequence;
+			outputSorter.add(record);
+			previous = record;
+		}
+		seriesSorter.close();
 	}
 	
 	public void writeCrossSectionalData(DataWriterEngine dataWriterEngine) {
@@ -289,65 +269,93 @@ public class WrapperCrossSectionalDataCachingReaderEngine{
 			dataWriterEngine.writeHeader(header);
 		}
 		try {
-			int dataSetPosition = 0;
-			LinkedHashMap<String, String> currentDataSet = startDataSetAtributesElementKey;
-			while (currentDataSet != null) {
-				DatasetHeaderBean datasetHeader = datasetHeaderBeans.get(dataSetPosition++);
+			Iterator<CrossSectionalRecord> records = outputSorter != null ? outputSorter.sorted() : Collections.emptyIterator();
+			CrossSectionalRecord record = records.hasNext() ? records.next() : null;
+			for (int dataSetPosition = 0; dataSetPosition < datasetHeaderBeans.size(); dataSetPosition++) {
+				DatasetHeaderBean datasetHeader = datasetHeaderBeans.get(dataSetPosition);
 				//TODO check if TIME dimension exists for Compact, Generic and Utility 2.0, StructureSpecific_TS and Generic_TS
 				DatasetStructureReferenceBean datasetStructureReference = new DatasetStructureReferenceBeanImpl(datasetHeader.getDataStructureReference().getId(), 
 										datasetHeader.getDataStructureReference().getStructureReference(), null, null, DimensionBean.TIME_DIMENSION_FIXED_ID);
 				DatasetHeaderBean writerDatasetHeader = datasetHeader.modifyDataStructureReference(datasetStructureReference);
 				dataWriterEngine.startDataset(dataflowBean, dataStructureBean, writerDatasetHeader);
 				
-				for (Entry<String, String> entry:currentDataSet.entrySet()) {
-					if (!DATASET.equals(entry.getKey())) {
-						dataWriterEngine.writeAttributeValue(entry.getKey(), entry.getValue());
-					}
+				for (Entry<String, String> entry : datasetAttributes.get(dataSetPosition).entrySet()) {
+					dataWriterEngine.writeAttributeValue(entry.getKey(), entry.getValue());
 				}
 
-				LinkedHashMap<String, String> currentDataSetForGroup = new LinkedHashMap<>();
-				currentDataSetForGroup.putAll(currentDataSet);
-				currentDataSetForGroup.put(GROUP, "true");
-				LinkedHashMap<String, String> currentGroup = converterCacheManager.getValueFromKey(xsCache, currentDataSetForGroup);
-				while (currentGroup !=  null) {
-					dataWriterEngine.startGroup(currentGroup.get(GROUP_NAME));
-					for (Entry<String, String> entry:currentGroup.entrySet()) {
+				for (CrossSectionalGroup group : datasetGroups.get(dataSetPosition)) {
+					dataWriterEngine.startGroup(group.groupName);
+					for (Entry<String, String> entry : group.key.entrySet()) {
 						dataWriterEngine.writeGroupKeyValue(entry.getKey(), entry.getValue());
 					}
+					for (Entry<String, String> entry : group.attributes.entrySet()) {
+						dataWriterEngine.writeAttributeValue(entry.getKey(), entry.getValue());
+					}
 				}
 
-				LinkedHashMap<String, String> currentSeries = converterCacheManager.getValueFromKey(xsCache, currentDataSet);
-				while (currentSeries != null) {
-					dataWriterEngine.startSeries();
-					for (Entry<String, String> entry:currentSeries.entrySet()) {
-						dataWriterEngine.writeSeriesKeyValue(entry.getKey(), entry.getValue());
-					}
-					LinkedHashMap<String, String> currentObservation = converterCacheManager.getValueFromKey(xsCache, currentSeries);
-					while (currentObservation != null) {
-						dataWriterEngine.writeObservation(currentObservation.get(DimensionBean.TIME_DIMENSION_FIXED_ID), 
-														  currentObservation.get(OBS_VALUE));
-						for (Entry<String, String> entry:currentObservation.entrySet()) {
-							if (!DimensionBean.TIME_DIMENSION_FIXED_ID.equals(entry.getKey()) && 
-									!OBS_VALUE.equals(entry.getKey())) {
-								dataWriterEngine.writeAttributeValue(entry.getKey(), entry.getValue());
-							}
+				CrossSectionalRecord currentSeries = null;
+				while (record != null && record.dataset == dataSetPosition) {
+					if (currentSeries == null || currentSeries.seriesSequence != record.seriesSequence) {
+						currentSeries = record;
+						dataWriterEngine.startSeries();
+						for (int i = 0; i < record.seriesConcepts.length; i++) {
+							dataWriterEngine.writeSeriesKeyValue(record.seriesConcepts[i], record.seriesCodes[i]);
 						}
-						
-						currentObservation = converterCacheManager.getValueFromKey(xsCache, currentObservation);
 					}
-					currentSeries.put(NEXT, "true");
-					currentSeries = converterCacheManager.getValueFromKey(xsCache, currentSeries);
+					dataWriterEngine.writeObservation(record.obsTime, record.obsValue);
+					for (int i = 0; i < record.obsAttributeConcepts.length; i++) {
+						dataWriterEngine.writeAttributeValue(record.obsAttributeConcepts[i], record.obsAttributeCodes[i]);
+					}
+					record = records.hasNext() ? records.next() : null;
 				}
-				currentDataSet.put(NEXT, "true");
-				currentDataSet = converterCacheManager.getValueFromKey(xsCache, currentDataSet);
 			}
+		} catch (IOException e) {
+			throw new SdmxException(e, "Could not read the spooled cross sectional observations");
 		} finally {
 			dataWriterEngine.close();
-			converterCacheManager.closeCache(xsCache);
+			closeSorters();
+		}
+	}
+
+	private void closeSorters() {
+		seriesSorter.close();
+		if (outputSorter != null) {
+			outputSorter.close();
 		}
 	}
 
 	public HeaderBean getHeader() {
 		return header;
 	}
+
+	/**
+	 * A group read from the cross sectional dataset
+	 */
+	static final class CrossSectionalGroup {
+
+		final String groupName;
+		final LinkedHashMap<String, String> key;
+		final LinkedHashMap<String, String> attributes;
+
+		CrossSectionalGroup(String groupName, LinkedHashMap<String, String> key, LinkedHashMap<String, String> attributes) {
+			this.groupName = groupName;
+			this.key = key;
+			this.attributes = attributes;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof CrossSectionalGroup))
+				return false;
+			CrossSectionalGroup other = (CrossSectionalGroup) obj;
+			return Objects.equals(groupName, other.groupName) && key.equals(other.key) && attributes.equals(other.attributes);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(groupName, key, attributes);
+		}
+	}
 }
@@ -0,0 +1,70 @@
+package com.intrasoft.sdmx.converter;
+
+import com.intrasoft.sdmx.converter.structures.ComponentSchema;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+
+public class ComponentValuesBufferTest {
+
+	private final ComponentSchema schema = new ComponentSchema(
+			Arrays.asList("FREQ", "REF_AREA", "OBS_VALUE"), "OBS_VALUE", Collections.emptyList(),
+			Collections.emptyList(), Collections.singletonList("OBS_STATUS"),
+			Collections.singletonList("TITLE"), Collections.emptyList(), Collections.singletonList("UNIT"));
+
+	@Test
+	public void testSchemaOrdinalsAndRoles() {
+		Assert.assertEquals(6, schema.size());
+		Assert.assertEquals(0, schema.ordinalOf("FREQ"));
+		Assert.assertEquals(2, schema.ordinalOf("OBS_VALUE"));
+		Assert.assertEquals(-1, schema.ordinalOf("UNKNOWN"));
+		Assert.assertEquals(ComponentSchema.PRIMARY_MEASURE, schema.rolesOf("OBS_VALUE"));
+		Assert.assertEquals(ComponentSchema.SERIES_ATTRIBUTE, schema.rolesOf("UNIT"));
+		Assert.assertArrayEquals(new int[]{0, 1, 2}, schema.getDimensionsAndPrimaryMeasure());
+	}
+
+	@Test
+	public void testComponentsKeepTheOrderTheyWereAdded() {
+		ComponentValuesBuffer buffer = new ComponentValuesBuffer("OBS_VALUE", Collections.singletonList("REF_AREA"), schema);
+		buffer.addValueFor("A", "FREQ");
+		buffer.addValueFor("1.5", "OBS_VALUE");
+		buffer.addValueFor("EUR", "EXPLICIT_MEASURE");
+		buffer.addValueFor("ignored", "allDimensions");
+		LinkedHashMap<String, String> expected = new LinkedHashMap<>();
+		expected.put("REF_AREA", "");
+		expected.put("FREQ", "A");
+		expected.put("OBS_VALUE", "1.5");
+		expected.put("EXPLICIT_MEASURE", "EUR");
+		Assert.assertEquals(expected, buffer.toMap());
+		Assert.assertEquals(Arrays.asList("REF_AREA", "FREQ", "OBS_VALUE", "EXPLICIT_MEASURE"), buffer.getComponents());
+		Assert.assertEquals("1.5", buffer.getObsValue());
+		Assert.assertNull(buffer.getValueFor("OBS_STATUS"));
+	}
+
+	@Test
+	public void testEmptyValuesByOrdinal() {
+		ComponentValuesBuffer buffer = new ComponentValuesBuffer("OBS_VALUE", Collections.emptyList(), schema);
+		buffer.addValueFor("A", "FREQ");
+		buffer.addValueFor("GR", "REF_AREA");
+		buffer.emptyValues(schema, schema.getObservationLevelAttributes());
+		buffer.emptyValues(schema, schema.getDimensionsAndPrimaryMeasure());
+		Assert.assertEquals(Arrays.asList("FREQ", "REF_AREA", "OBS_STATUS", "OBS_VALUE"), buffer.getComponents());
+		Assert.assertEquals("", buffer.getValueFor("FREQ"));
+		Assert.assertEquals("", buffer.getValueFor("OBS_STATUS"));
+	}
+
+	@Test
+	public void testBufferWithoutSchema() {
+		ComponentValuesBuffer buffer = new ComponentValuesBuffer("OBS_VALUE", Arrays.asList("FREQ", "OBS_VALUE"));
+		buffer.addValueFor("A", "FREQ");
+		buffer.emptyValues(schema, schema.getSeriesLevelAttributes());
+		ComponentValuesBuffer copy = new ComponentValuesBuffer(buffer);
+		buffer.addValueFor("Q", "FREQ");
+		Assert.assertEquals(Arrays.asList("FREQ", "OBS_VALUE", "UNIT"), copy.getComponents());
+		Assert.assertEquals("A", copy.getValueFor("FREQ"));
+		Assert.assertEquals("Q", buffer.getValueFor("FREQ"));
+	}
+}
@@ -0,0 +1,55 @@
+package com.intrasoft.sdmx.converter;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class ConversionMetricsRecorderTest {
+
+	@Test
+	public void durationsOfTheSameStageAreSummed() {
+		List<ConversionStage> notifiedStages = new ArrayList<>();
+		ConversionMetricsListener listener = new ConversionMetricsListener() {
+			@Override
+			public void stageCompleted(ConversionStage stage, long durationNanos) {
+				notifiedStages.add(stage);
+			}
+		};
+		ConversionMetricsRecorder recorder = new ConversionMetricsRecorder(Collections.singletonList(listener));
+		recorder.record(ConversionStage.READER_PARSE, 10);
+		recorder.record(ConversionStage.READER_PARSE, 5);
+		recorder.record(ConversionStage.WRITER, 7);
+		ConverterMetrics metrics = recorder.complete(new ConverterMetrics(0, 0, 0, 100));
+		Assert.assertEquals(15, metrics.getStageDuration(ConversionStage.READER_PARSE));
+		Assert.assertEquals(7, metrics.getStageDuration(ConversionStage.WRITER));
+		Assert.assertEquals(0, metrics.getStageDuration(ConversionStage.VALIDATION));
+		Assert.assertEquals(3, notifiedStages.size());
+		Assert.assertTrue(metrics.getDurationNanos() >= 0);
+	}
+
+	@Test
+	public void allocationsOfOtherThreadsAreAdded() {
+		Assume.assumeTrue(ConversionMetricsRecorder.currentThreadAllocatedBytes() >= 0);
+		ConversionMetricsRecorder recorder = new ConversionMetricsRecorder(null);
+		recorder.addAllocatedBytes(1L << 40);
+		recorder.addAllocatedBytes(-1);
+		ConverterMetrics metrics = recorder.complete(new ConverterMetrics(0, 0));
+		Assert.assertTrue(metrics.getAllocatedBytes() >= 1L << 40);
+	}
+
+	@Test
+	public void failingListenerDoesNotStopTheConversion() {
+		ConversionMetricsListener listener = new ConversionMetricsListener() {
+			@Override
+			public void completed(ConverterMetrics metrics) {
+				throw new IllegalStateException("listener failure");
+			}
+		};
+		ConversionMetricsRecorder recorder = new ConversionMetricsRecorder(Collections.singletonList(listener));
+		Assert.assertNotNull(recorder.complete(new ConverterMetrics(0, 0)));
+	}
+}
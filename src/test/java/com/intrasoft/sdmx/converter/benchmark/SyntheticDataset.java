@@ -0,0 +1,331 @@
+package com.intrasoft.sdmx.converter.benchmark;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.sdmxsource.sdmx.api.engine.DataWriterEngine;
+import org.sdmxsource.sdmx.api.model.beans.datastructure.DataStructureBean;
+import org.sdmxsource.sdmx.api.model.header.DatasetHeaderBean;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic time series dataset on the benchmark structure ({@code benchmark/BENCH_DSD_1.0.xml}).
+ * <p>Series keys are FREQ=A, REF_AREA cycling over the codes of CL_AREA and INDICATOR numbered every time
+ * all areas have been used. Observation values and statuses come from a seeded random generator,
+ * so the same parameters always produce byte for byte the same inputs.</p>
+ * <p>All the strings are built in the constructor, the benchmarks only measure the engines.
+ * Inputs too big for the memory are streamed with {@link #writeSingleLevelCsv(Writer, int, int, long)}.</p>
+ * <p>The generator and the structure are shared with the benchmarks module through the test jar.</p>
+ */
+public final class SyntheticDataset {
+
+	public static final String[] CONCEPTS = {"FREQ", "REF_AREA", "INDICATOR", "TIME_PERIOD", "OBS_VALUE", "OBS_STATUS"};
+
+	public static final String[] AREAS = {"AT", "BE", "BG", "CY", "CZ", "DE", "DK", "EE", "EL", "ES",
+			"FI", "FR", "HR", "HU", "IE", "IT", "LT", "LU", "LV", "MT"};
+
+	public static final String[] STATUSES = {"A", "E", "P"};
+
+	public static final String FREQ = "A";
+
+	public static final int FIRST_YEAR = 1900;
+
+	/** Column widths of the FLR representation */
+	public static final int FREQ_WIDTH = 1;
+	public static final int AREA_WIDTH = 2;
+	public static final int INDICATOR_WIDTH = 6;
+	public static final int TIME_WIDTH = 4;
+	public static final int VALUE_WIDTH = 10;
+	public static final int STATUS_WIDTH = 1;
+
+	private static final char CSV_DELIMITER = ';';
+
+	private final int seriesCount;
+
+	private final int observationsPerSeries;
+
+	private final long seed;
+
+	private final String[] areas;
+
+	private final String[] indicators;
+
+	private final String[] periods;
+
+	private final String[] values;
+
+	private final String[] statuses;
+
+	/**
+	 * @param seriesCount           number of series
+	 * @param observationsPerSeries number of observations of every series, at most 2000
+	 * @param seed                  seed of the values and statuses
+	 */
+	public SyntheticDataset(int seriesCount, int observationsPerSeries, long seed) {
+		if (observationsPerSeries > 2000) {
+			throw new IllegalArgumentException("At most 2000 yearly observations are supported per series");
+		}
+		this.seriesCount = seriesCount;
+		this.observationsPerSeries = observationsPerSeries;
+		this.seed = seed;
+		this.areas = new String[seriesCount];
+		this.indicators = new String[seriesCount];
+		for (int series = 0; series < seriesCount; series++) {
+			areas[series] = area(series);
+			indicators[series] = indicator(series);
+		}
+		this.periods = new String[observationsPerSeries];
+		for (int obs = 0; obs < observationsPerSeries; obs++) {
+			periods[obs] = period(obs);
+		}
+		SplittableRandom random = new SplittableRandom(seed);
+		int observationCount = getObservationCount();
+		this.values = new String[observationCount];
+		this.statuses = new String[observationCount];
+		for (int i = 0; i < observationCount; i++) {
+			values[i] = nextValue(random);
+			statuses[i] = nextStatus(random);
+		}
+	}
+
+	/**
+	 * Writes the single level csv of {@link #toSingleLevelCsv()} row by row, so that its size is not bound by the memory.
+	 * The last series is incomplete when the observations are not a multiple of the observations per series.
+	 *
+	 * @param csv                   the output
+	 * @param observations          number of observations
+	 * @param observationsPerSeries number of observations of every series, at most 2000
+	 * @param seed                  seed of the values and statuses
+	 */
+	public static void writeSingleLevelCsv(Writer csv, int observations, int observationsPerSeries, long seed) throws IOException {
+		SplittableRandom random = new SplittableRandom(seed);
+		csv.write(String.join(String.valueOf(CSV_DELIMITER), CONCEPTS));
+		csv.write('\n');
+		for (int index = 0; index < observations; index++) {
+			int series = index / observationsPerSeries;
+			csv.write(FREQ);
+			csv.write(CSV_DELIMITER);
+			csv.write(area(series));
+			csv.write(CSV_DELIMITER);
+			csv.write(indicator(series));
+			csv.write(CSV_DELIMITER);
+			csv.write(period(index % observationsPerSeries));
+			csv.write(CSV_DELIMITER);
+			csv.write(nextValue(random));
+			csv.write(CSV_DELIMITER);
+			csv.write(nextStatus(random));
+			csv.write('\n');
+		}
+	}
+
+	public int getSeriesCount() {
+		return seriesCount;
+	}
+
+	public int getObservationsPerSeries() {
+		return observationsPerSeries;
+	}
+
+	public int getObservationCount() {
+		return seriesCount * observationsPerSeries;
+	}
+
+	/**
+	 * Semicolon separated, one row per observation, with a header row.
+	 */
+	public byte[] toSingleLevelCsv() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(getObservationCount() * 32);
+		try (Writer csv = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+			writeSingleLevelCsv(csv, getObservationCount(), observationsPerSeries, seed);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Two levels without header, the level number in the first column:
+	 * level 1 rows hold the series key, level 2 rows the observations of the series.
+	 */
+	public byte[] toMultiLevelCsv() {
+		StringBuilder csv = new StringBuilder(getObservationCount() * 20);
+		for (int series = 0; series < seriesCount; series++) {
+			csv.append('1').append(CSV_DELIMITER)
+					.append(FREQ).append(CSV_DELIMITER)
+					.append(areas[series]).append(CSV_DELIMITER)
+					.append(indicators[series]).append('\n');
+			for (int obs = 0; obs < observationsPerSeries; obs++) {
+				int index = series * observationsPerSeries + obs;
+				csv.append('2').append(CSV_DELIMITER)
+						.append(periods[obs]).append(CSV_DELIMITER)
+						.append(values[index]).append(CSV_DELIMITER)
+						.append(statuses[index]).append('\n');
+			}
+		}
+		return csv.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Fixed length records, one per observation, with the widths declared in this class.
+	 */
+	public byte[] toFlr() {
+		int recordLength = FREQ_WIDTH + AREA_WIDTH + INDICATOR_WIDTH + TIME_WIDTH + VALUE_WIDTH + STATUS_WIDTH + 1;
+		StringBuilder flr = new StringBuilder(getObservationCount() * recordLength);
+		for (int series = 0; series < seriesCount; series++) {
+			for (int obs = 0; obs < observationsPerSeries; obs++) {
+				int index = series * observationsPerSeries + obs;
+				flr.append(FREQ).append(areas[series]).append(indicators[series]).append(periods[obs]);
+				pad(flr, values[index], VALUE_WIDTH);
+				flr.append(statuses[index]).append('\n');
+			}
+		}
+		return flr.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * SDMX 2.0 cross sectional message: one group per area and period holding the indicators of that area.
+	 */
+	public byte[] toCrossSectionalXml() {
+		StringBuilder xml = new StringBuilder(getObservationCount() * 64);
+		xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+				.append("<CrossSectionalData xmlns=\"http://www.SDMX.org/resources/SDMXML/schemas/v2_0/message\"")
+				.append(" xmlns:bench=\"urn:sdmx:org.sdmx.infomodel.datastructure.DataStructure=BENCH:BENCH_DSD(1.0):cross\">\n")
+				.append("<Header><ID>BENCH_DATA</ID><Test>true</Test><Prepared>2024-01-01T00:00:00</Prepared><Sender id=\"BENCH\"/></Header>\n")
+				.append("<bench:DataSet FREQ=\"").append(FREQ).append("\">\n");
+		int areaCount = Math.min(AREAS.length, seriesCount);
+		for (int area = 0; area < areaCount; area++) {
+			for (int obs = 0; obs < observationsPerSeries; obs++) {
+				xml.append("<bench:Group REF_AREA=\"").append(AREAS[area])
+						.append("\" TIME_PERIOD=\"").append(periods[obs]).append("\"><bench:Section>\n");
+				for (int series = area; series < seriesCount; series += AREAS.length) {
+					int index = series * observationsPerSeries + obs;
+					xml.append("<bench:OBS_VALUE INDICATOR=\"").append(indicators[series])
+							.append("\" value=\"").append(values[index])
+							.append("\" OBS_STATUS=\"").append(statuses[index]).append("\"/>\n");
+				}
+				xml.append("</bench:Section></bench:Group>\n");
+			}
+		}
+		xml.append("</bench:DataSet>\n</CrossSectionalData>\n");
+		return xml.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Workbook with the parameter sheet and a data sheet holding one row per series and one column per period.
+	 */
+	public byte[] toExcel() throws IOException {
+		try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+			writeParameterSheet(workbook);
+			Sheet data = workbook.createSheet("DATA");
+			Row header = data.createRow(0);
+			header.createCell(0).setCellValue("REF_AREA");
+			header.createCell(1).setCellValue("INDICATOR");
+			for (int obs = 0; obs < observationsPerSeries; obs++) {
+				header.createCell(2 + obs).setCellValue(periods[obs]);
+			}
+			for (int series = 0; series < seriesCount; series++) {
+				Row row = data.createRow(1 + series);
+				row.createCell(0).setCellValue(areas[series]);
+				row.createCell(1).setCellValue(indicators[series]);
+				for (int obs = 0; obs < observationsPerSeries; obs++) {
+					row.createCell(2 + obs).setCellValue(Double.parseDouble(values[series * observationsPerSeries + obs]));
+				}
+			}
+			return toBytes(workbook);
+		}
+	}
+
+	/**
+	 * Workbook holding only the parameter sheet, used as template by the Excel writer.
+	 */
+	public static byte[] excelTemplate() throws IOException {
+		try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+			writeParameterSheet(workbook);
+			return toBytes(workbook);
+		}
+	}
+
+	/**
+	 * Writes the dataset to the writer the way the readers hand it over, one series after the other.
+	 *
+	 * @param writer        the writer
+	 * @param dataStructure the benchmark structure
+	 * @param datasetHeader the header of the dataset
+	 */
+	public void writeTo(DataWriterEngine writer, DataStructureBean dataStructure, DatasetHeaderBean datasetHeader) {
+		writer.startDataset(null, dataStructure, datasetHeader);
+		for (int series = 0; series < seriesCount; series++) {
+			writer.startSeries();
+			writer.writeSeriesKeyValue("FREQ", FREQ);
+			writer.writeSeriesKeyValue("REF_AREA", areas[series]);
+			writer.writeSeriesKeyValue("INDICATOR", indicators[series]);
+			for (int obs = 0; obs < observationsPerSeries; obs++) {
+				int index = series * observationsPerSeries + obs;
+				writer.writeObservation("TIME_PERIOD", periods[obs], values[index]);
+				writer.writeAttributeValue("OBS_STATUS", statuses[index]);
+			}
+		}
+		writer.close();
+	}
+
+	/**
+	 * Parameter sheet in the layout read by ExcelUtils#readExcelParametersXlsx.
+	 */
+	private static void writeParameterSheet(XSSFWorkbook workbook) {
+		Sheet parameters = workbook.createSheet("Parameter");
+		addRow(parameters, 0, "Element", "Type", "PosType", "Position", "DataStart", "C2");
+		addRow(parameters, 1, "FREQ", "DIM", "FIX", FREQ);
+		addRow(parameters, 2, "REF_AREA", "DIM", "COLUMN", "A");
+		addRow(parameters, 3, "INDICATOR", "DIM", "COLUMN", "B");
+		addRow(parameters, 4, "TIME_PERIOD", "DIM", "ROW", "1");
+		addRow(parameters, 5, "OBS_STATUS", "ATT", "SKIP");
+	}
+
+	private static void addRow(Sheet sheet, int rowIndex, String... cells) {
+		Row row = sheet.createRow(rowIndex);
+		for (int i = 0; i < cells.length; i++) {
+			row.createCell(i).setCellValue(cells[i]);
+		}
+	}
+
+	private static byte[] toBytes(XSSFWorkbook workbook) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		workbook.write(out);
+		return out.toByteArray();
+	}
+
+	private static String area(int series) {
+		return AREAS[series % AREAS.length];
+	}
+
+	private static String indicator(int series) {
+		return String.format(Locale.ROOT, "I%05d", series / AREAS.length);
+	}
+
+	private static String period(int obs) {
+		return Integer.toString(FIRST_YEAR + obs);
+	}
+
+	private static String nextValue(SplittableRandom random) {
+		return String.format(Locale.ROOT, "%.2f", random.nextDouble() * 10_000d);
+	}
+
+	private static String nextStatus(SplittableRandom random) {
+		return STATUSES[random.nextInt(STATUSES.length)];
+	}
+
+	private static void pad(StringBuilder builder, String value, int width) {
+		for (int i = value.length(); i < width; i++) {
+			builder.append(' ');
+		}
+		builder.append(value);
+	}
+}
@@ -0,0 +1,59 @@
+package com.intrasoft.sdmx.converter.cache;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.cache.Cache;
+import javax.cache.management.CacheStatisticsMXBean;
+import java.util.LinkedHashMap;
+
+@SuppressWarnings("deprecation")
+public class ConverterCacheManagerTest {
+
+	private static final long HEAP_BYTES = 1024 * 1024;
+	private static final long OFF_HEAP_BYTES = 2 * HEAP_BYTES;
+	private static final long DISK_BYTES = 4 * HEAP_BYTES;
+
+	@Test
+	public void testScopesDoNotShareTheirCaches() {
+		ConverterCacheManager manager = ConverterCacheManager.INSTANCE;
+		try (ConverterCacheScope first = manager.openScope(HEAP_BYTES, OFF_HEAP_BYTES, DISK_BYTES);
+			 ConverterCacheScope second = manager.openScope(HEAP_BYTES, OFF_HEAP_BYTES, DISK_BYTES)) {
+			Cache<LinkedHashMap<String, String>, LinkedHashMap<String, String>> firstCache = first.getCache(ConverterCacheManager.CROSS_SECTIONAL_CACHE);
+			Cache<LinkedHashMap<String, String>, LinkedHashMap<String, String>> secondCache = second.getCache(ConverterCacheManager.CROSS_SECTIONAL_CACHE);
+			Assert.assertNotEquals(firstCache.getName(), secondCache.getName());
+			Assert.assertSame(firstCache, first.getCache(ConverterCacheManager.CROSS_SECTIONAL_CACHE));
+
+			manager.putKeyAndValue(firstCache, map("FREQ", "A"), map("OBS_VALUE", "1"));
+			Assert.assertEquals(map("OBS_VALUE", "1"), manager.getValueFromKey(firstCache, map("FREQ", "A")));
+			Assert.assertNull(manager.getValueFromKey(secondCache, map("FREQ", "A")));
+
+			CacheStatisticsMXBean statistics = manager.getStatistics(firstCache);
+			Assert.assertNotNull(statistics);
+			Assert.assertEquals(1, statistics.getCacheHits());
+			Assert.assertEquals(1, statistics.getCachePuts());
+		}
+	}
+
+	@Test
+	public void testClosingTheScopeDestroysItsCaches() {
+		ConverterCacheManager manager = ConverterCacheManager.INSTANCE;
+		String cacheName;
+		try (ConverterCacheScope scope = manager.openScope(HEAP_BYTES, OFF_HEAP_BYTES, DISK_BYTES)) {
+			cacheName = scope.getCache(ConverterCacheManager.CSV_XS_CACHE).getName();
+			Assert.assertNotNull(manager.getConverterCache(cacheName));
+		}
+		Assert.assertNull(manager.getConverterCache(cacheName));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testTiersShouldGrowTowardsTheDisk() {
+		ConverterCacheManager.INSTANCE.openScope(OFF_HEAP_BYTES, HEAP_BYTES, DISK_BYTES);
+	}
+
+	private static LinkedHashMap<String, String> map(String key, String value) {
+		LinkedHashMap<String, String> result = new LinkedHashMap<>();
+		result.put(key, value);
+		return result;
+	}
+}
@@ -0,0 +1,54 @@
+package com.intrasoft.sdmx.converter.io.data;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TranscodingEngineTest {
+
+	@Test
+	public void testValueFromTranscoding() {
+		LinkedHashMap<String, String> rules = new LinkedHashMap<>();
+		rules.put("GR", "EL");
+		rules.put("", "DEFAULT");
+		LinkedHashMap<String, LinkedHashMap<String, String>> transcoding = new LinkedHashMap<>();
+		transcoding.put("REF_AREA", rules);
+		transcoding.put("FREQ", new LinkedHashMap<>());
+		TranscodingEngine engine = new TranscodingEngine(transcoding);
+
+		Assert.assertTrue(engine.hasTranscodingRules("REF_AREA"));
+		Assert.assertTrue(engine.hasTranscodingRules("FREQ"));
+		Assert.assertFalse(engine.hasTranscodingRules("INDICATOR"));
+		Assert.assertEquals("EL", engine.getValueFromTranscoding("REF_AREA", "GR"));
+		Assert.assertEquals("IT", engine.getValueFromTranscoding("REF_AREA", "IT"));
+		// SDMXCONV-1164 default value of the component
+		Assert.assertEquals("DEFAULT", engine.getValueFromTranscoding("REF_AREA", null));
+		Assert.assertEquals("DEFAULT", engine.getValueFromTranscoding("REF_AREA", ""));
+		Assert.assertEquals("A", engine.getValueFromTranscoding("FREQ", "A"));
+		Assert.assertEquals("A", engine.getValueFromTranscoding("INDICATOR", "A"));
+	}
+
+	@Test
+	public void testNoTranscoding() {
+		TranscodingEngine engine = new TranscodingEngine((LinkedHashMap<String, LinkedHashMap<String, String>>) null);
+		Assert.assertFalse(engine.hasTranscodingRules("REF_AREA"));
+		Assert.assertEquals("GR", engine.getValueFromTranscoding("REF_AREA", "GR"));
+	}
+
+	@Test
+	public void testLastRuleOfAListWins() {
+		Map<String, List<Map.Entry<String, String>>> transcoding = new LinkedHashMap<>();
+		transcoding.put("REF_AREA", Arrays.asList(
+				new AbstractMap.SimpleEntry<>("GR", "EL"),
+				new AbstractMap.SimpleEntry<>("GR", "GRC")));
+		TranscodingTable<Map.Entry<String, String>> table = TranscodingTable.fromRuleLists(transcoding, Map.Entry::getKey);
+		Assert.assertEquals("GRC", table.find("REF_AREA", "GR").getValue());
+		Assert.assertNull(table.find("REF_AREA", "IT"));
+		Assert.assertNull(table.find("FREQ", "A"));
+	}
+}
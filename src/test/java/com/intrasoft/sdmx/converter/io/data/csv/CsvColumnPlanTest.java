@@ -0,0 +1,70 @@
+package com.intrasoft.sdmx.converter.io.data.csv;
+
+import com.intrasoft.sdmx.converter.io.data.TranscodingEngine;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+
+public class CsvColumnPlanTest {
+
+	private final TranscodingEngine noTranscoding = new TranscodingEngine(new LinkedHashMap<>());
+
+	@Test
+	public void testWithoutTrailingDigit() {
+		Assert.assertEquals("COMP", CsvColumnPlan.withoutTrailingDigit("COMP1"));
+		Assert.assertEquals("COMP1", CsvColumnPlan.withoutTrailingDigit("COMP12"));
+		Assert.assertEquals("COMP", CsvColumnPlan.withoutTrailingDigit("COMP"));
+		Assert.assertEquals("", CsvColumnPlan.withoutTrailingDigit(""));
+	}
+
+	@Test
+	public void testValueOfSingleColumn() {
+		CsvColumnPlan.Column column = column("FREQ", false, null, new int[]{1}, null);
+		Assert.assertEquals("A", column.value(new String[]{"x", "A"}, noTranscoding));
+		Assert.assertEquals("", column.value(new String[]{"x", null}, noTranscoding));
+	}
+
+	@Test
+	public void testValueOfConcatenatedColumns() {
+		CsvColumnPlan.Column column = column("TIME_PERIOD", false, null, new int[]{0, 2, 5}, null);
+		Assert.assertEquals("2020-01", column.value(new String[]{"2020", "x", "-01"}, noTranscoding));
+	}
+
+	@Test
+	public void testValueOfFixedAndTranscodedColumns() {
+		LinkedHashMap<String, String> rules = new LinkedHashMap<>();
+		rules.put("GR", "EL");
+		LinkedHashMap<String, LinkedHashMap<String, String>> transcoding = new LinkedHashMap<>();
+		transcoding.put("REF_AREA", rules);
+		TranscodingEngine transcodingEngine = new TranscodingEngine(transcoding);
+		Assert.assertEquals("M", column("FREQ", true, "M", new int[0], null).value(new String[]{"A"}, transcodingEngine));
+		Assert.assertEquals("EL", column("REF_AREA", false, null, new int[]{0}, "REF_AREA").value(new String[]{"GR"}, transcodingEngine));
+	}
+
+	@Test
+	public void testColumnsKeepTheMappingOrderPerRole() {
+		CsvColumnPlan.Column freq = column("FREQ", CsvColumnPlan.KeyRole.DIMENSION, CsvColumnPlan.ObsRole.NONE);
+		CsvColumnPlan.Column time = column("TIME_PERIOD", CsvColumnPlan.KeyRole.TIME_DIMENSION, CsvColumnPlan.ObsRole.TIME_DIMENSION);
+		CsvColumnPlan.Column status = column("OBS_STATUS", CsvColumnPlan.KeyRole.NONE, CsvColumnPlan.ObsRole.OBS_ATTRIBUTE);
+		CsvColumnPlan.Column value = column("OBS_VALUE", CsvColumnPlan.KeyRole.NONE, CsvColumnPlan.ObsRole.PRIMARY_MEASURE);
+		CsvColumnPlan plan = new CsvColumnPlan(Arrays.asList(freq, time, status, value), Collections.emptyList(), new int[0], false);
+		Assert.assertArrayEquals(new CsvColumnPlan.Column[]{freq, time}, plan.getSeriesKeyColumns());
+		Assert.assertArrayEquals(new CsvColumnPlan.Column[]{time, value}, plan.getObsValueColumns());
+		Assert.assertArrayEquals(new CsvColumnPlan.Column[]{status}, plan.getObsAttributeColumns());
+		Assert.assertEquals(0, plan.getSeriesAttributeColumns().length);
+	}
+
+	private static CsvColumnPlan.Column column(String concept, boolean fixed, String fixedValue, int[] indexes, String transcodingConcept) {
+		return new CsvColumnPlan.Column(concept, null, fixed, fixedValue, indexes, transcodingConcept,
+				CsvColumnPlan.KeyRole.NONE, CsvColumnPlan.ObsRole.NONE, false,
+				CsvColumnPlan.ComplexKind.SIMPLE, concept, true, true);
+	}
+
+	private static CsvColumnPlan.Column column(String concept, CsvColumnPlan.KeyRole keyRole, CsvColumnPlan.ObsRole obsRole) {
+		return new CsvColumnPlan.Column(concept, null, false, null, new int[]{0}, null,
+				keyRole, obsRole, false, CsvColumnPlan.ComplexKind.NONE, concept, true, true);
+	}
+}
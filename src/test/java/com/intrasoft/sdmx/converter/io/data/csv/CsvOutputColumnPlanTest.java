@@ -0,0 +1,55 @@
+package com.intrasoft.sdmx.converter.io.data.csv;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class CsvOutputColumnPlanTest {
+
+	@Test
+	public void testNumberedColumns() {
+		Assert.assertTrue(CsvOutputColumnPlan.isNumberedColumnOf("COMP1", "COMP"));
+		Assert.assertTrue(CsvOutputColumnPlan.isNumberedColumnOf("COMP12", "COMP"));
+		Assert.assertFalse(CsvOutputColumnPlan.isNumberedColumnOf("COMP", "COMP"));
+		Assert.assertFalse(CsvOutputColumnPlan.isNumberedColumnOf("COMP_A", "COMP"));
+		Assert.assertFalse(CsvOutputColumnPlan.isNumberedColumnOf("OTHER1", "COMP"));
+	}
+
+	@Test
+	public void testComponentsOfTheComplexLayout() {
+		CsvOutputColumnPlan.Column freq = column("FREQ", 0);
+		CsvOutputColumnPlan.Column comp1 = column("COMP1", 1);
+		CsvOutputColumnPlan.Column comp = column("COMP", 2);
+		CsvOutputColumnPlan.Column comp2 = column("COMP2", 3);
+		List<CsvOutputColumnPlan.Column> columns = Arrays.asList(freq, comp1, comp, comp2);
+		CsvOutputColumnPlan plan = new CsvOutputColumnPlan(columns, Arrays.asList("FREQ", "OBS_VALUE", "COMP"),
+				Collections.singleton("COMP"), true);
+		Assert.assertEquals(4, plan.size());
+		Assert.assertEquals(2, plan.getComponents().length);
+
+		CsvOutputColumnPlan.ComponentColumns freqColumns = plan.getComponents()[0];
+		Assert.assertEquals("FREQ", freqColumns.componentId);
+		Assert.assertFalse(freqColumns.complex);
+		Assert.assertArrayEquals(new CsvOutputColumnPlan.Column[]{freq}, freqColumns.columns);
+
+		CsvOutputColumnPlan.ComponentColumns compColumns = plan.getComponents()[1];
+		Assert.assertTrue(compColumns.complex);
+		Assert.assertArrayEquals(new CsvOutputColumnPlan.Column[]{comp1, comp, comp2}, compColumns.columns);
+		Assert.assertArrayEquals(new boolean[]{false, true, false}, compColumns.exact);
+	}
+
+	@Test
+	public void testSimpleLayoutHasNoComponents() {
+		CsvOutputColumnPlan plan = new CsvOutputColumnPlan(Collections.singletonList(column("FREQ", 0)),
+				Collections.singletonList("FREQ"), Collections.emptySet(), false);
+		Assert.assertFalse(plan.isComplexLayout());
+		Assert.assertEquals(0, plan.getComponents().length);
+	}
+
+	private static CsvOutputColumnPlan.Column column(String name, int index) {
+		return new CsvOutputColumnPlan.Column(name, index, -1, null, false, false);
+	}
+}
@@ -17,6 +17,7 @@ import org.sdmxsource.sdmx.api.model.beans.datastructure.DataflowBean;
 import org.sdmxsource.sdmx.api.model.header.DatasetHeaderBean;
 import org.sdmxsource.sdmx.sdmxbeans.model.header.DatasetHeaderBeanImpl;
 import org.sdmxsource.sdmx.sdmxbeans.model.header.DatasetStructureReferenceBeanImpl;
+import org.sdmxsource.sdmx.structureretrieval.manager.InMemoryRetrievalManager;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
@@ -219,6 +220,112 @@ public class FlrDataWriterEngineTest extends StandardWriterTest {
 		}
 	}
 
+	@Test
+	public void standardTestCountedWidths() throws IOException {
+		File resultFile = new File("./target/sdmxFlrUnitTest4.flr");
+		SdmxBeans sdmxBeans = readStructuresFromFile(new FileInputStream("./testfiles/dsds/STS+ESTAT+2.0.xml"));
+		DataStructureBean dataStructure = sdmxBeans.getDataStructures().iterator().next();
+		DataflowBean dataflow = sdmxBeans.getDataflows().iterator().next();
+		DatasetHeaderBean datasetHeaderBean = new DatasetHeaderBeanImpl("unit test",
+				DATASET_ACTION.INFORMATION,
+				new DatasetStructureReferenceBeanImpl(dataStructure.asReference()));
+
+		FlrOutputConfig config = new FlrOutputConfig();
+		try (final FileOutputStream outputStream = new FileOutputStream(resultFile)) {
+			// no mapping and no lengths, the widths are counted from the values written
+			FlrDataWriterEngine classUnderTest = new FlrDataWriterEngine(
+					SDMX_SCHEMA.VERSION_TWO_POINT_ONE,
+					BASE_DATA_FORMAT.CSV,
+					outputStream, config);
+			classUnderTest.startDataset(dataflow, dataStructure, datasetHeaderBean);
+			for (String refArea : new String[]{"IT", "EL"}) {
+				classUnderTest.startSeries();
+				classUnderTest.writeSeriesKeyValue("REF_AREA", refArea);
+				classUnderTest.writeSeriesKeyValue("ADJUSTMENT", "C");
+				classUnderTest.writeSeriesKeyValue("STS_INDICATOR", "TOVD");
+				classUnderTest.writeSeriesKeyValue("STS_ACTIVITY", "NS0040");
+				classUnderTest.writeSeriesKeyValue("STS_INSTITUTION", "1");
+				classUnderTest.writeSeriesKeyValue("STS_BASE_YEAR", "2000");
+				classUnderTest.writeSeriesKeyValue("FREQ", "M");
+				for(int i=1; i<= 12; i++) {
+					String period = String.format("2005-%1$02d", i);
+					classUnderTest.writeObservation("TIME_PERIOD", period, new Float(i).toString());
+				}
+			}
+			classUnderTest.close();
+			outputStream.flush();
+		}
+
+		Assert.assertEquals(Integer.valueOf(4), config.getLengthsCounting().get("OBS_VALUE"));
+		Assert.assertNull(config.getLengthsCounting().get("OBS_STATUS"));
+		Assert.assertNotNull(config.getFinalMapping().get("OBS_VALUE"));
+		try(BufferedReader reader = new BufferedReader(new FileReader(resultFile))) {
+			String line = reader.readLine();
+			Assert.assertNotNull(line);
+			Assert.assertEquals("MITCTOVDNS0040120002005-011.0 ", line);
+			int count = 0;
+			while((line = reader.readLine()) != null) {
+				Assert.assertEquals(30, line.length());
+				count++;
+			}
+			Assert.assertEquals(23, count);
+		}
+	}
+
+	@Test
+	public void standardTestStructureWidths() throws IOException {
+		File resultFile = new File("./target/sdmxFlrUnitTest5.flr");
+		SdmxBeans sdmxBeans = readStructuresFromFile(new FileInputStream("./src/test/resources/benchmark/BENCH_DSD_1.0.xml"));
+		DataStructureBean dataStructure = sdmxBeans.getDataStructures().iterator().next();
+		DatasetHeaderBean datasetHeaderBean = new DatasetHeaderBeanImpl("unit test",
+				DATASET_ACTION.INFORMATION,
+				new DatasetStructureReferenceBeanImpl(dataStructure.asReference()));
+
+		FlrOutputConfig config = new FlrOutputConfig();
+		config.setWidthsFromStructure(true);
+		config.setBeanRetrieval(new InMemoryRetrievalManager(sdmxBeans));
+		try (final FileOutputStream outputStream = new FileOutputStream(resultFile)) {
+			FlrDataWriterEngine classUnderTest = new FlrDataWriterEngine(
+					SDMX_SCHEMA.VERSION_TWO_POINT_ONE,
+					BASE_DATA_FORMAT.CSV,
+					outputStream, config);
+			classUnderTest.startDataset(null, dataStructure, datasetHeaderBean);
+			classUnderTest.startSeries();
+			classUnderTest.writeSeriesKeyValue("FREQ", "A");
+			classUnderTest.writeSeriesKeyValue("REF_AREA", "AT");
+			classUnderTest.writeSeriesKeyValue("INDICATOR", "I1");
+			classUnderTest.writeObservation("TIME_PERIOD", "2005", "1.5");
+			classUnderTest.writeAttributeValue("OBS_STATUS", "E");
+			// a date time with a time zone is longer than its format, the time period is measured
+			classUnderTest.writeObservation("TIME_PERIOD", "2005-01-01T00:00:00+01:00", "12.25");
+			classUnderTest.writeAttributeValue("OBS_STATUS", "A");
+			classUnderTest.close();
+			outputStream.flush();
+		}
+
+		// the codes and the maximum length come from the structure, the time period and the value from the data
+		Assert.assertEquals(Integer.valueOf(1), config.getLengthsCounting().get("FREQ"));
+		Assert.assertEquals(Integer.valueOf(2), config.getLengthsCounting().get("REF_AREA"));
+		Assert.assertEquals(Integer.valueOf(8), config.getLengthsCounting().get("INDICATOR"));
+		Assert.assertEquals(Integer.valueOf(25), config.getLengthsCounting().get("TIME_PERIOD"));
+		Assert.assertEquals(Integer.valueOf(5), config.getLengthsCounting().get("OBS_VALUE"));
+		Assert.assertEquals(Integer.valueOf(1), config.getLengthsCounting().get("OBS_STATUS"));
+		try(BufferedReader reader = new BufferedReader(new FileReader(resultFile))) {
+			Assert.assertEquals("AATI1      2005                     1.5  E", reader.readLine());
+			Assert.assertEquals("AATI1      2005-01-01T00:00:00+01:0012.25A", reader.readLine());
+			Assert.assertNull(reader.readLine());
+		}
+	}
+
+	@Test
+	public void structureWidthsWithoutCodelistsAreNotCached() throws IOException {
+		SdmxBeans sdmxBeans = readStructuresFromFile(new FileInputStream("./src/test/resources/benchmark/BENCH_DSD_1.0.xml"));
+		DataStructureBean dataStructure = sdmxBeans.getDataStructures().iterator().next();
+		// without the codelists the coded components have no width, this is not kept for the next calls
+		FlrStructureWidths.of(dataStructure, null);
+		Assert.assertEquals(Integer.valueOf(2), FlrStructureWidths.of(dataStructure, new InMemoryRetrievalManager(sdmxBeans)).getWidths().get("REF_AREA"));
+	}
+
 	private void setOutputConfig(FlrOutputConfig config, FlrDataWriterEngine classUnderTest){
 		config.setPadding(" ");
 		Map<String, Integer> mapping = new HashMap<String, Integer>();
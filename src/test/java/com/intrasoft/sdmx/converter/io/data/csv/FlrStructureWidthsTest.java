@@ -0,0 +1,28 @@
+package com.intrasoft.sdmx.converter.io.data.csv;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.sdmxsource.sdmx.api.constants.TEXT_TYPE;
+
+public class FlrStructureWidthsTest {
+
+	@Test
+	public void testBoundedTextTypes() {
+		Assert.assertEquals(Integer.valueOf(6), FlrStructureWidths.widthOfTextType(TEXT_TYPE.SHORT));
+		Assert.assertEquals(Integer.valueOf(11), FlrStructureWidths.widthOfTextType(TEXT_TYPE.INTEGER));
+		Assert.assertEquals(Integer.valueOf(20), FlrStructureWidths.widthOfTextType(TEXT_TYPE.LONG));
+	}
+
+	@Test
+	public void testUnboundedTextTypes() {
+		Assert.assertNull(FlrStructureWidths.widthOfTextType(TEXT_TYPE.STRING));
+		Assert.assertNull(FlrStructureWidths.widthOfTextType(TEXT_TYPE.DECIMAL));
+	}
+
+	@Test
+	public void testTimeTypesAreMeasured() {
+		// a time zone or a time range makes the values longer than their format
+		Assert.assertNull(FlrStructureWidths.widthOfTextType(TEXT_TYPE.DATE_TIME));
+		Assert.assertNull(FlrStructureWidths.widthOfTextType(TEXT_TYPE.OBSERVATIONAL_TIME_PERIOD));
+	}
+}
@@ -5,16 +5,22 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayOutputStream;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.logging.Handler;
 import java.util.logging.LogManager;
 
 import org.apache.logging.log4j.core.config.Configurator;
 import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.estat.sdmxsource.util.excel.ExcelConfiguration;
 import org.estat.sdmxsource.util.excel.ExcelDimAttrConfig;
 import org.estat.sdmxsource.util.excel.ExcelElementType;
@@ -30,6 +36,8 @@ import org.sdmxsource.sdmx.api.manager.parse.StructureParsingManager;
 import org.sdmxsource.sdmx.api.model.StructureWorkspace;
 import org.sdmxsource.sdmx.api.model.beans.SdmxBeans;
 import org.sdmxsource.sdmx.api.model.beans.datastructure.DataStructureBean;
+import org.sdmxsource.sdmx.api.model.data.Keyable;
+import org.sdmxsource.sdmx.api.model.data.Observation;
 import org.sdmxsource.sdmx.api.util.ReadableDataLocation;
 import org.sdmxsource.sdmx.dataparser.model.error.FirstFailureExceptionHandler;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -433,6 +441,67 @@ public class ExcelDataReaderEngineTest {
         assertEquals(7, seriesCount);
     }*/
 
+    @Test
+    public void testColumnFilledAfterTheRowWindow() throws Exception {
+        // a column of the last period is blank down to a row beyond the window of rows kept
+        byte[] excel;
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            Sheet sheet = workbook.createSheet("DATA");
+            Row header = sheet.createRow(0);
+            for (int col = 2; col < 6; col++) {
+                header.createCell(col).setCellValue(String.valueOf(1998 + col));
+            }
+            for (int i = 1; i <= 40; i++) {
+                Row row = sheet.createRow(i);
+                row.createCell(0).setCellValue("AT");
+                row.createCell(1).setCellValue("I" + i);
+                for (int col = 2; col < 5; col++) {
+                    row.createCell(col).setCellValue(i * 10 + col);
+                }
+            }
+            sheet.getRow(30).createCell(5).setCellValue(3005);
+            workbook.write(out);
+            excel = out.toByteArray();
+        }
+        ExcelConfiguration configuration = new ExcelConfiguration();
+        configuration.setDataStart("C2");
+        configuration.setMaxEmptyRows(3);
+        configuration.setNumberOfEmptyColumns(1);
+        ExcelDimAttrConfig frequency = new ExcelDimAttrConfig("FREQ", ExcelElementType.DIM, ExcelPositionType.FIX, null, null, 0);
+        frequency.setFixValue("A");
+        configuration.setParameterElements(
+                Arrays.asList(
+                        frequency,
+                        new ExcelDimAttrConfig("REF_AREA", ExcelElementType.DIM, ExcelPositionType.COLUMN, "A", null, 0),
+                        new ExcelDimAttrConfig("INDICATOR", ExcelElementType.DIM, ExcelPositionType.COLUMN, "B", null, 0),
+                        new ExcelDimAttrConfig("TIME_PERIOD", ExcelElementType.DIM, ExcelPositionType.ROW, "1", null, 0)
+                ));
+        ExcelInputConfigImpl excelInputConfig = new ExcelInputConfigImpl();
+        excelInputConfig.setConfiguration(configuration);
+        ReadableDataLocation dsdLocation = dataLocationFactory.getReadableDataLocation("./src/test/resources/benchmark/BENCH_DSD_1.0.xml");
+        DataStructureBean dataStructure = parsingManager.parseStructures(dsdLocation).getStructureBeans(false).getDataStructures().iterator().next();
+        classUnderTest = new ExcelDataReaderEngine(dataLocationFactory.getReadableDataLocation(excel),
+                                                   dataStructure,
+                                                   null,
+                                                   excelInputConfig);
+        classUnderTest.setRowWindowSize(8);
+        classUnderTest.reset();
+        List<String> observations = new ArrayList<>();
+        assertTrue(classUnderTest.moveNextDataset());
+        while (classUnderTest.moveNextKeyable()) {
+            Keyable key = classUnderTest.getCurrentKey();
+            while (classUnderTest.moveNextObservation()) {
+                Observation observation = classUnderTest.getCurrentObservation();
+                observations.add(key.getKeyValue("INDICATOR") + ":" + observation.getObsTime());
+            }
+        }
+        classUnderTest.close();
+        assertEquals(40 * 3 + 1, observations.size());
+        // the values of the column first filled after the window are read
+        assertTrue(observations.contains("I30:2003"));
+        assertTrue(observations.contains("I40:2002"));
+    }
+
     private DataStructureBean prepareDataStructure(){
         //prepare the dsd
         ReadableDataLocation dsdLocation = dataLocationFactory.getReadableDataLocation("./test_files/test_excel/ESTAT_STS_v2.2.xml");
@@ -0,0 +1,149 @@
+package com.intrasoft.sdmx.converter.io.data.excel;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ExcelRowWindowTest {
+
+	@Test
+	public void testSameRowsAsTheList() throws Exception {
+		try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+			Sheet sheet = createSheet(workbook);
+			List<Row> allRows = new ExcelSheetUtils(sheet).getRows(sheet);
+			List<Row> window = new ExcelSheetUtils(sheet).getRowWindow(sheet, 16);
+			for (int i = 0; i < allRows.size(); i++) {
+				Assert.assertTrue(ExcelSheetUtils.hasRow(window, i));
+				Assert.assertSame(allRows.get(i), window.get(i));
+			}
+			Assert.assertFalse(ExcelSheetUtils.hasRow(window, allRows.size()));
+			Assert.assertEquals(allRows.size(), window.size());
+		}
+	}
+
+	@Test
+	public void testPinnedRowsAreKept() throws Exception {
+		try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+			Sheet sheet = createSheet(workbook);
+			List<Row> window = new ExcelSheetUtils(sheet).getRowWindow(sheet, 4);
+			ExcelSheetUtils.pinRows(window, 2, Collections.singleton(40));
+			Assert.assertNotNull(window.get(90));
+			Assert.assertEquals(0, window.get(0).getRowNum());
+			Assert.assertEquals(1, window.get(1).getRowNum());
+			Assert.assertEquals(40, window.get(40).getRowNum());
+			Assert.assertEquals(88, window.get(88).getRowNum());
+			// the rows missing from the sheet are null
+			Assert.assertNull(window.get(89));
+			try {
+				window.get(30);
+				Assert.fail("the row left the window");
+			} catch (IllegalStateException e) {
+				Assert.assertTrue(e.getMessage().startsWith("Row 31"));
+			}
+		}
+	}
+
+	@Test
+	public void testRowOutOfOrderBeforeTheWindowIsDropped() throws Exception {
+		try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+			Sheet sheet = createSheet(workbook);
+			Sheet lateSheet = workbook.createSheet("LATE");
+			Row lateRow1 = lateSheet.createRow(1);
+			Row lateRow2 = lateSheet.createRow(2);
+			List<Row> rows = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				rows.add(sheet.getRow(i));
+			}
+			rows.add(lateRow1);
+			rows.add(lateRow2);
+			rows.add(sheet.getRow(8));
+			ExcelRowWindow window = new ExcelRowWindow(rows.iterator(), 4, BitSet::new);
+			window.pin(0, Collections.singleton(2));
+			Assert.assertEquals(8, window.get(8).getRowNum());
+			// the rows 1 and 2 came back after the window moved to the rows 5 to 8
+			Assert.assertSame(sheet.getRow(5), window.get(5));
+			Assert.assertSame(sheet.getRow(6), window.get(6));
+			Assert.assertSame(lateRow2, window.get(2));
+			try {
+				window.get(1);
+				Assert.fail("the row left the window");
+			} catch (IllegalStateException e) {
+				Assert.assertTrue(e.getMessage().startsWith("Row 2"));
+			}
+		}
+	}
+
+	@Test
+	public void testOccupiedColumns() throws Exception {
+		try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+			Sheet sheet = createSheet(workbook);
+			sheet.getRow(3).createCell(4).setCellValue("E4");
+			sheet.getRow(60).createCell(6).setCellValue("G61");
+			sheet.getRow(5).createCell(2);
+			ExcelSheetUtils sheetUtils = new ExcelSheetUtils(sheet);
+			BitSet allColumns = sheetUtils.getOccupiedColumns(sheetUtils.getRows(sheet));
+			Assert.assertEquals("{0, 4, 6}", allColumns.toString());
+
+			List<Row> window = sheetUtils.getRowWindow(sheet, 8);
+			window.get(50);
+			// the columns of the whole sheet, not only of the rows read so far
+			Assert.assertEquals("{0, 4, 6}", sheetUtils.getOccupiedColumns(window).toString());
+			window.get(57);
+			Assert.assertEquals("{0, 4, 6}", sheetUtils.getOccupiedColumns(window).toString());
+		}
+	}
+
+	@Test
+	public void testColumnFilledAfterTheWindow() throws Exception {
+		try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+			Sheet sheet = createSheet(workbook);
+			sheet.getRow(95).createCell(3).setCellValue("D96");
+			ExcelSheetUtils sheetUtils = new ExcelSheetUtils(sheet);
+			AtomicInteger passes = new AtomicInteger();
+			List<Row> window = sheetUtils.getRowWindow(sheet, 8, () -> {
+				passes.incrementAndGet();
+				return ExcelSheetUtils.getOccupiedColumns(ExcelSheetUtils.rowIterator(sheet));
+			});
+			window.get(2);
+			Assert.assertTrue(sheetUtils.getOccupiedColumns(window).get(3));
+			Assert.assertFalse(sheetUtils.getOccupiedColumns(window).get(5));
+			// the sheet is read once more, not at each question
+			Assert.assertEquals(1, passes.get());
+			Assert.assertEquals("D96", window.get(95).getCell(3).getStringCellValue());
+		}
+	}
+
+	@Test
+	public void testShortSheetIsNotReadAgain() throws Exception {
+		try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+			Sheet sheet = createSheet(workbook);
+			ExcelSheetUtils sheetUtils = new ExcelSheetUtils(sheet);
+			List<Row> window = sheetUtils.getRowWindow(sheet, 256, () -> {
+				throw new AssertionError("the sheet was read to its end");
+			});
+			window.get(0);
+			Assert.assertEquals("{0}", sheetUtils.getOccupiedColumns(window).toString());
+		}
+	}
+
+	/**
+	 * a sheet of 100 rows where every tenth row, starting from row 9, is missing
+	 */
+	private static Sheet createSheet(XSSFWorkbook workbook) {
+		Sheet sheet = workbook.createSheet("DATA");
+		for (int i = 0; i < 100; i++) {
+			if (i % 10 != 9) {
+				sheet.createRow(i).createCell(0).setCellValue("R" + i);
+			}
+		}
+		return sheet;
+	}
+}
@@ -0,0 +1,84 @@
+package com.intrasoft.sdmx.converter.io.data.excel;
+
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ExcelWorkbookSessionTest {
+
+	@Test
+	public void testSheetsAreParsedOncePerTemplate() throws Exception {
+		byte[] template = createXlsx("Parameter", "Trans");
+		AtomicInteger parsed = new AtomicInteger();
+		ExcelWorkbookSession.SheetParser<String> parser = (workbook, sheetName, handler) -> {
+			parsed.incrementAndGet();
+			return workbook.getSheet(sheetName).getSheetName();
+		};
+		try (ExcelWorkbookSession session = ExcelWorkbookSession.openTemplate(new ByteArrayInputStream(template), null)) {
+			Assert.assertTrue(session.isXlsx());
+			Assert.assertEquals(Arrays.asList("Parameter", "Trans"), session.getSheetNames());
+			Assert.assertEquals("Trans", session.getSheet(ExcelWorkbookSession.TRANSCODING, "Trans", parser, null));
+			Assert.assertEquals("Trans", session.getSheet(ExcelWorkbookSession.TRANSCODING, "Trans", parser, null));
+			Assert.assertEquals(1, parsed.get());
+		}
+		try (ExcelWorkbookSession session = ExcelWorkbookSession.openTemplate(new ByteArrayInputStream(template), null)) {
+			Assert.assertEquals("Trans", session.getSheet(ExcelWorkbookSession.TRANSCODING, "Trans", parser, null));
+			Assert.assertEquals(1, parsed.get());
+		}
+		try (ExcelWorkbookSession session = ExcelWorkbookSession.openTemplate(new ByteArrayInputStream(createXlsx("Parameter", "Trans", "Data")), null)) {
+			Assert.assertEquals("Trans", session.getSheet(ExcelWorkbookSession.TRANSCODING, "Trans", parser, null));
+			Assert.assertEquals(2, parsed.get());
+		}
+	}
+
+	@Test
+	public void testDataFilesAndRowsAreNotKept() throws Exception {
+		byte[] file = createXlsx("Parameter", "Codes", "Data");
+		AtomicInteger parsed = new AtomicInteger();
+		ExcelWorkbookSession.SheetParser<String> parser = (workbook, sheetName, handler) -> {
+			parsed.incrementAndGet();
+			return sheetName;
+		};
+		// the sheets of a data file are parsed once per session
+		for (int i = 1; i <= 2; i++) {
+			try (ExcelWorkbookSession session = ExcelWorkbookSession.open(new ByteArrayInputStream(file), null)) {
+				session.getSheet(ExcelWorkbookSession.PARAMETERS, "Parameter", parser, null);
+				session.getSheet(ExcelWorkbookSession.PARAMETERS, "Parameter", parser, null);
+				Assert.assertEquals(i, parsed.get());
+			}
+		}
+		// the codes sheets hold the rows of the workbook, they are not kept for the next sessions of a template
+		parsed.set(0);
+		for (int i = 1; i <= 2; i++) {
+			try (ExcelWorkbookSession session = ExcelWorkbookSession.openTemplate(new ByteArrayInputStream(file), null)) {
+				session.getSheet(ExcelWorkbookSession.CODES, "Codes", parser, null);
+				Assert.assertEquals(i, parsed.get());
+			}
+		}
+	}
+
+	@Test
+	public void testSameContentSameHash() throws Exception {
+		byte[] template = createXlsx("Parameter");
+		try (ExcelWorkbookSession first = ExcelWorkbookSession.open(new ByteArrayInputStream(template), null);
+			 ExcelWorkbookSession second = ExcelWorkbookSession.open(new ByteArrayInputStream(template), null)) {
+			Assert.assertEquals(64, first.getContentHash().length());
+			Assert.assertEquals(first.getContentHash(), second.getContentHash());
+		}
+	}
+
+	private static byte[] createXlsx(String... sheetNames) throws Exception {
+		try (XSSFWorkbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+			for (String sheetName : sheetNames) {
+				workbook.createSheet(sheetName).createRow(0).createCell(0).setCellValue(sheetName);
+			}
+			workbook.write(out);
+			return out.toByteArray();
+		}
+	}
+}
@@ -59,6 +59,15 @@ public class TestExcelRowColumnHeader {
 		Assert.assertEquals(3, classUnderTest.getIndexForValues(Arrays.asList("d", "e")));
 	}
 	
+	@Test
+	public void testGetOrAddValues() {
+		classUnderTest = new ExcelRowColumnHeader(Arrays.asList("DIM1", "DIM2")); 
+		Assert.assertEquals(0, classUnderTest.getOrAddValues(Arrays.asList("a", "b")));
+		Assert.assertEquals(1, classUnderTest.getOrAddValues(Arrays.asList("b", "c")));
+		Assert.assertEquals(0, classUnderTest.getOrAddValues(Arrays.asList("a", "b")));
+		Assert.assertEquals(2, classUnderTest.getValuesForDimension("DIM1").size());
+	}
+	
 	@Test
 	public void testGetValuesForDimension(){
 		classUnderTest = new ExcelRowColumnHeader(Arrays.asList("DIM1", "DIM2")); 
@@ -0,0 +1,73 @@
+package com.intrasoft.sdmx.converter.io.data.excel;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Iterator;
+
+public class XlsStreamingWorkbookTest {
+
+	@Test
+	public void testStreamedRowsHaveTheValues() throws Exception {
+		try (Workbook workbook = XlsStreamingWorkbook.open(new ByteArrayInputStream(createXls()), 10)) {
+			Assert.assertTrue(workbook instanceof XlsStreamingWorkbook);
+			XlsStreamingWorkbook xls = (XlsStreamingWorkbook) workbook;
+			Sheet data = xls.getStreamedSheetAt(1);
+			Assert.assertFalse(xls.isStreamed(xls.getStreamedSheetAt(0)));
+			Assert.assertTrue(xls.isStreamed(data));
+			Iterator<Row> rows = ExcelSheetUtils.rowIterator(data);
+			for (int i = 0; i < 50; i++) {
+				Row row = rows.next();
+				Assert.assertEquals(i * 2, row.getRowNum());
+				Assert.assertEquals("OBS" + i, row.getCell(0).getStringCellValue());
+				Assert.assertEquals(i + 0.5, row.getCell(1).getNumericCellValue(), 0.0);
+				Assert.assertEquals(CellType.FORMULA, row.getCell(2).getCellType());
+				Assert.assertEquals(CellType.NUMERIC, row.getCell(2).getCachedFormulaResultType());
+				Assert.assertEquals("B" + (i * 2 + 1) + "*2", row.getCell(2).getCellFormula());
+				Assert.assertNull(row.getCell(3));
+			}
+			Assert.assertFalse(rows.hasNext());
+		}
+	}
+
+	@Test
+	public void testSheetsAreLoadedWhenAsked() throws Exception {
+		try (Workbook workbook = XlsStreamingWorkbook.open(new ByteArrayInputStream(createXls()), 10)) {
+			Assert.assertEquals("PARAMETERS", workbook.getSheetAt(0).getSheetName());
+			Assert.assertEquals("DSD", workbook.getSheetAt(0).getRow(0).getCell(1).getStringCellValue());
+			Sheet data = workbook.getSheet("DATA");
+			Assert.assertFalse(((XlsStreamingWorkbook) workbook).isStreamed(data));
+			Assert.assertEquals(50, data.getPhysicalNumberOfRows());
+			Cell formula = data.getRow(98).getCell(2);
+			Assert.assertEquals(CellType.NUMERIC, formula.getCellType());
+			Assert.assertEquals(99.0, formula.getNumericCellValue(), 0.0);
+			Assert.assertEquals("OBS49", data.getRow(98).getCell(0).getStringCellValue());
+		}
+	}
+
+	private static byte[] createXls() throws Exception {
+		try (HSSFWorkbook workbook = new HSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+			Row parameters = workbook.createSheet("PARAMETERS").createRow(0);
+			parameters.createCell(0).setCellValue("Parameter");
+			parameters.createCell(1).setCellValue("DSD");
+			Sheet data = workbook.createSheet("DATA");
+			for (int i = 0; i < 50; i++) {
+				Row row = data.createRow(i * 2);
+				row.createCell(0).setCellValue("OBS" + i);
+				row.createCell(1).setCellValue(i + 0.5);
+				row.createCell(2).setCellFormula("B" + (i * 2 + 1) + "*2");
+			}
+			workbook.getCreationHelper().createFormulaEvaluator().evaluateAll();
+			workbook.write(out);
+			return out.toByteArray();
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package com.intrasoft.sdmx.converter.sdmxsource;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.xml.soap.MessageFactory;
+import javax.xml.soap.SOAPMessage;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+public class HttpTransportTest {
+
+	private HttpServer server;
+	private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+
+	@Before
+	public void startServer() throws Exception {
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/structure", exchange -> {
+			clientPorts.add(exchange.getRemoteAddress().getPort());
+			ByteArrayOutputStream body = new ByteArrayOutputStream();
+			try (GZIPOutputStream gzip = new GZIPOutputStream(body)) {
+				gzip.write("<Structure/>".getBytes(StandardCharsets.UTF_8));
+			}
+			exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+			exchange.sendResponseHeaders(200, body.size());
+			try (OutputStream out = exchange.getResponseBody()) {
+				body.writeTo(out);
+			}
+		});
+		server.createContext("/soap", exchange -> {
+			byte[] request = IOUtils.toByteArray(exchange.getRequestBody());
+			String transferEncoding = String.valueOf(exchange.getRequestHeaders().getFirst("Transfer-Encoding"));
+			String contentLength = String.valueOf(exchange.getRequestHeaders().getFirst("Content-Length"));
+			byte[] response = (transferEncoding + "|" + contentLength + "|" + new String(request, StandardCharsets.UTF_8))
+					.getBytes(StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(200, response.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(response);
+			}
+		});
+		server.start();
+	}
+
+	@After
+	public void stopServer() {
+		server.stop(0);
+	}
+
+	@Test
+	public void testConnectionsAreReusedAndGzipIsInflated() throws Exception {
+		URL url = new URL("http://localhost:" + server.getAddress().getPort() + "/structure");
+		CloseableHttpClient client = HttpTransport.getClient(url, null, null, null);
+		Assert.assertSame(client, HttpTransport.getClient(url, null, null, null));
+		for (int i = 0; i < 3; i++) {
+			try (CloseableHttpResponse response = client.execute(new HttpGet(url.toString()))) {
+				HttpTransport.checkStatus(response, url.toString());
+				Assert.assertEquals("<Structure/>", EntityUtils.toString(response.getEntity()));
+			}
+		}
+		Assert.assertEquals(1, clientPorts.size());
+	}
+
+	@Test
+	public void testSoapMessageHasContentLength() throws Exception {
+		SOAPMessage message = queryStructure();
+		String echo = postSoap(HttpTransport.soapEntity(message));
+		Assert.assertTrue(echo, echo.startsWith("null|" + serialize(message).length + "|"));
+		Assert.assertTrue(echo, echo.contains("QueryStructure"));
+	}
+
+	@Test
+	public void testSoapMessageIsStreamedWhenChunked() throws Exception {
+		String echo = postSoap(HttpTransport.soapEntity(queryStructure(), true));
+		Assert.assertTrue(echo, echo.startsWith("chunked|null|"));
+		Assert.assertTrue(echo, echo.contains("QueryStructure"));
+	}
+
+	private String postSoap(HttpEntity entity) throws Exception {
+		URL url = new URL("http://localhost:" + server.getAddress().getPort() + "/soap");
+		HttpPost post = new HttpPost(url.toString());
+		post.setEntity(entity);
+		try (CloseableHttpResponse response = HttpTransport.getClient(url, null, null, null).execute(post)) {
+			return EntityUtils.toString(response.getEntity());
+		}
+	}
+
+	private static SOAPMessage queryStructure() throws Exception {
+		SOAPMessage message = MessageFactory.newInstance().createMessage();
+		message.getSOAPBody().addBodyElement(message.getSOAPPart().getEnvelope().createName("QueryStructure"));
+		message.saveChanges();
+		return message;
+	}
+
+	private static byte[] serialize(SOAPMessage message) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		message.writeTo(out);
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,68 @@
+package com.intrasoft.sdmx.converter.sdmxsource;
+
+import com.intrasoft.sdmx.converter.services.exceptions.RegistryConnectionException;
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+public class SoapPayloadInputStreamTest {
+
+	private static final String ENVELOPE = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+			+ "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\" xmlns:mes=\"urn:message\">"
+			+ "<soap:Header><h>ignored</h></soap:Header>"
+			+ "<soap:Body>%s</soap:Body></soap:Envelope>";
+
+	@Test
+	public void testPayloadIsTakenFromTheBody() throws Exception {
+		String payload = readPayload("<mes:Structure><mes:Codelist id=\"CL_FREQ\">A &amp; M</mes:Codelist></mes:Structure>", false);
+		Assert.assertTrue(payload, payload.startsWith("<?xml"));
+		Assert.assertTrue(payload, payload.contains("<mes:Structure "));
+		Assert.assertTrue(payload, payload.contains("xmlns:mes=\"urn:message\""));
+		Assert.assertTrue(payload, payload.contains("<mes:Codelist id=\"CL_FREQ\">A &amp; M</mes:Codelist>"));
+		Assert.assertFalse(payload, payload.contains("Envelope") || payload.contains("ignored"));
+	}
+
+	@Test
+	public void testPayloadIsTakenFromTheOperation() throws Exception {
+		String payload = readPayload("<nsi:QueryStructureResponse xmlns:nsi=\"urn:nsi\"><!-- result -->"
+				+ "<mes:Structure/></nsi:QueryStructureResponse>", true);
+		Assert.assertTrue(payload, payload.contains("<mes:Structure"));
+		Assert.assertFalse(payload, payload.contains("QueryStructureResponse"));
+	}
+
+	@Test
+	public void testBigPayloadIsStreamedWhole() throws Exception {
+		StringBuilder codes = new StringBuilder("<mes:Structure>");
+		for (int i = 0; i < 20000; i++) {
+			codes.append("<mes:Code id=\"C").append(i).append("\"/>");
+		}
+		codes.append("</mes:Structure>");
+		String payload = readPayload(codes.toString(), false);
+		Assert.assertTrue(payload, payload.contains("id=\"C19999\""));
+		Assert.assertTrue(payload, payload.trim().endsWith("</mes:Structure>"));
+	}
+
+	@Test
+	public void testFaultIsThrown() throws Exception {
+		try {
+			readPayload("<soap:Fault><faultcode>soap:Server</faultcode><faultstring>No results</faultstring>"
+					+ "<detail><ErrorNumber>100</ErrorNumber></detail></soap:Fault>", false);
+			Assert.fail("the fault should be thrown");
+		} catch (RegistryConnectionException e) {
+			Assert.assertTrue(e.getMessage(), e.getMessage().contains("Code: 'soap:Server'"));
+			Assert.assertTrue(e.getMessage(), e.getMessage().contains("Fault: 'No results'"));
+			Assert.assertTrue(e.getMessage(), e.getMessage().contains("ErrorNumber : '100'"));
+		}
+	}
+
+	private static String readPayload(String body, boolean operationWrapped) throws Exception {
+		byte[] envelope = String.format(ENVELOPE, body).getBytes(StandardCharsets.UTF_8);
+		try (InputStream payload = new SoapPayloadInputStream(new ByteArrayInputStream(envelope), operationWrapped)) {
+			return IOUtils.toString(payload, StandardCharsets.UTF_8);
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package com.intrasoft.sdmx.converter.services;
+
+import com.intrasoft.sdmx.converter.sdmxsource.HttpTransport;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RegistryResponseCacheTest {
+
+	private static final String ETAG = "\"v1\"";
+
+	@Rule
+	public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+	private HttpServer server;
+	private final AtomicInteger requests = new AtomicInteger();
+	private final AtomicInteger notModified = new AtomicInteger();
+
+	@Before
+	public void startServer() throws Exception {
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/dataflow", exchange -> {
+			requests.incrementAndGet();
+			exchange.getResponseHeaders().add("ETag", ETAG);
+			if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+				notModified.incrementAndGet();
+				exchange.sendResponseHeaders(304, -1);
+				exchange.close();
+				return;
+			}
+			byte[] body = "<Structure/>".getBytes(StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		});
+		server.start();
+	}
+
+	@After
+	public void stopServer() {
+		server.stop(0);
+	}
+
+	@Test
+	public void testResponseIsRevalidatedAfterTheTtl() throws Exception {
+		URL url = new URL("http://localhost:" + server.getAddress().getPort() + "/dataflow/ESTAT/DF/1.0");
+		RegistryResponseCache cache = new RegistryResponseCache(0, null);
+		byte[] first = cache.get(HttpTransport.getClient(url, null, null, null), url.toString());
+		byte[] second = cache.get(HttpTransport.getClient(url, null, null, null), url.toString());
+		Assert.assertEquals("<Structure/>", new String(second, StandardCharsets.UTF_8));
+		Assert.assertSame(first, second);
+		Assert.assertEquals(2, requests.get());
+		Assert.assertEquals(1, notModified.get());
+	}
+
+	@Test
+	public void testResponseIsNotQueriedWithinTheTtl() throws Exception {
+		URL url = new URL("http://localhost:" + server.getAddress().getPort() + "/dataflow/ESTAT/DF/1.0");
+		RegistryResponseCache cache = new RegistryResponseCache(TimeUnit.MINUTES.toMillis(5), null);
+		for (int i = 0; i < 3; i++) {
+			cache.get(HttpTransport.getClient(url, null, null, null), url.toString());
+		}
+		Assert.assertEquals(1, requests.get());
+	}
+
+	@Test
+	public void testResponseIsRevalidatedFromTheDisk() throws Exception {
+		URL url = new URL("http://localhost:" + server.getAddress().getPort() + "/dataflow/ESTAT/DF/1.0");
+		new RegistryResponseCache(0, tmpFolder.getRoot()).get(HttpTransport.getClient(url, null, null, null), url.toString());
+		byte[] body = new RegistryResponseCache(0, tmpFolder.getRoot())
+				.get(HttpTransport.getClient(url, null, null, null), url.toString());
+		Assert.assertEquals("<Structure/>", new String(body, StandardCharsets.UTF_8));
+		Assert.assertEquals(1, notModified.get());
+	}
+
+	@Test
+	public void testRevalidationRefreshesTheTimeOnTheDisk() throws Exception {
+		URL url = new URL("http://localhost:" + server.getAddress().getPort() + "/dataflow/ESTAT/DF/1.0");
+		RegistryResponseCache cache = new RegistryResponseCache(0, tmpFolder.getRoot());
+		cache.get(HttpTransport.getClient(url, null, null, null), url.toString());
+		File[] files = tmpFolder.getRoot().listFiles();
+		Assert.assertEquals(1, files.length);
+		Object fileKey = Files.readAttributes(files[0].toPath(), BasicFileAttributes.class).fileKey();
+		cache.get(HttpTransport.getClient(url, null, null, null), url.toString());
+		Assert.assertEquals(1, notModified.get());
+		if (fileKey != null) {
+			// the file is updated in place, not written again
+			Assert.assertEquals(fileKey, Files.readAttributes(files[0].toPath(), BasicFileAttributes.class).fileKey());
+		}
+		byte[] body = new RegistryResponseCache(TimeUnit.MINUTES.toMillis(5), tmpFolder.getRoot())
+				.get(HttpTransport.getClient(url, null, null, null), url.toString());
+		Assert.assertEquals("<Structure/>", new String(body, StandardCharsets.UTF_8));
+		Assert.assertEquals(2, requests.get());
+	}
+}
@@ -2,6 +2,8 @@ package com.intrasoft.sdmx.converter.services;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
@@ -18,6 +20,7 @@ import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
 import org.sdmxsource.sdmx.api.exception.SdmxNotImplementedException;
 import org.sdmxsource.sdmx.api.model.beans.SdmxBeans;
+import org.sdmxsource.sdmx.util.beans.container.SdmxBeansImpl;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ContextConfiguration;
@@ -119,4 +122,25 @@ public class TestStructureService {
 		assertEquals(5, structureBeans.getDataflows().size());
 		assertEquals(5, structureBeans.getDataStructures().size()); 
 	}
+
+	@Test
+	public void testReadingTheSameStructuresTwiceReturnsNewContainers() throws Exception {
+		File structureFile = new File("./test_files/UOE_NON_FINANCE/UOE_NON_FINANCE+ESTAT+0.4.xml");
+		SdmxBeans first = structureService.readStructuresFromFile(structureFile);
+		first.removeDataStructure(structureService.readStructuresFromFile(structureFile).getDataStructures().iterator().next());
+		SdmxBeans second = structureService.readStructuresFromFile(structureFile);
+		assertNotSame(first, second);
+		assertEquals(1, second.getDataStructures().size());
+		assertEquals("UOE_NON_FINANCE", second.getDataStructures().iterator().next().getId());
+	}
+
+	@Test
+	public void testContainersOfTheSameStructuresShareTheRetrievalManager() throws Exception {
+		File structureFile = new File("./test_files/UOE_NON_FINANCE/UOE_NON_FINANCE+ESTAT+0.4.xml");
+		SdmxBeans first = structureService.readStructuresFromFile(structureFile);
+		SdmxBeans second = structureService.readStructuresFromFile(structureFile);
+		assertSame(ParsedStructureCache.getRetrievalManager(first), ParsedStructureCache.getRetrievalManager(second));
+		SdmxBeans notCached = new SdmxBeansImpl();
+		assertNotSame(ParsedStructureCache.getRetrievalManager(notCached), ParsedStructureCache.getRetrievalManager(first));
+	}
 }
@@ -0,0 +1,75 @@
+package com.intrasoft.sdmx.converter.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.nio.file.Files;
+
+import org.estat.sdmxsource.sdmx.structureparser.SdmxBeansSchemaDecorator;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.sdmxsource.sdmx.api.model.beans.SdmxBeans;
+import org.sdmxsource.sdmx.api.model.beans.datastructure.DataStructureBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+@DirtiesContext
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations={"classpath:/test-spring-context.xml"})
+public class TestStructureSnapshotStore {
+
+	@Autowired
+	private StructureService structureService;
+
+	@Test
+	public void testSnapshotHasTheParsedStructures() throws Exception {
+		File structureFile = new File("./test_files/UOE_NON_FINANCE/UOE_NON_FINANCE+ESTAT+0.4.xml");
+		String key = ParsedStructureCache.contentKey(Files.readAllBytes(structureFile.toPath()));
+		SdmxBeans parsed = structureService.readStructuresFromFile(structureFile);
+		File folder = Files.createTempDirectory("snapshots").toFile();
+		StructureSnapshotStore store = new StructureSnapshotStore(folder);
+		assertNull(store.load(key));
+
+		store.save(key, parsed);
+		SdmxBeans snapshot = store.load(key);
+		assertNotNull(snapshot);
+		assertTrue(snapshot instanceof SdmxBeansSchemaDecorator);
+		assertEquals(((SdmxBeansSchemaDecorator) parsed).getSdmxSchema(), ((SdmxBeansSchemaDecorator) snapshot).getSdmxSchema());
+		assertEquals(parsed.getAllMaintainables().size(), snapshot.getAllMaintainables().size());
+		DataStructureBean dsd = snapshot.getDataStructures().iterator().next();
+		assertEquals("UOE_NON_FINANCE", dsd.getId());
+		assertEquals(parsed.getDataStructures().iterator().next().getDimensionList().getDimensions().size(),
+				dsd.getDimensionList().getDimensions().size());
+	}
+
+	@Test
+	public void testUnreadableSnapshotIsDeleted() throws Exception {
+		File folder = Files.createTempDirectory("snapshots").toFile();
+		String key = ParsedStructureCache.contentKey(new byte[] {1, 2, 3});
+		File snapshot = new File(folder, key.replace(':', '_') + ".snapshot");
+		Files.write(snapshot.toPath(), new byte[] {0, 1, 2, 3, 4, 5, 6, 7});
+		assertNull(new StructureSnapshotStore(folder).load(key));
+		assertTrue(!snapshot.exists());
+	}
+
+	@Test
+	public void testSnapshotOfAnotherFormatVersionIsDeleted() throws Exception {
+		File folder = Files.createTempDirectory("snapshots").toFile();
+		String key = ParsedStructureCache.contentKey(new byte[] {4, 5, 6});
+		File snapshot = new File(folder, key.replace(':', '_') + ".snapshot");
+		try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(snapshot.toPath()))) {
+			out.writeInt(0x53444d58);
+			out.writeInt(1);
+			out.writeUTF("");
+			out.writeInt(0);
+		}
+		assertNull(new StructureSnapshotStore(folder).load(key));
+		assertTrue(!snapshot.exists());
+	}
+}
@@ -0,0 +1,419 @@
+package com.intrasoft.sdmx.converter.stress.tests;
+
+import com.intrasoft.sdmx.converter.ConversionContext;
+import com.intrasoft.sdmx.converter.ConversionStage;
+import com.intrasoft.sdmx.converter.ConverterInput;
+import com.intrasoft.sdmx.converter.ConverterMetrics;
+import com.intrasoft.sdmx.converter.ConverterOutput;
+import com.intrasoft.sdmx.converter.ConverterStructure;
+import com.intrasoft.sdmx.converter.benchmark.SyntheticDataset;
+import com.intrasoft.sdmx.converter.config.FlrOutputConfig;
+import com.intrasoft.sdmx.converter.config.GesmesInputConfig;
+import com.intrasoft.sdmx.converter.config.GesmesOutputConfig;
+import com.intrasoft.sdmx.converter.config.SdmxInputConfig;
+import com.intrasoft.sdmx.converter.config.SdmxOutputConfig;
+import com.intrasoft.sdmx.converter.integration.tests.IntegrationTestsUtils;
+import com.intrasoft.sdmx.converter.io.data.ByteCountingOutputStream;
+import com.intrasoft.sdmx.converter.io.data.Formats;
+import com.intrasoft.sdmx.converter.io.data.TsTechnique;
+import com.intrasoft.sdmx.converter.io.data.excel.ExcelInputConfigImpl;
+import com.intrasoft.sdmx.converter.io.data.excel.ExcelOutputConfig;
+import com.intrasoft.sdmx.converter.services.ConverterDelegatorService;
+import com.intrasoft.sdmx.converter.services.ExcelUtils;
+import com.intrasoft.sdmx.converter.services.StructureService;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.estat.sdmxsource.config.InputConfig;
+import org.estat.sdmxsource.util.csv.CsvInColumnMapping;
+import org.estat.sdmxsource.util.csv.CsvInputColumnHeader;
+import org.estat.sdmxsource.util.csv.CsvInputConfig;
+import org.estat.sdmxsource.util.csv.FLRInputConfig;
+import org.estat.sdmxsource.util.csv.FlrInColumnMapping;
+import org.estat.sdmxsource.util.csv.MultiLevelCsvOutputConfig;
+import org.estat.sdmxsource.util.csv.SdmxCsvInputConfig;
+import org.estat.sdmxsource.util.csv.SingleLevelCsvOutColMapping;
+import org.estat.sdmxsource.util.excel.ExcelConfiguration;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.sdmxsource.sdmx.api.factory.ReadableDataLocationFactory;
+import org.sdmxsource.sdmx.api.model.beans.datastructure.DataStructureBean;
+import org.sdmxsource.sdmx.api.model.header.HeaderBean;
+import org.sdmxsource.sdmx.api.util.ReadableDataLocation;
+import org.sdmxsource.sdmx.dataparser.engine.reader.ThreadLocalOutputReporter;
+import org.sdmxsource.sdmx.dataparser.engine.writer.utils.CsvOutputColumnHeader;
+import org.sdmxsource.sdmx.dataparser.engine.writer.utils.HeaderSDMXCsvValues;
+import org.sdmxsource.sdmx.dataparser.engine.writer.utils.MultiLevelCsvOutColMapping;
+import org.sdmxsource.sdmx.dataparser.engine.writer.utils.OutputConfig;
+import org.sdmxsource.sdmx.dataparser.engine.writer.utils.SdmxCsvOutputConfig;
+import org.sdmxsource.sdmx.dataparser.model.error.FirstFailureExceptionHandler;
+import org.sdmxsource.sdmx.sdmxbeans.model.header.HeaderBeanImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Handler;
+import java.util.logging.LogManager;
+
+/**
+ * Scale curve of the converter: every input format converted to every output format, at growing sizes.
+ * <p>For every size a single level csv corpus is generated by the {@link SyntheticDataset} of the test sources
+ * and converted once to each of the other input formats,
+ * then every (input, output) pair goes through {@link ConverterDelegatorService#converterDelegateWithContext} with the output
+ * discarded. Time, peak heap, input and output size and the stage timings of the conversion are written,
+ * one line per pair, to {@code target/scaleCurve/scale-curve.csv}. A pair that fails is reported with its error
+ * and does not stop the others.</p>
+ * <p>Takes hours with the default sizes, so it only runs when asked for:</p>
+ * <pre>
+ * mvn test -Dtest=TestScaleCurve -DscaleCurve=true
+ * mvn test -Dtest=TestScaleCurve -DscaleCurve=true -DscaleCurve.sizes=10000,100000
+ * </pre>
+ * <p>Meant to be run with a fixed heap (e.g. {@code -DargLine=-Xmx4g}) so the curves of two runs compare.</p>
+ */
+@DirtiesContext
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations={"classpath:/test-spring-context.xml"})
+public class TestScaleCurve {
+
+    @Autowired
+    private ConverterDelegatorService converterDelegatorService;
+
+    @Autowired
+    private StructureService structureService;
+
+    @Autowired
+    private ReadableDataLocationFactory readableDataLocationFactory;
+
+    private final static String GENERATED_PATH = "scaleCurve/";
+
+    private final static String STRUCTURE_FILE = "./src/test/resources/benchmark/BENCH_DSD_1.0.xml";
+
+    private final static String DEFAULT_SIZES = "10000,1000000,10000000";
+
+    private final static String[] CONCEPTS = SyntheticDataset.CONCEPTS;
+
+    private final static int OBSERVATIONS_PER_SERIES = 50;
+
+    private final static long SEED = 42;
+
+    private DataStructureBean dataStructure;
+
+    private byte[] excelTemplate;
+
+    private ExcelConfiguration excelConfiguration;
+
+    @BeforeClass
+    public static void testSetup() {
+        Configurator.setAllLevels("", org.apache.logging.log4j.Level.OFF);
+        java.util.logging.Logger rootLogger = LogManager.getLogManager().getLogger("");
+        rootLogger.setLevel(java.util.logging.Level.OFF);
+        for (Handler h : rootLogger.getHandlers()) {
+            h.setLevel(java.util.logging.Level.OFF);
+        }
+    }
+
+    @Test
+    public void scaleCurve() throws Exception {
+        Assume.assumeTrue("Scale curve not requested, run with -DscaleCurve=true", Boolean.getBoolean("scaleCurve"));
+        String generatedPath = IntegrationTestsUtils.TARGET_NAME + GENERATED_PATH;
+        Files.createDirectories(Paths.get(generatedPath));
+        dataStructure = structureService.readFirstDataStructure(STRUCTURE_FILE);
+        excelTemplate = SyntheticDataset.excelTemplate();
+        excelConfiguration = ExcelUtils.readExcelConfig(new ByteArrayInputStream(excelTemplate), false,
+                new FirstFailureExceptionHandler()).get(0);
+
+        try (Writer report = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(generatedPath + "scale-curve.csv"), StandardCharsets.UTF_8))) {
+            report.write("observations;input;output;status;millis;observationsProcessed;peakHeapBytes;inputBytes;outputBytes;"
+                    + "readerParseMillis;writerMillis;message\n");
+            for (String size : System.getProperty("scaleCurve.sizes", DEFAULT_SIZES).split(",")) {
+                int observations = Integer.parseInt(size.trim());
+                File corpusDir = new File(generatedPath + observations);
+                Files.createDirectories(corpusDir.toPath());
+                Map<Formats, Corpus> corpora = buildCorpora(observations, corpusDir, report);
+                for (Map.Entry<Formats, Corpus> input : corpora.entrySet()) {
+                    for (Formats output : Formats.values()) {
+                        if (output.isOutputFormat() && output != Formats.EMPTY) {
+                            report.write(run(observations, input.getKey(), input.getValue(), output));
+                            report.flush();
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Generates the csv corpus of the size and converts it to every other format that can be read back.
+     * A format that cannot be produced is reported and left out of the curve.
+     */
+    private Map<Formats, Corpus> buildCorpora(int observations, File corpusDir, Writer report) throws IOException {
+        Map<Formats, Corpus> corpora = new LinkedHashMap<>();
+        File csvFile = new File(corpusDir, "CSV.csv");
+        writeCsvCorpus(csvFile, observations);
+        Corpus csvCorpus = new Corpus(csvFile, this::csvInputConfig);
+        corpora.put(Formats.CSV, csvCorpus);
+        for (Formats format : Formats.values()) {
+            if (!format.isInputFormat() || !format.isOutputFormat() || format == Formats.EMPTY || format == Formats.CSV) {
+                continue;
+            }
+            File corpusFile = new File(corpusDir, format.name() + format.getExtension());
+            try (OutputStream outputStream = new FileOutputStream(corpusFile)) {
+                ConversionContext context = convert(Formats.CSV, csvCorpus, format, outputStream);
+                corpora.put(format, new Corpus(corpusFile, inputConfigFor(format, context)));
+            } catch (Exception e) {
+                report.write(line(observations, Formats.CSV, format, "CORPUS_FAILED", 0, 0, 0, csvFile.length(), 0, null, e.getMessage()));
+                corpusFile.delete();
+            }
+        }
+        return corpora;
+    }
+
+    private String run(int observations, Formats inputFormat, Corpus corpus, Formats outputFormat) {
+        ByteCountingOutputStream outputStream = new ByteCountingOutputStream(new DiscardingOutputStream());
+        resetPeakHeap();
+        long start = System.nanoTime();
+        try {
+            ConversionContext context = convert(inputFormat, corpus, outputFormat, outputStream);
+            long elapsed = System.nanoTime() - start;
+            ConverterMetrics metrics = context.getMetrics();
+            return line(observations, inputFormat, outputFormat, "OK", elapsed,
+                    metrics != null ? metrics.getObservationsProcessed() : -1, peakHeap(),
+                    corpus.file.length(), outputStream.getByteCount(), metrics, "");
+        } catch (Exception e) {
+            return line(observations, inputFormat, outputFormat, "FAILED", System.nanoTime() - start, 0, peakHeap(),
+                    corpus.file.length(), outputStream.getByteCount(), null, e.getMessage());
+        }
+    }
+
+    private ConversionContext convert(Formats inputFormat, Corpus corpus, Formats outputFormat, OutputStream outputStream) throws Exception {
+        ReadableDataLocation location = readableDataLocationFactory.getReadableDataLocation(corpus.file);
+        try {
+            ConverterInput converterInput = new ConverterInput(inputFormat, location, corpus.inputConfig.get());
+            ConverterOutput converterOutput = new ConverterOutput(outputFormat, outputStream, outputConfigFor(outputFormat));
+            return converterDelegatorService.converterDelegateWithContext(converterInput, converterOutput,
+                    new ConverterStructure(dataStructure, null));
+        } finally {
+            location.close();
+            // Clean all thread variables used
+            ThreadLocalOutputReporter.unset();
+        }
+    }
+
+    private static String line(int observations, Formats input, Formats output, String status, long elapsedNanos,
+                               long processed, long peakHeap, long inputBytes, long outputBytes,
+                               ConverterMetrics metrics, String message) {
+        long readerParse = metrics != null ? TimeUnit.NANOSECONDS.toMillis(metrics.getStageDuration(ConversionStage.READER_PARSE)) : -1;
+        long writer = metrics != null ? TimeUnit.NANOSECONDS.toMillis(metrics.getStageDuration(ConversionStage.WRITER)) : -1;
+        String cleanMessage = message == null ? "" : message.replaceAll("[;\\r\\n]+", " ");
+        return String.format(Locale.ROOT, "%d;%s;%s;%s;%d;%d;%d;%d;%d;%d;%d;%s%n", observations, input, output, status,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), processed, peakHeap, inputBytes, outputBytes,
+                readerParse, writer, cleanMessage);
+    }
+
+    /**
+     * Semicolon separated, one row per observation, streamed so that the largest sizes do not have to fit in memory.
+     */
+    private static void writeCsvCorpus(File file, int observations) throws IOException {
+        try (Writer csv = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8), 1 << 16)) {
+            SyntheticDataset.writeSingleLevelCsv(csv, observations, OBSERVATIONS_PER_SERIES, SEED);
+        }
+    }
+
+    /**
+     * @return the configuration reading back what {@link #outputConfigFor(Formats)} wrote
+     */
+    private Supplier<InputConfig> inputConfigFor(Formats format, ConversionContext context) {
+        switch (format) {
+            case MULTI_LEVEL_CSV:
+                return this::multiLevelCsvInputConfig;
+            case SDMX_CSV:
+            case SDMX_CSV_2_0:
+                return () -> {
+                    SdmxCsvInputConfig config = new SdmxCsvInputConfig();
+                    config.setHeader(newHeader());
+                    config.setDelimiter(";");
+                    config.setInputColumnHeader(CsvInputColumnHeader.USE_HEADER);
+                    return config;
+                };
+            case FLR:
+                LinkedHashMap<String, FlrInColumnMapping> flrMapping = context.getFinalFlrMappings();
+                return () -> {
+                    FLRInputConfig config = new FLRInputConfig();
+                    config.setHeader(newHeader());
+                    config.setInputColumnHeader(CsvInputColumnHeader.NO_HEADER);
+                    config.setMapping(flrMapping);
+                    return config;
+                };
+            case GESMES_TS:
+                return GesmesInputConfig::new;
+            case EXCEL:
+                return () -> {
+                    ExcelInputConfigImpl config = new ExcelInputConfigImpl();
+                    config.setHeader(newHeader());
+                    config.setConfigInsideExcel(true);
+                    config.setMappingInsideExcel(true);
+                    return config;
+                };
+            default:
+                return SdmxInputConfig::new;
+        }
+    }
+
+    private OutputConfig outputConfigFor(Formats format) {
+        switch (format) {
+            case CSV: {
+                MultiLevelCsvOutputConfig config = new MultiLevelCsvOutputConfig();
+                config.setDelimiter(";");
+                config.setOutputHeader(CsvOutputColumnHeader.USE_HEADER);
+                SingleLevelCsvOutColMapping columns = new SingleLevelCsvOutColMapping();
+                for (int i = 0; i < CONCEPTS.length; i++) {
+                    columns.addMapping(i, CONCEPTS[i]);
+                }
+                config.setColumnMapping(columns);
+                return config;
+            }
+            case MULTI_LEVEL_CSV: {
+                MultiLevelCsvOutputConfig config = new MultiLevelCsvOutputConfig();
+                config.setDelimiter(";");
+                config.setLevels(2);
+                MultiLevelCsvOutColMapping columns = new MultiLevelCsvOutColMapping();
+                for (int i = 0; i < CONCEPTS.length; i++) {
+                    // column 0 holds the level, the series key on level 1 and the observations on level 2
+                    columns.addMapping(i < 3 ? 1 : 2, i % 3 + 1, CONCEPTS[i]);
+                }
+                config.setColumnMapping(columns);
+                return config;
+            }
+            case SDMX_CSV:
+            case SDMX_CSV_2_0:
+            case iSDMX_CSV:
+            case iSDMX_CSV_2_0: {
+                SdmxCsvOutputConfig config = new SdmxCsvOutputConfig();
+                config.setDelimiter(";");
+                config.setOutputHeader(CsvOutputColumnHeader.USE_HEADER);
+                config.setHeaderSDMXCsvValue(HeaderSDMXCsvValues.DEFAULT);
+                return config;
+            }
+            case FLR: {
+                FlrOutputConfig config = new FlrOutputConfig();
+                config.setOutputColumnHeader(CsvInputColumnHeader.NO_HEADER);
+                config.setPadding(" ");
+                return config;
+            }
+            case GESMES_TS: {
+                GesmesOutputConfig config = new GesmesOutputConfig();
+                config.setGesmeswritingtechnique(TsTechnique.TIME_RANGE);
+                return config;
+            }
+            case EXCEL:
+                return new ExcelOutputConfig(new ByteArrayInputStream(excelTemplate), excelConfiguration);
+            default:
+                return new SdmxOutputConfig();
+        }
+    }
+
+    private InputConfig csvInputConfig() {
+        CsvInputConfig config = new CsvInputConfig();
+        config.setHeader(newHeader());
+        config.setLevelNumber("1");
+        config.setDelimiter(";");
+        config.setInputColumnHeader(CsvInputColumnHeader.USE_HEADER);
+        Map<String, CsvInColumnMapping> mapping = new LinkedHashMap<>();
+        for (int i = 0; i < CONCEPTS.length; i++) {
+            mapping.put(CONCEPTS[i], new CsvInColumnMapping(new Integer[]{i}, false, 1, ""));
+        }
+        config.setMapping(mapping);
+        return config;
+    }
+
+    private InputConfig multiLevelCsvInputConfig() {
+        CsvInputConfig config = new CsvInputConfig();
+        config.setHeader(newHeader());
+        config.setLevelNumber("2");
+        config.setDelimiter(";");
+        config.setInputColumnHeader(CsvInputColumnHeader.NO_HEADER);
+        Map<String, CsvInColumnMapping> mapping = new LinkedHashMap<>();
+        for (int i = 0; i < CONCEPTS.length; i++) {
+            mapping.put(CONCEPTS[i], new CsvInColumnMapping(new Integer[]{i % 3 + 1}, false, i < 3 ? 1 : 2, ""));
+        }
+        config.setMapping(mapping);
+        return config;
+    }
+
+    private static HeaderBean newHeader() {
+        return new HeaderBeanImpl("SCALE_CURVE", "SCALE_CURVE");
+    }
+
+    /**
+     * Collects the garbage of the previous conversion and restarts the peak usage of the heap pools.
+     */
+    private static void resetPeakHeap() {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /**
+     * @return the sum of the peaks of the heap pools since the last reset, the pools do not peak
+     * at the same moment so this is an upper bound of the heap used
+     */
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private static final class Corpus {
+
+        private final File file;
+
+        private final Supplier<InputConfig> inputConfig;
+
+        private Corpus(File file, Supplier<InputConfig> inputConfig) {
+            this.file = file;
+            this.inputConfig = inputConfig;
+        }
+    }
+
+    /**
+     * The output of the measured conversions is only counted, so the curve does not depend on the disk.
+     */
+    private static final class DiscardingOutputStream extends OutputStream {
+
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+}
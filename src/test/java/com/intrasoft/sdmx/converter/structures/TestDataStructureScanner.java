@@ -16,6 +16,7 @@ import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.logging.Handler;
@@ -233,5 +234,31 @@ public class TestDataStructureScanner {
 
     }
 
+    @Test
+    public void testComponentSchemaFollowsTheLevelLists() throws Exception{
+        SdmxBeans sdmxBeans = structureService.readStructuresFromFile(
+                new File("./test_files/UOE_NON_FINANCE/UOE_NON_FINANCE+ESTAT+0.4.xml"));
+        classUnderTest = new DataStructureScanner(sdmxBeans,
+                new StructureIdentifier("ESTAT", "UOE_NON_FINANCE", "0.4"));
+        ComponentSchema schema = classUnderTest.getComponentSchema();
+        assertSame(schema, classUnderTest.getComponentSchema());
+        assertEquals(classUnderTest.getDimensions(false), namesOf(schema, schema.getDimensionsAndPrimaryMeasure()));
+        assertEquals(classUnderTest.getObservationLevelAttributes(), namesOf(schema, schema.getObservationLevelAttributes()));
+        assertEquals(classUnderTest.getSeriesLevelAttributes(), namesOf(schema, schema.getSeriesLevelAttributes()));
+        assertEquals(classUnderTest.getDatasetLevelAttributes(), namesOf(schema, schema.getDatasetLevelAttributes()));
+        assertEquals(classUnderTest.getGroupLevelAttributes(), namesOf(schema, schema.getGroupLevelAttributes()));
+        for (String component : classUnderTest.getComponents(false)) {
+            assertTrue(schema.ordinalOf(component) >= 0);
+        }
+    }
+
+    private static List<String> namesOf(ComponentSchema schema, int[] ordinals) {
+        List<String> names = new ArrayList<>();
+        for (int ordinal : ordinals) {
+            names.add(schema.nameOf(ordinal));
+        }
+        return names;
+    }
+
 
 }
@@ -0,0 +1,45 @@
+package com.intrasoft.sdmx.converter.tranformation;
+
+import com.intrasoft.sdmx.converter.ConversionMetricsRecorder;
+import com.intrasoft.sdmx.converter.io.data.MockBufferedDataWriterEngine;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class PipelinedDataWriterEngineTest {
+
+	@Test
+	public void callsAreReplayedInOrderOnClose() {
+		MockBufferedDataWriterEngine writer = new MockBufferedDataWriterEngine();
+		PipelinedDataWriterEngine pipelined = new PipelinedDataWriterEngine(writer, 1, 2);
+		pipelined.writeHeader(null);
+		pipelined.close();
+		Assert.assertEquals(Arrays.asList("openWriter", "closeDataset", "closeWriter"), writer.getPerformedOperations());
+	}
+
+	@Test
+	public void writingTimeIsKnownOnceClosed() {
+		MockBufferedDataWriterEngine writer = new MockBufferedDataWriterEngine();
+		PipelinedDataWriterEngine pipelined = new PipelinedDataWriterEngine(writer, 1, 2);
+		pipelined.writeHeader(null);
+		Assert.assertEquals(-1, pipelined.getWritingNanos());
+		Assert.assertEquals(-1, pipelined.getAllocatedBytes());
+		pipelined.close();
+		Assert.assertTrue(pipelined.getWritingNanos() >= 0);
+		Assert.assertTrue(pipelined.getWaitingNanos() >= 0);
+		if (ConversionMetricsRecorder.currentThreadAllocatedBytes() >= 0) {
+			Assert.assertTrue(pipelined.getAllocatedBytes() >= 0);
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void writerErrorIsRethrownOnReadingThread() {
+		MockBufferedDataWriterEngine writer = new MockBufferedDataWriterEngine();
+		PipelinedDataWriterEngine pipelined = new PipelinedDataWriterEngine(writer, 1, 2);
+		pipelined.writeHeader(null);
+		//series key outside of a series is an illegal position for the writer
+		pipelined.writeSeriesKeyValue("FREQ", "A");
+		pipelined.close();
+	}
+}
@@ -0,0 +1,128 @@
+package com.intrasoft.sdmx.converter.tranformation;
+
+import com.intrasoft.sdmx.converter.ConversionContext;
+import com.intrasoft.sdmx.converter.ConverterInput;
+import com.intrasoft.sdmx.converter.ConverterOutput;
+import com.intrasoft.sdmx.converter.ConverterStructure;
+import com.intrasoft.sdmx.converter.benchmark.SyntheticDataset;
+import com.intrasoft.sdmx.converter.io.data.Formats;
+import com.intrasoft.sdmx.converter.services.ConverterDelegatorService;
+import com.intrasoft.sdmx.converter.services.StructureService;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.estat.sdmxsource.util.csv.CsvInColumnMapping;
+import org.estat.sdmxsource.util.csv.CsvInputColumnHeader;
+import org.estat.sdmxsource.util.csv.CsvInputConfig;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.sdmxsource.sdmx.api.factory.ReadableDataLocationFactory;
+import org.sdmxsource.sdmx.api.model.beans.datastructure.DataStructureBean;
+import org.sdmxsource.sdmx.api.util.ReadableDataLocation;
+import org.sdmxsource.sdmx.dataparser.engine.reader.ThreadLocalOutputReporter;
+import org.sdmxsource.sdmx.dataparser.engine.writer.utils.CsvOutputColumnHeader;
+import org.sdmxsource.sdmx.dataparser.engine.writer.utils.HeaderSDMXCsvValues;
+import org.sdmxsource.sdmx.dataparser.engine.writer.utils.SdmxCsvOutputConfig;
+import org.sdmxsource.sdmx.sdmxbeans.model.header.HeaderBeanImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Handler;
+import java.util.logging.LogManager;
+
+/**
+ * The conversions of {@link DataReaderToWriter} with the writer on its own thread.
+ */
+@DirtiesContext
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations={"classpath:/test-spring-context.xml"})
+public class TestPipelinedConversion {
+
+	@Autowired
+	private ConverterDelegatorService converterDelegatorService;
+
+	@Autowired
+	private StructureService structureService;
+
+	@Autowired
+	private ReadableDataLocationFactory readableDataLocationFactory;
+
+	private final static String STRUCTURE_FILE = "./src/test/resources/benchmark/BENCH_DSD_1.0.xml";
+
+	private final static String[] CONCEPTS = SyntheticDataset.CONCEPTS;
+
+	@BeforeClass
+	public static void testSetup() {
+		Configurator.setAllLevels("", org.apache.logging.log4j.Level.OFF);
+		java.util.logging.Logger rootLogger = LogManager.getLogManager().getLogger("");
+		rootLogger.setLevel(java.util.logging.Level.OFF);
+		for (Handler h : rootLogger.getHandlers()) {
+			h.setLevel(java.util.logging.Level.OFF);
+		}
+	}
+
+	@Test
+	public void pipelinedIsTheDefault() {
+		Assert.assertTrue(new ConverterOutput().isPipelined());
+	}
+
+	@Test
+	public void pipelinedOutputIsTheSameAsTheDirectOne() throws Exception {
+		DataStructureBean dataStructure = structureService.readFirstDataStructure(STRUCTURE_FILE);
+		// more events than a batch of the pipeline, so the batches are recycled
+		byte[] csv = new SyntheticDataset(400, 20, 42).toSingleLevelCsv();
+		ByteArrayOutputStream pipelined = new ByteArrayOutputStream();
+		ConversionContext pipelinedContext = convert(dataStructure, csv, pipelined, true);
+		ByteArrayOutputStream direct = new ByteArrayOutputStream();
+		ConversionContext directContext = convert(dataStructure, csv, direct, false);
+
+		Assert.assertEquals(8000, pipelinedContext.getMetrics().getObservationsProcessed());
+		Assert.assertEquals(directContext.getMetrics().getObservationsProcessed(), pipelinedContext.getMetrics().getObservationsProcessed());
+		Assert.assertTrue(pipelinedContext.getMetrics().getBytesRead() >= csv.length);
+		Assert.assertEquals(directContext.getMetrics().getBytesRead(), pipelinedContext.getMetrics().getBytesRead());
+		Assert.assertEquals(pipelined.size(), pipelinedContext.getMetrics().getBytesWritten());
+		String output = pipelined.toString(StandardCharsets.UTF_8.name());
+		Assert.assertTrue(output.contains("I00019;1919;"));
+		Assert.assertEquals(direct.toString(StandardCharsets.UTF_8.name()), output);
+	}
+
+	private ConversionContext convert(DataStructureBean dataStructure, byte[] csv, ByteArrayOutputStream outputStream,
+									  boolean pipelined) throws Exception {
+		ReadableDataLocation location = readableDataLocationFactory.getReadableDataLocation(new ByteArrayInputStream(csv));
+		try {
+			ConverterInput converterInput = new ConverterInput(Formats.CSV, location, csvInputConfig());
+			SdmxCsvOutputConfig outputConfig = new SdmxCsvOutputConfig();
+			outputConfig.setDelimiter(";");
+			outputConfig.setOutputHeader(CsvOutputColumnHeader.USE_HEADER);
+			outputConfig.setHeaderSDMXCsvValue(HeaderSDMXCsvValues.DEFAULT);
+			ConverterOutput converterOutput = new ConverterOutput(Formats.SDMX_CSV, outputStream, outputConfig);
+			converterOutput.setPipelined(pipelined);
+			return converterDelegatorService.converterDelegateWithContext(converterInput, converterOutput,
+					new ConverterStructure(dataStructure, null));
+		} finally {
+			location.close();
+			ThreadLocalOutputReporter.unset();
+		}
+	}
+
+	private static CsvInputConfig csvInputConfig() {
+		CsvInputConfig config = new CsvInputConfig();
+		config.setHeader(new HeaderBeanImpl("PIPELINED", "PIPELINED"));
+		config.setLevelNumber("1");
+		config.setDelimiter(";");
+		config.setInputColumnHeader(CsvInputColumnHeader.USE_HEADER);
+		Map<String, CsvInColumnMapping> mapping = new LinkedHashMap<>();
+		for (int i = 0; i < CONCEPTS.length; i++) {
+			mapping.put(CONCEPTS[i], new CsvInColumnMapping(new Integer[]{i}, false, 1, ""));
+		}
+		config.setMapping(mapping);
+		return config;
+	}
+}
@@ -1,6 +1,7 @@
 package com.intrasoft.sdmx.converter.util;
 
 import com.intrasoft.sdmx.converter.ConverterInput;
+import com.intrasoft.sdmx.converter.ConverterMetrics;
 import com.intrasoft.sdmx.converter.ConverterOutput;
 import com.intrasoft.sdmx.converter.ConverterStructure;
 import com.intrasoft.sdmx.converter.io.data.Formats;
@@ -44,9 +45,9 @@ public class TestConverterUtil {
 		ConverterInput converterInput = new ConverterInput(inputType, readableDataLocation, inputConfig);
 		ConverterOutput converterOutput = new ConverterOutput(outputType, outputStream, outputConfig);
 		ConverterStructure converterStructure = new ConverterStructure(dataStructure, dataflow);
-		converterDelegatorService.converterDelegate(converterInput, converterOutput, converterStructure);
-		ignoredCount = converterDelegatorService.getMetrics().getObservationsIgnored();
-		proccessedCount = converterDelegatorService.getMetrics().getObservationsProcessed();
+		ConverterMetrics metrics = converterDelegatorService.converterDelegateWithContext(converterInput, converterOutput, converterStructure).getMetrics();
+		ignoredCount = metrics.getObservationsIgnored();
+		proccessedCount = metrics.getObservationsProcessed();
 		// Clean all thread variables used
 		ThreadLocalOutputReporter.unset();
 	}
@@ -64,9 +65,9 @@ public class TestConverterUtil {
 		ConverterOutput converterOutput = new ConverterOutput(outputType, outputStream, outputConfig);
 		ConverterStructure converterStructure = new ConverterStructure(dataStructure, dataflow);
 		converterStructure.setDefaultVersion(defaultVersion);
-		converterDelegatorService.converterDelegate(converterInput, converterOutput, converterStructure);
-		ignoredCount = converterDelegatorService.getMetrics().getObservationsIgnored();
-		proccessedCount = converterDelegatorService.getMetrics().getObservationsProcessed();
+		ConverterMetrics metrics = converterDelegatorService.converterDelegateWithContext(converterInput, converterOutput, converterStructure).getMetrics();
+		ignoredCount = metrics.getObservationsIgnored();
+		proccessedCount = metrics.getObservationsProcessed();
 		// Clean all thread variables used
 		ThreadLocalOutputReporter.unset();
 	}
@@ -196,4 +196,39 @@ public class TestGroupsCache {
 		
 		assertNull(classUnderTest.getGroupForSeries(keysFromTimeSeries));
 	}
+	
+	@Test
+	public void firstGroupAddedWinsAcrossGroupTypes() {
+		classUnderTest = new GroupsCache();
+		
+		Keys siblingKeys = new Keys();
+		siblingKeys.add("Key2", "Value2");
+		siblingKeys.add("Key1", "Value1");
+		classUnderTest.addGroup("sibling", siblingKeys, new Attrs());
+		
+		Keys areaKeys = new Keys();
+		areaKeys.add("Key1", "Value1");
+		classUnderTest.addGroup("area", areaKeys, new Attrs());
+		
+		Keys otherSiblingKeys = new Keys();
+		otherSiblingKeys.add("Key1", "Value1");
+		otherSiblingKeys.add("Key2", "Other");
+		classUnderTest.addGroup("otherSibling", otherSiblingKeys, new Attrs());
+		
+		Keys seriesKeys = new Keys();
+		seriesKeys.add("Key1", "Value1");
+		seriesKeys.add("Key2", "Value2");
+		seriesKeys.add("Key3", "Value3");
+		assertEquals("sibling", classUnderTest.getGroupForSeries(seriesKeys).getLeft());
+		
+		Keys otherSeriesKeys = new Keys();
+		otherSeriesKeys.add("Key1", "Value1");
+		otherSeriesKeys.add("Key2", "Other");
+		assertEquals("area", classUnderTest.getGroupForSeries(otherSeriesKeys).getLeft());
+		
+		Keys unrelatedSeriesKeys = new Keys();
+		unrelatedSeriesKeys.add("Key1", "Unrelated");
+		unrelatedSeriesKeys.add("Key2", "Value2");
+		assertFalse(classUnderTest.hasGroupForKey(unrelatedSeriesKeys));
+	}
 }
@@ -0,0 +1,101 @@
+package org.estat.sdmxsource.engine.reader;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+public class ExternalRecordSorterTest {
+
+	@Test
+	public void testSortInMemory() throws Exception {
+		try (ExternalRecordSorter<CrossSectionalRecord> sorter = new ExternalRecordSorter<>(
+				CrossSectionalRecord.BY_SERIES, CrossSectionalRecord.CODEC, Long.MAX_VALUE)) {
+			addCrossSectionalObservations(sorter);
+			Assert.assertEquals(0, sorter.getSpilledRuns());
+			assertGroupedBySeries(sorter.sorted());
+		}
+	}
+
+	@Test
+	public void testSortSpilledRuns() throws Exception {
+		try (ExternalRecordSorter<CrossSectionalRecord> sorter = new ExternalRecordSorter<>(
+				CrossSectionalRecord.BY_SERIES, CrossSectionalRecord.CODEC, 1)) {
+			addCrossSectionalObservations(sorter);
+			Assert.assertEquals(6, sorter.getSpilledRuns());
+			assertGroupedBySeries(sorter.sorted());
+		}
+	}
+
+	@Test
+	public void testSortMergesTheRunsInPasses() throws Exception {
+		try (ExternalRecordSorter<CrossSectionalRecord> sorter = new ExternalRecordSorter<>(
+				CrossSectionalRecord.BY_SERIES, CrossSectionalRecord.CODEC, 1, 2)) {
+			addCrossSectionalObservations(sorter);
+			Assert.assertEquals(6, sorter.getSpilledRuns());
+			Iterator<CrossSectionalRecord> records = sorter.sorted();
+			// 6 runs merged into 3 and then into 2, which are read together
+			Assert.assertEquals(2, sorter.getSpilledRuns());
+			assertGroupedBySeries(records);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSortMergesAtLeastTwoRuns() {
+		new ExternalRecordSorter<>(CrossSectionalRecord.BY_SERIES, CrossSectionalRecord.CODEC, 1, 1);
+	}
+
+	@Test
+	public void testSeriesIdentityDoesNotDependOnTheOrderOfTheValues() {
+		LinkedHashMap<String, String> series = new LinkedHashMap<>();
+		series.put("FREQ", "A");
+		series.put("DEMO", "EMIGT");
+		LinkedHashMap<String, String> reordered = new LinkedHashMap<>();
+		reordered.put("DEMO", "EMIGT");
+		reordered.put("FREQ", "A");
+		LinkedHashMap<String, String> withNull = new LinkedHashMap<>();
+		withNull.put("DEMO", "EMIGT");
+		withNull.put("FREQ", null);
+		CrossSectionalRecord record = new CrossSectionalRecord(0, 0, series, "1995", "1", new LinkedHashMap<>());
+		Assert.assertTrue(record.sameSeriesAs(new CrossSectionalRecord(0, 1, reordered, "1994", "2", new LinkedHashMap<>())));
+		Assert.assertFalse(record.sameSeriesAs(new CrossSectionalRecord(1, 1, reordered, "1994", "2", new LinkedHashMap<>())));
+		Assert.assertFalse(record.sameSeriesAs(new CrossSectionalRecord(0, 1, withNull, "1994", "2", new LinkedHashMap<>())));
+	}
+
+	/**
+	 * the observations of three series grouped by time, as read from a cross sectional dataset
+	 */
+	private static void addCrossSectionalObservations(ExternalRecordSorter<CrossSectionalRecord> sorter) throws Exception {
+		long sequence = 0;
+		for (String time : new String[]{"1995", "1994"}) {
+			for (String demo : new String[]{"EMIGT", "IMMIT", "ADJT"}) {
+				LinkedHashMap<String, String> series = new LinkedHashMap<>();
+				series.put("FREQ", "A");
+				series.put("DEMO", demo);
+				LinkedHashMap<String, String> attributes = new LinkedHashMap<>();
+				attributes.put("OBS_STATUS", null);
+				sorter.add(new CrossSectionalRecord(0, sequence++, series, time, demo + time, attributes));
+			}
+		}
+	}
+
+	private static void assertGroupedBySeries(Iterator<CrossSectionalRecord> records) {
+		List<String> values = new ArrayList<>();
+		while (records.hasNext()) {
+			CrossSectionalRecord record = records.next();
+			Assert.assertNull(record.obsAttributeCodes[0]);
+			values.add(record.obsValue);
+		}
+		Assert.assertEquals(6, values.size());
+		// the series sorted by key, the observations of a series in the order they were read
+		Assert.assertEquals("ADJT1995", values.get(0));
+		Assert.assertEquals("ADJT1994", values.get(1));
+		Assert.assertEquals("EMIGT1995", values.get(2));
+		Assert.assertEquals("EMIGT1994", values.get(3));
+		Assert.assertEquals("IMMIT1995", values.get(4));
+		Assert.assertEquals("IMMIT1994", values.get(5));
+	}
+}
@@ -0,0 +1,271 @@
+package org.estat.sdmxsource.engine.reader;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.sdmxsource.sdmx.api.constants.TIME_FORMAT;
+import org.sdmxsource.sdmx.api.engine.DataWriterEngine;
+import org.sdmxsource.sdmx.api.model.beans.base.AnnotationBean;
+import org.sdmxsource.sdmx.api.model.beans.datastructure.CrossSectionalDataStructureBean;
+import org.sdmxsource.sdmx.api.model.beans.datastructure.DataStructureBean;
+import org.sdmxsource.sdmx.api.model.beans.datastructure.DataflowBean;
+import org.sdmxsource.sdmx.api.model.beans.registry.ProvisionAgreementBean;
+import org.sdmxsource.sdmx.api.model.data.KeyValue;
+import org.sdmxsource.sdmx.api.model.header.DatasetHeaderBean;
+import org.sdmxsource.sdmx.api.model.header.HeaderBean;
+import org.sdmxsource.sdmx.api.util.ReadableDataLocation;
+import org.sdmxsource.sdmx.structureparser.manager.parsing.impl.StructureParsingManagerImpl;
+import org.sdmxsource.util.factory.SdmxSourceReadableDataLocationFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads a cross sectional dataset with a group and writes it as time series, with the observations in memory
+ * and with every observation spilled to its own run, more runs than the sorter merges at once.
+ */
+public class WrapperCrossSectionalDataCachingReaderEngineTest {
+
+	private static final String STRUCTURE_FILE = "./src/test/resources/crosssectional/XS_GROUP_DSD_1.0.xml";
+
+	private static final String[] AREAS = {"AT", "BE", "CY", "DE", "FR"};
+
+	private static final String[] INDICATORS = {"I1", "I2", "I3"};
+
+	private static final int PERIODS = 10;
+
+	private static final int FIRST_YEAR = 2000;
+
+	private static CrossSectionalDataStructureBean dataStructure;
+
+	@BeforeClass
+	public static void loadStructure() throws Exception {
+		try (InputStream structure = new FileInputStream(STRUCTURE_FILE)) {
+			ReadableDataLocation location = new SdmxSourceReadableDataLocationFactory().getReadableDataLocation(structure);
+			dataStructure = (CrossSectionalDataStructureBean) new StructureParsingManagerImpl().parseStructures(location)
+					.getStructureBeans(false).getDataStructures().iterator().next();
+			location.close();
+		}
+	}
+
+	@Test
+	public void testSpilledObservationsAreWrittenLikeTheCachedOnes() {
+		Assert.assertTrue(AREAS.length * INDICATORS.length * PERIODS > ExternalRecordSorter.DEFAULT_MAX_FAN_IN);
+		RecordingWriterEngine spilled = convert(1);
+		RecordingWriterEngine cached = convert(Long.MAX_VALUE);
+		Assert.assertEquals(cached.events, spilled.events);
+	}
+
+	@Test
+	public void testSeriesAreWrittenAfterTheGroups() {
+		RecordingWriterEngine writer = convert(1);
+		int firstSeries = writer.events.indexOf("startSeries");
+		Assert.assertTrue(firstSeries > 0);
+		Assert.assertEquals(AREAS.length * INDICATORS.length, writer.groups.size());
+		for (int i = firstSeries; i < writer.events.size(); i++) {
+			Assert.assertFalse(writer.events.get(i), writer.events.get(i).startsWith("startGroup"));
+		}
+		int group = 0;
+		for (String area : AREAS) {
+			for (String indicator : INDICATORS) {
+				Map<String, String> values = writer.groups.get(group++);
+				Assert.assertEquals("SIBLING", values.get("groupId"));
+				Assert.assertEquals(area, values.get("REF_AREA"));
+				Assert.assertEquals(indicator, values.get("INDICATOR"));
+				Assert.assertEquals("Area " + area, values.get("TITLE"));
+			}
+		}
+		Assert.assertTrue(writer.closed);
+	}
+
+	@Test
+	public void testSeriesAreWrittenInTheOrderTheyWereRead() {
+		RecordingWriterEngine writer = convert(1);
+		Assert.assertEquals(AREAS.length * INDICATORS.length, writer.series.size());
+		int series = 0;
+		for (String area : AREAS) {
+			for (String indicator : INDICATORS) {
+				Map<String, String> key = writer.series.get(series);
+				Assert.assertEquals(area, key.get("REF_AREA"));
+				Assert.assertEquals(indicator, key.get("INDICATOR"));
+				// the observations of a series last read first
+				List<String> observations = writer.observations.get(series);
+				Assert.assertEquals(PERIODS, observations.size());
+				for (int period = 0; period < PERIODS; period++) {
+					int year = FIRST_YEAR + PERIODS - 1 - period;
+					Assert.assertEquals(year + "=" + value(area, indicator, year), observations.get(period));
+				}
+				series++;
+			}
+		}
+	}
+
+	private static RecordingWriterEngine convert(long memoryBudget) {
+		ReadableDataLocation location = new SdmxSourceReadableDataLocationFactory()
+				.getReadableDataLocation(new ByteArrayInputStream(crossSectionalXml()));
+		CrossSectionalDataReaderEngine reader = new CrossSectionalDataReaderEngine(location, dataStructure, null);
+		try {
+			WrapperCrossSectionalDataCachingReaderEngine cachingEngine = new WrapperCrossSectionalDataCachingReaderEngine(memoryBudget);
+			cachingEngine.prepareCrossSectionalDataInCacheFromReader(reader);
+			RecordingWriterEngine writer = new RecordingWriterEngine();
+			cachingEngine.writeCrossSectionalData(writer);
+			return writer;
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * one group for each area and period holding the indicators of that area, like {@code SyntheticDataset}
+	 */
+	private static byte[] crossSectionalXml() {
+		StringBuilder xml = new StringBuilder();
+		xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+				.append("<CrossSectionalData xmlns=\"http://www.SDMX.org/resources/SDMXML/schemas/v2_0/message\"")
+				.append(" xmlns:xs=\"urn:sdmx:org.sdmx.infomodel.datastructure.DataStructure=BENCH:XS_GROUP_DSD(1.0):cross\">\n")
+				.append("<Header><ID>XS_GROUP</ID><Test>true</Test><Prepared>2024-01-01T00:00:00</Prepared><Sender id=\"BENCH\"/></Header>\n")
+				.append("<xs:DataSet FREQ=\"A\">\n");
+		for (String area : AREAS) {
+			for (int year = FIRST_YEAR; year < FIRST_YEAR + PERIODS; year++) {
+				xml.append("<xs:Group REF_AREA=\"").append(area).append("\" TIME_PERIOD=\"").append(year)
+						.append("\" TITLE=\"Area ").append(area).append("\"><xs:Section>\n");
+				for (String indicator : INDICATORS) {
+					xml.append("<xs:OBS_VALUE INDICATOR=\"").append(indicator)
+							.append("\" value=\"").append(value(area, indicator, year)).append("\" OBS_STATUS=\"A\"/>\n");
+				}
+				xml.append("</xs:Section></xs:Group>\n");
+			}
+		}
+		xml.append("</xs:DataSet>\n</CrossSectionalData>\n");
+		return xml.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @return a value different for every observation
+	 */
+	private static String value(String area, String indicator, int year) {
+		return String.valueOf(year * 100 + Arrays.asList(AREAS).indexOf(area) * 10 + Arrays.asList(INDICATORS).indexOf(indicator));
+	}
+
+	/**
+	 * Keeps the calls of the caching engine, the keys and attributes of the groups and series by concept.
+	 */
+	private static final class RecordingWriterEngine implements DataWriterEngine {
+
+		final List<String> events = new ArrayList<>();
+		final List<Map<String, String>> groups = new ArrayList<>();
+		final List<Map<String, String>> series = new ArrayList<>();
+		final List<List<String>> observations = new ArrayList<>();
+		boolean closed;
+
+		private Map<String, String> current;
+
+		@Override
+		public void writeHeader(HeaderBean header) {
+			events.add("writeHeader");
+		}
+
+		@Override
+		public void startDataset(DataflowBean dataflow, DataStructureBean dataStructureBean, DatasetHeaderBean header, AnnotationBean... annotations) {
+			events.add("startDataset");
+			current = null;
+		}
+
+		@Override
+		public void startDataset(ProvisionAgreementBean provision, DataflowBean dataflow, DataStructureBean dataStructureBean, DatasetHeaderBean header, AnnotationBean... annotations) {
+			startDataset(dataflow, dataStructureBean, header, annotations);
+		}
+
+		@Override
+		public void startGroup(String groupId, AnnotationBean... annotations) {
+			events.add("startGroup " + groupId);
+			current = new LinkedHashMap<>();
+			current.put("groupId", groupId);
+			groups.add(current);
+		}
+
+		@Override
+		public void startSeries(AnnotationBean... annotations) {
+			events.add("startSeries");
+			current = new LinkedHashMap<>();
+			series.add(current);
+			observations.add(new ArrayList<>());
+		}
+
+		@Override
+		public void writeGroupKeyValue(String id, String value) {
+			events.add("groupKey " + id + "=" + value);
+			current.put(id, value);
+		}
+
+		@Override
+		public void writeSeriesKeyValue(String id, String value) {
+			events.add("seriesKey " + id + "=" + value);
+			current.put(id, value);
+		}
+
+		@Override
+		public void writeAttributeValue(String id, String value) {
+			events.add("attribute " + id + "=" + value);
+			// the attributes of the groups, the ones of the observations are only in the events
+			if (current != null && current.containsKey("groupId")) {
+				current.put(id, value);
+			}
+		}
+
+		@Override
+		public void writeObservation(String obsConceptValue, String obsValue, AnnotationBean... annotations) {
+			events.add("observation " + obsConceptValue + "=" + obsValue);
+			observations.get(observations.size() - 1).add(obsConceptValue + "=" + obsValue);
+		}
+
+		@Override
+		public void writeObservation(String observationConceptId, String obsConceptValue, String obsValue, AnnotationBean... annotations) {
+			writeObservation(obsConceptValue, obsValue, annotations);
+		}
+
+		@Override
+		public void writeObservation(Date obsTime, String obsValue, TIME_FORMAT sdmxTimeFormat, AnnotationBean... annotations) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void writeObservation(String obsConceptValue, AnnotationBean... annotations) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void writeComplexAttributeValue(KeyValue keyValue) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void writeComplexMeasureValue(KeyValue keyValue) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void writeMeasureValue(String id, String value) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void close(FooterMessage... footer) {
+			events.add("close");
+			closed = true;
+		}
+
+		@Override
+		public void close() {
+			close(new FooterMessage[]{});
+		}
+	}
+}